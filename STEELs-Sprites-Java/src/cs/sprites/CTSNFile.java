@@ -0,0 +1,455 @@
+/**
+ * Licenced under MIT.
+ */
+package cs.sprites;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Class modeling the nonvisual layer file exported by STEEL'S Sprite Studio alongside a {@code .ctsa} file. Nonvisual layers are how
+ * hitboxes, hurtboxes, collision masks and similar data are authored, and this file holds each of them for every frame of one animation.
+ * Frame indices are the same as the frame indices of the animation's {@code .ctsa} file, so the frame an animation is currently showing
+ * can be passed straight to the methods of this class.
+ *
+ * <p>
+ * 	The file is memory mapped when it is opened and never copied; every query reads the mapping in place. Each layer of each frame is
+ * 	stored three ways:
+ * 	<ul>
+ * 		<li>
+ * 			a bitmask of the pixels present in the layer, which answers {@link #contains(int, int, int, int) contains} in constant time,
+ * 		</li>
+ * 		<li>
+ * 			runs of pixels of one value in each row, called spans, which give the value of a pixel, and
+ * 		</li>
+ * 		<li>
+ * 			a list of rectangles of one value covering all present pixels, called boxes, for engines that collide axis aligned boxes.
+ * 		</li>
+ * 	</ul>
+ * 	Coordinates start at the bottom left of a frame. The value of a pixel is its color in its layer's palette packed into an {@code int},
+ * 	with the first channel in the highest byte.
+ * </p>
+ * <p>
+ * 	Instances are immutable and may be shared between threads.
+ * </p>
+ */
+public final class CTSNFile {
+	
+	public static final String FILE_EXTENSION = ".ctsn";
+	
+	private static final int
+		MAGIC = 0x4E535443 ,
+		VERSION = 1 ,
+		HEADER_SIZE = 24 ,
+		LAYER_ENTRY_SIZE = 8 ,
+		FRAME_ENTRY_SIZE = 20 ,
+		SPAN_SIZE = 8 ,
+		BOX_SIZE = 12;
+		
+	private final MappedByteBuffer data;
+	
+	private final int
+		frameWidth ,
+		frameHeight ,
+		numberFrames ,
+		numberLayers ,
+		intsPerRow ,
+		frameTable;
+		
+	private final String[] layerNames;
+	
+	/**
+	 * Memory maps the {@code .ctsn} file at {@code filepath}.
+	 *
+	 * @param filepath  file path of a {@code .ctsn} file
+	 * @return The mapped file.
+	 * @throws IOException if the file cannot be mapped or is not a {@code .ctsn} file.
+	 */
+	public static CTSNFile map(String filepath) throws IOException {
+		
+		try(FileChannel channel = FileChannel.open(Paths.get(filepath) , StandardOpenOption.READ)) {
+			
+			MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY , 0 , channel.size());
+			data.order(ByteOrder.LITTLE_ENDIAN);
+			return new CTSNFile(filepath , data);
+			
+		}
+		
+	}
+	
+	private CTSNFile(String filepath , MappedByteBuffer data) throws IOException {
+		
+		this.data = data;
+		if(data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC) throw new IOException(filepath + " is not a .ctsn file.");
+		if(data.getInt(4) != VERSION) throw new IOException(filepath + " has unsupported version " + data.getInt(4) + ".");
+		
+		frameWidth = data.getInt(8);
+		frameHeight = data.getInt(12);
+		numberFrames = data.getInt(16);
+		numberLayers = data.getInt(20);
+		intsPerRow = (frameWidth + 31) >>> 5;
+		frameTable = HEADER_SIZE + LAYER_ENTRY_SIZE * numberLayers;
+		
+		//names are decoded once so layer lookups by name do not allocate
+		layerNames = new String[numberLayers];
+		for(int i = 0 ; i < numberLayers ; i++) {
+			
+			int offset = data.getInt(HEADER_SIZE + LAYER_ENTRY_SIZE * i);
+			byte[] name = new byte[data.getInt(offset)];
+			data.get(offset + Integer.BYTES , name);
+			layerNames[i] = new String(name , StandardCharsets.UTF_8);
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns whether the pixel at {@code (x , y)} is present in layer {@code layer} of frame {@code frame}. Pixels outside the frame are
+	 * never present.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param x  x coordinate of a pixel
+	 * @param y  y coordinate of a pixel
+	 * @return {@code true} if the pixel is present.
+	 */
+	public boolean contains(int frame , int layer , int x , int y) {
+		
+		if(x < 0 || x >= frameWidth || y < 0 || y >= frameHeight) return false;
+		int word = data.getInt(entry(frame , layer) + ((y * intsPerRow + (x >>> 5)) << 2));
+		return (word >>> (x & 31) & 1) != 0;
+		
+	}
+	
+	/**
+	 * Returns whether any pixel of the rectangle whose bottom left pixel is {@code (x , y)} is present in layer {@code layer} of frame
+	 * {@code frame}. This reads the bitmask a row of 32 pixels at a time.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param x  left x coordinate of the rectangle
+	 * @param y  bottom y coordinate of the rectangle
+	 * @param width  width of the rectangle
+	 * @param height  height of the rectangle
+	 * @return {@code true} if any pixel of the rectangle is present.
+	 */
+	public boolean overlaps(int frame , int layer , int x , int y , int width , int height) {
+		
+		int mask = entry(frame , layer);
+		int left = Math.max(x , 0) , right = Math.min(x + width , frameWidth);
+		int bottom = Math.max(y , 0) , top = Math.min(y + height , frameHeight);
+		if(left >= right || bottom >= top) return false;
+		
+		int firstWord = left >>> 5 , lastWord = (right - 1) >>> 5;
+		int firstBits = -1 << (left & 31) , lastBits = -1 >>> (31 - ((right - 1) & 31));
+		for(int row = bottom ; row < top ; row++) for(int word = firstWord ; word <= lastWord ; word++) {
+			
+			int bits = data.getInt(mask + ((row * intsPerRow + word) << 2));
+			if(word == firstWord) bits &= firstBits;
+			if(word == lastWord) bits &= lastBits;
+			if(bits != 0) return true;
+			
+		}
+		
+		return false;
+		
+	}
+	
+	/**
+	 * Returns the value of the pixel at {@code (x , y)} in layer {@code layer} of frame {@code frame}, or {@code absent} if that pixel is
+	 * not present. The spans of the pixel's row are binary searched.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param x  x coordinate of a pixel
+	 * @param y  y coordinate of a pixel
+	 * @param absent  value returned if the pixel is not present
+	 * @return Value of the pixel, or {@code absent}.
+	 */
+	public int value(int frame , int layer , int x , int y , int absent) {
+		
+		if(!contains(frame , layer , x , y)) return absent;
+		
+		int entry = entryOffset(frame , layer);
+		int rowStarts = data.getInt(entry + 4) , spans = data.getInt(entry + 8);
+		int low = data.getInt(rowStarts + (y << 2)) , high = data.getInt(rowStarts + ((y + 1) << 2)) - 1;
+		while(low <= high) {
+			
+			int middle = (low + high) >>> 1;
+			int span = spans + middle * SPAN_SIZE;
+			if(x < data.getShort(span)) high = middle - 1;
+			else if(x >= data.getShort(span + 2)) low = middle + 1;
+			else return data.getInt(span + 4);
+			
+		}
+		
+		return absent;
+		
+	}
+	
+	/**
+	 * Returns the number of spans in row {@code y} of layer {@code layer} of frame {@code frame}.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param y  y coordinate of a row
+	 * @return Number of spans in the row.
+	 */
+	public int numberSpans(int frame , int layer , int y) {
+		
+		int rowStarts = data.getInt(entryOffset(frame , layer) + 4) + (Objects.checkIndex(y , frameHeight) << 2);
+		return data.getInt(rowStarts + 4) - data.getInt(rowStarts);
+		
+	}
+	
+	/**
+	 * Returns the x coordinate of the first pixel of a span.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param y  y coordinate of a row
+	 * @param span  index of a span within the row, ordered by x coordinate
+	 * @return Left x coordinate of the span.
+	 */
+	public int spanX(int frame , int layer , int y , int span) {
+		
+		return data.getShort(span(frame , layer , y , span));
+		
+	}
+	
+	/**
+	 * Returns the x coordinate one past the last pixel of a span.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param y  y coordinate of a row
+	 * @param span  index of a span within the row, ordered by x coordinate
+	 * @return Exclusive right x coordinate of the span.
+	 */
+	public int spanEndX(int frame , int layer , int y , int span) {
+		
+		return data.getShort(span(frame , layer , y , span) + 2);
+		
+	}
+	
+	/**
+	 * Returns the value of the pixels of a span.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param y  y coordinate of a row
+	 * @param span  index of a span within the row, ordered by x coordinate
+	 * @return Value of the span.
+	 */
+	public int spanValue(int frame , int layer , int y , int span) {
+		
+		return data.getInt(span(frame , layer , y , span) + 4);
+		
+	}
+	
+	/**
+	 * Returns the number of boxes of layer {@code layer} of frame {@code frame}.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @return Number of boxes.
+	 */
+	public int numberBoxes(int frame , int layer) {
+		
+		return data.getInt(entryOffset(frame , layer) + 16);
+		
+	}
+	
+	/**
+	 * Returns the left x coordinate of a box.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param box  index of a box
+	 * @return Left x coordinate of the box.
+	 */
+	public int boxX(int frame , int layer , int box) {
+		
+		return data.getShort(box(frame , layer , box));
+		
+	}
+	
+	/**
+	 * Returns the bottom y coordinate of a box.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param box  index of a box
+	 * @return Bottom y coordinate of the box.
+	 */
+	public int boxY(int frame , int layer , int box) {
+		
+		return data.getShort(box(frame , layer , box) + 2);
+		
+	}
+	
+	/**
+	 * Returns the width of a box.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param box  index of a box
+	 * @return Width of the box.
+	 */
+	public int boxWidth(int frame , int layer , int box) {
+		
+		return data.getShort(box(frame , layer , box) + 4);
+		
+	}
+	
+	/**
+	 * Returns the height of a box.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param box  index of a box
+	 * @return Height of the box.
+	 */
+	public int boxHeight(int frame , int layer , int box) {
+		
+		return data.getShort(box(frame , layer , box) + 6);
+		
+	}
+	
+	/**
+	 * Returns the value of the pixels of a box.
+	 *
+	 * @param frame  index of a frame
+	 * @param layer  index of a layer
+	 * @param box  index of a box
+	 * @return Value of the box.
+	 */
+	public int boxValue(int frame , int layer , int box) {
+		
+		return data.getInt(box(frame , layer , box) + 8);
+		
+	}
+	
+	/**
+	 * Returns the index of the layer named {@code name}, or -1 if there is none. Queries should look up their layers once and keep the
+	 * index.
+	 *
+	 * @param name  name of a layer
+	 * @return Index of the layer, or -1.
+	 */
+	public int layerIndex(String name) {
+		
+		for(int i = 0 ; i < numberLayers ; i++) if(layerNames[i].equals(name)) return i;
+		return -1;
+		
+	}
+	
+	/**
+	 * Returns the name of a layer.
+	 *
+	 * @param layer  index of a layer
+	 * @return Name of the layer.
+	 */
+	public String layerName(int layer) {
+		
+		return layerNames[layer];
+		
+	}
+	
+	/**
+	 * Returns the number of bytes of a pixel of a layer, from 1 to 4.
+	 *
+	 * @param layer  index of a layer
+	 * @return Bytes per pixel of the layer.
+	 */
+	public int layerBytesPerPixel(int layer) {
+		
+		return data.getInt(HEADER_SIZE + LAYER_ENTRY_SIZE * Objects.checkIndex(layer , numberLayers) + 4);
+		
+	}
+	
+	/**
+	 * Returns the number of layers of each frame.
+	 *
+	 * @return Number of layers.
+	 */
+	public int numberLayers() {
+		
+		return numberLayers;
+		
+	}
+	
+	/**
+	 * Returns the number of frames of the animation modeled by this file.
+	 *
+	 * @return Number of frames.
+	 */
+	public int numberFrames() {
+		
+		return numberFrames;
+		
+	}
+	
+	/**
+	 * Returns the width in pixels of a frame.
+	 *
+	 * @return Width of a frame.
+	 */
+	public int frameWidth() {
+		
+		return frameWidth;
+		
+	}
+	
+	/**
+	 * Returns the height in pixels of a frame.
+	 *
+	 * @return Height of a frame.
+	 */
+	public int frameHeight() {
+		
+		return frameHeight;
+		
+	}
+	
+	private int entryOffset(int frame , int layer) {
+		
+		Objects.checkIndex(frame , numberFrames);
+		Objects.checkIndex(layer , numberLayers);
+		return frameTable + (frame * numberLayers + layer) * FRAME_ENTRY_SIZE;
+		
+	}
+	
+	/**
+	 * Offset of the bitmask of a layer of a frame.
+	 */
+	private int entry(int frame , int layer) {
+		
+		return data.getInt(entryOffset(frame , layer));
+		
+	}
+	
+	private int span(int frame , int layer , int y , int span) {
+		
+		int entry = entryOffset(frame , layer);
+		int rowStart = data.getInt(entry + 4) + (Objects.checkIndex(y , frameHeight) << 2);
+		int first = data.getInt(rowStart);
+		Objects.checkIndex(span , data.getInt(rowStart + 4) - first);
+		return data.getInt(entry + 8) + (first + span) * SPAN_SIZE;
+		
+	}
+	
+	private int box(int frame , int layer , int box) {
+		
+		int entry = entryOffset(frame , layer);
+		return data.getInt(entry + 12) + Objects.checkIndex(box , data.getInt(entry + 16)) * BOX_SIZE;
+		
+	}
+	
+}
@@ -1,4 +1,8 @@
-from cs.csss.utils import ScriptingUtils
+'''
+Fills the artboard with a blue gradient. The gradient is computed by a function Java invokes for each pixel, and the whole artboard is read
+and written in one call each.
+'''
+from cs.csss.project.utils import PixelRegions
 from cs.csss.editor.event import CSSSEvent
 
 isRenderEvent = True
@@ -14,34 +18,18 @@ class ColoredGradientEvent(CSSSEvent):
 		self.editor = editor
 
 	def _do(self):
-		row = 0
-		col = 0
 		artboard = self.artboard
-		height = artboard.height()
-		width = artboard.width()
+		height = float(artboard.height())
+		width = float(artboard.width())
 		length = artboard.activeLayerChannelsPerPixel()
 
-		colorArray = ScriptingUtils.bytes(length)
-		colorArray[length - 1] = -1
+		#colors are packed with the first channel in the highest byte, blue is the third channel and the alpha of four channel colors is 
+		#fully opaque
+		blueShift = 8 * (length - 3) if length > 2 else 0
+		alpha = 0xff if length == 4 else 0
 
-		channelValue = 0
-		channelValueAsByte = 0 
+		def gradient(x , y , color):
+			channelValue = int((x / width * 127) + (y / height * 128)) & 0xff
+			return (channelValue << blueShift) | alpha
 
-		while row < height:
-
-			heightwisePercentage = float(row) / float(height)
-
-			while col < width:
-
-				widthwisePercentage = float(col) / float(width)
-				channelValue = (widthwisePercentage * 127) + (heightwisePercentage * 128)
-				channelValueAsByte = ScriptingUtils.doubleToByte(channelValue)
-				colorArray[0] = 0
-				colorArray[1] = 0
-				colorArray[2] = channelValueAsByte
-				pixelColor = artboard.createPalettePixel(colorArray)
-				artboard.putColorInImage(col , row , 1 , 1 , pixelColor)
-				col = col + 1
-
-			col = 0
-			row = row + 1
+		PixelRegions.mapColors(artboard , 0 , 0 , artboard.width() , artboard.height() , gradient)
@@ -1,3 +1,8 @@
+'''
+Fills the artboard with a gray gradient. Rows of colors are computed in parallel on worker threads into one array, which is written to the
+artboard in one call.
+'''
+from cs.csss.project.utils import PixelRegions
 from cs.csss.utils import ScriptingUtils2
 
 def GrayGradient(artboard , editor):
@@ -13,44 +18,36 @@ class GrayGradientEvent:
 		self.editor = editor
 
 	def _do(self):
-		row = 0
-		col = 0
 		artboard = self.artboard
 		height = artboard.height()
 		width = artboard.width()
 		length = artboard.activeLayerChannelsPerPixel()
+		colors = ScriptingUtils2.bytes(width * height * length)
 
-		colorArray = ScriptingUtils2.bytes(length)
-		#sets the last byte to 255
-		#TODO: do programmatically to acommodate different number of channels pixels
-		colorArray[length - 1] = -1
-
-		channelValue = 0
-		channelValueAsByte = 0 
-
-		while row < height:
-
+		#invoked for each row on worker threads, each row writes only its own part of colors
+		def fillRow(row):
 			heightwisePercentage = float(row) / float(height)
-
+			offset = row * width * length
+			col = 0
 			while col < width:
-
 				widthwisePercentage = float(col) / float(width)
-				channelValue = (widthwisePercentage * 127) + (heightwisePercentage * 128)
-				channelValueAsByte = ScriptingUtils2.doubleToByte(channelValue)
+				channelValue = int((widthwisePercentage * 127) + (heightwisePercentage * 128))
+				#java bytes are signed
+				if channelValue > 127:
+					channelValue = channelValue - 256
 
-				#sets the values of the array to the value of the pixel at the current position
-				#TODO: do programmatically to acommodate different number of channels pixels
+				#every channel but the last is the gray value, the last is fully opaque
 				i = 0
-				while i < length -1:
-					colorArray[i] = channelValueAsByte
+				while i < length - 1:
+					colors[offset + i] = channelValue
 					i = i + 1
 
-				pixelColor = artboard.createPalettePixel(colorArray)
-				artboard.putColorInImage(col , row , 1 , 1 , pixelColor)
+				colors[offset + length - 1] = -1
+				offset = offset + length
 				col = col + 1
 
-			col = 0
-			row = row + 1
+		PixelRegions.forEachRowParallel(0 , height , fillRow)
+		PixelRegions.writeColors(artboard , 0 , 0 , width , height , colors)
 
 	def undo(self):
 		self.artboard.setToCheckeredBackground()
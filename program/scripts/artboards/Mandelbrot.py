@@ -5,17 +5,20 @@ https://en.wikipedia.org/wiki/Mandelbrot_set
 Normalization function based on
 https://stats.stackexchange.com/questions/281162/scale-a-number-between-a-range
 
-This implementation is not optimized and may lock up the program for a time, especially for large artboards and slower machines.
+This script runs in the background, so the program stays responsive while the set is computed. Rows of the set are computed in parallel on
+worker threads and staged, and the artboard is modified in one undoable step once every row is done. The script can be cancelled from the
+Running Script panel, and is stopped if it runs longer than the time budget set there.
 
 '''
 
+from cs.csss.project.utils import PixelRegions
 from cs.csss.utils import ScriptingUtils2
 from java.lang import Math
-from java.util import ArrayList
 
-isRenderEvent = True
+isRenderEvent = False
 isTransientEvent = False
 takesArguments = True
+runsInBackground = True
 argumentDialogueText = "Input the number of iterations. Default iterations to 1000."
 
 def Mandelbrot(artboard , editor , arguments):
@@ -30,40 +33,43 @@ class MandelbrotEvent:
 		self.artboard = artboard
 		self.editor = editor
 		self.iterations = int(arguments.get(0))
-		self.palette = ArrayList(self.iterations)
 		self.width = artboard.width()
 		self.height = artboard.height()
 
-	def _do(self):
-		self.initializePalette(self.artboard)
-		row = 0
-		col = 0
-		while row < self.height:
-			y0 = self.mandelbrotNormalize(False , row)
+	#invoked on a worker thread, writes the set into region and reports each finished row to task
+	def run(self , region , task):
+		palette = self.initializePalette()
+		width = self.width
+		iterations = self.iterations
+		task.total(self.height)
 
-			while col < self.width:
+		#invoked for each row on worker threads
+		def computeRow(row):
+			rowColors = ScriptingUtils2.ints(width)
+			y0 = self.mandelbrotNormalize(False , row)
+			col = 0
+			while col < width:
 				x0 = self.mandelbrotNormalize(True , col)
 				x = 0
 				y = 0
 				i = 0
 
-				while (x * x) + (y * y) <= 4 and i < self.iterations:
+				while (x * x) + (y * y) <= 4 and i < iterations:
 					xtemp = (x * x) - (y * y) + x0
 					y = (2 * x * y) + y0
 					x = xtemp
 					i = i + 1
 
-				if(i == self.iterations):
-					i = self.iterations - 1
+				if(i == iterations):
+					i = iterations - 1
 
-				self.artboard.putColorInImage(col , row , 1 , 1 , self.palette.get(i))
-				col = col + 1			
+				rowColors[col] = palette[i]
+				col = col + 1
 
-			col = 0
-			row = row + 1
+			region.putRow(row , rowColors)
+			task.advance(1)
 
-	def undo(self):
-		self.artboard.setToCheckeredBackground()
+		PixelRegions.forEachRowParallel(0 , self.height , computeRow)
 
 	def mandelbrotNormalize(self , isX , coordinate):
 		if isX:
@@ -71,18 +77,27 @@ class MandelbrotEvent:
 		else:
 			return (float(coordinate)) / (self.height) * ((self.MANDELBROT_Y_SCALE_MAX) - (self.MANDELBROT_Y_SCALE_MIN)) + (self.MANDELBROT_Y_SCALE_MIN)
 
-	def initializePalette(self , artboard):	
+	#returns the packed color of each number of iterations
+	def initializePalette(self):
+		palette = []
 		i = 0
-		colorArray = ScriptingUtils2.bytes(4)		
-		colorArray[3] = -1
-		
 		while i < self.iterations:
-			colorArray[0] = ScriptingUtils2.doubleToByte(Math.abs(Math.pow(i , i)))
-			colorArray[1] = ScriptingUtils2.doubleToByte(Math.abs(Math.pow(i , 2)))
-			colorArray[2] = ScriptingUtils2.doubleToByte(Math.abs(Math.pow(i , 3)))
-			self.putPixel(artboard , colorArray)
+			red = self.toChannel(Math.abs(Math.pow(i , i)))
+			green = self.toChannel(Math.abs(Math.pow(i , 2)))
+			blue = self.toChannel(Math.abs(Math.pow(i , 3)))
+			color = (red << 24) | (green << 16) | (blue << 8) | 0xff
+			#java ints are signed
+			if color > 0x7fffffff:
+				color = color - 0x100000000
+
+			palette.append(color)
 			i = i + 1
-	
-	def putPixel(self , artboard , colorArray):
-		pixel = self.artboard.createPalettePixel(colorArray)
-		self.palette.add(pixel)
\ No newline at end of file
+
+		return palette
+
+	#narrows a positive double to a channel value the way java narrows a double to a byte
+	def toChannel(self , value):
+		if value > 2147483647:
+			return 0xff
+
+		return int(value) & 0xff
@@ -42,6 +42,13 @@ have your isTransientEvent() return False.
 What is 'shutDown()?'
 This is another optional method which can be created if your event contains memory, whether a pointer, a file, or something else, that needs to be manually freed. 
 
+What is 'runsInBackground?'
+An optional variable which, if True, makes your event run on a background thread so the program stays responsive while it works. Instead of _do() and undo(), the returned 
+object must have a run(region , task) method. region is a StagedRegion covering the artboard, into which you put colors packed into ints with the first channel in the highest 
+byte, and task lets you report progress via task.total() and task.advance(). Once run() returns, the colors you put are applied to the artboard in one step, which Sprite 
+Studio can undo and redo by itself. The user can cancel your script, and it is stopped if it runs longer than the time budget, in which case the next put or advance raises 
+an exception and nothing is applied. Your script must not modify the artboard directly from run(). See Mandelbrot.py for an example.
+
 Some additional tips:
 
 1) You should launch Sprite Studio with a console so you can see the outputs of print statements.
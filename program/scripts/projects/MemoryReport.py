@@ -0,0 +1,35 @@
+'''
+
+Prints the memory the session is using: totals against the memory budget, each artboard, palette and undo event, and the off-heap
+memory of each allocation tag. Heap sizes are estimates.
+
+'''
+from cs.csss.engine import MemoryAccounting
+
+isRenderEvent = False
+isTransientEvent = True
+
+def MemoryReport(project , editor):
+	return PrintMemoryReportEvent(editor)
+
+def megabytes(bytes):
+	return '%.2f MB' % (bytes / (1024.0 * 1024.0))
+
+class PrintMemoryReportEvent:
+	def __init__(self , editor):
+		self.editor = editor
+
+	def _do(self):
+		report = MemoryAccounting.refresh(self.editor.memoryReport)
+		print('Heap %s, off-heap %s, VRAM %s, budget %s' % (
+			megabytes(report.heapBytes()) ,
+			megabytes(report.offHeapBytes()) ,
+			megabytes(report.vramBytes()) ,
+			megabytes(MemoryAccounting.budgetBytes())
+		))
+
+		for usage in list(report.artboards()) + list(report.palettes()) + list(report.undoEvents()):
+			print('%s: heap %s, off-heap %s, VRAM %s' % (usage.name() , megabytes(usage.heapBytes()) , megabytes(usage.offHeapBytes()) , megabytes(usage.vramBytes())))
+
+		for tag in report.offHeapByTag().keySet():
+			print('%s: %s' % (tag , megabytes(report.offHeapByTag().get(tag))))
@@ -1,7 +1,7 @@
 '''
 '''
 from cs.csss.engine import Control
-from cs.csss.project.utils import Artboards
+from cs.csss.project.utils import PixelRegions
 from cs.csss.utils import ScriptingUtils2
 from cs.csss.editor.brush import CSSSSelectingBrush
 from cs.csss.editor.event import CSSSEvent
@@ -46,40 +46,32 @@ class GradientRegionEvent(CSSSEvent):
 		self.bottomY = indices[1]
 		self.width = width
 		self.height = height
-		self.regionPreviousContents = artboard.getRegionOfLayerPixels(self.leftX , self.bottomY , width , height)
+		self.previousLookups = PixelRegions.readLookups(artboard , self.leftX , self.bottomY , width , height)
 
 	def _do(self):
-		regionIter = Artboards.region(self.leftX , self.bottomY , self.width , self.height)
-		regionSpaceIter = Artboards.region(0 , 0 , self.width , self.height)
+		leftX = self.leftX
+		bottomY = self.bottomY
+		width = float(self.width)
+		height = float(self.height)
 		length = self.artboard.activeLayerChannelsPerPixel()
-		colorArray = ScriptingUtils2.bytes(length)
-		colorArray[length - 1] = -1
-		channelValue = 0
-		channelValueAsByte = 0
-		while regionIter.hasNext():
-			regionIndices = regionIter.next()
-			regionSpaceIndices = regionSpaceIter.next()
-			heightwisePercentage = float(regionSpaceIndices[1]) / float(self.height)
-			widthwisePercentage = float(regionSpaceIndices[0]) / float(self.width)
-			channelValue = (widthwisePercentage * 127) + (heightwisePercentage * 127)
-			channelValueAsByte = ScriptingUtils2.doubleToByte(channelValue)
-			#sets up color array
-			i = 0
-			while i < length -1:
-				colorArray[i] = channelValueAsByte
-				i = i + 1
 
-			pixelColor = self.artboard.createPalettePixel(colorArray)
-			self.artboard.putColorInImage(regionIndices[0] , regionIndices[1] , 1 , 1 , pixelColor)
+		#multiplying a channel value by this repeats it in every channel but the last
+		gray = 0
+		i = 0
+		while i < length - 1:
+			gray = (gray << 8) | 1
+			i = i + 1
+
+		def gradient(x , y , color):
+			channelValue = int((float(x - leftX) / width * 127) + (float(y - bottomY) / height * 127))
+			packed = ((channelValue * gray) << 8) | 0xff
+			#java ints are signed
+			if packed > 0x7fffffff:
+				packed = packed - 0x100000000
+
+			return packed
+
+		PixelRegions.mapColors(self.artboard , leftX , bottomY , self.width , self.height , gradient)
 
 	def undo(self):
-		regionIter = Artboards.region(self.leftX , self.bottomY , self.width , self.height)
-		regionSpaceIter = Artboards.region(0 , 0 , self.width , self.height)
-		while regionIter.hasNext():
-			regionIndices = regionIter.next()
-			regionSpaceIndices = regionSpaceIter.next()
-			nextPixel = self.regionPreviousContents[regionSpaceIndices[1]][regionSpaceIndices[0]]
-			if nextPixel == None:
-				self.artboard.removePixel(regionIndices[0] , regionIndices[1])
-			else:
-				self.artboard.putColorInImage(regionIndices[0] , regionIndices[1] , 1 , 1 , nextPixel)
+		PixelRegions.writeLookups(self.artboard , self.leftX , self.bottomY , self.width , self.height , self.previousLookups)
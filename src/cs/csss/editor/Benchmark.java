@@ -0,0 +1,74 @@
+package cs.csss.editor;
+
+import java.util.function.Consumer;
+
+import cs.csss.engine.Engine;
+
+/**
+ * Debug routines of {@link Benchmarks} which can be started from the UI through {@link Editor#benchmark(Benchmark)}. Each routine runs on
+ * the render thread and logs its results.
+ */
+public enum Benchmark {
+	
+	/**
+	 * Measures how long it takes to hide and show a layer filling a 2048 x 2048 artboard.
+	 */
+	LAYER_TOGGLE("Layer Toggle" , Benchmarks::layerToggle) ,
+	
+	/**
+	 * Measures how long it takes to reset and rasterize large filled shapes.
+	 */
+	SHAPES("Shapes" , Benchmarks::shapes) ,
+	
+	/**
+	 * Measures picking, collision and culling queries against a project of 5000 artboards, with and without the artboard grid.
+	 */
+	ARTBOARD_INDEX("Artboard Index" , Benchmarks::artboardIndex) ,
+	
+	/**
+	 * Measures the per frame project queries of the artboard and animation panels on a project of 5000 artboards.
+	 */
+	PROJECT_QUERIES("Project Queries" , Benchmarks::projectQueries) ,
+	
+	/**
+	 * Measures how long it takes to fill an artboard one pixel at a time and through the bulk region methods scripts use.
+	 */
+	PIXEL_REGIONS("Pixel Regions" , Benchmarks::pixelRegions) ,
+	
+	/**
+	 * Measures how long it takes to outline a sprite on a 1024 x 1024 artboard with a per pixel script loop and with the pixel filters.
+	 */
+	PIXEL_FILTERS("Pixel Filters" , Benchmarks::pixelFilters) ,
+	
+	/**
+	 * Measures the per call overhead of running script functions in a fresh interpreter and in a pooled one.
+	 */
+	SCRIPT_CALLS("Script Calls" , engine -> Benchmarks.scriptCalls()) ,
+	
+	/**
+	 * Measures how long it takes to import a 4096 x 4096 photograph and an image of few colors into an artboard.
+	 */
+	IMAGE_IMPORT("Image Import" , Benchmarks::imageImport)
+	;
+	
+	/**
+	 * Name of this benchmark as shown in the UI.
+	 */
+	public final String displayName;
+	
+	private final Consumer<Engine> routine;
+	
+	Benchmark(String displayName , Consumer<Engine> routine) {
+		
+		this.displayName = displayName;
+		this.routine = routine;
+		
+	}
+	
+	void run(Engine engine) {
+		
+		routine.accept(engine);
+		
+	}
+	
+}
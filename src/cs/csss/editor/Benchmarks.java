@@ -0,0 +1,633 @@
+package cs.csss.editor;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.python.core.PyCode;
+import org.python.core.PyObject;
+import org.python.core.adapter.ClassicPyObjectAdapter;
+import org.python.util.PythonInterpreter;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.editor.JythonScriptExecutor.CompiledScript;
+import cs.csss.editor.shape.Ellipse;
+import cs.csss.editor.shape.Rectangle;
+import cs.csss.editor.shape.Shape;
+import cs.csss.engine.ChannelBuffer;
+import cs.csss.engine.Engine;
+import cs.csss.engine.LatencyHistogram;
+import cs.csss.engine.Logging;
+import cs.csss.misc.utils.FlexableGraphic;
+import cs.csss.project.Animation;
+import cs.csss.project.Artboard;
+import cs.csss.project.ArtboardGrid;
+import cs.csss.project.CSSSProject;
+import cs.csss.project.VisualLayer;
+import cs.csss.project.io.ImageImporter;
+import cs.csss.project.utils.PixelFilters;
+import cs.csss.project.utils.PixelRegions;
+import cs.csss.utils.CollisionUtils;
+import sc.core.binary.SCGraphic;
+
+/**
+ * Debug routines measuring the performance of editor operations. Each routine times an operation some number of times and logs the results.
+ * Routines which need a project create one for themselves and free it afterward.
+ */
+final class Benchmarks {
+	
+	private static final ChannelBuffer RED = new ChannelBuffer((byte)0xff , (byte)0 , (byte)0 , (byte)0xff);
+	
+	private Benchmarks() {}
+	
+	/**
+	 * Measures how long it takes to hide and show a layer filling a 2048 x 2048 artboard.
+	 * 
+	 * @param engine the engine
+	 */
+	@RenderThreadOnly static void layerToggle(Engine engine) {
+		
+		int size = 2048 , toggles = 20;
+		
+		CSSSProject project = project(engine , "layer toggle benchmark");
+		Artboard artboard = project.createArtboard("0" , size , size);
+		
+		VisualLayer layer = artboard.getVisualLayer(0);
+		artboard.setActiveLayer(layer);
+		artboard.putColorInImage(0 , 0 , size , size , RED);
+		
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i = 0 ; i < toggles ; i++) {
+			
+			long start = System.nanoTime();
+			artboard.toggleHideLayer(layer);
+			histogram.record(System.nanoTime() - start);
+			
+		}
+		
+		log(String.format("Layer toggle on %dx%d artboard" , size , size) , histogram);		
+		project.shutDown();
+		
+	}
+	
+	/**
+	 * Measures how long it takes to reset a filled 1000 x 1000 ellipse and rectangle at a range of sizes, as happens while resizing them, and
+	 * how long it takes to rasterize them.
+	 * 
+	 * @param engine the engine
+	 */
+	@RenderThreadOnly static void shapes(Engine engine) {
+		
+		int size = 2048 , diameter = 1000 , resizes = 30 , rasterizes = 5;
+		
+		CSSSProject project = project(engine , "shapes benchmark");
+		Artboard artboard = project.createArtboard("0" , size , size);
+		artboard.setActiveLayer(artboard.getVisualLayer(0));
+		
+		Ellipse ellipse = new Ellipse(artboard.midX() , artboard.midY() , diameter / 2 , diameter / 2 , RED , 4 , true , true);
+		Rectangle rectangle = new Rectangle((int)artboard.midX() , (int)artboard.midY() , diameter , diameter , RED , 4 , true , true);
+		
+		for(Shape shape : new Shape[] {ellipse , rectangle}) {
+			
+			String name = shape.getClass().getSimpleName();
+			
+			LatencyHistogram resetHistogram = new LatencyHistogram();
+			for(int i = 0 ; i < resizes ; i++) {
+				
+				shape.dimensions(diameter + i , diameter + i);
+				long start = System.nanoTime();
+				shape.reset();
+				resetHistogram.record(System.nanoTime() - start);
+				
+			}
+			
+			LatencyHistogram rasterizeHistogram = new LatencyHistogram();
+			for(int i = 0 ; i < rasterizes ; i++) {
+				
+				long start = System.nanoTime();
+				shape.rasterize(artboard);
+				rasterizeHistogram.record(System.nanoTime() - start);
+				
+			}
+			
+			log(String.format("Filled %s reset at about %dx%d" , name , diameter , diameter) , resetHistogram);
+			log(String.format("Filled %s rasterize at about %dx%d" , name , diameter , diameter) , rasterizeHistogram);
+			shape.shutDown();
+			
+		}
+		
+		project.shutDown();
+		
+	}
+	
+	/**
+	 * Measures cursor picking, collision queries and culling queries against a project of 5000 artboards laid out in a grid, using the 
+	 * project's {@link ArtboardGrid} and using a linear scan of every artboard.
+	 * 
+	 * @param engine the engine
+	 */
+	@RenderThreadOnly static void artboardIndex(Engine engine) {
+		
+		int columns = 100 , rows = 50 , size = 32 , spacing = 48 , queries = 1000 , samples = 30;
+		int viewWidth = 1920 , viewHeight = 1080;
+		
+		CSSSProject project = project(engine , "artboard index benchmark");
+		List<Artboard> artboards = project.createArtboards(columns * rows , size , size);
+		for(int i = 0 ; i < artboards.size() ; i++) artboards.get(i).moveTo((i % columns) * spacing , (i / columns) * spacing);
+		
+		ArtboardGrid grid = project.artboardGrid();
+		List<Artboard> results = new ArrayList<>();
+		Random random = new Random(7);
+		int worldWidth = columns * spacing , worldHeight = rows * spacing;
+		
+		LatencyHistogram gridPicks = new LatencyHistogram() , linearPicks = new LatencyHistogram();
+		LatencyHistogram gridCollisions = new LatencyHistogram() , linearCollisions = new LatencyHistogram();
+		LatencyHistogram gridCulls = new LatencyHistogram() , linearCulls = new LatencyHistogram();
+		int found = 0;
+		
+		for(int sample = 0 ; sample < samples ; sample++) {
+			
+			float[] points = new float[queries * 2];
+			for(int i = 0 ; i < points.length ; i += 2) {
+				
+				points[i] = random.nextFloat() * worldWidth;
+				points[i + 1] = random.nextFloat() * worldHeight;
+				
+			}
+			
+			long start = System.nanoTime();
+			for(int i = 0 ; i < points.length ; i += 2) if(grid.pick(points[i] , points[i + 1]) != null) found++;
+			gridPicks.record(System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			for(int i = 0 ; i < points.length ; i += 2) for(Artboard x : artboards) if(x.isCursorInBounds(points[i] , points[i + 1])) {
+				
+				found++;
+				break;
+				
+			}
+			
+			linearPicks.record(System.nanoTime() - start);
+			
+			Artboard moving = artboards.get(random.nextInt(artboards.size()));
+			start = System.nanoTime();
+			for(int i = 0 ; i < queries ; i++) {
+				
+				grid.query(moving.leftX() , moving.bottomY() , moving.rightX() , moving.topY() , results);
+				for(Artboard x : results) if(x != moving && CollisionUtils.colliding(moving.positions , x.positions)) found++;
+				
+			}
+			
+			gridCollisions.record(System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			for(int i = 0 ; i < queries ; i++) {
+				
+				for(Artboard x : artboards) if(x != moving && CollisionUtils.colliding(moving.positions , x.positions)) found++;
+				
+			}
+			
+			linearCollisions.record(System.nanoTime() - start);
+			
+			float viewLeftX = points[0] - viewWidth / 2 , viewBottomY = points[1] - viewHeight / 2;
+			start = System.nanoTime();
+			for(int i = 0 ; i < queries ; i++) {
+				
+				grid.query(viewLeftX , viewBottomY , viewLeftX + viewWidth , viewBottomY + viewHeight , results);
+				found += results.size();
+				
+			}
+			
+			gridCulls.record(System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			for(int i = 0 ; i < queries ; i++) for(Artboard x : artboards) if(
+				x.rightX() >= viewLeftX && x.leftX() <= viewLeftX + viewWidth && 
+				x.topY() >= viewBottomY && x.bottomY() <= viewBottomY + viewHeight
+			) found++;
+			
+			linearCulls.record(System.nanoTime() - start);
+			
+		}
+		
+		String suffix = String.format(" x%d over %d artboards" , queries , artboards.size());
+		log("Grid cursor picks" + suffix , gridPicks);
+		log("Linear cursor picks" + suffix , linearPicks);
+		log("Grid collision checks" + suffix , gridCollisions);
+		log("Linear collision checks" + suffix , linearCollisions);
+		log(String.format("Grid %dx%d culls" , viewWidth , viewHeight) + suffix , gridCulls);
+		log(String.format("Linear %dx%d culls" , viewWidth , viewHeight) + suffix , linearCulls);
+		Logging.sysDebugln("(" + found + " hits)");
+		
+		project.shutDown();
+		
+	}
+	
+	/**
+	 * Measures the project queries the artboard and animation panels make every frame, and lookups of artboards by name and membership, 
+	 * against a project of 5000 artboards, 2000 of which are in 50 animations and 400 of which also have shallow copies in a second 
+	 * animation.
+	 * 
+	 * @param engine the engine
+	 */
+	@RenderThreadOnly static void projectQueries(Engine engine) {
+		
+		int numberArtboards = 5000 , numberAnimations = 50 , framesPerAnimation = 40 , copiedAnimations = 10 , frames = 100 , lookups = 1000;
+		
+		CSSSProject project = project(engine , "project queries benchmark");
+		List<Artboard> artboards = project.createArtboards(numberArtboards , 8 , 8);
+		List<Animation> animations = new ArrayList<>();
+		for(int i = 0 ; i < numberAnimations ; i++) {
+			
+			Animation animation = project.createAnimation(String.valueOf(i));
+			animations.add(animation);
+			for(int j = 0 ; j < framesPerAnimation ; j++) project.appendArtboardToAnimation(animation , artboards.get(i * framesPerAnimation + j));
+			
+		}
+		
+		//adding artboards that are already in an animation to another one makes shallow copies of them
+		for(int i = 0 ; i < copiedAnimations ; i++) for(int j = 0 ; j < framesPerAnimation ; j++) {
+			
+			project.appendArtboardToAnimation(animations.get(i) , artboards.get((i + 1) * framesPerAnimation + j));
+			
+		}
+		
+		LatencyHistogram artboardPanel = new LatencyHistogram() , animationPanel = new LatencyHistogram() , byName = new LatencyHistogram();
+		Random random = new Random(41);
+		int[] found = {0};
+		for(int frame = 0 ; frame < frames ; frame++) {
+			
+			long start = System.nanoTime();
+			found[0] += project.getNumberNonCopiedArtboards();
+			project.forEachArtboard(artboard -> {
+				
+				if(project.isCopy(artboard) || project.isLoose(artboard)) found[0]++;
+				
+			});
+			
+			artboardPanel.record(System.nanoTime() - start);
+			
+			Animation animation = animations.get(frame % copiedAnimations);
+			start = System.nanoTime();
+			project.forValidArtboardsForAnimation(animation , artboard -> found[0]++);
+			animationPanel.record(System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			for(int i = 0 ; i < lookups ; i++) {
+				
+				Artboard artboard = project.getArtboard(String.valueOf(random.nextInt(numberArtboards)));
+				if(animation.hasArtboard(artboard) || project.containsArtboard(artboard)) found[0]++;
+				
+			}
+			
+			byName.record(System.nanoTime() - start);
+			
+		}
+		
+		String suffix = String.format(" over %d artboards" , project.getNumberNonCopiedArtboards());
+		log("Artboard panel queries" + suffix , artboardPanel);
+		log("Animation panel valid artboards" + suffix , animationPanel);
+		log(String.format("%d name and membership lookups" , lookups) + suffix , byName);
+		Logging.sysDebugln("(" + found[0] + " hits)");
+		
+		project.shutDown();
+		
+	}
+	
+	/**
+	 * Measures how long it takes to fill a 256 x 256 artboard with a gradient one pixel at a time, as scripts did before the bulk region
+	 * methods existed, and through {@link PixelRegions}.
+	 * 
+	 * @param engine the engine
+	 */
+	@RenderThreadOnly static void pixelRegions(Engine engine) {
+		
+		int size = 256 , runs = 5;
+		
+		CSSSProject project = project(engine , "pixel regions benchmark");
+		Artboard artboard = project.createArtboard("0" , size , size);
+		artboard.setActiveLayer(artboard.getVisualLayer(0));
+		int channels = artboard.activeLayerChannelsPerPixel();
+		
+		byte[] colors = new byte[size * size * channels];
+		for(int row = 0 ; row < size ; row++) for(int col = 0 ; col < size ; col++) {
+			
+			int offset = (row * size + col) * channels;
+			for(int i = 0 ; i < channels - 1 ; i++) colors[offset + i] = (byte)((col * 127) / size + (row * 128) / size);
+			colors[offset + channels - 1] = (byte)0xff;
+			
+		}
+		
+		LatencyHistogram perPixel = new LatencyHistogram() , bulk = new LatencyHistogram() , mapped = new LatencyHistogram();
+		byte[] color = new byte[channels];
+		for(int i = 0 ; i < runs ; i++) {
+			
+			long start = System.nanoTime();
+			for(int row = 0 ; row < size ; row++) for(int col = 0 ; col < size ; col++) {
+				
+				System.arraycopy(colors , (row * size + col) * channels , color , 0 , channels);
+				artboard.putColorInImage(col , row , 1 , 1 , artboard.createPalettePixel(color));
+				
+			}
+			
+			perPixel.record(System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			PixelRegions.writeColors(artboard , 0 , 0 , size , size , colors);
+			bulk.record(System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			PixelRegions.mapColors(artboard , 0 , 0 , size , size , (x , y , current) -> current ^ 0xff00);
+			mapped.record(System.nanoTime() - start);
+			
+		}
+		
+		log(String.format("Per pixel gradient on %dx%d artboard" , size , size) , perPixel);
+		log(String.format("Bulk gradient on %dx%d artboard" , size , size) , bulk);
+		log(String.format("Mapped colors on %dx%d artboard" , size , size) , mapped);
+		project.shutDown();
+		
+	}
+	
+	/**
+	 * Measures how long it takes to outline a disc on a 1024 x 1024 artboard with a per pixel loop in a script, as outlines were made before
+	 * {@link PixelFilters} existed, and with {@link PixelFilters#outline(int[], int, int, int, boolean) PixelFilters.outline}. Both read and
+	 * write the artboard in bulk, so the difference is the cost of the loop.
+	 * 
+	 * @param engine the engine
+	 */
+	@RenderThreadOnly static void pixelFilters(Engine engine) {
+		
+		int size = 1024 , runs = 3;
+		String source = String.join("\n" , 
+			"def outline(lookups , width , height , outline):" ,
+			"\tresult = ScriptingUtils2.ints(width * height)" ,
+			"\trow = 0" ,
+			"\twhile row < height:" ,
+			"\t\tcol = 0" ,
+			"\t\twhile col < width:" ,
+			"\t\t\ti = row * width + col" ,
+			"\t\t\tvalue = lookups[i]" ,
+			"\t\t\tif value == -1 and ((col > 0 and lookups[i - 1] != -1) or (col < width - 1 and lookups[i + 1] != -1) or " +
+				"(row > 0 and lookups[i - width] != -1) or (row < height - 1 and lookups[i + width] != -1)):" ,
+			"\t\t\t\tvalue = outline" ,
+			"\t\t\tresult[i] = value" ,
+			"\t\t\tcol = col + 1" ,
+			"\t\trow = row + 1" ,
+			"\treturn result" ,
+			""
+		);
+		
+		CSSSProject project = project(engine , "pixel filters benchmark");
+		Artboard artboard = project.createArtboard("0" , size , size);
+		artboard.setActiveLayer(artboard.getVisualLayer(0));
+		int channels = artboard.activeLayerChannelsPerPixel();
+		
+		byte[] red = new byte[channels] , black = new byte[channels];
+		red[0] = (byte)0xff;
+		red[channels - 1] = black[channels - 1] = (byte)0xff;
+		int fill = PixelRegions.lookup(artboard , red) , outline = PixelRegions.lookup(artboard , black);
+		
+		int[] disc = new int[size * size];
+		int radius = size / 3;
+		for(int row = 0 ; row < size ; row++) for(int col = 0 ; col < size ; col++) {
+			
+			int x = col - size / 2 , y = row - size / 2;
+			disc[row * size + col] = x * x + y * y <= radius * radius ? fill : PixelRegions.NO_LOOKUP;
+			
+		}
+		
+		LatencyHistogram script = new LatencyHistogram() , java = new LatencyHistogram();
+		try(PythonInterpreter interpreter = new PythonInterpreter()) {
+			
+			interpreter.exec("from cs.csss.utils import ScriptingUtils2");
+			interpreter.exec(source);
+			PyObject function = interpreter.get("outline");
+			ClassicPyObjectAdapter adapter = new ClassicPyObjectAdapter();
+			
+			for(int i = 0 ; i < runs ; i++) {
+				
+				PixelRegions.writeLookups(artboard , 0 , 0 , size , size , disc);
+				long start = System.nanoTime();
+				int[] lookups = PixelRegions.readLookups(artboard , 0 , 0 , size , size);
+				int[] scripted = (int[])function.__call__(new PyObject[] {
+					adapter.adapt(lookups) , 
+					adapter.adapt(size) , 
+					adapter.adapt(size) , 
+					adapter.adapt(outline)
+				}).__tojava__(int[].class);
+				PixelRegions.writeLookups(artboard , 0 , 0 , size , size , scripted);
+				script.record(System.nanoTime() - start);
+				
+				PixelRegions.writeLookups(artboard , 0 , 0 , size , size , disc);
+				start = System.nanoTime();
+				lookups = PixelRegions.readLookups(artboard , 0 , 0 , size , size);
+				int[] filtered = PixelFilters.outline(lookups , size , size , outline , false);
+				PixelRegions.writeLookups(artboard , 0 , 0 , size , size , filtered);
+				java.record(System.nanoTime() - start);
+				
+				if(!Arrays.equals(scripted , filtered)) Logging.syserrln("Scripted and filtered outlines differ.");
+				
+			}
+			
+		}
+		
+		log(String.format("Script outline on %dx%d artboard" , size , size) , script);
+		log(String.format("Filter outline on %dx%d artboard" , size , size) , java);
+		project.shutDown();
+		
+	}
+	
+	/**
+	 * Measures how long it takes to import a 4096 x 4096 image into an artboard, both for a noisy gradient standing in for a photograph, which
+	 * has more colors than a palette holds and is quantized, and for an image of 256 colors, which fits in the palette as is.
+	 * 
+	 * @param engine the engine
+	 */
+	@RenderThreadOnly static void imageImport(Engine engine) {
+		
+		int size = 4096 , runs = 3;
+		Random random = new Random(40);
+		LatencyHistogram photo = new LatencyHistogram() , fewColors = new LatencyHistogram();
+		for(int i = 0 ; i < runs ; i++) {
+			
+			photo.record(timeImport(engine , syntheticImage(size , random , true)));
+			fewColors.record(timeImport(engine , syntheticImage(size , random , false)));
+			
+		}
+		
+		log(String.format("Import of %dx%d photo" , size , size) , photo);
+		log(String.format("Import of %dx%d image of 256 colors" , size , size) , fewColors);
+		
+	}
+	
+	/**
+	 * Measures the overhead of registering a script and calling a function of it, both the way scripts were run before interpreters were
+	 * kept per thread, creating an interpreter, compiling and running the module, and adapting arguments every time, and through a 
+	 * {@link JythonScriptExecutor}.
+	 */
+	static void scriptCalls() {
+		
+		int calls = 500 , registrations = 50;
+		String source = "def benchmark(tooltip , stateful):\n\treturn tooltip\n";
+		Object[] arguments = {"tooltip" , false};
+		
+		Path file;
+		try {
+			
+			file = Files.createTempFile("benchmark" , ".py");
+			Files.writeString(file , source);
+			
+		} catch (IOException e) {
+			
+			e.printStackTrace();
+			return;
+			
+		}
+		
+		JythonScriptExecutor executor = new JythonScriptExecutor(false);
+		LatencyHistogram freshRegistrations = new LatencyHistogram() , cachedRegistrations = new LatencyHistogram();
+		for(int i = 0 ; i < registrations ; i++) {
+			
+			long start = System.nanoTime();
+			try(PythonInterpreter interpreter = new PythonInterpreter()) {
+				
+				interpreter.exec(interpreter.compile(new StringReader(source)));
+				
+			}
+			
+			freshRegistrations.record(System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			executor.compile(file);
+			cachedRegistrations.record(System.nanoTime() - start);
+			
+		}
+		
+		CompiledScript script = executor.compile(file);
+		PyCode code = script.code();
+		LatencyHistogram freshCalls = new LatencyHistogram() , pooledCalls = new LatencyHistogram();
+		for(int i = 0 ; i < calls ; i++) {
+			
+			long start = System.nanoTime();
+			try(PythonInterpreter interpreter = new PythonInterpreter()) {
+				
+				interpreter.exec(code);
+				PyObject function = interpreter.get("benchmark");
+				ClassicPyObjectAdapter adapter = new ClassicPyObjectAdapter();
+				PyObject[] pyArguments = new PyObject[arguments.length];
+				for(int j = 0 ; j < pyArguments.length ; j++) pyArguments[j] = adapter.adapt(arguments[j]);
+				function.__call__(pyArguments);
+				
+			}
+			
+			freshCalls.record(System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			executor.runScriptNameFunction("benchmark" , script , arguments);
+			pooledCalls.record(System.nanoTime() - start);
+			
+		}
+		
+		log("Script registration, fresh interpreter" , freshRegistrations);
+		log("Script registration, compiled script cache" , cachedRegistrations);
+		log("Script call, fresh interpreter" , freshCalls);
+		log("Script call, pooled interpreter" , pooledCalls);
+		
+		try {
+			
+			Files.delete(file);
+			
+		} catch (IOException e) {
+			
+			e.printStackTrace();
+			
+		}
+		
+	}
+	
+	/**
+	 * Creates an image of a gradient, either with every channel of every pixel offset by noise or reduced to 16 steps along each axis.
+	 */
+	private static SCGraphic syntheticImage(int size , Random random , boolean noisy) {
+		
+		FlexableGraphic image = new FlexableGraphic(size , size , 1 , 4 , 0xff);
+		ByteBuffer data = image.data();
+		for(int row = 0 ; row < size ; row++) for(int col = 0 ; col < size ; col++) {
+			
+			int offset = (row * size + col) * 4;
+			int red = col * 256 / size , green = row * 256 / size , blue = (col + row) * 128 / size;
+			if(noisy) {
+				
+				red += random.nextInt(17) - 8;
+				green += random.nextInt(17) - 8;
+				blue += random.nextInt(17) - 8;
+				
+			} else {
+				
+				red &= 0xf0;
+				green &= 0xf0;
+				blue = 0x80;
+				
+			}
+			
+			data.put(offset , (byte)Math.max(0 , Math.min(255 , red)));
+			data.put(offset + 1 , (byte)Math.max(0 , Math.min(255 , green)));
+			data.put(offset + 2 , (byte)Math.max(0 , Math.min(255 , blue)));
+			
+		}
+		
+		return image;
+		
+	}
+	
+	/**
+	 * Imports {@code image} into a new project and returns how long the import took in nanoseconds. Frees the image and project.
+	 */
+	@RenderThreadOnly private static long timeImport(Engine engine , SCGraphic image) {
+		
+		CSSSProject project = project(engine , "image import benchmark");
+		Artboard artboard = project.createArtboard("0" , image.width() , image.height());
+		artboard.setActiveLayer(artboard.getVisualLayer(0));
+		ImageImporter importer = new ImageImporter(image);
+		
+		long start = System.nanoTime();
+		importer.copyToArtboard(artboard);
+		long elapsed = System.nanoTime() - start;
+		
+		importer.shutDown();
+		project.shutDown();
+		return elapsed;
+		
+	}
+	
+	private static CSSSProject project(Engine engine , String name) {
+		
+		CSSSProject project = new CSSSProject(engine , name , 4);
+		project.initialize();
+		project.createVisualLayer("Layer 1");
+		project.createVisualLayer("Layer 2");
+		return project;
+		
+	}
+	
+	private static void log(String operation , LatencyHistogram histogram) {
+		
+		Logging.sysDebugln(String.format(
+			"%s, %d runs: p50 %.3f ms, p99 %.3f ms, max %.3f ms" , 
+			operation , 
+			histogram.count() , 
+			histogram.percentile(50) / 1_000_000d , 
+			histogram.percentile(99) / 1_000_000d , 
+			histogram.max() / 1_000_000d
+		));
+		
+	}
+	
+}
@@ -13,11 +13,15 @@ package cs.csss.editor;
 
 import static cs.csss.editor.event.CSSSMemoryEvent.*;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -25,6 +29,7 @@ import java.util.function.Consumer;
 import java.util.function.IntConsumer;
 import java.util.function.IntSupplier;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import org.joml.Vector2f;
 import org.lwjgl.nuklear.NkPluginFilter;
@@ -46,6 +51,7 @@ import cs.csss.editor.brush.EraserBrush;
 import cs.csss.editor.brush.Eye_DropperBrush;
 import cs.csss.editor.brush.Flood_FillBrush;
 import cs.csss.editor.brush.LinesBrush;
+import cs.csss.editor.brush.Magic_WandBrush;
 import cs.csss.editor.brush.Move_RegionBrush;
 import cs.csss.editor.brush.PencilBrush;
 import cs.csss.editor.brush.Replace_AllBrush;
@@ -53,15 +59,18 @@ import cs.csss.editor.brush.RotateBrush;
 import cs.csss.editor.brush.Scale_RegionBrush;
 import cs.csss.editor.brush.Select_ArtboardBrush;
 import cs.csss.editor.brush.ShapesBrush;
+import cs.csss.editor.event.BackgroundScriptEvent;
+import cs.csss.editor.event.BatchArtboardEvent;
 import cs.csss.editor.event.CSSSEvent;
 import cs.csss.editor.event.CSSSMemoryEvent;
+import cs.csss.editor.event.CompactPaletteEvent;
 import cs.csss.editor.event.ModifyPaletteDirectEvent;
 import cs.csss.editor.event.RasterizeShapeEvent;
 import cs.csss.editor.event.ShutDownEventEvent;
 import cs.csss.editor.event.TogglePaletteReferenceModeEvent;
 import cs.csss.editor.line.BezierLine;
 import cs.csss.editor.line.Line;
-import cs.csss.editor.line.Line.LineMod;
+import cs.csss.editor.line.Line.LineMods;
 import cs.csss.editor.palette.AnalogousPalette;
 import cs.csss.editor.palette.ComplementaryPalette;
 import cs.csss.editor.palette.MonochromaticPalette;
@@ -72,23 +81,31 @@ import cs.csss.editor.ui.AnimationPanel;
 import cs.csss.editor.ui.ArtboardPaletteUI;
 import cs.csss.editor.ui.FilePanel;
 import cs.csss.editor.ui.LHSPanel;
+import cs.csss.editor.ui.MemoryPanel;
 import cs.csss.editor.ui.RHSPanel;
+import cs.csss.editor.ui.ScriptTaskPanel;
 import cs.csss.engine.CSSSCamera;
 import cs.csss.engine.ChannelBuffer;
 import cs.csss.engine.ColorPixel;
 import cs.csss.engine.Control;
 import cs.csss.engine.Engine;
+import cs.csss.engine.Lane;
 import cs.csss.engine.Logging;
 import cs.csss.engine.LookupPixel;
+import cs.csss.engine.MemoryAccounting;
+import cs.csss.engine.MemoryReport;
 import cs.csss.engine.Pixel;
+import cs.csss.engine.Profiler;
 import cs.csss.engine.TransformPosition;
 import cs.csss.project.Animation;
 import cs.csss.project.Artboard;
 import cs.csss.project.ArtboardPalette;
 import cs.csss.project.CSSSProject;
 import cs.csss.project.IndexPixel;
+import cs.csss.project.MemoryUsage;
 import cs.csss.project.VisualLayer;
 import cs.csss.project.utils.Artboards;
+import cs.csss.project.utils.PixelFilters;
 import cs.csss.ui.utils.UIUtils;
 import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
@@ -115,6 +132,7 @@ public class Editor implements SCShutDown {
 	public static final RotateBrush theRotateBrush = new RotateBrush();
 	public static final Scale_RegionBrush theScaleBrush = new Scale_RegionBrush();
 	public static final Copy_RegionBrush theCopyBrush = new Copy_RegionBrush();
+	public static final Magic_WandBrush theMagicWand = new Magic_WandBrush();
 	private static volatile CSSSBrush theScriptBrush2 = null;
 	private static volatile CSSSModifyingBrush theModifyingScriptBrush2 = null;
 	private static volatile CSSSSelectingBrush theSelectingScriptBrush2 = null;
@@ -185,6 +203,17 @@ public class Editor implements SCShutDown {
 	private volatile CSSSBrush currentBrush = thePencilBrush;
 	
 	private ConcurrentLinkedDeque<CSSSEvent> events = new ConcurrentLinkedDeque<>();
+	
+	//two phase event whose prepare is running, and the future of that prepare
+	private CSSSEvent preparingEvent = null;
+	private Future<?> preparingEventFuture = null;
+	//future of the render event most recently posted by handleEvents
+	private Future<?> previousRenderEvent = null;
+	//background script whose prepare is running, the future of that prepare, and scripts waiting for it to finish
+	private volatile BackgroundScriptEvent backgroundScript = null;
+	private Future<?> backgroundScriptFuture = null;
+	private final ArrayDeque<BackgroundScriptEvent> waitingScripts = new ArrayDeque<>();
+	
 	private UndoRedoStack 
 		redos = new UndoRedoStack(DEFAULT_UNDO_REDO_STACK_SIZE) , 
 		undos = new UndoRedoStack(DEFAULT_UNDO_REDO_STACK_SIZE);
@@ -192,11 +221,15 @@ public class Editor implements SCShutDown {
 	private final AnimationPanel animationPanel;
 	private final LHSPanel leftSidePanel;
 	private final ArtboardPaletteUI paletteUI;
+	private final ScriptTaskPanel scriptTaskPanel;
+	private final MemoryPanel memoryPanel;
 	
 	private ChannelBuffer currentColor = new ChannelBuffer();
 	
 	private boolean colorInputsAreHex = false;
 	
+	private int scriptTimeBudget = 60;
+	
 	//NanoVG rectangle used to approximately show where the user will modify with their next action if they are using a modification 
 	//brush of some kind.
 	private final SelectionAreaBounder modifyingBounder = new SelectionAreaBounder();
@@ -242,6 +275,8 @@ public class Editor implements SCShutDown {
 		new FilePanel(this , nuklear);
 		new RHSPanel(this , nuklear , engine);
 		animationPanel = new AnimationPanel(this , nuklear);
+		scriptTaskPanel = new ScriptTaskPanel(this , nuklear);
+		memoryPanel = new MemoryPanel(this , nuklear);
 
 		new MonochromaticPalette(15);
 		new AnalogousPalette(15);
@@ -341,6 +376,10 @@ public class Editor implements SCShutDown {
 		updatePaletteEdits();		
 		//handle them
 		handleEvents();	
+		scriptTaskPanel.update();
+		//estimates memory every few seconds and shows the memory panel if it nears the budget
+		MemoryAccounting.update(this::memoryReport);
+		memoryPanel.update();
 		//update the current project's animation if running
 		playAnimation();
 			
@@ -400,32 +439,166 @@ public class Editor implements SCShutDown {
 	
 	/**
 	 * Handles any events associated with this editor.
+	 * 
+	 * <p>
+	 * 	Events are handled in the order they were pushed. When a {@link CSSSEvent#isTwoPhaseEvent two phase event} is reached, its 
+	 * 	{@link CSSSEvent#prepare() prepare} is started on a worker thread once every previously posted render event has finished, and no later 
+	 * 	event is handled until the prepare finishes and its {@link CSSSEvent#commit() commit} has been posted. This keeps the state the prepare 
+	 * 	reads consistent without blocking this thread or the render thread.
+	 * </p>
+	 * <p>
+	 * 	{@link BackgroundScriptEvent}s are the exception, because scripts may run for as long as their time budget. Their prepare runs on 
+	 * 	{@link Lane#BATCH}, one script at a time, while later events are handled, and their commit is handled whenever it finishes. 
+	 * </p>
 	 */
 	void handleEvents() {
 
-		for(CSSSEvent x : events) {
+		handleBackgroundScripts();
+		
+		if(preparingEvent != null) {
+			
+			if(!preparingEventFuture.isDone()) return;
+			
+			CSSSEvent prepared = preparingEvent;
+			preparingEvent = null;
+			preparingEventFuture = null;			
+			dispatch(prepared , guard(prepared , prepared::commit));
+			
+		}
+		
+		CSSSEvent x;
+		while((x = events.peek()) != null) {
 
-			Runnable _do = Engine.isDebug() ? () -> {
+			if(x instanceof BackgroundScriptEvent asScript) {
 				
-				try {
-					
-					x._do();
+				events.poll();
+				waitingScripts.add(asScript);
+				handleBackgroundScripts();
+				continue;
 				
-				} catch(Exception e) {
-					
-					Logging.syserrln("Event excepted " + x);
-					e.printStackTrace();
-					
-				}
+			}
+			
+			if(x.isTwoPhaseEvent) {
+				
+				//the prepare must see the results of every event handled before it
+				if(previousRenderEvent != null && !previousRenderEvent.isDone()) return;
 				
-			} : x::_do;
+				events.poll();
+				preparingEvent = x;
+				CSSSEvent preparing = x;
+				preparingEventFuture = Lane.COMPUTE.submit(guard(x , () -> prepare(preparing)));
+				return;
+				
+			}
 			
-			if(x.isRenderEvent) engine.renderer().post(_do);
-			else x._do();
+			events.poll();			
+			dispatch(x , guard(x , x::_do));
 			
 		}
 		
-		events.clear();
+	}
+	
+	/**
+	 * Commits the running background script if it finished, and starts the next waiting script once every previously posted render event 
+	 * has finished.
+	 */
+	private void handleBackgroundScripts() {
+		
+		if(backgroundScript != null) {
+			
+			if(!backgroundScriptFuture.isDone()) return;
+			
+			BackgroundScriptEvent finished = backgroundScript;
+			backgroundScript = null;
+			backgroundScriptFuture = null;
+			dispatch(finished , guard(finished , finished::commit));
+			
+		}
+		
+		if(waitingScripts.isEmpty() || (previousRenderEvent != null && !previousRenderEvent.isDone())) return;
+		
+		BackgroundScriptEvent next = waitingScripts.poll();
+		backgroundScriptFuture = Lane.BATCH.submit(guard(next , () -> prepare(next)));
+		backgroundScript = next;
+		
+	}
+	
+	/**
+	 * Runs {@code code} in the render thread if {@code event} is a render event, otherwise runs it now. In debug mode, the time a render event
+	 * spends in the render thread is reported. If the {@link Profiler} is enabled, the time is recorded.
+	 * 
+	 * @param event the event {@code code} belongs to
+	 * @param code code of the event to run
+	 */
+	private void dispatch(CSSSEvent event , Runnable code) {
+		
+		String profilerName = "event/" + event.getClass().getSimpleName();
+		
+		if(!event.isRenderEvent) {
+			
+			long start = Profiler.begin();
+			code.run();
+			Profiler.end(profilerName , start);
+			
+		} else if(Engine.isDebug() || Profiler.enabled()) previousRenderEvent = engine.renderer().post(() -> {
+			
+			long start = System.nanoTime();
+			code.run();
+			long elapsed = System.nanoTime() - start;
+			Profiler.record(profilerName , elapsed);
+			if(Engine.isDebug()) Logging.sysDebugln(event.getClass().getSimpleName() + " render thread time: " + (elapsed / 1_000_000d) + "ms");
+			
+		});
+		else previousRenderEvent = engine.renderer().post(code);
+		
+	}
+	
+	/**
+	 * Runs the {@link CSSSEvent#prepare() prepare} of {@code event}, recording its time if the {@link Profiler} is enabled, and then requests
+	 * a frame so the event is committed.
+	 * 
+	 * @param event a two phase event
+	 */
+	private void prepare(CSSSEvent event) {
+		
+		long start = Profiler.begin();
+		try {
+			
+			event.prepare();
+			
+		} finally {
+			
+			Profiler.end("event/" + event.getClass().getSimpleName() + "/prepare" , start);
+			engine.requestFrame();
+			
+		}
+		
+	}
+	
+	/**
+	 * Wraps {@code code} in a try catch block if in debug mode so exceptions thrown by events are reported and do not bring down the thread 
+	 * running them.
+	 * 
+	 * @param event the event {@code code} belongs to
+	 * @param code code of the event to run
+	 * @return Runnable running {@code code}.
+	 */
+	private Runnable guard(CSSSEvent event , Runnable code) {
+		
+		return Engine.isDebug() ? () -> {
+			
+			try {
+				
+				code.run();
+			
+			} catch(Exception e) {
+				
+				Logging.syserrln("Event excepted " + event);
+				e.printStackTrace();
+				
+			}
+			
+		} : code;
 		
 	}
 	
@@ -452,12 +625,7 @@ public class Editor implements SCShutDown {
 
 				if(Engine.isDebug()) try {
 					
-					boolean canUse = currentBrush.canUse(finalCurrent , this , pixelIndex[0] , pixelIndex[1]);
-					if(canUse) { 
-						
-						eventPush(currentBrush.use(finalCurrent , this , pixelIndex[0] , pixelIndex[1]));
-						
-					}
+					useCurrentBrush(finalCurrent , pixelIndex);
 					
 				} catch(Exception e) {
 					
@@ -466,12 +634,7 @@ public class Editor implements SCShutDown {
 					
 				} else {
 					
-					boolean canUse = currentBrush.canUse(finalCurrent , this , pixelIndex[0] , pixelIndex[1]);
-					if(canUse) { 
-						
-						eventPush(currentBrush.use(finalCurrent , this , pixelIndex[0] , pixelIndex[1]));
-												
-					}
+					useCurrentBrush(finalCurrent , pixelIndex);
 				
 				}
 				
@@ -578,6 +741,22 @@ public class Editor implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Uses the current brush at the given pixel of {@code artboard} if it can be used there, pushing the resulting event. The time the brush 
+	 * takes is recorded by the {@link Profiler} if it is enabled.
+	 * 
+	 * @param artboard the artboard the cursor is over
+	 * @param pixelIndex indices of the pixel the cursor is over
+	 */
+	@RenderThreadOnly private void useCurrentBrush(Artboard artboard , int[] pixelIndex) {
+		
+		CSSSBrush brush = currentBrush;
+		long start = Profiler.begin();
+		if(brush.canUse(artboard , this , pixelIndex[0] , pixelIndex[1])) eventPush(brush.use(artboard , this , pixelIndex[0] , pixelIndex[1]));
+		Profiler.end("brush/" + brush.getClass().getSimpleName() , start);
+		
+	}
+	
 	/**
 	 * Updates the current brush if it is a stateful brush.
 	 */
@@ -708,6 +887,8 @@ public class Editor implements SCShutDown {
 	 */
 	public CSSSEvent undo() {
 		
+		//an event still waiting to be handled cannot be undone yet
+		if(preparingEvent != null || !events.isEmpty()) return null;
 		return undos.undo(engine.renderer() , redos);
 		
 	}
@@ -720,6 +901,7 @@ public class Editor implements SCShutDown {
 	 */
 	public CSSSEvent redo() {
 		
+		if(preparingEvent != null || !events.isEmpty()) return null;
 		return redos.redo(engine.renderer() , undos);
 		
 	}
@@ -1023,6 +1205,21 @@ public class Editor implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Replaces the lookup selected in the current palette, and the lookup of the active color, with the lookups {@code remap} returns for
+	 * them, such as after the current palette is compacted.
+	 * 
+	 * @param remap function from a lookup of the current palette to its replacement
+	 */
+	public void remapSelectedLookup(UnaryOperator<LookupPixel> remap) {
+		
+		LookupPixel selected = remap.apply(new IndexPixel(paletteXIndex , paletteYIndex));
+		paletteXIndex = Byte.toUnsignedInt(selected.lookupX());
+		paletteYIndex = Byte.toUnsignedInt(selected.lookupY());
+		if(currentColorIndices != null) currentColorIndices = remap.apply(currentColorIndices);
+		
+	}
+	
 	/**
 	 * Sets the color the editor considers to be the current color value.
 	 * 
@@ -1049,6 +1246,28 @@ public class Editor implements SCShutDown {
 		return engine.currentProject();
 		
 	}
+	
+	/**
+	 * Returns a future completed the first time a project is opened.
+	 * 
+	 * @return Future completed when the first project is opened.
+	 */
+	public CompletableFuture<Void> whenProjectOpened() {
+		
+		return engine.whenProjectOpened();
+		
+	}
+	
+	/**
+	 * Returns a future completed the first time an animation becomes the current animation of a project.
+	 * 
+	 * @return Future completed when the first animation is selected.
+	 */
+	public CompletableFuture<Void> whenAnimationSelected() {
+		
+		return engine.whenAnimationSelected();
+		
+	}
 
 	void setCurrentProject(CSSSProject project) {
 		
@@ -1788,6 +2007,22 @@ public class Editor implements SCShutDown {
 		
 	}
 
+	/**
+	 * Runs {@code benchmark} on the render thread, logging its results.
+	 * 
+	 * @param benchmark a benchmark to run
+	 * @throws DebugDisabledException if the application is not in debug mode.
+	 * @throws NullPointerException if {@code benchmark} is <code>null</code>.
+	 */
+	public void benchmark(Benchmark benchmark) throws DebugDisabledException {
+		
+		if(!Engine.isDebug()) throw new DebugDisabledException(this);
+		
+		Objects.requireNonNull(benchmark);
+		engine.renderer().post(() -> benchmark.run(engine));
+		
+	}
+	
 	/**
 	 * Returns whether color inputs are as hex or decimal 
 	 *  
@@ -1808,6 +2043,82 @@ public class Editor implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Returns the number of seconds a script running in the background may run before it is stopped.
+	 * 
+	 * @return Time budget of background scripts in seconds.
+	 */
+	public int scriptTimeBudget() {
+		
+		return scriptTimeBudget;
+		
+	}
+	
+	/**
+	 * Sets the number of seconds scripts started from now on may run in the background before they are stopped.
+	 * 
+	 * @param seconds time budget of background scripts in seconds
+	 * @throws IllegalArgumentException if {@code seconds} is not positive.
+	 */
+	public void scriptTimeBudget(int seconds) {
+		
+		if(seconds <= 0) throw new IllegalArgumentException("Script time budget must be positive.");
+		scriptTimeBudget = seconds;
+		
+	}
+	
+	/**
+	 * Returns the handle of the script running in the background, or <code>null</code> if none is.
+	 * 
+	 * @return Handle of the running background script, or <code>null</code>.
+	 */
+	public ScriptTask runningScript() {
+		
+		BackgroundScriptEvent script = backgroundScript;
+		return script != null ? script.task() : null;
+		
+	}
+	
+	/**
+	 * Estimates the memory retained by the current project, the undo and redo stacks, and tagged off-heap allocations. Heap sizes are 
+	 * estimates. Scripts may call this to read the memory the session is using.
+	 * 
+	 * @return A new memory report.
+	 */
+	public MemoryReport memoryReport() {
+		
+		List<MemoryUsage> artboards = new ArrayList<>() , layers = new ArrayList<>() , palettes = new ArrayList<>() , events = new ArrayList<>();
+		
+		CSSSProject project = project();
+		if(project != null) project.measureMemory(artboards , layers , palettes);
+		
+		undos.forEach(event -> events.add(new MemoryUsage("Undo: " + event.getClass().getSimpleName() , event.retainedBytes() , 0 , 0)));
+		redos.forEach(event -> events.add(new MemoryUsage("Redo: " + event.getClass().getSimpleName() , event.retainedBytes() , 0 , 0)));
+		
+		return new MemoryReport(artboards , layers , palettes , events , MemoryAccounting.offHeapBytesByTag());
+		
+	}
+	
+	/**
+	 * Toggles the visibility of the memory panel.
+	 */
+	public void toggleMemoryPanel() {
+		
+		memoryPanel.toggleVisible();
+		
+	}
+	
+	/**
+	 * Returns whether the memory panel is visible.
+	 * 
+	 * @return Whether the memory panel is visible.
+	 */
+	public boolean memoryPanelShowing() {
+		
+		return memoryPanel.showing();
+		
+	}
+	
 	/**
 	 * Gets the current pallete and returns its contents as a list. However, if no palette is active for any reason, <code>null</code> is returned.
 	 * 
@@ -1879,6 +2190,77 @@ public class Editor implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Compacts the current palette, freeing lookups no pixel uses and merging lookups of identical colors. Does nothing if there is no 
+	 * current palette.
+	 */
+	public void compactCurrentPalette() {
+		
+		ArtboardPalette current = currentPalette();
+		if(current != null) eventPush(new CompactPaletteEvent(this , current));
+		
+	}
+	
+	/**
+	 * Applies {@code operation} to the active layer of every frame of the current animation in parallel, as one undoable event. Does 
+	 * nothing if there is no current animation.
+	 * 
+	 * @param operation operation to apply to each frame
+	 * @see BatchArtboardEvent
+	 */
+	public void batchCurrentAnimation(BatchArtboardEvent.Operation operation) {
+		
+		Animation current = engine.currentAnimation();
+		if(current == null) return;
+		
+		List<Artboard> artboards = new ArrayList<>(current.numberFrames());
+		current.forAllArtboards(artboards::add);
+		batch(artboards , operation);
+		
+	}
+	
+	/**
+	 * Applies {@code operation} to the active layer of each of {@code artboards} in parallel, as one undoable event.
+	 * 
+	 * @param artboards artboards to operate on
+	 * @param operation operation to apply to each artboard
+	 * @see BatchArtboardEvent
+	 */
+	public void batch(Collection<Artboard> artboards , BatchArtboardEvent.Operation operation) {
+		
+		if(!artboards.isEmpty()) eventPush(new BatchArtboardEvent(artboards , operation));
+		
+	}
+	
+	/**
+	 * Applies {@code filter} to the active layer of the current artboard as one undoable event. If there is a selection mask on the current
+	 * artboard, only pixels within it are changed. Does nothing if there is no current artboard.
+	 * 
+	 * @param filter filter to apply, such as one of {@link PixelFilters}
+	 */
+	public void filterCurrentArtboard(PixelFilters.Filter filter) {
+		
+		Artboard current = currentArtboard();
+		if(current == null) return;
+		
+		SelectionMask mask = CSSSSelectingBrush.selectionMask(current);
+		BatchArtboardEvent.Operation operation = BatchArtboardEvent.filter(filter);
+		eventPush(mask == null ? new BatchArtboardEvent(List.of(current) , operation) : new BatchArtboardEvent(List.of(current) , mask , operation));
+		
+	}
+	
+	/**
+	 * Applies {@code filter} to the active layer of every frame of the current animation in parallel, as one undoable event. Does nothing
+	 * if there is no current animation.
+	 * 
+	 * @param filter filter to apply, such as one of {@link PixelFilters}
+	 */
+	public void filterCurrentAnimation(PixelFilters.Filter filter) {
+		
+		batchCurrentAnimation(BatchArtboardEvent.filter(filter));
+		
+	}
+	
 	/**
 	 * Toggles the state of the direct palette access mode.
 	 */
@@ -2069,19 +2451,10 @@ public class Editor implements SCShutDown {
 		Artboard current = currentArtboard();
 		if(current == null) return;
 
-		List<LineMod> lineMods = activeLine.lineMods();
-		if(lineMods.size() < 1) return;
-		
-		int minX = Integer.MAX_VALUE , minY = Integer.MAX_VALUE , maxX = Integer.MIN_VALUE , maxY = Integer.MIN_VALUE;
+		LineMods lineMods = activeLine.lineMods();
+		if(lineMods.isEmpty()) return;
 		
-		for(LineMod mod : lineMods) {
-			
-			if(mod.textureX() + mod.width() > maxX) maxX = mod.textureX() + mod.width();
-			if(mod.textureY() + mod.height() > maxY) maxY = mod.textureY() + mod.height();
-			if(mod.textureX() < minX) minX = mod.textureX(); 
-			if(mod.textureY() < minY) minY = mod.textureY();
-			
-		}
+		int minX = lineMods.leftX() , minY = lineMods.bottomY() , maxX = lineMods.rightX() , maxY = lineMods.topY();
 	
 		minX = (int) current.artboardXToWorldX(minX);
 		minY = (int) current.artboardYToWorldY(minY);
@@ -2097,8 +2470,11 @@ public class Editor implements SCShutDown {
 
 		paletteUI.shutDown();
 		animationPanel.shutDown();
+		scriptTaskPanel.shutDown();
+		memoryPanel.shutDown();
 		undos.shutDown(engine.renderer());
 		redos.shutDown(engine.renderer());
+		jython.shutDown();
 		
 	}
 
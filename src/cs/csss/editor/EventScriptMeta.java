@@ -12,14 +12,16 @@
 package cs.csss.editor;
 
 /**
- * Container for metadata for event scripts.
+ * Container for metadata for event scripts. Artboard scripts which run in the background are run on a worker thread by a 
+ * {@link cs.csss.editor.event.BackgroundScriptEvent BackgroundScriptEvent}, and their other metadata is ignored.
  */
 public record EventScriptMeta(
 	boolean isRenderEvent , 
 	boolean isTransientEvent , 
 	boolean takesArguments , 
 	String argumentDialogueText ,
-	String scriptName
+	String scriptName ,
+	boolean runsInBackground
 ) {
 
 }
@@ -12,38 +12,67 @@
 package cs.csss.editor;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
+import java.util.zip.CRC32C;
 
+import org.python.core.Py;
 import org.python.core.PyCode;
 import org.python.core.PyObject;
+import org.python.core.PyStringMap;
+import org.python.core.PySystemState;
 import org.python.core.adapter.ClassicPyObjectAdapter;
 import org.python.util.PythonInterpreter;
 
 import cs.csss.editor.brush.CSSSBrush;
 import cs.csss.editor.brush.CSSSModifyingBrush;
 import cs.csss.editor.brush.CSSSSelectingBrush;
+import cs.csss.editor.event.BackgroundScriptEvent;
 import cs.csss.editor.event.CSSSEvent;
 import cs.csss.editor.event.NOPEvent;
 import cs.csss.editor.event.RunScriptEvent2;
 import cs.csss.editor.palette.ColorPalette;
 import cs.csss.editor.palette.PaletteScriptMeta;
 import cs.csss.engine.Engine;
+import cs.csss.engine.Lane;
 import cs.csss.engine.Logging;
+import cs.csss.engine.Profiler;
 import cs.csss.misc.utils.MiscUtils;
+import cs.csss.project.Artboard;
 
 /**
  * Class that uses Jython to invoke scripts. Instances of this class handle registering, compilation, execution, and hot-reloading of scripts 
  * implemented in Python for Sprite Studio. In general, a script must be registered by a file it is implemented in. Then it can provide either a 
  * {@link CSSSEvent} implementation or a {@link CSSSBrush} implementation. 
+ * <p>
+ * 	Each thread that runs scripts keeps one interpreter for its lifetime, and runs the module level code of each version of a script in it
+ * 	once. Compiled code is cached by file path and a hash of the file's contents, so registering an unchanged script again does not compile
+ * 	it. When hot reloading, a {@link WatchService} reports which script files have been modified, and only those are compiled again when they
+ * 	are next registered.
+ * </p>
  */
 public class JythonScriptExecutor {
 
+	/**
+	 * Interpreter of each thread that runs scripts, created the first time the thread runs one.
+	 */
+	private static final ThreadLocal<WarmInterpreter> interpreters = ThreadLocal.withInitial(WarmInterpreter::new);
+
 	//hashmaps for each type of script
 	private final HashMap<String , EventAndCode> 
 		artboardScripts = new HashMap<>() ,
@@ -56,6 +85,22 @@ public class JythonScriptExecutor {
 	
 	private final HashMap<String , PaletteAndCode> palettes = new HashMap<>();
 	
+	/**
+	 * Compiled code of each script file by absolute path.
+	 */
+	private final HashMap<Path , CompiledScript> compiledScripts = new HashMap<>();
+	
+	/**
+	 * Registered script files and the directories containing them, and the files the watch service has seen modified since they were last
+	 * registered.
+	 */
+	private final Set<Path> 
+		watchedFiles = ConcurrentHashMap.newKeySet() , 
+		watchedDirectories = new HashSet<>() ,
+		changedFiles = ConcurrentHashMap.newKeySet();
+	
+	private WatchService watchService;
+	
 	private boolean hotReload = false;
 	
 	/**
@@ -66,6 +111,9 @@ public class JythonScriptExecutor {
 	public JythonScriptExecutor(boolean hotReload) {
 
 		this.hotReload = hotReload;
+		//initializes the Jython runtime off the main thread so the first script run does not pay for it
+		Lane.IO.execute(PySystemState::initialize);
+		if(hotReload) startWatching();
 		
 	}
 	
@@ -139,12 +187,12 @@ public class JythonScriptExecutor {
 	 */
 	public boolean registerPaletteScript(File file) {
 		
-		return compileCode(file , palettes , (interpreter , code) -> new PaletteAndCode(
+		return compileCode(file , palettes , (interpreter , script) -> new PaletteAndCode(
 			new PaletteScriptMeta(
 				getOrDefault(interpreter , "name" , file.getName() + " Palette" , String.class) , 
 				getOrDefault(interpreter, "valueScale", 15, Integer.TYPE)
 			) , 
-			code
+			script
 		));
 		
 	}
@@ -152,14 +200,16 @@ public class JythonScriptExecutor {
 	/* INVOKE METHODS */
 	
 	/**
-	 * Runs the artboard script registered under {@code name}.
+	 * Runs the artboard script registered under {@code name}. If the script runs in the background, it is run on a worker thread with the 
+	 * editor's {@link Editor#scriptTimeBudget() time budget}.
 	 * 
 	 * @param editor the editor
 	 * @param name the name of the script to execute
 	 */
 	public void runArtboardScript(Editor editor , String name) {
 		
-		pushEventScriptEvent(name, artboardScripts , editor , MiscUtils.modifyableOf(editor.currentArtboard() , editor));
+		Artboard artboard = editor.currentArtboard();
+		pushEventScriptEvent(name, artboardScripts , editor , MiscUtils.modifyableOf(artboard , editor) , artboard);
 
 	}
 
@@ -171,7 +221,7 @@ public class JythonScriptExecutor {
 	 */
 	public void runProjectScript(Editor editor , String name) {
 		
-		pushEventScriptEvent(name, projectScripts, editor , MiscUtils.modifyableOf(editor.project() , editor));
+		pushEventScriptEvent(name, projectScripts, editor , MiscUtils.modifyableOf(editor.project() , editor) , null);
 				
 	}
 	
@@ -190,7 +240,7 @@ public class JythonScriptExecutor {
 		BrushAndCode info = simpleBrushes.get(fileName);		
 		if(info == null) return null;
 		String scriptName = editor.asScriptName(fileName);
-		PyObject brush = runScriptNameFunction(scriptName, info.code, new Object[] {info.meta.tooltip() , info.meta.isStateful()});
+		PyObject brush = runScriptNameFunction(scriptName, info.script, new Object[] {info.meta.tooltip() , info.meta.isStateful()});
 		if(brush == null) return null;
 		return (CSSSBrush)brush.__tojava__(CSSSBrush.class);
 		
@@ -209,7 +259,7 @@ public class JythonScriptExecutor {
 		BrushAndCode info = modifyingBrushes.get(fileName);
 		if(info == null) return null;
 		String scriptName = editor.asScriptName(fileName);
-		PyObject brush = runScriptNameFunction(scriptName, info.code, new Object[] {info.meta.tooltip() , info.meta.isStateful()});
+		PyObject brush = runScriptNameFunction(scriptName, info.script, new Object[] {info.meta.tooltip() , info.meta.isStateful()});
 		if(brush == null) return null;
 		return (CSSSModifyingBrush)brush.__tojava__(CSSSModifyingBrush.class);
 		
@@ -227,7 +277,7 @@ public class JythonScriptExecutor {
 		String fileName = file.getName() , scriptName = editor.asScriptName(fileName);
 		BrushAndCode info = selectingBrushes.get(fileName);
 		if(info == null) return null;
-		PyObject brush = runScriptNameFunction(scriptName, info.code, new Object[] {info.meta.tooltip()});
+		PyObject brush = runScriptNameFunction(scriptName, info.script, new Object[] {info.meta.tooltip()});
 		if(brush == null) return null;
 		return (CSSSSelectingBrush)brush.__tojava__(CSSSSelectingBrush.class);
 		
@@ -240,7 +290,7 @@ public class JythonScriptExecutor {
 		String fileName = file.getName() , scriptName = editor.asScriptName(fileName);
 		PaletteAndCode info = palettes.get(fileName);
 		if(info == null) return null;
-		PyObject palette = runScriptNameFunction(scriptName, info.code, new Object[] {info.meta.name() , info.meta.defaultValueScale()});
+		PyObject palette = runScriptNameFunction(scriptName, info.script, new Object[] {info.meta.name() , info.meta.defaultValueScale()});
 		if(palette == null) return null;
 		return (ColorPalette)palette.__tojava__(ColorPalette.class);
 		
@@ -293,15 +343,16 @@ public class JythonScriptExecutor {
 	 */
 	private boolean registerEventScript(File file , HashMap<String , EventAndCode> map) {
 		
-		return compileCode(file , map , (interpreter , code) -> new EventAndCode(
+		return compileCode(file , map , (interpreter , script) -> new EventAndCode(
 			new EventScriptMeta(
 				(boolean)interpreter.get("isRenderEvent").__tojava__(Boolean.TYPE) ,
 				(boolean)getOrDefault(interpreter , "isTransientEvent", false, Boolean.TYPE) ,
 				(boolean)getOrDefault(interpreter , "takesArguments" , false , Boolean.TYPE) ,
 				getOrDefault(interpreter , "argumentDialogueText" , null , String.class) ,
-				file.getName()
+				file.getName() ,
+				(boolean)getOrDefault(interpreter , "runsInBackground" , false , Boolean.TYPE)
 			) , 
-			code
+			script
 		));
 		
 	}
@@ -315,7 +366,7 @@ public class JythonScriptExecutor {
 	 */
 	private boolean registerBrushScript(File file , HashMap<String , BrushAndCode> map) {
 		
-		return compileCode(file , map , (interpreter , code) -> {
+		return compileCode(file , map , (interpreter , script) -> {
 			return new BrushAndCode(
 				new BrushScriptMeta(
 					getOrDefault(interpreter , "tooltip" , "" , String.class) , 
@@ -324,58 +375,176 @@ public class JythonScriptExecutor {
 					(boolean)interpreter.get("isRenderEvent").__tojava__(Boolean.TYPE) ,
 					(boolean)interpreter.get("isTransientEvent").__tojava__(Boolean.TYPE)
 				) ,	
-				code
+				script
 			);
 		});
 		
 	}
 	
 	/**
-	 * Handles most of the boilerplate for compiling python code and generating a metadata item.
+	 * Handles most of the boilerplate for compiling python code and generating a metadata item. A script already in {@code map} is only 
+	 * registered again if hot reloading is enabled and its file was modified since it was registered.
 	 * 
 	 * @param <T> type of metadata item
 	 * @param file script file to compile
 	 * @param map  map to store the item in
-	 * @param infoGetter {@link BiFunction} responsible for creating the metadata-and-code object stored in the map
-	 * @return {@code true} if a new item was registered into the given map, {@code false} otherwise.
+	 * @param infoGetter {@link BiFunction} responsible for creating the metadata-and-code object stored in the map, given an interpreter 
+	 * 					 whose locals are the script's module
+	 * @return {@code true} if {@code file} is registered in the given map, {@code false} otherwise.
 	 */
-	private <T> boolean compileCode(File file , HashMap<String , T> map , BiFunction<PythonInterpreter , PyCode , T> infoGetter) {
+	private <T> boolean compileCode(File file , HashMap<String , T> map , BiFunction<PythonInterpreter , CompiledScript , T> infoGetter) {
 		
 		Objects.requireNonNull(file);
-		boolean result = false;
-		try(PythonInterpreter interpreter = new PythonInterpreter()) {
-
-			String name = file.getName();
-			T entry = map.get(name);
-			if(entry != null) result = true;
+		String name = file.getName();
+		Path path = file.toPath().toAbsolutePath();
+		
+		//without a watch service every registration of a hot reloaded script is treated as a change
+		boolean changed = hotReload && (watchService == null || changedFiles.remove(path));
+		if(map.containsKey(name) && !changed) return true;
+		
+		if(hotReload) watch(path);
+		map.remove(name);
+		CompiledScript script = compile(path);
+		if(script == null) return false;
+		
+		map.put(name , infoGetter.apply(interpreters.get().load(script) , script));
+		return true;
+		
+	}
+	
+	/**
+	 * Returns the compiled code of the script at {@code path}, compiling it only if the file's contents differ from those it was last 
+	 * compiled from.
+	 * 
+	 * @param path absolute path of a script file
+	 * @return Compiled script, or <code>null</code> if the file could not be read.
+	 */
+	synchronized CompiledScript compile(Path path) {
+		
+		byte[] source;
+		try {
+			
+			source = Files.readAllBytes(path);
+			
+		} catch (IOException e) {
+			
+			e.printStackTrace();
+			Logging.syserrln("Failed to compile " + path.getFileName());
+			return null;
+			
+		}
+		
+		CRC32C hash = new CRC32C();
+		hash.update(source);
+		//the length is included to make collisions between edits of a file even less likely
+		long contentHash = (long)source.length << 32 | hash.getValue();
+		
+		CompiledScript script = compiledScripts.get(path);
+		if(script != null && script.contentHash() == contentHash) return script;
+		
+		Logging.sysDebugln("Compiling " + path.getFileName());
+		PyCode code = interpreters.get().interpreter.compile(new String(source) , path.toString());
+		script = new CompiledScript(path.toString() , contentHash , code);
+		compiledScripts.put(path , script);
+		return script;
+		
+	}
+	
+	/**
+	 * Starts the watch service and the thread which records the script files it reports modified.
+	 */
+	private void startWatching() {
+		
+		try {
+			
+			watchService = FileSystems.getDefault().newWatchService();
+			
+		} catch (IOException e) {
+			
+			e.printStackTrace();
+			Logging.syserrln("Failed to start watching scripts, scripts will be compiled every time they are registered.");
+			return;
+			
+		}
+		
+		Thread watcher = new Thread(this::watchScripts , "Script Watcher");
+		watcher.setDaemon(true);
+		watcher.start();
+		
+	}
+	
+	/**
+	 * Records the script files the watch service reports modified until the watch service is closed.
+	 */
+	private void watchScripts() {
+		
+		try {
 			
-			if(hotReload || entry == null) {
+			while(true) {
 				
-				map.remove(name);
-				PyCode code;
-				try {
-
-					Logging.sysDebugln("Compiling " + name);
-					code = interpreter.compile(new FileReader(file));
+				WatchKey key = watchService.take();
+				Path directory = (Path)key.watchable();
+				for(WatchEvent<?> x : key.pollEvents()) {
 					
-				} catch (FileNotFoundException e) {
-
-					e.printStackTrace();
-					Logging.syserrln("Failed to compile " + name);
-					return false;
+					//if events were lost, any script may have changed
+					if(x.kind() == StandardWatchEventKinds.OVERFLOW) changedFiles.addAll(watchedFiles);
+					else if(x.context() instanceof Path file && watchedFiles.contains(directory.resolve(file))) {
+						
+						changedFiles.add(directory.resolve(file));
+						
+					}
 					
 				}
 				
-				interpreter.exec(code);
-				T info = infoGetter.apply(interpreter , code);
-				map.put(name, info);
-				result = true;
+				key.reset();
 				
 			}
 			
+		} catch(InterruptedException | ClosedWatchServiceException e) {}
+		
+	}
+	
+	/**
+	 * Starts watching the script file at {@code path} for modifications.
+	 * 
+	 * @param path absolute path of a script file
+	 */
+	private void watch(Path path) {
+		
+		if(watchService == null || !watchedFiles.add(path)) return;
+		
+		Path directory = path.getParent();
+		if(!watchedDirectories.add(directory)) return;
+		
+		try {
+			
+			directory.register(watchService , StandardWatchEventKinds.ENTRY_CREATE , StandardWatchEventKinds.ENTRY_MODIFY);
+			
+		} catch (IOException e) {
+			
+			e.printStackTrace();
+			Logging.syserrln("Failed to watch " + directory + ", scripts in it will not be hot reloaded.");
+			
 		}
 		
-		return result;
+	}
+	
+	/**
+	 * Stops watching script files for modifications.
+	 */
+	public void shutDown() {
+		
+		if(watchService == null) return;
+		
+		try {
+			
+			watchService.close();
+			
+		} catch (IOException e) {
+			
+			e.printStackTrace();
+			
+		}
 		
 	}
 
@@ -386,8 +555,15 @@ public class JythonScriptExecutor {
 	 * @param map the map to find it in
 	 * @param editor the editor
 	 * @param arguments the arguments to pass to the script's name function
+	 * @param artboard the artboard a background script modifies, or <code>null</code> if the script cannot run in the background
 	 */
-	private void pushEventScriptEvent(String name , HashMap<String , EventAndCode> map , Editor editor , List<Object> arguments) {
+	private void pushEventScriptEvent(
+		String name , 
+		HashMap<String , EventAndCode> map , 
+		Editor editor , 
+		List<Object> arguments , 
+		Artboard artboard
+	) {
 		
 		EventAndCode script = Objects.requireNonNull(map.get(name));
 		String functionName = editor.asScriptName(name);		
@@ -396,10 +572,10 @@ public class JythonScriptExecutor {
 			
 			List<String> args = List.of(result.split(" "));
 			arguments.add(args);			
-			editor.eventPush(runScriptNameFunction(functionName, script, arguments.toArray()));
+			editor.eventPush(runScriptNameFunction(functionName, script, arguments.toArray() , editor , artboard));
 			
 		});
-		else editor.eventPush(runScriptNameFunction(functionName, script, arguments.toArray()));
+		else editor.eventPush(runScriptNameFunction(functionName, script, arguments.toArray() , editor , artboard));
 		
 	}
 	
@@ -410,55 +586,56 @@ public class JythonScriptExecutor {
 	 * @param name name of a function to invoke
 	 * @param info container for metadata and compiled code
 	 * @param arguments arguments to pass
+	 * @param editor the editor
+	 * @param artboard the artboard a background script modifies, or <code>null</code> if the script cannot run in the background
 	 * @return Event to push containing the given code.
 	 */
-	private CSSSEvent runScriptNameFunction(String name , EventAndCode info , Object[] arguments) {
-
-		PyObject event = runScriptNameFunction(name, info.code, arguments);
+	private CSSSEvent runScriptNameFunction(String name , EventAndCode info , Object[] arguments , Editor editor , Artboard artboard) {
+		
+		PyObject event = runScriptNameFunction(name, info.script, arguments);
 		if(event == null) return new NOPEvent();
+		if(info.meta.runsInBackground() && artboard != null) {
+			
+			return new BackgroundScriptEvent(editor , info.meta , event , artboard , new ScriptTask(name , editor.scriptTimeBudget()));
+			
+		}
+		
 		RunScriptEvent2 scriptEvent = new RunScriptEvent2(info.meta , event);
 		return scriptEvent;
 		
 	}
 	
 	/**
-	 * Executes the function named {@code name}, which will receive {@code arguments}. {@code code} is the source compilation containing the function
-	 * of the given name. 
+	 * Executes the function named {@code name}, which will receive {@code arguments}. {@code script} is the compiled script containing the 
+	 * function of the given name. The function is called in the current thread's interpreter, whose module for {@code script} is only run
+	 * the first time the thread runs this version of the script.
 	 * 
 	 * @param name name of a function to execute
-	 * @param code code containing the function
+	 * @param script script containing the function
 	 * @param arguments arguments to pass to the function
 	 * @return Result of the function call.
 	 */
-	private PyObject runScriptNameFunction(String name , PyCode code,  Object[] arguments) {
-
-		Logging.sysDebugln("Running " + name);
-		try(PythonInterpreter interpreter = new PythonInterpreter()) {
-			
-			Logging.sysDebugln("Starting execution of code.");
-			interpreter.exec(code);
-			Logging.sysDebugln("Executed code.");
-			PyObject nameFunction = interpreter.get(name);
-			PyObject[] argsAsPyObjects = new PyObject[arguments.length];
-			ClassicPyObjectAdapter adapter = new ClassicPyObjectAdapter();
-			for(int i = 0 ; i < argsAsPyObjects.length ; i++) argsAsPyObjects[i] = adapter.adapt(arguments[i]);
-			Logging.sysDebugln(String.format("Starting function call (%d args).", argsAsPyObjects.length));
-			PyObject result = null;
-			//if in debug mode, catch an exception if an error occurs
-			if(Engine.isDebug()) try {
-				
-				result = nameFunction.__call__(argsAsPyObjects);
-
-			} catch(Exception e) {
-				
-				e.printStackTrace();
+	PyObject runScriptNameFunction(String name , CompiledScript script , Object[] arguments) {
+		
+		long start = Profiler.begin();
+		WarmInterpreter warm = interpreters.get();
+		PyObject nameFunction = warm.load(script).get(name);
+		PyObject[] argsAsPyObjects = new PyObject[arguments.length];
+		for(int i = 0 ; i < argsAsPyObjects.length ; i++) argsAsPyObjects[i] = warm.adapter.adapt(arguments[i]);
+		PyObject result = null;
+		//if in debug mode, catch an exception if an error occurs
+		if(Engine.isDebug()) try {
+			
+			result = nameFunction.__call__(argsAsPyObjects);
 			
-			} else result = nameFunction.__call__(argsAsPyObjects);
+		} catch(Exception e) {
 			
-			Logging.sysDebugln("Finished call to function " + name + ".");
-			return result;
+			e.printStackTrace();
 			
-		}
+		} else result = nameFunction.__call__(argsAsPyObjects);
+		
+		Profiler.end("script/" + name , start);
+		return result;
 		
 	}
 	
@@ -490,8 +667,49 @@ public class JythonScriptExecutor {
 		
 	}
 
-	private record EventAndCode(EventScriptMeta meta , PyCode code) {}
-	private record BrushAndCode(BrushScriptMeta meta , PyCode code) {}
-	private record PaletteAndCode(PaletteScriptMeta meta , PyCode code) {}
+	private record EventAndCode(EventScriptMeta meta , CompiledScript script) {}
+	private record BrushAndCode(BrushScriptMeta meta , CompiledScript script) {}
+	private record PaletteAndCode(PaletteScriptMeta meta , CompiledScript script) {}
+	
+	/**
+	 * Code compiled from the contents of a script file. A new instance is created each time the file is compiled, so instances identify 
+	 * versions of a script.
+	 */
+	record CompiledScript(String path , long contentHash , PyCode code) {}
+	
+	/**
+	 * Interpreter of one thread along with the modules of the scripts it has run, by path. Only used by its thread.
+	 */
+	private static final class WarmInterpreter {
+		
+		final PythonInterpreter interpreter = new PythonInterpreter(new PyStringMap());
+		final ClassicPyObjectAdapter adapter = new ClassicPyObjectAdapter();
+		final HashMap<String , Module> modules = new HashMap<>();
+		
+		/**
+		 * Sets the locals of this interpreter to the module of {@code script}, running the script's module level code first if this 
+		 * interpreter has not run this version of the script.
+		 */
+		PythonInterpreter load(CompiledScript script) {
+			
+			Module module = modules.get(script.path());
+			if(module == null || module.script() != script) {
+				
+				Logging.sysDebugln("Running module " + script.path());
+				PyStringMap namespace = new PyStringMap();
+				namespace.__setitem__("__name__" , Py.newString("__main__"));
+				interpreter.setLocals(namespace);
+				interpreter.exec(script.code());
+				modules.put(script.path() , new Module(script , namespace));
+				
+			} else interpreter.setLocals(module.namespace());
+			
+			return interpreter;
+			
+		}
+		
+	}
+	
+	private record Module(CompiledScript script , PyStringMap namespace) {}
 	
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+package cs.csss.editor;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handle to a script running on a worker thread, through which the script reports its progress and the user cancels it. A script is also
+ * stopped once it runs longer than its time budget.
+ * <p>
+ * 	Scripts cannot be stopped from outside, so cancellation is cooperative. Every write a script makes to its
+ * 	{@link cs.csss.project.utils.StagedRegion StagedRegion} and every call to {@link #advance(int)} or {@link #checkContinue()} throws a
+ * 	{@link CancellationException} once the task is cancelled or out of time, which unwinds the script.
+ * </p>
+ */
+public final class ScriptTask {
+	
+	/**
+	 * Name of the script this task runs.
+	 */
+	public final String name;
+	
+	private final long budgetNanos;
+	private final AtomicInteger done = new AtomicInteger() , total = new AtomicInteger();
+	private volatile long startNanos = -1;
+	private volatile boolean cancelled = false;
+	
+	/**
+	 * Creates a task for the script named {@code name}.
+	 *
+	 * @param name name of a script
+	 * @param budgetSeconds number of seconds the script may run for
+	 */
+	public ScriptTask(String name , int budgetSeconds) {
+		
+		this.name = name;
+		budgetNanos = budgetSeconds * 1_000_000_000L;
+		
+	}
+	
+	/**
+	 * Starts the clock of this task's budget. Called when the script begins running.
+	 */
+	public void start() {
+		
+		startNanos = System.nanoTime();
+		
+	}
+	
+	/**
+	 * Sets the number of units of work the script will do, from which its progress is computed.
+	 *
+	 * @param units units of work of the script
+	 */
+	public void total(int units) {
+		
+		total.set(units);
+		
+	}
+	
+	/**
+	 * Records that the script finished {@code units} more units of work. May be called from any thread.
+	 *
+	 * @param units finished units of work
+	 * @throws CancellationException if this task has been cancelled or has run out of time.
+	 */
+	public void advance(int units) {
+		
+		done.addAndGet(units);
+		checkContinue();
+		
+	}
+	
+	/**
+	 * Returns the fraction of its work the script has finished, or 0 if it has not reported its amount of work.
+	 *
+	 * @return Progress of the script, from 0 to 1.
+	 */
+	public float progress() {
+		
+		int units = total.get();
+		return units <= 0 ? 0 : Math.min(1f , done.get() / (float)units);
+		
+	}
+	
+	/**
+	 * Cancels this task. The script stops the next time it writes or reports progress, and its results are discarded.
+	 */
+	public void cancel() {
+		
+		cancelled = true;
+		
+	}
+	
+	/**
+	 * Returns whether this task was cancelled.
+	 *
+	 * @return Whether this task was cancelled.
+	 */
+	public boolean cancelled() {
+		
+		return cancelled;
+		
+	}
+	
+	/**
+	 * Returns whether the script has run longer than its budget.
+	 *
+	 * @return Whether the script has run out of time.
+	 */
+	public boolean overBudget() {
+		
+		return startNanos != -1 && System.nanoTime() - startNanos > budgetNanos;
+		
+	}
+	
+	/**
+	 * Returns the number of milliseconds the script has run for.
+	 *
+	 * @return Running time of the script in milliseconds.
+	 */
+	public long elapsedMillis() {
+		
+		return startNanos == -1 ? 0 : (System.nanoTime() - startNanos) / 1_000_000;
+		
+	}
+	
+	/**
+	 * Returns the number of seconds the script may run for.
+	 *
+	 * @return Budget of the script in seconds.
+	 */
+	public int budgetSeconds() {
+		
+		return (int)(budgetNanos / 1_000_000_000L);
+		
+	}
+	
+	/**
+	 * Throws if the script must stop. Scripts doing long computations without writing should call this periodically.
+	 *
+	 * @throws CancellationException if this task has been cancelled or has run out of time.
+	 */
+	public void checkContinue() {
+		
+		if(cancelled) throw new CancellationException(name + " was cancelled.");
+		if(overBudget()) throw new CancellationException(name + " ran longer than its budget of " + budgetSeconds() + " seconds.");
+		
+	}
+	
+}
@@ -13,27 +13,23 @@ package cs.csss.editor;
 
 import static sc.core.graphics.SCRendererConstants.*;
 
-import static org.lwjgl.system.MemoryUtil.memFree;
-import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static cs.csss.engine.MemoryAccounting.memFree;
+import static cs.csss.engine.MemoryAccounting.memAlloc;
 
 import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import org.joml.AxisAngle4f;
 import cs.csss.annotation.RenderThreadOnly;
-import cs.csss.engine.CSSSCamera;
-import cs.csss.engine.Position;
 import cs.csss.engine.TransformPosition;
 import cs.csss.project.Artboard;
 import cs.csss.project.ArtboardPalette;
-import cs.csss.project.CSSSProject;
 import cs.csss.project.CSSSShader;
 import cs.csss.project.IndexTexture;
 import cs.csss.project.Layer;
 import cs.csss.project.LayerPixel;
 import cs.csss.project.NonVisualLayer;
 import cs.csss.project.VisualLayer;
-import cs.csss.project.io.ImageGrabber;
 import sc.core.SCShutDown;
 import sc.core.graphics.SCOrthographicCamera;
 import sc.core.graphics.SCTexture;
@@ -171,7 +167,7 @@ public class SelectionAreaRender implements SCShutDown {
 	 */
 	public ByteBuffer texels() {
 				
-		ByteBuffer regionTexelBuffer = memAlloc(width * height * IndexTexture.pixelSizeBytes);
+		ByteBuffer regionTexelBuffer = memAlloc("selection/texels" , width * height * IndexTexture.pixelSizeBytes);
 		Layer.toByteBuffer(regionContents, regionTexelBuffer);		
 		return regionTexelBuffer;
 		
@@ -331,49 +327,6 @@ public class SelectionAreaRender implements SCShutDown {
 		
 	}
 	
-	/**
-	 * Draws this render and returns a downloaded {@link cs.csss.annotation.FreeAfterUse @FreeAfterUse} buffer from a custom framebuffer to 
-	 * which this render was drawn.
-	 * 
-	 * @param swapBuffers callback for swapping buffers, must not be null
-	 * @param width width of the region to draw
-	 * @param height height of the region to draw
-	 * @param midX x coordinate where a camera should center on 
-	 * @param midY y coordinate where a camera should center on
-	 * @return {@code @FreeAfterUse ByteBuffer} containing the downloaded result of the render. A pixel of {@code (0 , 0)} notates a pixel
-	 * 		   the underlying source texture does not modify; its a background pixel.
-	 */
-	@RenderThreadOnly public ByteBuffer renderAndDownload(Runnable swapBuffers , int width , int height , float midX , float midY) {
-		
-		ImageGrabber grabber = new ImageGrabber(
-			null , 
-			null , 
-			() -> draw(CSSSCamera.centeredCamera(width, height, midX, midY) , CSSSProject.theTextureShader() , swapBuffers) , 
-			width , 
-			height
-		);
-		
-		return grabber.renderImage(); 
-		
-	}
-
-	/**
-	 * Draws this render and returns a downloaded {@link cs.csss.annotation.FreeAfterUse @FreeAfterUse} buffer from a custom framebuffer to
-	 * which this render was drawn.
-	 * 
-	 * @param swapBuffers callback for swapping buffers, must not be null
-	 * @param width width of the region to draw
-	 * @param height height of the region to draw
-	 * @param position object whose midpoint is used for centering the camera
-	 * @return {@code @FreeAfterUse ByteBuffer} containing the downloaded result of the render. A pixel of {@code (0 , 0)} notates a pixel
-	 * 		   the underlying source texture does not modify; its a background pixel.
-	 */
-	@RenderThreadOnly public ByteBuffer renderAndDownload(Runnable swapBuffers , int width , int height , Position position) {
-		
-		return renderAndDownload(swapBuffers , width , height , position.midX() , position.midY()); 
-		
-	}
-	
 	@RenderThreadOnly @Override public void shutDown() {
 		
 		if(isFreed()) return;
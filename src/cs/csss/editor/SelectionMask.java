@@ -0,0 +1,472 @@
+package cs.csss.editor;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of selected pixels of an artboard, stored as run length spans per row.
+ * <p>
+ * 	Each row of a mask is an array of {@code [start , end)} pairs, sorted from left to right and never overlapping or touching, so the
+ * 	memory a mask uses and the work done over it scale with the number of runs of selected pixels rather than with the size of the
+ * 	mask's bounding box. Masks are combined with {@link #union(SelectionMask)}, {@link #intersect(SelectionMask)}, and
+ * 	{@link #subtract(SelectionMask)}, which each make a single pass over the runs of both masks.
+ * </p>
+ * <p>
+ * 	Coordinates of masks are pixel indices of an artboard, with rows going upward from the bottom of the artboard.
+ * </p>
+ */
+public final class SelectionMask {
+	
+	private static final int[] EMPTY_ROW = new int[0];
+	
+	private static final SelectionMask EMPTY = new SelectionMask(0 , new int[0][]);
+	
+	private static final int UNION = 0 , INTERSECT = 1 , SUBTRACT = 2;
+	
+	/**
+	 * Returns a mask containing no pixels.
+	 *
+	 * @return Empty mask.
+	 */
+	public static SelectionMask empty() {
+		
+		return EMPTY;
+		
+	}
+	
+	/**
+	 * Creates a mask containing every pixel of the given rectangle.
+	 *
+	 * @param leftX left x index of the rectangle
+	 * @param bottomY bottom y index of the rectangle
+	 * @param width width of the rectangle
+	 * @param height height of the rectangle
+	 * @return Mask containing the given rectangle.
+	 */
+	public static SelectionMask rectangle(int leftX , int bottomY , int width , int height) {
+		
+		if(width <= 0 || height <= 0) return EMPTY;
+		
+		int[] row = {leftX , leftX + width};
+		int[][] rows = new int[height][];
+		Arrays.fill(rows , row);
+		return new SelectionMask(bottomY , rows);
+		
+	}
+	
+	private final int bottomY , leftX , rightX , numberPixels , numberSpans;
+	
+	/**
+	 * Row {@code i} contains the spans of row {@code bottomY + i}. Row arrays are never modified and may be shared between masks.
+	 */
+	private final int[][] rows;
+	
+	private SelectionMask(int bottomY , int[][] rows) {
+		
+		//trim empty rows off the bottom and top
+		int first = 0 , last = rows.length;
+		while(first < last && rows[first].length == 0) first++;
+		while(last > first && rows[last - 1].length == 0) last--;
+		if(first != 0 || last != rows.length) rows = Arrays.copyOfRange(rows , first , last);
+		
+		this.bottomY = rows.length == 0 ? 0 : bottomY + first;
+		this.rows = rows;
+		
+		int leftX = Integer.MAX_VALUE , rightX = Integer.MIN_VALUE , numberPixels = 0 , numberSpans = 0;
+		for(int[] row : rows) {
+			
+			if(row.length == 0) continue;
+			leftX = Math.min(leftX , row[0]);
+			rightX = Math.max(rightX , row[row.length - 1]);
+			numberSpans += row.length / 2;
+			for(int i = 0 ; i < row.length ; i += 2) numberPixels += row[i + 1] - row[i];
+			
+		}
+		
+		this.leftX = rows.length == 0 ? 0 : leftX;
+		this.rightX = rows.length == 0 ? 0 : rightX;
+		this.numberPixels = numberPixels;
+		this.numberSpans = numberSpans;
+		
+	}
+	
+	/**
+	 * Returns a mask containing the pixels contained by this mask or {@code other}.
+	 *
+	 * @param other another mask
+	 * @return Union of this mask and {@code other}.
+	 * @throws NullPointerException if {@code other} is <code>null</code>.
+	 */
+	public SelectionMask union(SelectionMask other) {
+		
+		return combine(this , other , UNION);
+		
+	}
+	
+	/**
+	 * Returns a mask containing the pixels contained by both this mask and {@code other}.
+	 *
+	 * @param other another mask
+	 * @return Intersection of this mask and {@code other}.
+	 * @throws NullPointerException if {@code other} is <code>null</code>.
+	 */
+	public SelectionMask intersect(SelectionMask other) {
+		
+		return combine(this , other , INTERSECT);
+		
+	}
+	
+	/**
+	 * Returns a mask containing the pixels contained by this mask but not by {@code other}.
+	 *
+	 * @param other another mask
+	 * @return This mask with the pixels of {@code other} removed.
+	 * @throws NullPointerException if {@code other} is <code>null</code>.
+	 */
+	public SelectionMask subtract(SelectionMask other) {
+		
+		return combine(this , other , SUBTRACT);
+		
+	}
+	
+	/**
+	 * Returns this mask moved by the given amounts.
+	 *
+	 * @param deltaX number of pixels to move rightward
+	 * @param deltaY number of pixels to move upward
+	 * @return Translated copy of this mask.
+	 */
+	public SelectionMask translate(int deltaX , int deltaY) {
+		
+		if(deltaX == 0 && deltaY == 0) return this;
+		if(deltaX == 0) return new SelectionMask(bottomY + deltaY , rows);
+		
+		int[][] translated = new int[rows.length][];
+		for(int i = 0 ; i < rows.length ; i++) {
+			
+			int[] row = rows[i];
+			if(row.length == 0) translated[i] = EMPTY_ROW;
+			else {
+				
+				translated[i] = new int[row.length];
+				for(int j = 0 ; j < row.length ; j++) translated[i][j] = row[j] + deltaX;
+				
+			}
+			
+		}
+		
+		return new SelectionMask(bottomY + deltaY , translated);
+		
+	}
+	
+	/**
+	 * Returns the part of this mask within {@code [0 , width)} and {@code [0 , height)}, such as the bounds of an artboard.
+	 *
+	 * @param width width of the region to clip to
+	 * @param height height of the region to clip to
+	 * @return Clipped mask.
+	 */
+	public SelectionMask clip(int width , int height) {
+		
+		if(leftX >= 0 && bottomY >= 0 && rightX <= width && bottomY + rows.length <= height) return this;
+		return intersect(rectangle(0 , 0 , width , height));
+		
+	}
+	
+	/**
+	 * Returns whether the given pixel is in this mask.
+	 *
+	 * @param x x index of a pixel
+	 * @param y y index of a pixel
+	 * @return {@code true} if the given pixel is in this mask.
+	 */
+	public boolean contains(int x , int y) {
+		
+		int rowIndex = y - bottomY;
+		if(rowIndex < 0 || rowIndex >= rows.length) return false;
+		
+		int[] row = rows[rowIndex];
+		//index of the first boundary greater than x, an odd index means x is between a start and an end
+		int low = 0 , high = row.length;
+		while(low < high) {
+			
+			int mid = (low + high) >>> 1;
+			if(row[mid] <= x) low = mid + 1;
+			else high = mid;
+			
+		}
+		
+		return (low & 1) == 1;
+		
+	}
+	
+	/**
+	 * Invokes {@code consumer} on each span of this mask, from the bottom row upward and from left to right within a row.
+	 *
+	 * @param consumer code to invoke on each span
+	 */
+	public void forEachSpan(SpanConsumer consumer) {
+		
+		for(int i = 0 ; i < rows.length ; i++) {
+			
+			int[] row = rows[i];
+			for(int j = 0 ; j < row.length ; j += 2) consumer.accept(row[j] , bottomY + i , row[j + 1] - row[j]);
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns whether this mask contains no pixels.
+	 *
+	 * @return Whether this mask contains no pixels.
+	 */
+	public boolean isEmpty() {
+		
+		return rows.length == 0;
+		
+	}
+	
+	/**
+	 * Returns the number of pixels in this mask.
+	 *
+	 * @return Number of pixels in this mask.
+	 */
+	public int numberPixels() {
+		
+		return numberPixels;
+		
+	}
+	
+	/**
+	 * Returns the number of spans in this mask.
+	 *
+	 * @return Number of spans in this mask.
+	 */
+	public int numberSpans() {
+		
+		return numberSpans;
+		
+	}
+	
+	/**
+	 * Returns the left x index of the bounding box of this mask.
+	 *
+	 * @return Left x index of the bounding box of this mask.
+	 */
+	public int leftX() {
+		
+		return leftX;
+		
+	}
+	
+	/**
+	 * Returns the bottom y index of the bounding box of this mask.
+	 *
+	 * @return Bottom y index of the bounding box of this mask.
+	 */
+	public int bottomY() {
+		
+		return bottomY;
+		
+	}
+	
+	/**
+	 * Returns the width of the bounding box of this mask.
+	 *
+	 * @return Width of the bounding box of this mask.
+	 */
+	public int width() {
+		
+		return rightX - leftX;
+		
+	}
+	
+	/**
+	 * Returns the height of the bounding box of this mask.
+	 *
+	 * @return Height of the bounding box of this mask.
+	 */
+	public int height() {
+		
+		return rows.length;
+		
+	}
+	
+	@Override public String toString() {
+		
+		return String.format("Selection Mask: X: %d, Y: %d, W: %d, H: %d, Pixels: %d", leftX , bottomY , width() , height() , numberPixels);
+		
+	}
+	
+	private static SelectionMask combine(SelectionMask a , SelectionMask b , int operation) {
+		
+		if(b.isEmpty()) return operation == INTERSECT ? EMPTY : a;
+		if(a.isEmpty()) return operation == UNION ? b : EMPTY;
+		
+		int bottomY = Math.min(a.bottomY , b.bottomY);
+		int topY = Math.max(a.bottomY + a.rows.length , b.bottomY + b.rows.length);
+		int[][] rows = new int[topY - bottomY][];
+		for(int y = bottomY ; y < topY ; y++) rows[y - bottomY] = combineRow(a.row(y) , b.row(y) , operation);
+		
+		return new SelectionMask(bottomY , rows);
+		
+	}
+	
+	private int[] row(int y) {
+		
+		int index = y - bottomY;
+		return index < 0 || index >= rows.length ? EMPTY_ROW : rows[index];
+		
+	}
+	
+	/**
+	 * Sweeps over the boundaries of both rows in order, tracking whether the sweep is inside {@code a} and inside {@code b}, and records a
+	 * span wherever {@code operation} is true.
+	 */
+	private static int[] combineRow(int[] a , int[] b , int operation) {
+		
+		if(b.length == 0) return operation == INTERSECT ? EMPTY_ROW : a;
+		if(a.length == 0) return operation == UNION ? b : EMPTY_ROW;
+		
+		//each boundary of a or b ends or starts at most one span of the result
+		int[] result = new int[a.length + b.length];
+		int number = 0 , i = 0 , j = 0 , start = 0;
+		boolean inA = false , inB = false , wasIn = false;
+		
+		while(i < a.length || j < b.length) {
+			
+			int nextA = i < a.length ? a[i] : Integer.MAX_VALUE;
+			int nextB = j < b.length ? b[j] : Integer.MAX_VALUE;
+			int position = Math.min(nextA , nextB);
+			
+			if(nextA == position) inA = (i++ & 1) == 0;
+			if(nextB == position) inB = (j++ & 1) == 0;
+			
+			boolean in = switch(operation) {
+				case UNION -> inA || inB;
+				case INTERSECT -> inA && inB;
+				default -> inA && !inB;
+			};
+			
+			if(in && !wasIn) start = position;
+			else if(!in && wasIn) {
+				
+				//touching spans are merged
+				if(number != 0 && result[number - 1] == start) result[number - 1] = position;
+				else {
+					
+					result[number++] = start;
+					result[number++] = position;
+					
+				}
+				
+			}
+			
+			wasIn = in;
+			
+		}
+		
+		return number == 0 ? EMPTY_ROW : Arrays.copyOf(result , number);
+		
+	}
+	
+	/**
+	 * Consumer of a span of a mask.
+	 */
+	@FunctionalInterface public interface SpanConsumer {
+		
+		/**
+		 * Accepts a span.
+		 *
+		 * @param x left x index of the span
+		 * @param y y index of the span
+		 * @param length number of pixels in the span
+		 */
+		void accept(int x , int y , int length);
+		
+	}
+	
+	/**
+	 * Builds a mask out of spans added in any order. Overlapping and touching spans are merged.
+	 */
+	public static final class Builder {
+		
+		private int[] spans = new int[48];
+		private int number = 0;
+		
+		/**
+		 * Creates an empty builder.
+		 */
+		public Builder() {}
+		
+		/**
+		 * Adds a span to the mask being built. Spans whose length is not positive are ignored.
+		 *
+		 * @param x left x index of the span
+		 * @param y y index of the span
+		 * @param length number of pixels in the span
+		 * @return This builder.
+		 */
+		public Builder add(int x , int y , int length) {
+			
+			if(length <= 0) return this;
+			
+			if(number == spans.length) spans = Arrays.copyOf(spans , spans.length * 2);
+			spans[number++] = x;
+			spans[number++] = y;
+			spans[number++] = length;
+			return this;
+			
+		}
+		
+		/**
+		 * Creates a mask from the spans added to this builder.
+		 *
+		 * @return Mask containing every span added to this builder.
+		 */
+		public SelectionMask build() {
+			
+			int numberSpans = number / 3;
+			if(numberSpans == 0) return EMPTY;
+			
+			Integer[] order = new Integer[numberSpans];
+			for(int i = 0 ; i < numberSpans ; i++) order[i] = i * 3;
+			Arrays.sort(order , (first , second) -> spans[first + 1] != spans[second + 1]
+				? Integer.compare(spans[first + 1] , spans[second + 1])
+				: Integer.compare(spans[first] , spans[second])
+			);
+			
+			int bottomY = spans[order[0] + 1];
+			int[][] rows = new int[spans[order[numberSpans - 1] + 1] - bottomY + 1][];
+			int[] row = new int[2 * numberSpans];
+			int i = 0;
+			while(i < numberSpans) {
+				
+				int y = spans[order[i] + 1];
+				int rowLength = 0;
+				for(; i < numberSpans && spans[order[i] + 1] == y ; i++) {
+					
+					int start = spans[order[i]] , end = start + spans[order[i] + 2];
+					if(rowLength != 0 && start <= row[rowLength - 1]) row[rowLength - 1] = Math.max(row[rowLength - 1] , end);
+					else {
+						
+						row[rowLength++] = start;
+						row[rowLength++] = end;
+						
+					}
+					
+				}
+				
+				rows[y - bottomY] = Arrays.copyOf(row , rowLength);
+				
+			}
+			
+			for(int j = 0 ; j < rows.length ; j++) if(rows[j] == null) rows[j] = EMPTY_ROW;
+			
+			return new SelectionMask(bottomY , rows);
+			
+		}
+		
+	}
+	
+}
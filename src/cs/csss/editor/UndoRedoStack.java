@@ -2,6 +2,8 @@ package cs.csss.editor;
 
 import sc.core.SCShutDown;
 import sc.core.graphics.SCOpenGLRenderer;
+import java.util.function.Consumer;
+
 import cs.bringover.cs.core.utils.data.CSLinkedRingBuffer;
 import cs.csss.editor.event.CSSSEvent;
 
@@ -78,6 +80,17 @@ public class UndoRedoStack {
 		
 	}
 	
+	/**
+	 * Invokes {@code callback} for each event in this stack.
+	 * 
+	 * @param callback code to invoke for each event
+	 */
+	void forEach(Consumer<CSSSEvent> callback) {
+		
+		queue.forEach(callback);
+		
+	}
+	
 	/**
 	 * Shuts down this stack by releasing references to the events within it and freeing any memory associated with any events still in it.
 	 * @param renderer
@@ -4,6 +4,7 @@ import cs.csss.annotation.RenderThreadOnly;
 import cs.csss.editor.Editor;
 import cs.csss.editor.SelectionAreaBounder;
 import cs.csss.editor.SelectionAreaRender;
+import cs.csss.editor.SelectionMask;
 import cs.csss.engine.Control;
 import cs.csss.project.Artboard;
 import cs.csss.project.CSSSProject;
@@ -48,6 +49,47 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
 		
 	}
 	
+	private static volatile SelectionMask selectionMask = null;
+	
+	private static volatile Artboard selectionMaskArtboard = null;
+	
+	/**
+	 * Sets the current selection mask. Brushes which support selection masks only modify pixels that are both within their bounder and 
+	 * within the selection mask.
+	 * 
+	 * @param artboard the artboard {@code mask} selects pixels of
+	 * @param mask a selection mask
+	 */
+	public static void selectionMask(Artboard artboard , SelectionMask mask) {
+		
+		selectionMaskArtboard = artboard;
+		selectionMask = mask;
+		
+	}
+	
+	/**
+	 * Returns the current selection mask if it selects pixels of {@code artboard}.
+	 * 
+	 * @param artboard an artboard
+	 * @return The current selection mask, or <code>null</code> if there is none or it selects pixels of a different artboard. 
+	 */
+	public static SelectionMask selectionMask(Artboard artboard) {
+		
+		SelectionMask mask = selectionMask;
+		return mask != null && selectionMaskArtboard == artboard ? mask : null;
+		
+	}
+	
+	/**
+	 * Removes the current selection mask.
+	 */
+	public static void clearSelectionMask() {
+		
+		selectionMask = null;
+		selectionMaskArtboard = null;
+		
+	}
+	
 	//public for the benefit of Jython. See CSSSModifyingBrush.java for explanation.
 	public final SelectionAreaBounder selectionBounder = new SelectionAreaBounder();
 	
@@ -105,6 +147,14 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
 
 		LayerPixel[][] regionContents = current.activeLayer().get(texelCoords[0], texelCoords[1], width, height);
 
+		//only show the selected pixels if this brush only modifies them 
+		SelectionMask mask = usesSelectionMask() ? selectionMask(current) : null;
+		if(mask != null) for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) { 
+			
+			if(!mask.contains(texelCoords[0] + col , texelCoords[1] + row)) regionContents[row][col] = null;
+			
+		}
+
 		if(render != null) render.shutDown();
 
 		var shader = CSSSProject.thePaletteShader(); 
@@ -139,6 +189,18 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
 		
 	}
 
+	/**
+	 * Returns whether this brush only modifies the pixels of the current selection mask, if there is one. By default, this returns 
+	 * <code>false</code>.
+	 * 
+	 * @return Whether this brush supports selection masks.
+	 */
+	public boolean usesSelectionMask() {
+		
+		return false;
+		
+	}
+	
 	/**
 	 * Default implementation for moving the selection bounder. 
 	 *  
@@ -28,12 +28,18 @@ public class Copy_RegionBrush extends CSSSSelectingBrush {
 	@Override public CSSSEvent use(Artboard artboard, Editor editor, int xIndex, int yIndex) {
 
 		canUse = false;
-		CopyArtboardRegionEvent event = new CopyArtboardRegionEvent(artboard , render);
+		CopyArtboardRegionEvent event = new CopyArtboardRegionEvent(artboard , render , selectionMask(artboard));
 		resetRender();
 		return event;
 		
 	}
 	
+	@Override public boolean usesSelectionMask() {
+		
+		return true;
+		
+	}
+	
 	@Override public boolean canUse(Artboard artboard, Editor editor, int xIndex, int yIndex) {
 		
 		return canUse;
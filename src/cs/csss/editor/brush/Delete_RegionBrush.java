@@ -2,6 +2,7 @@ package cs.csss.editor.brush;
 
 import cs.csss.annotation.RenderThreadOnly;
 import cs.csss.editor.Editor;
+import cs.csss.editor.SelectionMask;
 import cs.csss.editor.event.CSSSEvent;
 import cs.csss.editor.event.DeleteRegionEvent;
 import cs.csss.project.Artboard;
@@ -28,6 +29,22 @@ import cs.csss.project.LayerPixel;
 
 		int[] asArtboardCoords = artboard.worldToPixelIndices(selectionBounder.LX() , selectionBounder.BY());
 		
+		SelectionMask mask = selectionMask(artboard);
+		if(mask != null) {
+			
+			clearSelectionMask();
+			return new DeleteRegionEvent(
+				artboard , 
+				mask.intersect(SelectionMask.rectangle(
+					asArtboardCoords[0] , 
+					asArtboardCoords[1] , 
+					selectionBounder.width() , 
+					selectionBounder.height()
+				))
+			);
+			
+		}
+		
 		return new DeleteRegionEvent(
 			artboard , 
 			asArtboardCoords[0] , 
@@ -59,6 +76,12 @@ import cs.csss.project.LayerPixel;
 		
 	}
 	
+	@Override public boolean usesSelectionMask() {
+		
+		return true;
+		
+	}
+	
 	@Override public void update(Artboard current , Editor editor) {
 		
 		if(!editor.cursorInBoundsForBrush()) return;
@@ -0,0 +1,58 @@
+package cs.csss.editor.brush;
+
+import java.util.Iterator;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.editor.Editor;
+import cs.csss.editor.SelectionMask;
+import cs.csss.editor.event.CSSSEvent;
+import cs.csss.editor.event.FloodFillEvent;
+import cs.csss.editor.event.NOPEvent;
+import cs.csss.project.Artboard;
+
+/**
+ * Selects the region of pixels contiguous with and of the same color as the clicked pixel. The selection is used by the brushes which
+ * support selection masks, and the bounders of all selecting brushes are moved over it.
+ */
+@RenderThreadOnly public class Magic_WandBrush extends CSSSBrush {
+	
+	/**
+	 * Creates the magic wand brush.
+	 */
+	public Magic_WandBrush() {
+		
+		super("Selects the region of pixels contiguous with and of the same color as the clicked pixel." , false);
+		
+	}
+	
+	@Override public CSSSEvent use(Artboard artboard, Editor editor, int xIndex, int yIndex) {
+		
+		SelectionMask mask = FloodFillEvent.magicWand(artboard , xIndex , yIndex);
+		CSSSSelectingBrush.selectionMask(artboard , mask);
+		if(mask.isEmpty()) return new NOPEvent();
+		
+		int leftX = (int)artboard.leftX() + mask.leftX();
+		int bottomY = (int)artboard.bottomY() + mask.bottomY();
+		Iterator<CSSSBrush> brushes = CSSSBrush.allBrushes();
+		while(brushes.hasNext()) if(brushes.next() instanceof CSSSSelectingBrush selecting) selecting.selectionBounder.positions(
+			leftX , 
+			leftX + mask.width() , 
+			bottomY , 
+			bottomY + mask.height()
+		);
+		
+		return new NOPEvent();
+		
+	}
+	
+	@Override public boolean canUse(Artboard artboard, Editor editor, int xIndex, int yIndex) {
+		
+		if(!super.canUse(artboard, editor, xIndex, yIndex) || !editor.cursorInBoundsForBrush()) return false;
+		
+		//the clicked pixel is already selected, which is always the case while the button is held after selecting
+		SelectionMask current = CSSSSelectingBrush.selectionMask(artboard);
+		return current == null || !current.contains(xIndex , yIndex);
+		
+	}
+	
+}
@@ -28,12 +28,19 @@ import cs.csss.utils.CollisionUtils;
 	@Override public CSSSEvent use(Artboard artboard, Editor editor, int xIndex, int yIndex) {
 
 		canUse = false;
-		MoveArtboardRegionEvent event = new MoveArtboardRegionEvent(artboard , render);
+		MoveArtboardRegionEvent event = new MoveArtboardRegionEvent(artboard , render , selectionMask(artboard));
 		resetRender();
+		clearSelectionMask();
 		return event;
 		
 	}
 	
+	@Override public boolean usesSelectionMask() {
+		
+		return true;
+		
+	}
+	
 	@Override public boolean canUse(Artboard artboard, Editor editor, int xIndex, int yIndex) {
 		
 		return canUse;
@@ -5,6 +5,7 @@ import cs.csss.editor.Editor;
 import cs.csss.editor.event.CSSSEvent;
 import cs.csss.editor.event.ModifyPaletteEvent;
 import cs.csss.editor.event.NOPEvent;
+import cs.csss.editor.event.ReplaceLookupEvent;
 import cs.csss.engine.ColorPixel;
 import cs.csss.engine.LookupPixel;
 import cs.csss.engine.Pixel;
@@ -28,7 +29,13 @@ import cs.csss.project.Artboard;
 
 		LookupPixel clickedPixel = artboard.getIndexPixelAtIndices(xIndex, yIndex);		
 		Pixel editorSelected = editor.selectedColorValues();
-		if(editorSelected instanceof LookupPixel) return new NOPEvent();
+		if(editorSelected instanceof LookupPixel asLookup) {
+			
+			if(artboard.activeLayer() == null) return new NOPEvent();
+			return new ReplaceLookupEvent(artboard.activeLayer().palette() , clickedPixel , asLookup);
+			
+		}
+		
 		return new ModifyPaletteEvent(artboard , clickedPixel.unsignedLookupX() , clickedPixel.unsignedLookupY() , (ColorPixel)editorSelected);
 
 	}
@@ -6,6 +6,7 @@ import cs.csss.editor.event.CSSSEvent;
 import cs.csss.editor.event.RotateRegionEvent;
 import cs.csss.engine.Control;
 import cs.csss.project.Artboard;
+import cs.csss.utils.PixelTransforms.RotationMode;
 
 /**
  * Brush used to rotate regions of pixels along their center.
@@ -18,6 +19,8 @@ import cs.csss.project.Artboard;
 	
 	private float previousCursorY = Float.NEGATIVE_INFINITY;
 	
+	private volatile RotationMode rotationMode = RotationMode.NEAREST;
+	
 	/**
 	 * Creates a new rotation brush.
 	 */
@@ -34,12 +37,32 @@ import cs.csss.project.Artboard;
 
 		canUse = false;
 		previousCursorY = Float.NEGATIVE_INFINITY;
-		RotateRegionEvent event = new RotateRegionEvent(artboard , editor , render , selectionBounder , editor::swapBuffers);		
+		RotateRegionEvent event = new RotateRegionEvent(artboard , render , selectionBounder , rotationMode);		
 		render = null;		
 		return event;
 		
 	}
 	
+	/**
+	 * Returns the rotation mode rotations made by this brush use.
+	 * 
+	 * @return Rotation mode of this brush.
+	 */
+	public RotationMode rotationMode() {
+		
+		return rotationMode;
+		
+	}
+	
+	/**
+	 * Toggles this brush between {@link RotationMode#NEAREST} and {@link RotationMode#ROTSPRITE}.
+	 */
+	public void toggleRotSprite() {
+		
+		rotationMode = rotationMode == RotationMode.NEAREST ? RotationMode.ROTSPRITE : RotationMode.NEAREST;
+		
+	}
+	
 	@Override public boolean canUse(Artboard artboard, Editor editor, int xIndex, int yIndex) {
 			
 		return canUse;
@@ -38,7 +38,7 @@ import cs.csss.project.Artboard;
 		
 		canUse = false;
 		previousYPosition = Float.NEGATIVE_INFINITY;
-		ScaleRegionEvent event = new ScaleRegionEvent(artboard, editor , render , editor::swapBuffers);
+		ScaleRegionEvent event = new ScaleRegionEvent(artboard , render);
 		render = null;
 		return event;
 		
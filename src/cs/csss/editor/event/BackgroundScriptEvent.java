@@ -0,0 +1,111 @@
+package cs.csss.editor.event;
+
+import org.python.core.Py;
+import org.python.core.PyObject;
+
+import cs.csss.editor.Editor;
+import cs.csss.editor.EventScriptMeta;
+import cs.csss.editor.ScriptTask;
+import cs.csss.engine.Logging;
+import cs.csss.project.Artboard;
+import cs.csss.project.utils.StagedRegion;
+
+/**
+ * Event running an artboard script on a worker thread. The script's {@code run(region , task)} method writes colors into a
+ * {@link StagedRegion} covering the artboard, reports progress through a {@link ScriptTask}, and may be cancelled or run out of time at any
+ * write. If it finishes, a {@link CommitStagedRegionEvent} applying the staged colors is pushed, which is the event the user undoes and redoes.
+ * This event itself is transient, so cancelled and failed scripts leave nothing on the undo stack.
+ * 
+ * <p>
+ * 	The editor runs the script on the batch lane and keeps handling other events while it runs, so the script may read the artboard while
+ * 	later events change it. Its colors are applied over whatever the artboard holds when it finishes.
+ * </p>
+ */
+public class BackgroundScriptEvent extends CSSSEvent {
+	
+	private final Editor editor;
+	private final Artboard artboard;
+	private final PyObject run;
+	private final ScriptTask task;
+	private StagedRegion region;
+	private volatile boolean completed = false;
+	
+	/**
+	 * Creates a background script event.
+	 *
+	 * @param editor the editor
+	 * @param meta metadata of the script
+	 * @param object object the script's name function returned, which must have a {@code run} method
+	 * @param artboard the artboard the script modifies
+	 * @param task handle for the script
+	 */
+	public BackgroundScriptEvent(Editor editor , EventScriptMeta meta , PyObject object , Artboard artboard , ScriptTask task) {
+		
+		super(false , true , true);
+		this.editor = editor;
+		this.artboard = artboard;
+		this.task = task;
+		run = object.__getattr__("run");
+		
+	}
+	
+	/**
+	 * Runs the script on the calling thread, which is a worker thread.
+	 */
+	@Override public void prepare() {
+		
+		task.start();
+		region = new StagedRegion(0 , 0 , artboard.width() , artboard.height() , task::checkContinue);
+		
+		try {
+			
+			run.__call__(Py.java2py(region) , Py.java2py(task));
+			//scripts which return early after noticing the cancel are discarded too
+			task.checkContinue();
+			completed = true;
+			
+		} catch(Exception e) {
+			
+			if(task.cancelled()) Logging.sysoutln(task.name + " was cancelled after " + task.elapsedMillis() + " ms.");
+			else if(task.overBudget()) Logging.syserrln(task.name + " ran longer than its budget of " + task.budgetSeconds() + " seconds.");
+			else e.printStackTrace();
+			
+			region = null;
+			
+		}
+		
+	}
+	
+	/**
+	 * Pushes the event applying the script's results if the script finished.
+	 */
+	@Override public void commit() {
+		
+		if(completed) editor.eventPush(new CommitStagedRegionEvent(artboard , region));
+		
+	}
+	
+	/**
+	 * Runs both phases of this event on the calling thread.
+	 */
+	@Override public void _do() {
+		
+		prepare();
+		commit();
+		
+	}
+	
+	@Override public void undo() {}
+	
+	/**
+	 * Returns the handle of the script this event runs.
+	 *
+	 * @return Handle of the script.
+	 */
+	public ScriptTask task() {
+		
+		return task;
+		
+	}
+	
+}
@@ -0,0 +1,341 @@
+package cs.csss.editor.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.editor.SelectionMask;
+import cs.csss.engine.Lane;
+import cs.csss.project.Artboard;
+import cs.csss.project.Layer;
+import cs.csss.project.MemoryUsage;
+import cs.csss.project.utils.PixelFilters;
+import cs.csss.project.utils.PixelRegions;
+
+/**
+ * Applies one {@link Operation} to a region of the active layer of many artboards, such as every frame of an animation, as a single
+ * undoable event.
+ *
+ * <p>
+ * 	The operation works on the packed lookups of {@link PixelRegions}. In {@link #prepare()}, the lookups of each artboard are read and
+ * 	operated on in a task of their own on {@link Lane#COMPUTE}, so the time a batch takes shrinks with the number of cores. Only the
+ * 	smallest rectangle containing the changes to an artboard is kept, and {@link #commit()} writes it to the artboard in one texture upload.
+ * 	Artboards whose active layers are the same layer, such as shallow copies, are operated on once, and artboards whose active layers are
+ * 	hidden or locked are skipped.
+ * </p>
+ * <p>
+ * 	If the event has a {@link SelectionMask}, the operation still sees the whole of each artboard, so filters can read pixels around the
+ * 	selection, but only the changes to pixels within the mask are kept.
+ * </p>
+ */
+public class BatchArtboardEvent extends CSSSEvent {
+	
+	private final List<Artboard> artboards;
+	private final int leftX , bottomY , width , height;
+	private final Operation operation;
+	private final SelectionMask mask;
+	
+	private List<Edit> edits;
+	
+	/**
+	 * Creates a batch artboard event operating on the whole of each artboard.
+	 *
+	 * @param artboards artboards to operate on
+	 * @param operation operation to apply to each artboard
+	 * @throws NullPointerException if {@code artboards} or {@code operation} is <code>null</code>.
+	 */
+	public BatchArtboardEvent(Collection<Artboard> artboards , Operation operation) {
+		
+		this(artboards , 0 , 0 , Integer.MAX_VALUE , Integer.MAX_VALUE , null , operation);
+		
+	}
+	
+	/**
+	 * Creates a batch artboard event operating on the whole of each artboard, keeping only the changes to pixels within {@code mask}.
+	 *
+	 * @param artboards artboards to operate on
+	 * @param mask pixels to change in each artboard
+	 * @param operation operation to apply to each artboard
+	 * @throws NullPointerException if {@code artboards}, {@code mask}, or {@code operation} is <code>null</code>.
+	 */
+	public BatchArtboardEvent(Collection<Artboard> artboards , SelectionMask mask , Operation operation) {
+		
+		this(artboards , 0 , 0 , Integer.MAX_VALUE , Integer.MAX_VALUE , Objects.requireNonNull(mask) , operation);
+		
+	}
+	
+	/**
+	 * Creates a batch artboard event operating on a region of each artboard. The region is clipped to the bounds of each artboard, and
+	 * artboards it does not overlap are skipped.
+	 *
+	 * @param artboards artboards to operate on
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param operation operation to apply to each artboard
+	 * @throws NullPointerException if {@code artboards} or {@code operation} is <code>null</code>.
+	 * @throws IllegalArgumentException if {@code width} or {@code height} is not positive.
+	 */
+	public BatchArtboardEvent(Collection<Artboard> artboards , int leftX , int bottomY , int width , int height , Operation operation) {
+		
+		this(artboards , leftX , bottomY , width , height , null , operation);
+		
+	}
+	
+	private BatchArtboardEvent(
+		Collection<Artboard> artboards ,
+		int leftX ,
+		int bottomY ,
+		int width ,
+		int height ,
+		SelectionMask mask ,
+		Operation operation
+	) {
+		
+		super(true , false , true);
+		
+		if(width <= 0) throw new IllegalArgumentException("Width is not positive: " + width);
+		if(height <= 0) throw new IllegalArgumentException("Height is not positive: " + height);
+		
+		this.artboards = new ArrayList<>(Objects.requireNonNull(artboards));
+		this.leftX = leftX;
+		this.bottomY = bottomY;
+		this.width = width;
+		this.height = height;
+		this.mask = mask;
+		this.operation = Objects.requireNonNull(operation);
+		
+	}
+	
+	@Override public void _do() {
+		
+		prepare();
+		commit();
+		
+	}
+	
+	@Override public void prepare() {
+		
+		//already prepared
+		if(edits != null) return;
+		
+		Set<Layer> layers = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<Callable<Edit>> tasks = new ArrayList<>(artboards.size());
+		for(Artboard x : artboards) if(layers.add(x.activeLayer())) tasks.add(() -> edit(x));
+		
+		List<Edit> edits = new ArrayList<>(tasks.size());
+		try {
+			
+			for(Future<Edit> x : Lane.COMPUTE.invokeAll(tasks)) {
+				
+				Edit edit = x.get();
+				if(edit != null) edits.add(edit);
+				
+			}
+			
+		} catch (InterruptedException | ExecutionException e) {
+			
+			throw new IllegalStateException(e);
+			
+		}
+		
+		this.edits = edits;
+		
+	}
+	
+	/**
+	 * Applies {@link #operation} to a copy of the lookups of {@code artboard} and returns the smallest region containing its changes.
+	 *
+	 * @param artboard an artboard
+	 * @return Changes to {@code artboard}, or <code>null</code> if there are none.
+	 */
+	private Edit edit(Artboard artboard) {
+		
+		Layer layer = artboard.activeLayer();
+		if(layer.hiding() || layer.locked()) return null;
+		
+		int left = Math.max(0 , leftX) , bottom = Math.max(0 , bottomY);
+		int right = (int)Math.min(artboard.width() , (long)leftX + width) , top = (int)Math.min(artboard.height() , (long)bottomY + height);
+		if(left >= right || bottom >= top) return null;
+		
+		int regionWidth = right - left , regionHeight = top - bottom;
+		int[] before = PixelRegions.readLookups(artboard , left , bottom , regionWidth , regionHeight);
+		int[] after = before.clone();
+		operation.apply(artboard , after , regionWidth , regionHeight);
+		if(mask != null) after = masked(before , after , left , bottom , regionWidth , regionHeight);
+		
+		//find the bounds of the changed lookups
+		int firstRow = regionHeight , endRow = 0 , firstCol = regionWidth , endCol = 0;
+		for(int row = 0 ; row < regionHeight ; row++) for(int col = 0 ; col < regionWidth ; col++) {
+			
+			int i = row * regionWidth + col;
+			if(before[i] == after[i]) continue;
+			firstRow = Math.min(firstRow , row);
+			endRow = row + 1;
+			firstCol = Math.min(firstCol , col);
+			endCol = Math.max(endCol , col + 1);
+			
+		}
+		
+		if(firstRow >= endRow) return null;
+		
+		return new Edit(
+			artboard ,
+			left + firstCol ,
+			bottom + firstRow ,
+			endCol - firstCol ,
+			endRow - firstRow ,
+			crop(before , regionWidth , firstCol , firstRow , endCol - firstCol , endRow - firstRow) ,
+			crop(after , regionWidth , firstCol , firstRow , endCol - firstCol , endRow - firstRow)
+		);
+		
+	}
+	
+	/**
+	 * Returns {@code before} with the pixels of {@code after} within {@link #mask}.
+	 */
+	private int[] masked(int[] before , int[] after , int left , int bottom , int regionWidth , int regionHeight) {
+		
+		int[] masked = before.clone();
+		mask.forEachSpan((x , y , length) -> {
+			
+			int row = y - bottom , start = Math.max(x , left) - left , end = Math.min(x + length , left + regionWidth) - left;
+			if(row < 0 || row >= regionHeight || start >= end) return;
+			System.arraycopy(after , row * regionWidth + start , masked , row * regionWidth + start , end - start);
+			
+		});
+		
+		return masked;
+		
+	}
+	
+	private static int[] crop(int[] lookups , int lookupsWidth , int leftX , int bottomY , int width , int height) {
+		
+		if(leftX == 0 && bottomY == 0 && width == lookupsWidth && height * width == lookups.length) return lookups;
+		
+		int[] cropped = new int[width * height];
+		for(int row = 0 ; row < height ; row++) {
+			
+			System.arraycopy(lookups , (bottomY + row) * lookupsWidth + leftX , cropped , row * width , width);
+			
+		}
+		
+		return cropped;
+		
+	}
+	
+	@RenderThreadOnly @Override public void commit() {
+		
+		for(Edit x : edits) PixelRegions.writeLookups(x.artboard , x.leftX , x.bottomY , x.width , x.height , x.after);
+		
+	}
+	
+	@RenderThreadOnly @Override public void undo() {
+		
+		if(edits == null) return;
+		
+		for(int i = edits.size() - 1 ; i >= 0 ; i--) {
+			
+			Edit x = edits.get(i);
+			PixelRegions.writeLookups(x.artboard , x.leftX , x.bottomY , x.width , x.height , x.before);
+			
+		}
+		
+	}
+	
+	@Override public long retainedBytes() {
+		
+		long bytes = DEFAULT_RETAINED_BYTES;
+		if(edits != null) for(Edit x : edits) {
+			
+			bytes += MemoryUsage.OBJECT_HEADER_BYTES + 4 * MemoryUsage.REFERENCE_BYTES;
+			bytes += MemoryUsage.arrayBytes(x.before.length , Integer.BYTES) + MemoryUsage.arrayBytes(x.after.length , Integer.BYTES);
+			
+		}
+		
+		return bytes;
+		
+	}
+	
+	/**
+	 * Returns an operation replacing each lookup with the one {@code mapping} returns for it, such as to remap the colors of a palette.
+	 * Pixels the active layer does not modify are left alone.
+	 *
+	 * @param mapping function from a packed lookup to its replacement, which may be {@link PixelRegions#NO_LOOKUP} to remove the pixel
+	 * @return Operation remapping lookups.
+	 * @throws NullPointerException if {@code mapping} is <code>null</code>.
+	 */
+	public static Operation remap(IntUnaryOperator mapping) {
+		
+		Objects.requireNonNull(mapping);
+		return (artboard , lookups , width , height) -> {
+			
+			for(int i = 0 ; i < lookups.length ; i++) if(lookups[i] != PixelRegions.NO_LOOKUP) lookups[i] = mapping.applyAsInt(lookups[i]);
+			
+		};
+		
+	}
+	
+	/**
+	 * Returns an operation replacing the lookups of the region with the result of {@code filter}.
+	 *
+	 * @param filter a filter, such as one of {@link PixelFilters}
+	 * @return Operation applying the filter.
+	 * @throws NullPointerException if {@code filter} is <code>null</code>.
+	 */
+	public static Operation filter(PixelFilters.Filter filter) {
+		
+		Objects.requireNonNull(filter);
+		return (artboard , lookups , width , height) -> {
+			
+			int[] filtered = filter.apply(lookups , width , height);
+			System.arraycopy(filtered , 0 , lookups , 0 , lookups.length);
+			
+		};
+		
+	}
+	
+	/**
+	 * Returns an operation setting every pixel of the region to {@code lookup}.
+	 *
+	 * @param lookup packed lookup to fill the region with, or {@link PixelRegions#NO_LOOKUP} to erase it
+	 * @return Operation filling the region.
+	 */
+	public static Operation fill(int lookup) {
+		
+		return (artboard , lookups , width , height) -> Arrays.fill(lookups , lookup);
+		
+	}
+	
+	/**
+	 * Code applied to the lookups of each artboard of a {@link BatchArtboardEvent}.
+	 */
+	@FunctionalInterface public interface Operation {
+		
+		/**
+		 * Modifies {@code lookups} in place. Invoked on worker threads, for several artboards at once, so implementations must only read
+		 * artboards and must not modify state shared between invocations.
+		 *
+		 * @param artboard the artboard the lookups were read from
+		 * @param lookups packed lookups of the region, row by row from its bottom left, laid out as {@link PixelRegions} lays them out
+		 * @param width width of the region
+		 * @param height height of the region
+		 */
+		void apply(Artboard artboard , int[] lookups , int width , int height);
+		
+	}
+	
+	private record Edit(Artboard artboard , int leftX , int bottomY , int width , int height , int[] before , int[] after) {}
+	
+}
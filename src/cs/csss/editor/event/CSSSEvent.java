@@ -4,10 +4,22 @@ package cs.csss.editor.event;
  * 
  * Base class for all events. COLDSTEEL Sprite Studio is a largely event-driven architected application, and implementors of this class are
  * used to make changes to the state of the application.
+ * 
+ * <p>
+ * 	Events may optionally be split into two phases. A two phase event does its CPU-only work in {@link #prepare()}, which the editor invokes 
+ * 	from a worker thread, and applies the results of that work in {@link #commit()}, which the editor invokes in the render thread if the event
+ * 	is a render event. This keeps expensive computations such as region scans out of the render thread, so they do not compete with 
+ * 	rendering and the UI. 
+ * </p>
  *
  */
 public abstract class CSSSEvent {
 
+	/**
+	 * Estimated size of an event which saves nothing but a few fields to undo itself.
+	 */
+	public static final int DEFAULT_RETAINED_BYTES = 64;
+
 	/**
 	 * If true, the code of this event must be executed in the render thread.
 	 */
@@ -18,6 +30,12 @@ public abstract class CSSSEvent {
 	 */
 	public final boolean isTransientEvent;
 	
+	/**
+	 * If true, this event implements {@link #prepare()} and {@link #commit()}, and the editor will invoke them separately rather than 
+	 * invoking {@link #_do()}.
+	 */
+	public final boolean isTwoPhaseEvent;
+	
 	/**
 	 * Creates an event and assigns its {@code isRenderEvent} value.
 	 * 
@@ -26,8 +44,23 @@ public abstract class CSSSEvent {
 	 */
 	public CSSSEvent(boolean isRenderEvent , boolean isTransientEvent) {
 		
+		this(isRenderEvent , isTransientEvent , false);
+		
+	}
+
+	/**
+	 * Creates an event and assigns its {@code isRenderEvent} and {@code isTwoPhaseEvent} values.
+	 * 
+	 * @param isRenderEvent if {@code true}, this event must be executed in the render thread
+	 * @param isTransientEvent if <code>true</code>, this event cannot be undone
+	 * @param isTwoPhaseEvent if <code>true</code>, this event's {@link #prepare()} and {@link #commit()} are invoked separately the first 
+	 * 						  time it is handled
+	 */
+	public CSSSEvent(boolean isRenderEvent , boolean isTransientEvent , boolean isTwoPhaseEvent) {
+		
 		this.isRenderEvent = isRenderEvent;
 		this.isTransientEvent = isTransientEvent;
+		this.isTwoPhaseEvent = isTwoPhaseEvent;
 		
 	}
 	
@@ -41,4 +74,42 @@ public abstract class CSSSEvent {
 	 */
 	public abstract void undo();
 	
+	/**
+	 * Performs the CPU-only work of a two phase event. This is invoked from a worker thread, so implementations must not use any render 
+	 * thread resources, and should only read application state. No other event is handled while an event is being prepared,
+	 * except for {@link BackgroundScriptEvent}s, which are prepared while other events are handled. 
+	 * <p>
+	 * 	Implementations should make this method do nothing if it was already invoked, because two phase events are expected to invoke it from
+	 * 	{@link #_do()} when they are redone.
+	 * </p>
+	 * 
+	 * By default, this method does nothing.
+	 */
+	public void prepare() {}
+	
+	/**
+	 * Applies the results of {@link #prepare()}. This is invoked in the render thread if this event is a render event. 
+	 * 
+	 * By default, this method invokes {@link #_do()}.
+	 */
+	public void commit() {
+		
+		_do();
+		
+	}
+	
+	/**
+	 * Returns an estimate of the bytes of memory this event keeps alive while it is on the undo or redo stack, such as the regions it saved
+	 * to undo itself. Shown by memory accounting and counted against the memory budget.
+	 * 
+	 * By default, this method returns {@link #DEFAULT_RETAINED_BYTES}.
+	 * 
+	 * @return Estimated bytes retained by this event.
+	 */
+	public long retainedBytes() {
+		
+		return DEFAULT_RETAINED_BYTES;
+		
+	}
+	
 }
@@ -0,0 +1,52 @@
+package cs.csss.editor.event;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.project.Artboard;
+import cs.csss.project.MemoryUsage;
+import cs.csss.project.utils.PixelRegions;
+import cs.csss.project.utils.StagedRegion;
+
+/**
+ * Event applying the colors of a {@link StagedRegion} to an artboard in one commit, as the undoable result of a
+ * {@link BackgroundScriptEvent}.
+ */
+public class CommitStagedRegionEvent extends CSSSEvent {
+	
+	private final Artboard artboard;
+	private final StagedRegion region;
+	private int[] previous;
+	
+	/**
+	 * Creates a commit event.
+	 *
+	 * @param artboard the artboard to apply {@code region} to
+	 * @param region colors to apply
+	 */
+	public CommitStagedRegionEvent(Artboard artboard , StagedRegion region) {
+		
+		super(true , false);
+		this.artboard = artboard;
+		this.region = region;
+		
+	}
+	
+	@RenderThreadOnly @Override public void _do() {
+		
+		previous = region.commit(artboard);
+		
+	}
+	
+	@RenderThreadOnly @Override public void undo() {
+		
+		PixelRegions.writeLookups(artboard , region.leftX , region.bottomY , region.width , region.height , previous);
+		
+	}
+	
+	@Override public long retainedBytes() {
+		
+		long bytes = MemoryUsage.arrayBytes(region.width * region.height , Integer.BYTES + 1);
+		return previous != null ? bytes + MemoryUsage.arrayBytes(previous.length , Integer.BYTES) : bytes;
+		
+	}
+
+}
@@ -0,0 +1,49 @@
+package cs.csss.editor.event;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.editor.Editor;
+import cs.csss.project.ArtboardPalette;
+import cs.csss.project.PaletteCompaction;
+
+/**
+ * Compacts a palette, dropping lookups no pixel uses, merging lookups of identical colors, and remapping every layer using the palette. 
+ * If the palette is the editor's current palette, the editor's selected lookup is remapped as well, so it keeps referring to the same color.
+ * See {@link PaletteCompaction}.
+ */
+@RenderThreadOnly public class CompactPaletteEvent extends CSSSEvent {
+	
+	private final Editor editor;
+	private final ArtboardPalette palette;
+	private PaletteCompaction compaction;
+	
+	/**
+	 * Creates a compact palette event.
+	 * 
+	 * @param editor the editor
+	 * @param palette the palette to compact
+	 */
+	public CompactPaletteEvent(Editor editor , ArtboardPalette palette) {
+		
+		super(true , false);
+		this.editor = editor;
+		this.palette = palette;
+		
+	}
+	
+	@Override public void _do() {
+		
+		//planned when first handled so that events queued before this one are accounted for
+		if(compaction == null) compaction = PaletteCompaction.plan(palette);
+		compaction.apply();
+		if(editor.currentPalette() == palette) editor.remapSelectedLookup(compaction::remap);
+		
+	}
+	
+	@Override public void undo() {
+		
+		compaction.undo();
+		if(editor.currentPalette() == palette) editor.remapSelectedLookup(compaction::unmap);
+		
+	}
+	
+}
@@ -4,25 +4,21 @@
 package cs.csss.editor.event;
 
 import cs.csss.editor.SelectionAreaRender;
-import cs.csss.engine.LookupPixel;
-import cs.csss.engine.Position;
+import cs.csss.editor.SelectionMask;
 import cs.csss.project.Artboard;
-import cs.csss.project.utils.Artboards;
-import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
 /**
- * Copies a region of the current artboard and pastes it elsewhere on the current artboard.
+ * Copies a region of the current artboard and pastes it elsewhere on the current artboard. Only the selected pixels are copied, and only
+ * the pixels they are pasted onto are stored for undoing.
  */
 public class CopyArtboardRegionEvent extends CSSSEvent {
 
 	private final Artboard artboard;
 	
-	private LookupPixel[][] 
-		originalRegion = null ,
+	private final MaskedPixels 
+		copiedRegion ,
 		newRegionPreviousContents;
 	
-	private CorrectedResult region;
-	
 	/**
 	 * Copies a subregion of an artboard onto itself.
 	 * 
@@ -31,35 +27,57 @@ public class CopyArtboardRegionEvent extends CSSSEvent {
 	 */
 	public CopyArtboardRegionEvent(Artboard artboard , SelectionAreaRender render) {
 		
+		this(artboard , render , null);
+		
+	}
+
+	/**
+	 * Copies the pixels of a subregion of an artboard which are also in {@code mask} onto itself.
+	 * 
+	 * @param artboard source artboard
+	 * @param render render representing the region to copy
+	 * @param mask selected pixels, or <code>null</code> to copy every pixel of the region of {@code render}
+	 */
+	public CopyArtboardRegionEvent(Artboard artboard , SelectionAreaRender render , SelectionMask mask) {
+		
+		this(
+			artboard , 
+			MoveArtboardRegionEvent.regionOf(artboard , render , mask) , 
+			MoveArtboardRegionEvent.deltaX(artboard , render) , 
+			MoveArtboardRegionEvent.deltaY(artboard , render)
+		);
+		
+	}
+	
+	/**
+	 * Copies the pixels selected by {@code mask} onto the same artboard, offset by the given amounts.
+	 * 
+	 * @param artboard source artboard
+	 * @param mask selected pixels to copy
+	 * @param deltaX number of pixels rightward to paste the copy
+	 * @param deltaY number of pixels upward to paste the copy
+	 */
+	public CopyArtboardRegionEvent(Artboard artboard , SelectionMask mask , int deltaX , int deltaY) {
+		
 		super(true , false);
 		this.artboard = artboard;
-		Position position = render.positions;
 		
-		region = Artboards.worldCoordinatesToCorrectArtboardCoordinates(
-			artboard, 
-			(int)position.leftX(), 
-			(int)position.bottomY(), 
-			position.width(), 
-			position.height()
-		);
-			
-		int[] originalPositions = artboard.worldToPixelIndices(render.startingLeftX , render.startingBottomY);
-		originalRegion = artboard.getRegionOfLayerPixels(originalPositions[0] , originalPositions[1] , render.width , render.height);
-		newRegionPreviousContents = artboard.getRegionOfLayerPixels(region);
+		mask = mask.clip(artboard.width() , artboard.height());
+		copiedRegion = MaskedPixels.of(artboard , mask).translate(artboard , deltaX , deltaY);
+		newRegionPreviousContents = MaskedPixels.of(artboard , mask.translate(deltaX , deltaY).clip(artboard.width() , artboard.height()));
 		
 	}
 
 	@Override public void _do() {
 		
-		artboard.putColorsInImage(region , originalRegion);
+		copiedRegion.put(artboard);
 		
 	}
 
 	@Override public void undo() {
 		
-		artboard.removePixels(region.leftX() , region.bottomY() , region.width() , region.height());
-		artboard.putColorsInImage(region, newRegionPreviousContents);
+		newRegionPreviousContents.replace(artboard);
 				
 	}
 
-}
+}
\ No newline at end of file
@@ -1,23 +1,18 @@
 package cs.csss.editor.event;
 
 import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.editor.SelectionMask;
 import cs.csss.project.Artboard;
 import cs.csss.project.LayerPixel;
 
 /**
- * Deletes a region of pixels from the active layer.
+ * Deletes a region of pixels from the active layer. Only pixels that are selected and actually modified by the active layer are removed
+ * and stored for undoing.
  */
 @RenderThreadOnly public class DeleteRegionEvent extends CSSSEvent {
 
 	private final Artboard artboard;
-	private final int
-		xIndex ,
-		yIndex ,
-		width ,
-		height
-	;
-	
-	private final LayerPixel[][] region;
+	private final MaskedPixels region;
 	
 	/**
 	 * Creates a delete region event.
@@ -34,26 +29,41 @@ import cs.csss.project.LayerPixel;
 		super(true , false);
 		
 		this.artboard = artboard;
+		this.region = MaskedPixels.ofNonNull(xIndex , yIndex , region);
 		
-		this.region = region;
+	}
 		
-		this.xIndex = xIndex;
-		this.yIndex = yIndex;
-		this.width = width;
-		this.height = height;
+	/**
+	 * Creates a delete region event which deletes the pixels of the active layer of {@code artboard} selected by {@code mask}.
+	 * 
+	 * @param artboard artboard to delete from
+	 * @param mask selected pixels to delete
+	 */
+	public DeleteRegionEvent(Artboard artboard , SelectionMask mask) {
+		
+		super(true , false);
+		
+		this.artboard = artboard;
+		this.region = MaskedPixels.ofNonNull(artboard , mask.clip(artboard.width() , artboard.height()));
 		
 	}
 
 	@Override public void _do() {
 
-		artboard.removePixels(xIndex, yIndex, width, height);
+		region.remove(artboard);
 				
 	}
 
 	@Override public void undo() {
 
-		artboard.putColorsInImage(xIndex, yIndex, width, height, region);
+		region.put(artboard);
+		
+	}
+
+	@Override public long retainedBytes() {
+		
+		return region.retainedBytes();
 		
 	}
 
-}
+}
\ No newline at end of file
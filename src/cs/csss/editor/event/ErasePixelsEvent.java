@@ -3,6 +3,7 @@ package cs.csss.editor.event;
 import cs.csss.annotation.RenderThreadOnly;
 import cs.csss.project.Artboard;
 import cs.csss.project.LayerPixel;
+import cs.csss.project.MemoryUsage;
 
 /**
  * Deletes some pixels from the artboard.
@@ -48,4 +49,10 @@ import cs.csss.project.LayerPixel;
 		
 	}
 
+	@Override public long retainedBytes() {
+		
+		return MemoryUsage.regionBytes(previousImageRegion , false);
+		
+	}
+
 }
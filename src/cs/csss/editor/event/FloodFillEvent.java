@@ -6,17 +6,21 @@ import static java.lang.Math.max;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Stack;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 import cs.csss.annotation.RenderThreadOnly;
-import cs.csss.engine.Engine;
+import cs.csss.editor.SelectionMask;
+import cs.csss.engine.Lane;
 import cs.csss.engine.Pixel;
 import cs.csss.project.Artboard;
-import cs.csss.project.ArtboardPalette.PalettePixel;
+import cs.csss.project.ArtboardPalette;
+import cs.csss.project.Layer;
 import cs.csss.project.LayerPixel;
+import cs.csss.project.MemoryUsage;
 import cs.csss.utils.ByteBufferUtils;
 import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
@@ -55,15 +59,32 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
  * @author Chris Brown
  *
  */
-@RenderThreadOnly public class FloodFillEvent extends CSSSEvent {	
+public class FloodFillEvent extends CSSSEvent {	
 
 	private static final int NORTH = 0b1, SOUTH = 0b10 , EAST = 0b100 , WEST = 0b1000;
 	
+	private static final byte UNKNOWN = 0 , MATCH = 1 , NO_MATCH = 2;
+	
 	private Artboard artboard;
 	
 	private int clickedX , clickedY;
 	
-	private final Pixel activeColor , clickedPixel;
+	private final Pixel activeColor;
+	private Pixel clickedPixel;
+	
+	/**
+	 * Layers whose pixels are seen, from highest ranking to lowest, and the palette their lookups index. Recorded when the event is created
+	 * so the scan, which runs off the render thread, only reads the layer data stores and palette memory, which are safe to read from any
+	 * thread, and only for the pixels the fill reaches.
+	 */
+	private final List<Layer> layers;
+	private final ArtboardPalette palette;
+	
+	/**
+	 * Whether the color of each packed lookup matches the clicked pixel's, filled in as lookups are met while scanning. Threads scanning 
+	 * at once may both fill in a lookup, but always with the same value.
+	 */
+	private byte[] matchesClicked;
 	
 	private LayerPixel[][] priorRegion , newRegion;
 	private int bottomY = Integer.MAX_VALUE , leftmostX = Integer.MAX_VALUE , width , height;
@@ -73,27 +94,84 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 	private boolean runningSubsequent = false;
 	
 	/**
-	 * Creates a floor fill event.
+	 * Creates a floor fill event. Must be created on the render thread, because the layers of the artboard are recorded here.
 	 * 
 	 * @param artboard the artboard to fill in
 	 * @param activeColor the color active in the left hand side panel's color picker
 	 * @param clickedX x coordinate of the clicked pixel
 	 * @param clickedY y coordinate of the clicked pixel
 	 */
-	public FloodFillEvent(Artboard artboard , Pixel activeColor , int clickedX , int clickedY) {
+	@RenderThreadOnly public FloodFillEvent(Artboard artboard , Pixel activeColor , int clickedX , int clickedY) {
 
-		super(true , false);
+		super(true , false , true);
 		
 		this.artboard = artboard;
 		
 		this.activeColor = activeColor;	
-		clickedPixel = artboard.getHighestRankingColorForLayerModification(clickedX, clickedY);
+		layers = seenLayers(artboard);
+		palette = artboard.activeLayer().palette();
 		
 		this.clickedX = clickedX;
 		this.clickedY = clickedY;
 	
 	}
 
+	/**
+	 * Returns the layers {@link Artboard#getHighestRankingColorForLayerModification(int, int)} looks through, from highest ranking to 
+	 * lowest.
+	 * 
+	 * @param artboard the artboard to fill in
+	 * @return Layers whose pixels are seen.
+	 */
+	@RenderThreadOnly private static List<Layer> seenLayers(Artboard artboard) {
+		
+		List<Layer> layers = new ArrayList<>();
+		if(artboard.isActiveLayerVisual()) {
+			
+			for(Iterator<? extends Layer> iter = artboard.visualLayers() ; iter.hasNext() ;) {
+				
+				Layer x = iter.next();
+				if(!x.hiding()) layers.add(x);
+				
+			}
+			
+		} else if(artboard.activeLayer().hiding()) layers.add(artboard.activeLayer());
+		
+		return layers;
+		
+	}
+	
+	/**
+	 * Returns the pixel of the highest ranking recorded layer modifying {@code (xIndex , yIndex)}, or <code>null</code> if none does.
+	 */
+	private LayerPixel highestPixel(int xIndex , int yIndex) {
+		
+		for(Layer x : layers) {
+			
+			LayerPixel pixel = x.get(xIndex , yIndex);
+			if(pixel != null) return pixel;
+			
+		}
+		
+		return null;
+		
+	}
+	
+	private boolean matchesClicked(LayerPixel pixel) {
+		
+		int lookup = pixel.lookupY * ArtboardPalette.MAX_WIDTH + pixel.lookupX;
+		byte state = matchesClicked[lookup];
+		if(state == UNKNOWN) {
+			
+			state = palette.get(pixel.lookupX , pixel.lookupY).compareTo(clickedPixel) == 0 ? MATCH : NO_MATCH;
+			matchesClicked[lookup] = state;
+			
+		}
+		
+		return state == MATCH;
+		
+	}
+	
 	private ArtboardMod addMod(int x , int y , int width , int height , String source) {
 		
 		if(x < 0) x = 0;
@@ -152,8 +230,8 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 		if(xIndex < 0 || yIndex < 0) return true;
 		if(xIndex >= artboard.width() || yIndex >= artboard.height()) return true;
 		
-		PalettePixel index = artboard.getHighestRankingColorForLayerModification(xIndex, yIndex);
-		return index != null && index.compareTo(clickedPixel) != 0;
+		LayerPixel pixel = highestPixel(xIndex , yIndex);
+		return pixel != null && !matchesClicked(pixel);
 				
 	}
 
@@ -394,9 +472,43 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 	
 	@Override public void _do() {
 
-		Future<?> initialRow = Engine.THE_THREADS.submit(() -> initialRow(clickedX , clickedY));
-		Future<?> northern = Engine.THE_THREADS.submit(() -> startNorthernIteration(clickedX , clickedY));
-		Future<?> southern = Engine.THE_THREADS.submit(() -> startSouthernIteration(clickedX , clickedY));
+		prepare();
+		commit();
+		
+	}
+	
+	/**
+	 * Finds the region of pixels contiguous with and of the same color as the pixel at {@code (x , y)} using the same scanner as flood 
+	 * fill, returning it as a selection mask. Must be called on the render thread.
+	 * 
+	 * @param artboard the artboard to select from
+	 * @param x x index of the clicked pixel
+	 * @param y y index of the clicked pixel
+	 * @return Mask containing the region of pixels contiguous with and of the same color as the clicked pixel.
+	 */
+	@RenderThreadOnly public static SelectionMask magicWand(Artboard artboard , int x , int y) {
+		
+		FloodFillEvent scanner = new FloodFillEvent(artboard , null , x , y);
+		scanner.scan();
+		
+		SelectionMask.Builder builder = new SelectionMask.Builder();
+		for(ArtboardMod mod : scanner.mods) for(int row = 0 ; row < mod.height ; row++) builder.add(mod.x , mod.y + row , mod.width);
+		return builder.build().clip(artboard.width() , artboard.height());
+		
+	}
+	
+	/**
+	 * Records every row of the region to fill in {@code mods}.
+	 */
+	private void scan() {
+
+		LayerPixel clicked = highestPixel(clickedX , clickedY);
+		clickedPixel = clicked == null ? null : palette.get(clicked.lookupX , clicked.lookupY);
+		matchesClicked = new byte[ArtboardPalette.MAX_WIDTH * ArtboardPalette.MAX_HEIGHT];
+		
+		Future<?> initialRow = Lane.COMPUTE.submit(() -> initialRow(clickedX , clickedY));
+		Future<?> northern = Lane.COMPUTE.submit(() -> startNorthernIteration(clickedX , clickedY));
+		Future<?> southern = Lane.COMPUTE.submit(() -> startSouthernIteration(clickedX , clickedY));
 		try {
 
 			initialRow.get();
@@ -427,42 +539,59 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 			
 		} while(newModSize != previousModSize);
 		
-		if(priorRegion == null) {
-			
-			int greatestX = Integer.MIN_VALUE , highestY = Integer.MIN_VALUE;
-			ArtboardMod x;
-			for(int i = 0 ; i < mods.size() ; i++) {
-				
-			 	x = mods.get(i);
-			 
-			 	leftmostX = min(leftmostX , x.x);
-				bottomY = min(bottomY , x.y);
-				greatestX = max(greatestX , x.x + x.width);
-				highestY = max(highestY , x.y + x.height);
-				
-			}
+		matchesClicked = null;
+		
+	}
+	
+	@Override public void prepare() {
+		
+		//already prepared
+		if(priorRegion != null) return;
+
+		scan();
+		
+		int greatestX = Integer.MIN_VALUE , highestY = Integer.MIN_VALUE;
+		ArtboardMod x;
+		for(int i = 0 ; i < mods.size() ; i++) {
 			
-			width = greatestX - leftmostX;
-			height = highestY - bottomY;
+			x = mods.get(i);
 			
-			if(leftmostX + width > artboard.width()) width = leftmostX + width % artboard.width();
-			if(bottomY + height > artboard.height()) height = bottomY + height % artboard.height();
+			leftmostX = min(leftmostX , x.x);
+			bottomY = min(bottomY , x.y);
+			greatestX = max(greatestX , x.x + x.width);
+			highestY = max(highestY , x.y + x.height);
 			
-			priorRegion = artboard.activeLayer().get(leftmostX, bottomY, width , height);
-						
 		}
 		
+		width = greatestX - leftmostX;
+		height = highestY - bottomY;
+		
+		if(leftmostX + width > artboard.width()) width = leftmostX + width % artboard.width();
+		if(bottomY + height > artboard.height()) height = bottomY + height % artboard.height();
+		
+		priorRegion = artboard.activeLayer().get(leftmostX, bottomY, width , height);
+		
+	}
+	
+	@RenderThreadOnly @Override public void commit() {
+		
 		if(newRegion == null) handleMods();
 		else artboard.putColorsInImage(leftmostX , bottomY , width , height , newRegion);
 		
 	}
 
-	@Override public void undo() {
+	@RenderThreadOnly @Override public void undo() {
 						
 		artboard.replace(leftmostX , bottomY , width , height, priorRegion);
 				
 	}
 		
+	@Override public long retainedBytes() {
+		
+		return MemoryUsage.regionBytes(priorRegion , false) + MemoryUsage.regionBytes(newRegion , false);
+		
+	}
+		
 	private record ArtboardMod(int x , int y , int width , int height , String source) implements Comparable<ArtboardMod> {
 
 		private static final String toStringFormat = "Mod: X: %d, Y: %d, W: %d, H: %d";
@@ -0,0 +1,210 @@
+package cs.csss.editor.event;
+
+import java.util.Arrays;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.editor.SelectionMask;
+import cs.csss.engine.LookupPixel;
+import cs.csss.project.Artboard;
+import cs.csss.project.LayerPixel;
+import cs.csss.project.MemoryUsage;
+
+/**
+ * Contents of the active layer of an artboard under the spans of a {@link SelectionMask}. Region events store their undo state in this
+ * class so the memory they use is proportional to the number of selected pixels.
+ */
+final class MaskedPixels {
+	
+	/**
+	 * Creates a {@code MaskedPixels} containing the active layer's pixels under {@code mask}, which must be within the bounds of
+	 * {@code artboard}.
+	 *
+	 * @param artboard an artboard
+	 * @param mask a mask within the bounds of {@code artboard}
+	 * @return Contents of {@code artboard} under {@code mask}.
+	 */
+	static MaskedPixels of(Artboard artboard , SelectionMask mask) {
+		
+		MaskedPixels pixels = new MaskedPixels(mask.numberSpans());
+		mask.forEachSpan((x , y , length) -> pixels.add(x , y , length , artboard.getRegionOfLayerPixels(x , y , length , 1)));
+		return pixels;
+		
+	}
+	
+	/**
+	 * Creates a {@code MaskedPixels} containing only the runs of non <code>null</code> pixels of {@code region}.
+	 *
+	 * @param leftX left x index of {@code region}
+	 * @param bottomY bottom y index of {@code region}
+	 * @param region region of layer pixels
+	 * @return Contents of {@code region} which are not <code>null</code>.
+	 */
+	static MaskedPixels ofNonNull(int leftX , int bottomY , LayerPixel[][] region) {
+		
+		MaskedPixels pixels = new MaskedPixels(8);
+		for(int row = 0 ; row < region.length ; row++) pixels.addNonNullRuns(leftX , bottomY + row , region[row]);
+		return pixels;
+		
+	}
+	
+	/**
+	 * Creates a {@code MaskedPixels} containing only the pixels of the active layer under {@code mask} which are not <code>null</code>.
+	 *
+	 * @param artboard an artboard
+	 * @param mask a mask within the bounds of {@code artboard}
+	 * @return Modified contents of {@code artboard} under {@code mask}.
+	 */
+	static MaskedPixels ofNonNull(Artboard artboard , SelectionMask mask) {
+		
+		MaskedPixels pixels = new MaskedPixels(mask.numberSpans());
+		mask.forEachSpan((x , y , length) -> pixels.addNonNullRuns(x , y , artboard.getRegionOfLayerPixels(x , y , length , 1)[0]));
+		return pixels;
+		
+	}
+	
+	private int[] spans;
+	private LookupPixel[][][] contents;
+	private int numberSpans = 0;
+	
+	private MaskedPixels(int capacity) {
+		
+		capacity = Math.max(capacity , 1);
+		spans = new int[capacity * 3];
+		contents = new LookupPixel[capacity][][];
+		
+	}
+	
+	private void add(int x , int y , int length , LookupPixel[][] content) {
+		
+		if(numberSpans == contents.length) {
+			
+			spans = Arrays.copyOf(spans , spans.length * 2);
+			contents = Arrays.copyOf(contents , contents.length * 2);
+			
+		}
+		
+		spans[numberSpans * 3] = x;
+		spans[numberSpans * 3 + 1] = y;
+		spans[numberSpans * 3 + 2] = length;
+		contents[numberSpans++] = content;
+		
+	}
+	
+	private void addNonNullRuns(int leftX , int y , LayerPixel[] row) {
+		
+		int col = 0;
+		while(col < row.length) {
+			
+			if(row[col] == null) {
+				
+				col++;
+				continue;
+				
+			}
+			
+			int start = col;
+			while(col < row.length && row[col] != null) col++;
+			add(leftX + start , y , col - start , new LookupPixel[][] {Arrays.copyOfRange(row , start , col)});
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the estimated bytes these pixels retain. The pixels themselves are shared with layers, so only the arrays are counted.
+	 *
+	 * @return Estimated bytes retained by these pixels.
+	 */
+	long retainedBytes() {
+		
+		long bytes = MemoryUsage.arrayBytes(spans.length , Integer.BYTES);
+		bytes += MemoryUsage.arrayBytes(contents.length , MemoryUsage.REFERENCE_BYTES);
+		for(int i = 0 ; i < numberSpans ; i++) bytes += MemoryUsage.regionBytes(contents[i] , false);
+		return bytes;
+		
+	}
+	
+	/**
+	 * Returns these pixels moved by the given amounts, dropping any that would be outside {@code artboard}.
+	 *
+	 * @param artboard the artboard the result will be put in
+	 * @param deltaX number of pixels to move rightward
+	 * @param deltaY number of pixels to move upward
+	 * @return Translated copy of these pixels.
+	 */
+	MaskedPixels translate(Artboard artboard , int deltaX , int deltaY) {
+		
+		MaskedPixels translated = new MaskedPixels(numberSpans);
+		int width = artboard.width() , height = artboard.height();
+		for(int i = 0 ; i < numberSpans ; i++) {
+			
+			int y = spans[i * 3 + 1] + deltaY;
+			if(y < 0 || y >= height) continue;
+			
+			int x = spans[i * 3] + deltaX , length = spans[i * 3 + 2];
+			int start = Math.max(0 , -x) , end = Math.min(length , width - x);
+			if(start >= end) continue;
+			
+			LookupPixel[][] content = start == 0 && end == length ? contents[i] : new LookupPixel[][] {
+				Arrays.copyOfRange(contents[i][0] , start , end)
+			};
+			
+			translated.add(x + start , y , end - start , content);
+			
+		}
+		
+		return translated;
+		
+	}
+	
+	/**
+	 * Puts these pixels into {@code artboard}, skipping <code>null</code> pixels.
+	 *
+	 * @param artboard an artboard
+	 */
+	@RenderThreadOnly void put(Artboard artboard) {
+		
+		for(int i = 0 ; i < numberSpans ; i++) artboard.putColorsInImage(
+			spans[i * 3] ,
+			spans[i * 3 + 1] ,
+			spans[i * 3 + 2] ,
+			1 ,
+			contents[i]
+		);
+		
+	}
+	
+	/**
+	 * Replaces the contents of {@code artboard} with these pixels, removing pixels where these pixels are <code>null</code>.
+	 *
+	 * @param artboard an artboard
+	 */
+	@RenderThreadOnly void replace(Artboard artboard) {
+		
+		for(int i = 0 ; i < numberSpans ; i++) artboard.replace(spans[i * 3] , spans[i * 3 + 1] , spans[i * 3 + 2] , 1 , contents[i]);
+		
+	}
+	
+	/**
+	 * Removes the pixels of {@code artboard} at the positions of these pixels.
+	 *
+	 * @param artboard an artboard
+	 */
+	@RenderThreadOnly void remove(Artboard artboard) {
+		
+		for(int i = 0 ; i < numberSpans ; i++) artboard.removePixels(spans[i * 3] , spans[i * 3 + 1] , spans[i * 3 + 2] , 1);
+		
+	}
+	
+	/**
+	 * Returns whether this object contains no pixels.
+	 *
+	 * @return Whether this object contains no pixels.
+	 */
+	boolean isEmpty() {
+		
+		return numberSpans == 0;
+		
+	}
+	
+}
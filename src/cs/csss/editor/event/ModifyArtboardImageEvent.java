@@ -5,6 +5,7 @@ import cs.csss.engine.LookupPixel;
 import cs.csss.engine.Pixel;
 import cs.csss.project.Artboard;
 import cs.csss.project.ArtboardPalette;
+import cs.csss.project.MemoryUsage;
 
 /**
  * Generic event for modifying an artboard index texture layers. This event will write to the index texture conditionally based on layer 
@@ -97,4 +98,10 @@ import cs.csss.project.ArtboardPalette;
 		
 	}
 
+	@Override public long retainedBytes() {
+		
+		return MemoryUsage.regionBytes(previousRegion , false);
+		
+	}
+
 }
@@ -2,23 +2,19 @@ package cs.csss.editor.event;
 
 import cs.csss.annotation.RenderThreadOnly;
 import cs.csss.editor.SelectionAreaRender;
-import cs.csss.engine.LookupPixel;
+import cs.csss.editor.SelectionMask;
 import cs.csss.engine.Position;
 import cs.csss.project.Artboard;
-import cs.csss.project.utils.Artboards;
-import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
 /**
- * Event for moving a region of an artboard from one place to another.
+ * Event for moving a region of an artboard from one place to another. Only the selected pixels are moved, and only they and the pixels
+ * they are moved onto are stored for undoing.
  */
 @RenderThreadOnly public class MoveArtboardRegionEvent extends CSSSEvent {
 
 	private final Artboard artboard;
-	private final CorrectedResult newPosition;
 	
-	private final LookupPixel[][] contentsOfMovedRegion , previousContentsOfMovedToRegion;
-	
-	int movedRegionX , movedRegionY , width , height;
+	private final MaskedPixels contentsOfMovedRegion , movedContents , previousContentsOfMovedToRegion;
 	
 	/**
 	 * Creates an artboard region move event.
@@ -28,49 +24,87 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 	 */
 	public MoveArtboardRegionEvent(Artboard current , SelectionAreaRender render) {
 		
+		this(current , render , null);
+		
+	}
+
+	/**
+	 * Creates an artboard region move event which moves only the pixels of the region of {@code render} which are also in {@code mask}.
+	 * 
+	 * @param current an artboard
+	 * @param render the selection area render representing the moved region
+	 * @param mask selected pixels, or <code>null</code> to move every pixel of the region of {@code render}
+	 */
+	public MoveArtboardRegionEvent(Artboard current , SelectionAreaRender render , SelectionMask mask) {
+		
+		this(current , regionOf(current , render , mask) , deltaX(current , render) , deltaY(current , render));
+		
+	}
+	
+	/**
+	 * Creates an artboard region move event which moves the pixels selected by {@code mask}.
+	 * 
+	 * @param current an artboard
+	 * @param mask selected pixels to move
+	 * @param deltaX number of pixels to move the selected pixels rightward
+	 * @param deltaY number of pixels to move the selected pixels upward
+	 */
+	public MoveArtboardRegionEvent(Artboard current , SelectionMask mask , int deltaX , int deltaY) {
+		
 		super(true , false);
 		
 		this.artboard = current;
 
+		mask = mask.clip(current.width() , current.height());
+		contentsOfMovedRegion = MaskedPixels.of(current , mask);
+		movedContents = contentsOfMovedRegion.translate(current , deltaX , deltaY);
+		previousContentsOfMovedToRegion = MaskedPixels.of(current , mask.translate(deltaX , deltaY).clip(current.width() , current.height()));
+		
+	}
+
+	/**
+	 * Returns the region of {@code render} before it was moved, as a mask, intersected with {@code mask} if it is not <code>null</code>.
+	 */
+	static SelectionMask regionOf(Artboard artboard , SelectionAreaRender render , SelectionMask mask) {
+		
+		int[] start = artboard.worldToPixelIndices(render.startingLeftX , render.startingBottomY);
+		SelectionMask region = SelectionMask.rectangle(start[0] , start[1] , render.width , render.height);
+		return mask == null ? region : region.intersect(mask);
+		
+	}
+	
+	static int deltaX(Artboard artboard , SelectionAreaRender render) {
+		
 		Position position = render.positions;		
+		return artboard.worldToPixelIndices((int)position.leftX() , 0)[0] - artboard.worldToPixelIndices(render.startingLeftX , 0)[0];
 		
-		int[] renderStartingPositionAsArtboardCoords = current.worldToPixelIndices(render.startingLeftX , render.startingBottomY);
-		movedRegionX = renderStartingPositionAsArtboardCoords[0];
-		movedRegionY = renderStartingPositionAsArtboardCoords[1];
-		width = render.width;
-		height = render.height;
+	}
 				
-		this.contentsOfMovedRegion = current.getRegionOfLayerPixels(movedRegionX, movedRegionY, width, height);
-		
-		newPosition = Artboards.worldCoordinatesToCorrectArtboardCoordinates(
-			current, 
-			(int)position.leftX(), 
-			(int)position.bottomY(), 
-			position.width(), 
-			position.height()
-		);
-		
-		previousContentsOfMovedToRegion = current.getRegionOfLayerPixels(
-			newPosition.leftX() , 
-			newPosition.bottomY() , 
-			newPosition.width() , 
-			newPosition.height()
-		);
+	static int deltaY(Artboard artboard , SelectionAreaRender render) {
+		
+		Position position = render.positions;
+		return artboard.worldToPixelIndices(0 , (int)position.bottomY())[1] - artboard.worldToPixelIndices(0 , render.startingBottomY)[1];
 		
 	}
 
 	@Override public void _do() {
 		
-		artboard.removePixels(movedRegionX, movedRegionY, width, height);
-		artboard.replace(newPosition , contentsOfMovedRegion);
+		contentsOfMovedRegion.remove(artboard);
+		movedContents.replace(artboard);
 
 	}
 
 	@Override public void undo() {
 
-		artboard.putColorsInImage(movedRegionX, movedRegionY , width , height , contentsOfMovedRegion);
-		artboard.replace(newPosition , previousContentsOfMovedToRegion);		
+		contentsOfMovedRegion.put(artboard);
+		previousContentsOfMovedToRegion.replace(artboard);		
+		
+	}
+	
+	@Override public long retainedBytes() {
+		
+		return contentsOfMovedRegion.retainedBytes() + movedContents.retainedBytes() + previousContentsOfMovedToRegion.retainedBytes();
 		
 	}
 	
-}
+}
\ No newline at end of file
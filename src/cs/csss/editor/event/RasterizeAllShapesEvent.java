@@ -11,16 +11,23 @@ import cs.csss.project.utils.Artboards;
 import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
 /**
- * 
+ * Event for rasterizing every shape of every non shallow copied artboard of a project. This is a two phase event, where the shape events 
+ * this event contains are prepared in {@link #prepare()} and committed in {@link #commit()}.
  */
 public class RasterizeAllShapesEvent extends CSSSEvent {
 
 	private Stack<RasterizeShapeEvent> allEnqueuedEvents = new Stack<>();
 	private Stack<RasterizeShapeEvent> allDequedEvents = new Stack<>();
 	
+	/**
+	 * Creates a new rasterize all shapes event.
+	 * 
+	 * @param project the project whose shapes are rasterized
+	 * @throws NullPointerException if {@code project} is <code>null</code>.
+	 */
 	public RasterizeAllShapesEvent(CSSSProject project) {
 		
-		super(true , false);
+		super(true , false , true);
 	
 		Objects.requireNonNull(project);
 		project.forEachNonShallowCopiedArtboard(artboard -> artboard.visualLayers().forEachRemaining(layer -> layer.shapesIterator().forEachRemaining(shape -> {
@@ -41,6 +48,19 @@ public class RasterizeAllShapesEvent extends CSSSEvent {
 
 	@Override public void _do() {
 
+		prepare();
+		commit();
+		
+	}
+
+	@Override public void prepare() {
+
+		allEnqueuedEvents.forEach(RasterizeShapeEvent::prepare);
+		
+	}
+	
+	@Override public void commit() {
+
 		swapStackEvents(allEnqueuedEvents, allDequedEvents , true);
 		
 	}
@@ -56,7 +76,7 @@ public class RasterizeAllShapesEvent extends CSSSEvent {
 		while(!popFrom.isEmpty()) {
 			
 			RasterizeShapeEvent popped = popFrom.pop();
-			if(_do) popped._do();
+			if(_do) popped.commit();
 			else popped.undo();
 			pushTo.push(popped);
 			
@@ -2,19 +2,22 @@ package cs.csss.editor.event;
 
 import java.util.Objects;
 
+import cs.csss.annotation.RenderThreadOnly;
 import cs.csss.editor.shape.Shape;
 import cs.csss.engine.LookupPixel;
 import cs.csss.project.Artboard;
+import cs.csss.project.MemoryUsage;
 import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
 /**
- * Event used for rasterizing shapes.
+ * Event used for rasterizing shapes. This is a two phase event, the region the shape will cover is recorded in {@link #prepare()} and the 
+ * shape is rasterized in {@link #commit()}.
  */
 public class RasterizeShapeEvent extends CSSSEvent {
 
 	private final Artboard artboard;
 	private final Shape shape;
-	private final LookupPixel[][] previousRegion;
+	private LookupPixel[][] previousRegion;
 	private final CorrectedResult correct;
 	
 	/**
@@ -26,29 +29,36 @@ public class RasterizeShapeEvent extends CSSSEvent {
 	 */
 	public RasterizeShapeEvent(Artboard destination , Shape shape , CorrectedResult correct) {
 		
-		super(true , false);
+		super(true , false , true);
 		
 		this.artboard = Objects.requireNonNull(destination);
 		this.shape = Objects.requireNonNull(shape);
 
 		this.correct = correct; 
-		if(correct != null) previousRegion = artboard.getRegionOfLayerPixels(correct);
-		else { 
-			
-			previousRegion = null;
-			shape.hide();
-			
-		}
+		if(correct == null) shape.hide();
 		
 	}
 
 	@Override public void _do() {
 
+		prepare();
+		commit();
+		
+	}
+
+	@Override public void prepare() {
+		
+		if(correct != null && previousRegion == null) previousRegion = artboard.getRegionOfLayerPixels(correct);
+		
+	}
+	
+	@RenderThreadOnly @Override public void commit() {
+		
 		shape.reset();
 		if(correct != null) shape.rasterize(artboard);
 		
 	}
-
+	
 	@Override public void undo() {
 
 		if(correct != null) artboard.replace(correct, previousRegion);
@@ -56,4 +66,10 @@ public class RasterizeShapeEvent extends CSSSEvent {
 		
 	}
 
+	@Override public long retainedBytes() {
+		
+		return MemoryUsage.regionBytes(previousRegion , false);
+		
+	}
+
 }
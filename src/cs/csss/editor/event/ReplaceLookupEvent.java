@@ -0,0 +1,124 @@
+package cs.csss.editor.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.engine.LookupPixel;
+import cs.csss.project.Artboard;
+import cs.csss.project.ArtboardPalette;
+import cs.csss.project.Layer;
+import cs.csss.project.LayerPixel;
+import cs.csss.project.PaletteUsage;
+import cs.csss.project.VisualLayer;
+
+/**
+ * Replaces every pixel using one lookup of a palette with another lookup of the same palette, in every unlocked layer of every artboard
+ * using the palette. Only the tiles of layers which the palette's {@link PaletteUsage} records as containing the replaced lookup are 
+ * visited, so the cost of this event is proportional to the number of pixels using the replaced lookup rather than the size of the project.
+ */
+@RenderThreadOnly public class ReplaceLookupEvent extends CSSSEvent {
+	
+	private final ArtboardPalette palette;
+	private final short fromX , fromY , toX , toY;
+	private final List<Replaced> replaced = new ArrayList<>();
+	
+	/**
+	 * Creates a replace lookup event.
+	 * 
+	 * @param palette the palette both lookups index
+	 * @param replace the lookup to replace
+	 * @param with the lookup to replace {@code replace} with
+	 */
+	public ReplaceLookupEvent(ArtboardPalette palette , LookupPixel replace , LookupPixel with) {
+		
+		super(true , false);
+		
+		this.palette = palette;
+		fromX = replace.unsignedLookupX();
+		fromY = replace.unsignedLookupY();
+		toX = with.unsignedLookupX();
+		toY = with.unsignedLookupY();
+		
+	}
+	
+	@Override public void _do() {
+		
+		replaced.clear();
+		if(fromX == toX && fromY == toY) return;
+		
+		palette.usage().forEachUsingLayer(fromX , fromY , (layer , tiles) -> {
+			
+			if(layer.locked()) return;
+			
+			int[] positions = replaceInTiles(layer , tiles);
+			replaced.add(new Replaced(layer , tiles , positions));
+			refresh(layer , tiles);
+			
+		});
+		
+	}
+	
+	@Override public void undo() {
+		
+		for(Replaced x : replaced) {
+			
+			int width = x.layer.width;
+			//the layer may have been locked since the replacement
+			for(int position : x.positions) x.layer.restore(new LayerPixel(position % width , position / width , fromX , fromY));
+			refresh(x.layer , x.tiles);
+			
+		}
+		
+	}
+	
+	/**
+	 * Replaces the pixels of {@code layer} within {@code tiles} which use the replaced lookup, returning their positions.
+	 */
+	private int[] replaceInTiles(Layer layer , BitSet tiles) {
+		
+		int tileSize = Artboard.RECOMPOSITE_TILE_SIZE;
+		int horizontalTiles = (layer.width + tileSize - 1) / tileSize;
+		int[] positions = new int[64];
+		int number = 0;
+		
+		for(int tile = tiles.nextSetBit(0) ; tile >= 0 ; tile = tiles.nextSetBit(tile + 1)) {
+			
+			int leftX = (tile % horizontalTiles) * tileSize , bottomY = (tile / horizontalTiles) * tileSize;
+			int rightX = Math.min(leftX + tileSize , layer.width) , topY = Math.min(bottomY + tileSize , layer.height);
+			for(int y = bottomY ; y < topY ; y++) for(int x = leftX ; x < rightX ; x++) {
+				
+				LayerPixel pixel = layer.get(x , y);
+				if(pixel == null || pixel.lookupX != fromX || pixel.lookupY != fromY) continue;
+				
+				layer.put(new LayerPixel(x , y , toX , toY));
+				if(number == positions.length) positions = Arrays.copyOf(positions , number * 2);
+				positions[number++] = y * layer.width + x;
+				
+			}
+			
+		}
+		
+		return Arrays.copyOf(positions , number);
+		
+	}
+	
+	/**
+	 * Updates the index texture of the artboard owning {@code layer} if {@code layer} is currently displayed by it.
+	 */
+	private void refresh(Layer layer , BitSet tiles) {
+		
+		Artboard artboard = layer.owner();
+		if(layer instanceof VisualLayer) { 
+			
+			if(artboard.isActiveLayerVisual()) artboard.recompositeTiles(tiles);
+			
+		} else if(artboard.activeLayer() == layer && layer.showing()) layer.show(artboard);
+		
+	}
+	
+	private record Replaced(Layer layer , BitSet tiles , int[] positions) {}
+	
+}
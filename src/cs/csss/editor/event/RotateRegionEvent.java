@@ -1,32 +1,32 @@
 package cs.csss.editor.event;
 
-import static org.lwjgl.system.MemoryUtil.memFree;
-
-import java.nio.ByteBuffer;
+import org.joml.Matrix4f;
 
 import cs.csss.annotation.RenderThreadOnly;
-import cs.csss.editor.Editor;
 import cs.csss.editor.SelectionAreaBounder;
 import cs.csss.editor.SelectionAreaRender;
 import cs.csss.project.Artboard;
 import cs.csss.project.IndexPixel;
 import cs.csss.project.LayerPixel;
+import cs.csss.project.MemoryUsage;
 import cs.csss.utils.ByteBufferUtils;
 import cs.csss.utils.ByteBufferUtils.CorrectedResult;
+import cs.csss.utils.PixelTransforms;
+import cs.csss.utils.PixelTransforms.RotationMode;
 
 /**
  * Rotates a given region along its midpoint. 
  * <p>
- * 	The current implementation of this class uses a framebuffer and renders a rotated quad of the region, then downloads the render and 
- * 	places it in the artboard. This is ok for large objects but for small ones many artifacts arise. This implementation is subject to 
- * 	change.
+ * 	The contents of the region are rotated on the CPU by {@link PixelTransforms#rotate(cs.csss.engine.LookupPixel[][], int, int, double, 
+ * 	int, int, int, int, int, int, RotationMode) PixelTransforms.rotate} during {@link #prepare()}, so the result does not depend on the 
+ * 	graphics driver. 
  * </p>
  */
-@RenderThreadOnly public class RotateRegionEvent extends CSSSEvent {
+public class RotateRegionEvent extends CSSSEvent {
 
 	private final Artboard artboard;
-	private final Editor editor;
-	private final Runnable swapBuffersCallback;
+	private final RotationMode mode;
+	private final double angle;
 	private SelectionAreaRender render;
 	private IndexPixel[][] rotatedRegion;
 	private LayerPixel[][] 
@@ -36,6 +36,10 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 		previousRotatedRegion;
 	
 	private final int 
+		fullRenderWidth ,
+		fullRenderHeight ,
+		advanceX ,
+		advanceY ,
 		renderWidth , 
 		renderHeight ,
 		leftX , 
@@ -48,30 +52,26 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 	/**
 	 * Creates a rotate region event.
 	 * 
-	 * @param artboard � an artboard to contain the rotation
-	 * @param editor � the editor
-	 * @param render � render object who will be rendered to a framebuffer and put into {@code artboard}
-	 * @param bounder � the selection bounder for the original region
-	 * @param swapBuffersCallback � callback containing code used to swap buffers
+	 * @param artboard an artboard to contain the rotation
+	 * @param render render object whose contents and rotation are put into {@code artboard}
+	 * @param bounder the selection bounder for the original region
+	 * @param mode how to sample the contents of {@code render} while rotating 
 	 */
-	public RotateRegionEvent(
-		Artboard artboard , 
-		Editor editor , 
-		SelectionAreaRender render , 
-		SelectionAreaBounder bounder , 
-		Runnable swapBuffersCallback
-	) {
+	public RotateRegionEvent(Artboard artboard , SelectionAreaRender render , SelectionAreaBounder bounder , RotationMode mode) {
 		
-		super(true , false);
+		super(true , false , true);
 		
 		this.artboard = artboard;
-		this.editor = editor;
 		this.render = render;
-		this.swapBuffersCallback = swapBuffersCallback;
+		this.mode = mode;
+		
+		//signed angle, the rotation's axis may point either way along z
+		Matrix4f translation = render.positions.translation;
+		angle = Math.atan2(translation.m01() , translation.m00());
 
 		float[] dims = dimensionsOfBoundingBoxOverRotation(render , bounder); 
-		int renderWidth = (int)Math.round(dims[0]);
-		int renderHeight = (int)Math.round(dims[1]);
+		fullRenderWidth = (int)Math.round(dims[0]);
+		fullRenderHeight = (int)Math.round(dims[1]);
 				
 		int prelimLeftX = (int) (dims[2] - (bounder.width() / 2));
 		int prelimBottomY = (int) (dims[3] - (bounder.height() / 2));
@@ -79,11 +79,13 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 		int leftX = indices[0];
 		int bottomY = indices[1];
 		
-		CorrectedResult corrected = ByteBufferUtils.correctifyIndices(artboard, leftX, bottomY, renderWidth, renderHeight);
+		CorrectedResult corrected = ByteBufferUtils.correctifyIndices(artboard, leftX, bottomY, fullRenderWidth, fullRenderHeight);
 		this.leftX = corrected.leftX();
 		this.bottomY = corrected.bottomY();
 		this.renderWidth = corrected.width();
 		this.renderHeight = corrected.height();
+		this.advanceX = corrected.advanceX();
+		this.advanceY = corrected.advanceY();
 		
 		indices = artboard.worldToPixelIndices(bounder.LX() , bounder.BY());
 		originalLeftX = indices[0];
@@ -104,34 +106,46 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
 	@Override public void _do() {
 		
-		artboard.removePixels(originalLeftX, originalBottomY, originalBounderWidth , originalBounderHeight);
+		prepare();
+		commit();
 		
-		//only happens the first time the event is invoked.
-		if(rotatedRegion == null) {
+	}
 				
-			ByteBuffer renderContents = render.renderAndDownload(
-				swapBuffersCallback , 
-				renderWidth , 
-				renderHeight , 
-				render.positions.midX() , 
-				render.positions.midY()
-			);
+	@Override public void prepare() {
+		
+		if(rotatedRegion != null) return;
+		
+		rotatedRegion = PixelTransforms.rotate(
+			render.regionContents() , 
+			render.width , 
+			render.height , 
+			angle , 
+			fullRenderWidth , 
+			fullRenderHeight , 
+			advanceX , 
+			advanceY , 
+			renderWidth , 
+			renderHeight , 
+			mode
+		);
+		
+	}
+	
+	@RenderThreadOnly @Override public void commit() {
+		
+		if(render != null) {
 			
-			renderContents = ByteBufferUtils.reformatBufferRedGreen(renderContents, 2);			
-			rotatedRegion = ByteBufferUtils.bufferToIndices(renderContents , renderWidth , renderHeight , (x , y) -> x == 0 && y == 0);
-			memFree(renderContents);
 			render.shutDown();
 			render = null;
 			
-			editor.resetViewport();
-						
 		}
 		
+		artboard.removePixels(originalLeftX, originalBottomY, originalBounderWidth , originalBounderHeight);
 		artboard.putColorsInImage(leftX, bottomY, renderWidth , renderHeight, rotatedRegion);
 		
 	}
 
-	@Override public void undo() {
+	@RenderThreadOnly @Override public void undo() {
 
 		artboard.removePixels(leftX, bottomY , renderWidth , renderHeight);
 		artboard.putColorsInImage(originalLeftX, originalBottomY, originalBounderWidth , originalBounderHeight, previousOriginalRegion);
@@ -139,6 +153,15 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 				
 	}
 
+	@Override public long retainedBytes() {
+		
+		return 
+			MemoryUsage.regionBytes(rotatedRegion , true) + 
+			MemoryUsage.regionBytes(previousOriginalRegion , false) + 
+			MemoryUsage.regionBytes(previousRotatedRegion , false);
+		
+	}
+
 	/**
 	 * Gets the width and height of the rectangle who bounds the non axis aligned region.
 	 * <p>
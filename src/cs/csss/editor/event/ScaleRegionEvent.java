@@ -1,31 +1,27 @@
 package cs.csss.editor.event;
 
-import static org.lwjgl.system.MemoryUtil.memFree;
-
-import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import org.joml.Vector3f;
 
 import cs.csss.annotation.RenderThreadOnly;
-import cs.csss.editor.Editor;
 import cs.csss.editor.SelectionAreaRender;
 import cs.csss.project.Artboard;
 import cs.csss.project.IndexPixel;
 import cs.csss.project.LayerPixel;
+import cs.csss.project.MemoryUsage;
 import cs.csss.project.utils.Artboards;
-import cs.csss.utils.ByteBufferUtils;
 import cs.csss.utils.ByteBufferUtils.CorrectedResult;
+import cs.csss.utils.PixelTransforms;
 
 /**
- * Scales a selected region by the amount the render has been scaled
+ * Scales a selected region by the amount the render has been scaled. The contents of the region are scaled on the CPU during 
+ * {@link #prepare()}, using Scale2x or Scale3x when the region is scaled by exactly two or three times.
  */
-@RenderThreadOnly public class ScaleRegionEvent extends CSSSEvent {
+public class ScaleRegionEvent extends CSSSEvent {
 
 	private final Artboard artboard;
-	private final Runnable swapBuffers;
 	private final LayerPixel[][] previousRegion;
-	private final Editor editor;
 	private SelectionAreaRender render;
 	private IndexPixel[][] scaledRegion;
 	
@@ -36,6 +32,10 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 		originalBottomY ,
 		originalWidth ,
 		originalHeight ,
+		fullScaledWidth ,
+		fullScaledHeight ,
+		advanceX ,
+		advanceY ,
 		scaledLeftX ,
 		scaledBottomY ,
 		scaledWidth ,
@@ -45,18 +45,14 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 	 * Creates a scale region event.
 	 * 
 	 * @param artboard the artboard 
-	 * @param editor the editor
 	 * @param render the object that contains the scaled region
-	 * @param swapBuffers a callback function used to swap buffers
 	 */
-	public ScaleRegionEvent(Artboard artboard , Editor editor , SelectionAreaRender render , Runnable swapBuffers) {
+	public ScaleRegionEvent(Artboard artboard , SelectionAreaRender render) {
 	
-		super(true , false);
+		super(true , false , true);
 	
 		this.artboard = artboard;
 		this.render = render;
-		this.swapBuffers = swapBuffers;
-		this.editor = editor;
 		
 		Vector3f scaleVector = new Vector3f();
 		render.positions.translation.getScale(scaleVector);
@@ -84,6 +80,10 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 	
 		Objects.requireNonNull(corrected) ; 
 		
+		this.fullScaledWidth = scaledWorldWidth;
+		this.fullScaledHeight = scaledWorldHeight;
+		this.advanceX = corrected.advanceX();
+		this.advanceY = corrected.advanceY();
 		this.scaledLeftX = corrected.leftX();
 		this.scaledBottomY = corrected.bottomY();
 		this.scaledWidth = corrected.width();
@@ -98,18 +98,36 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
 	@Override public void _do() {
 
-		if(scaledRegion == null) {
+		prepare();
+		commit();
 			
-			ByteBuffer renderedRegion = render.renderAndDownload(swapBuffers , scaledWidth , scaledHeight , render.positions);
-			renderedRegion = ByteBufferUtils.reformatBufferRedGreen(renderedRegion, 2);
-			scaledRegion = ByteBufferUtils.bufferToIndices(renderedRegion, scaledWidth, scaledHeight , (x , y) -> x == y && x == 0);
+	}
+			
+	@Override public void prepare() {
+		
+		if(scaledRegion != null) return;
+		
+		scaledRegion = PixelTransforms.scale(
+			render.regionContents() , 
+			originalWidth , 
+			originalHeight , 
+			fullScaledWidth , 
+			fullScaledHeight , 
+			advanceX , 
+			advanceY , 
+			scaledWidth , 
+			scaledHeight
+		);
+		
+	}
+	
+	@RenderThreadOnly @Override public void commit() {
+		
+		if(render != null) {
 			
-			memFree(renderedRegion);
 			render.shutDown();
 			render = null;
 			
-			editor.resetViewport();
-			
 		}
 		
 		artboard.removePixels(originalLeftX , originalBottomY , originalWidth , originalHeight);
@@ -117,7 +135,7 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
 	}
 
-	@Override public void undo() {
+	@RenderThreadOnly @Override public void undo() {
 
 		artboard.removePixels(scaledLeftX, scaledBottomY, scaledWidth, scaledHeight);
 		if(scaledUp) artboard.putColorsInImage(scaledLeftX, scaledBottomY, scaledWidth, scaledHeight, previousRegion);
@@ -125,4 +143,10 @@ import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 		
 	}
 
-}
+	@Override public long retainedBytes() {
+		
+		return MemoryUsage.regionBytes(previousRegion , false) + MemoryUsage.regionBytes(scaledRegion , true);
+		
+	}
+
+}
\ No newline at end of file
@@ -6,9 +6,7 @@ package cs.csss.editor.line;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Objects;
-import java.util.OptionalInt;
 
 import org.joml.Vector2f;
 import cs.csss.annotation.RenderThreadOnly;
@@ -23,6 +21,11 @@ public class BezierLine extends Line {
 
 	private List<Vector2f> controlPoints = new ArrayList<>();
 	
+	/**
+	 * Greatest number of times a curve is split in half while putting its points, which bounds the recursion on degenerate input.
+	 */
+	private static final int MAX_SUBDIVISIONS = 32;
+	
 	/**
 	 * Creates a new bezier line with no control points and no endpoints.
 	 */
@@ -179,81 +182,88 @@ public class BezierLine extends Line {
 		checkEndpoint2();
 		
 		putModsInArtboard(target);
-
-		Vector2f endpoint1Source = new Vector2f(endpoint1X , endpoint1Y);
-		Vector2f endpoint2Source = new Vector2f(endpoint2X , endpoint2Y);
-
-		List<Vector2f> points = new ArrayList<>(controlPoints.size() + 2);
-		points.add(endpoint1Source);
-		points.addAll(controlPoints);		
-		points.add(endpoint2Source);
-
-		float step = stepHeuristic(points);
+		clearPoints();
 		
-		for(float t = 0 ; t <= 1f ; t += step) {
+		int length = controlPoints.size() + 2;
+		double[] xs = new double[length] , ys = new double[length];
+		for(int i = 0 ; i < length ; i++) {
 			
-			List<Vector2f> point = interpolateList(points , t);
-			assert point.size() == 1;
+			xs[i] = pointX(i);
+			ys[i] = pointY(i);
 			
-			Vector2f p = point.get(0);
-			
-			mod(target, (int)p.x() , (int)p.y());
-					
 		}
-	
-		lineMods.forEach(mod -> target.putColorInImage(mod.textureX(), mod.textureY(), mod.width(), mod.height(), color));
 		
-	}
-
-	private List<Vector2f> interpolateList(List<Vector2f> sources , float t) {
+		putPoint((int)Math.round(xs[0]) , (int)Math.round(ys[0]));
+		subdivide(xs , ys , 0);
 		
-		assert sources.size() >= 2;
+		rasterize(target);
 		
-		List<Vector2f> result = new ArrayList<>(sources.size() - 1);
+	}
+	
+	/**
+	 * Puts the points of the curve with the given control points after its first point. The curve is split in half by de Casteljau's 
+	 * algorithm until its control points are within one pixel of each other on both axes, and the last point of each piece is put. A curve
+	 * lies within the bounds of its control points, so no two consecutive points are more than one pixel apart on either axis, and the 
+	 * number of pieces follows the length of the curve rather than its degree.
+	 */
+	private void subdivide(double[] xs , double[] ys , int depth) {
 		
-		Iterator<Vector2f> sourcesIter = sources.iterator();
+		int last = xs.length - 1;
+		if(depth == MAX_SUBDIVISIONS || (extent(xs) <= 1 && extent(ys) <= 1)) {
+			
+			putPoint((int)Math.round(xs[last]) , (int)Math.round(ys[last]));
+			return;
+			
+		}
 		
-		Vector2f i1 = sourcesIter.next();
-		Vector2f p2MultiplicationIntermediate = new Vector2f();
-		Vector2f destination;
-				
-		while(sourcesIter.hasNext()) {
+		double[] leftX = new double[last + 1] , leftY = new double[last + 1];
+		double[] rightX = xs.clone() , rightY = ys.clone();
+		//each level of de Casteljau's algorithm at t = 1 / 2 gives the next control point of the left half and the previous of the right half
+		for(int level = 0 ; level <= last ; level++) {
 			
-			Vector2f i2 = sourcesIter.next();
-			destination = new Vector2f();
-			interpolate(t , i1 , i2 , p2MultiplicationIntermediate , destination);
-			result.add(destination);
-			i1 = i2;
+			leftX[level] = rightX[0];
+			leftY[level] = rightY[0];
+			for(int k = 0 ; k < last - level ; k++) {
+				
+				rightX[k] = (rightX[k] + rightX[k + 1]) * .5;
+				rightY[k] = (rightY[k] + rightY[k + 1]) * .5;
+				
+			}
 			
 		}
 		
-		if(result.size() > 1) return interpolateList(result, t);
-		else return result;
+		subdivide(leftX , leftY , depth + 1);
+		subdivide(rightX , rightY , depth + 1);
 		
 	}
-
-	private void interpolate(float t , Vector2f p1 , Vector2f p2 , Vector2f p2MultiplicationIntermediate , Vector2f destination) {
+	
+	private static double extent(double[] values) {
+		
+		double min = values[0] , max = values[0];
+		for(double x : values) {
+			
+			min = Math.min(min , x);
+			max = Math.max(max , x);
+			
+		}
 		
-		p1.mul(1 - t , destination);
-		p2.mul(t , p2MultiplicationIntermediate);
-		destination.add(p2MultiplicationIntermediate);
+		return max - min;
 		
 	}
-
-	private float stepHeuristic(List<Vector2f> points) {
-
-		OptionalInt greatestX = points.stream().mapToInt(vector -> (int)vector.x()).max();
-		OptionalInt leastX = points.stream().mapToInt(vector -> (int)vector.x()).min();
-
-		OptionalInt greatestY = points.stream().mapToInt(vector -> (int)vector.y()).max();
-		OptionalInt leastY = points.stream().mapToInt(vector -> (int)vector.y()).min();
+	
+	private float pointX(int index) {
 		
-		int differenceX = greatestX.getAsInt() - leastX.getAsInt();
-		int differenceY = greatestY.getAsInt() - leastY.getAsInt();
+		if(index == 0) return endpoint1X;
+		if(index == controlPoints.size() + 1) return endpoint2X;
+		return controlPoints.get(index - 1).x;
 		
-		int greater = Math.max(differenceX, differenceY);		
+	}
+	
+	private float pointY(int index) {
 		
-		return 1f / (float)(greater);
+		if(index == 0) return endpoint1Y;
+		if(index == controlPoints.size() + 1) return endpoint2Y;
+		return controlPoints.get(index - 1).y;
 		
 	}
 
@@ -265,22 +275,6 @@ public class BezierLine extends Line {
 		else if (point.x >= width) point.x = width - 1;
 		if(point.y < 0) point.y = 0;
 		else if (point.y >= height) point.y = height - 1;
-		
-	}
-
-	@Override protected void mod(Artboard target , int x , int y) {
-
-		//try to find (x , y) in the list of mods
-		ListIterator<LineMod> mods = lineMods.listIterator(lineMods.size());
-		
-		while(mods.hasPrevious()) { 
-			
-			LineMod prev = mods.previous();
-			if(prev.textureX() == x && prev.textureY() == y) return;
-			
-		}
-		
-		super.mod(target, x, y);
 				
 	}
 	
@@ -3,17 +3,19 @@
  */
 package cs.csss.editor.line;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
 
 import cs.csss.annotation.RenderThreadOnly;
 import cs.csss.engine.ChannelBuffer;
 import cs.csss.engine.LookupPixel;
 import cs.csss.project.Artboard;
+import cs.csss.project.IndexPixel;
 import cs.csss.project.Layer;
 import cs.csss.project.LayerPixel;
-import cs.csss.utils.ByteBufferUtils;
 /**
  * Base class for all lines. 
  */
@@ -35,9 +37,9 @@ public abstract class Line {
 	protected ChannelBuffer color = new ChannelBuffer((byte)0 , (byte)0 , (byte)0 , (byte)0);
 
 	/**
-	 * List of mods made by this line.
+	 * Record of the mods made by this line.
 	 */
-	protected List<LineMod> lineMods = new ArrayList<>();
+	protected final LineMods lineMods = new LineMods();
 	
 	/**
 	 * Thickness of this line.
@@ -45,9 +47,20 @@ public abstract class Line {
 	protected int thickness = 1;
 	
 	/**
-	 * Destination for index correction operations.
+	 * Centers of the pixels this line covers, as pairs of x and y artboard coordinates, filled in by implementations before invoking 
+	 * {@link #rasterize(Artboard)}. This buffer is reused between resets.
 	 */
-	protected int[] correctifyIndices = new int[6];
+	protected int[] points = new int[64];
+	
+	/**
+	 * Number of points in {@link #points}.
+	 */
+	protected int numberPoints = 0;
+	
+	/**
+	 * Reusable row of pixels for restoring mods.
+	 */
+	private LookupPixel[][] restoreRow = new LookupPixel[1][0];
 	
 	/**
 	 * Resets this line. Draws it on the given artboard. 
@@ -214,42 +227,107 @@ public abstract class Line {
 	}
 
 	/**
-	 * Returns the list of {@link LineMod}s this line currently has made to the artboard it was most recently {@link #reset(Artboard)} on.
+	 * Returns the record of mods this line currently has made to the artboard it was most recently {@link #reset(Artboard)} on.
 	 * 
-	 * @return This line's list of mods.
+	 * @return This line's mods.
 	 */
-	public List<LineMod> lineMods() {
+	public LineMods lineMods() {
 		
 		return lineMods;
 		
 	}
 	
 	/**
-	 * Creates a new {@link LineMod} and adds it to this line's list of mods.
+	 * Empties {@link #points}.
+	 */
+	protected void clearPoints() {
+		
+		numberPoints = 0;
+		
+	}
+	
+	/**
+	 * Appends a point to {@link #points}, growing it if needed. Duplicates are allowed.
+	 * 
+	 * @param x x artboard coordinate of the center of a pixel of this line
+	 * @param y y artboard coordinate of the center of a pixel of this line
+	 */
+	protected void putPoint(int x , int y) {
+		
+		if(numberPoints * 2 == points.length) points = Arrays.copyOf(points , points.length * 2);
+		points[numberPoints * 2] = x;
+		points[numberPoints * 2 + 1] = y;
+		numberPoints++;
+		
+	}
+	
+	/**
+	 * Draws the contents of {@link #points} into {@code target}'s active layer. Each point is expanded into a square of width 
+	 * {@link #thickness} centered on it, one horizontal span at a time, and the covered positions are collected into a bit set spanning the 
+	 * bounding box of the line so each is drawn once regardless of how many points cover it. The contents of the active layer at the covered positions are recorded in 
+	 * {@link #lineMods} before drawing, and each horizontal run of covered positions is drawn with one call.
 	 * 
-	 * @param target the artboard being queried
-	 * @param x x coordinate of the mod
-	 * @param y y coordinate of the mod
+	 * @param target artboard to draw into
 	 */
-	@RenderThreadOnly protected void mod(Artboard target , int x , int y) {
+	@RenderThreadOnly protected void rasterize(Artboard target) {
+		
+		lineMods.clear();
+		if(numberPoints == 0) return;
 		
-		if(thickness != 1) {
+		int width = target.width() , height = target.height();
+		int half = thickness >> 1;
+		int minX = Integer.MAX_VALUE , minY = Integer.MAX_VALUE , maxX = -1 , maxY = -1;
+		
+		for(int i = 0 ; i < numberPoints ; i++) {
+			
+			int leftX = Math.max(0 , points[i * 2] - half) , rightX = Math.min(width , points[i * 2] - half + thickness);
+			int bottomY = Math.max(0 , points[i * 2 + 1] - half) , topY = Math.min(height , points[i * 2 + 1] - half + thickness);
+			if(leftX >= rightX || bottomY >= topY) continue;
 			
-			x -= (thickness >> 1);
-			y -= (thickness >> 1);
+			minX = Math.min(minX , leftX);
+			minY = Math.min(minY , bottomY);
+			maxX = Math.max(maxX , rightX - 1);
+			maxY = Math.max(maxY , topY - 1);
 			
 		}
-
-		ByteBufferUtils.correctifyIndices(target, x, y, thickness, thickness , correctifyIndices);
-		int lx = correctifyIndices[0] , by = correctifyIndices[1] , width = correctifyIndices[2] , height = correctifyIndices[3];
-		LayerPixel[][] previousRegion = target.getRegionOfLayerPixels(lx , by , width , height);
 		
-		lineMods.add(new LineMod(lx , by , width , height , previousRegion));
+		if(maxX < 0) return;
+		
+		//positions of the bounding box of the line, indexed by (y - minY) * boxWidth + x - minX
+		int boxWidth = maxX - minX + 1;
+		BitSet covered = new BitSet(boxWidth * (maxY - minY + 1));
+		for(int i = 0 ; i < numberPoints ; i++) {
+			
+			int leftX = Math.max(0 , points[i * 2] - half) , rightX = Math.min(width , points[i * 2] - half + thickness);
+			int bottomY = Math.max(0 , points[i * 2 + 1] - half) , topY = Math.min(height , points[i * 2 + 1] - half + thickness);
+			if(leftX >= rightX || bottomY >= topY) continue;
+			
+			for(int row = bottomY - minY ; row < topY - minY ; row++) covered.set(row * boxWidth + leftX - minX , row * boxWidth + rightX - minX);
+			
+		}
+		
+		Layer layer = target.activeLayer();
+		for(int row = minY ; row <= maxY ; row++) {
+			
+			int rowStart = (row - minY) * boxWidth;
+			int rowEnd = rowStart + boxWidth;
+			for(int from = covered.nextSetBit(rowStart) ; from != -1 && from < rowEnd ; from = covered.nextSetBit(from)) {
+				
+				int to = Math.min(covered.nextClearBit(from) , rowEnd);
+				lineMods.add(layer , from - rowStart + minX , row , to - from);
+				from = to;
+				
+			}
+			
+		}
+		
+		LookupPixel lookup = target.putInPalette(color);
+		lineMods.forEachSpan((x , y , length) -> target.putColorInImage(x , y , length , 1 , lookup));
 		
 	}
 	
 	/**
-	 * Puts all mods stored in this line's list of mods in {@code artboard}, then clears the list of mods.
+	 * Puts all mods stored in this line's record of mods in {@code artboard}, then clears the record.
 	 * 
 	 * @param artboard artboard to put mods back into
 	 * @throws NullPointerException if {@code artboard} is <code>null</code>.
@@ -257,13 +335,13 @@ public abstract class Line {
 	public void putModsInArtboard(Artboard artboard) {
 
 		Objects.requireNonNull(artboard);		
-		lineMods.forEach(mod -> artboard.replace(mod.textureX, mod.textureY, mod.width, mod.height, mod.previousColor));		
+		restoreMods(artboard);
 		lineMods.clear();
 		
 	}
 	
 	/**
-	 * Puts all mods stored in this line's list of mods in {@code artboard}, and specifically in {@code layer}.
+	 * Puts all mods stored in this line's record of mods in {@code artboard}, and specifically in {@code layer}.
 	 * 
 	 * @param artboard artboard to put mods back into
 	 * @param target layer to store the mods in
@@ -277,13 +355,28 @@ public abstract class Line {
 		Layer previousActive = artboard.activeLayer();
 		artboard.setActiveLayer(target);
 		
-		lineMods.forEach(mod -> artboard.replace(mod.textureX, mod.textureY, mod.width, mod.height, mod.previousColor));
+		restoreMods(artboard);
 		
 		artboard.setActiveLayer(previousActive);
 		lineMods.clear();
 		
 	}
 	
+	private void restoreMods(Artboard artboard) {
+		
+		int[] pixel = {0};
+		lineMods.forEachSpan((x , y , length) -> {
+			
+			if(restoreRow[0].length < length) restoreRow[0] = new LookupPixel[length];
+			for(int i = 0 ; i < length ; i++ , pixel[0]++) restoreRow[0][i] = lineMods.previous(pixel[0]);
+			artboard.replace(x , y , length , 1 , restoreRow);
+			
+		});
+		
+		Arrays.fill(restoreRow[0] , null);
+		
+	}
+	
 	/**
 	 * Sets the thickness value for this line. 
 	 * 
@@ -358,11 +451,185 @@ public abstract class Line {
 	public abstract <X extends Line> X copy();
 	
 	/**
-	 * Container for data about mods this line has made to the artboard it belongs to. {@code previousColor} is the previous color found at 
-	 * {@code (textureX , textureY)}. {@code color} can be <code>null</code>, in which case no color was present, so a background color will be 
-	 * placed.
-	 * 
+	 * Receiver of horizontal spans of pixels.
 	 */
-	public record LineMod(int textureX , int textureY , int width , int height , LookupPixel[][] previousColor) {}
+	@FunctionalInterface public interface SpanConsumer {
+		
+		/**
+		 * Accepts a horizontal span of pixels.
+		 * 
+		 * @param x left x coordinate of the span
+		 * @param y y coordinate of the span
+		 * @param length number of pixels in the span
+		 */
+		void accept(int x , int y , int length);
+		
+	}
+
+	/**
+	 * Compact record of the mods a line has made to the artboard it belongs to. Mods are stored as horizontal spans of pixels, and for each 
+	 * pixel of each span, the lookup the layer previously held at that position, or nothing if the layer did not modify that position. The 
+	 * arrays backing this record are reused between resets of the line. 
+	 */
+	public static final class LineMods {
+		
+		private static final int NO_PREVIOUS = -1;
+		
+		private int[] spans = new int[48];
+		private int numberSpans = 0;
+		private int[] previous = new int[64];
+		private int numberPixels = 0;
+		private int leftX , bottomY , rightX , topY;
+		
+		private LineMods() {
+			
+			clear();
+			
+		}
+		
+		private void add(Layer source , int x , int y , int length) {
+			
+			if(numberSpans * 3 == spans.length) spans = Arrays.copyOf(spans , spans.length * 2);
+			spans[numberSpans * 3] = x;
+			spans[numberSpans * 3 + 1] = y;
+			spans[numberSpans * 3 + 2] = length;
+			numberSpans++;
+			
+			if(numberPixels + length > previous.length) previous = Arrays.copyOf(previous , Math.max(previous.length * 2 , numberPixels + length));
+			for(int i = 0 ; i < length ; i++) {
+				
+				LayerPixel pixel = source.get(x + i , y);
+				previous[numberPixels++] = pixel == null ? NO_PREVIOUS : (pixel.lookupX() & 0xff) << 8 | (pixel.lookupY() & 0xff);
+				
+			}
+			
+			leftX = Math.min(leftX , x);
+			bottomY = Math.min(bottomY , y);
+			rightX = Math.max(rightX , x + length);
+			topY = Math.max(topY , y + 1);
+			
+		}
+		
+		private LookupPixel previous(int pixel) {
+			
+			int lookup = previous[pixel];
+			return lookup == NO_PREVIOUS ? null : new IndexPixel(lookup >>> 8 , lookup & 0xff);
+			
+		}
+		
+		private void clear() {
+			
+			numberSpans = 0;
+			numberPixels = 0;
+			leftX = bottomY = Integer.MAX_VALUE;
+			rightX = topY = Integer.MIN_VALUE;
+			
+		}
+		
+		/**
+		 * Invokes {@code callback} on each span of pixels of this record.
+		 * 
+		 * @param callback code to invoke for each span
+		 * @throws NullPointerException if {@code callback} is <code>null</code>.
+		 */
+		public void forEachSpan(SpanConsumer callback) {
+			
+			for(int i = 0 ; i < numberSpans ; i++) callback.accept(spans[i * 3] , spans[i * 3 + 1] , spans[i * 3 + 2]);
+			
+		}
+		
+		/**
+		 * Invokes {@code callback} with the lookup of each pixel this record's pixels replaced, packed as {@code lookupX << 8 | lookupY}. 
+		 * Pixels which replaced nothing are skipped.
+		 * 
+		 * @param callback code to invoke for each replaced lookup
+		 * @throws NullPointerException if {@code callback} is <code>null</code>.
+		 */
+		public void forEachPrevious(IntConsumer callback) {
+			
+			for(int i = 0 ; i < numberPixels ; i++) if(previous[i] != NO_PREVIOUS) callback.accept(previous[i]);
+			
+		}
+		
+		/**
+		 * Replaces the lookup of each pixel this record's pixels replaced with the result of {@code remap}, which receives and returns lookups 
+		 * packed as {@code lookupX << 8 | lookupY}. Used when the palette the lookups refer to is rearranged.
+		 * 
+		 * @param remap function from previous lookup to new lookup
+		 * @throws NullPointerException if {@code remap} is <code>null</code>.
+		 */
+		public void remapPrevious(IntUnaryOperator remap) {
+			
+			for(int i = 0 ; i < numberPixels ; i++) if(previous[i] != NO_PREVIOUS) previous[i] = remap.applyAsInt(previous[i]);
+			
+		}
+		
+		/**
+		 * Returns whether this record contains no mods.
+		 * 
+		 * @return Whether this record contains no mods.
+		 */
+		public boolean isEmpty() {
+			
+			return numberSpans == 0;
+			
+		}
+		
+		/**
+		 * Returns the number of pixels this record contains.
+		 * 
+		 * @return Number of pixels this record contains.
+		 */
+		public int numberPixels() {
+			
+			return numberPixels;
+			
+		}
+		
+		/**
+		 * Returns the leftmost x coordinate of any mod. Undefined if this record is empty.
+		 * 
+		 * @return Leftmost x coordinate of any mod.
+		 */
+		public int leftX() {
+			
+			return leftX;
+			
+		}
+		
+		/**
+		 * Returns the bottommost y coordinate of any mod. Undefined if this record is empty.
+		 * 
+		 * @return Bottommost y coordinate of any mod.
+		 */
+		public int bottomY() {
+			
+			return bottomY;
+			
+		}
+		
+		/**
+		 * Returns one more than the rightmost x coordinate of any mod. Undefined if this record is empty.
+		 * 
+		 * @return One more than the rightmost x coordinate of any mod.
+		 */
+		public int rightX() {
+			
+			return rightX;
+			
+		}
+		
+		/**
+		 * Returns one more than the topmost y coordinate of any mod. Undefined if this record is empty.
+		 * 
+		 * @return One more than the topmost y coordinate of any mod.
+		 */
+		public int topY() {
+			
+			return topY;
+			
+		}
+		
+	}
 	
 }
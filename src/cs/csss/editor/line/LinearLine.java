@@ -86,11 +86,13 @@ public class LinearLine extends Line {
 		int currentHeight = currentGreaterY - currentLesserY + 1;
 		
 		putModsInArtboard(target);
+		clearPoints();
 		
 		//special case
 		if(endpoint1X == endpoint2X && endpoint1Y == endpoint2Y) {
 			
-			mod(target , endpoint1X , endpoint1Y);			
+			putPoint(endpoint1X , endpoint1Y);
+			rasterize(target);
 			return;
 			
 		}
@@ -103,7 +105,7 @@ public class LinearLine extends Line {
 			while(x <= currentGreaterX) {
 				
 				int y = Math.round(endpoint1Y + (x - endpoint1X) * slope);		
-				mod(target , x , y);
+				putPoint(x , y);
 				x += 1;
 				
 			}	
@@ -116,14 +118,14 @@ public class LinearLine extends Line {
 			while(y <= currentGreaterY) {
 				
 				int x = Math.round(endpoint1X + (y - endpoint1Y) * slope);		
-				mod(target , x , y);
+				putPoint(x , y);
 				y += 1;
 				
 			}
 		
 		}
 			
-		lineMods.forEach(mod -> target.putColorInImage(mod.textureX(), mod.textureY(), mod.width(), mod.height(), color));
+		rasterize(target);
 				
 	}
 	 
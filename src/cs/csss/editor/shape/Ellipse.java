@@ -1,11 +1,8 @@
 package cs.csss.editor.shape;
 
-import java.nio.ByteBuffer;
-
 import cs.csss.annotation.RenderThreadOnly;
 import cs.csss.engine.ChannelBuffer;
 import cs.csss.engine.ColorPixel;
-import cs.csss.misc.utils.FlexableGraphic;
 import cs.csss.project.Artboard;
 
 /**
@@ -63,6 +60,7 @@ public class Ellipse extends Shape {
 	 * @param fill whether to initially fill the ellipse
 	 * @param formatColors whether to reformat {@code borderColor} and {@code fillColor} according to the semantics of 
 	 * 					   {@link Shape#formatColor(ColorPixel, ChannelBuffer, int)}
+	 * @throws IllegalArgumentException if {@code radiusX} or {@code radiusY} is not positive.
 	 */
 	@RenderThreadOnly public Ellipse(
 		float x , 
@@ -78,6 +76,9 @@ public class Ellipse extends Shape {
 		
 		super(borderColor , fillColor , channelsPerPixel, formatColors);
 
+		if(radiusX <= 0) throw new IllegalArgumentException("X radius is not positive: " + radiusX);
+		if(radiusY <= 0) throw new IllegalArgumentException("Y radius is not positive: " + radiusY);
+		
 		this.xRadius = radiusX;
 		this.yRadius = radiusY;
 			
@@ -94,88 +95,81 @@ public class Ellipse extends Shape {
 
 	@RenderThreadOnly @Override public void reset() {
 
-		int xDiameter = 2 * xRadius;
-		int yDiameter = 2 * yRadius;
+		spanReset(xRadius << 2 , yRadius << 2);
+				
+	}
+
+	@Override protected void forEachSpan(int fromRow , int toRow , SpanConsumer consumer) {
 		
-		int imageWidth = xDiameter << 1;
-		int imageHeight = yDiameter << 1;
+		spans(xRadius , yRadius , fill , fromRow , toRow , consumer);
 		
-		byte z = (byte)0;
-		FlexableGraphic graphic = new FlexableGraphic(imageWidth , imageHeight , channelsPerPixel , new ChannelBuffer(z , z , z  , z));
+	}
+	
+	/**
+	 * Invokes {@code consumer} on each span of an ellipse of the given radii whose row is in the range {@code [fromRow , toRow)}, as 
+	 * {@link Shape#forEachSpan(int, int, SpanConsumer)} does.
+	 * <p>
+	 * 	The ellipse is centered on the pixel {@code (2 * xRadius , 2 * yRadius)} of its image. Each row {@code dy} from the center has a half
+	 * 	width, the greatest {@code x} for which {@code (x / xRadius)^2 + (dy / yRadius)^2 <= 1}. The border of a row covers the pixels between
+	 * 	its half width and the half width of the next row out, so the border is connected regardless of how steep the ellipse is, and the 
+	 * 	fill covers the rest of the row. An ellipse with a radius that is not positive has no spans.
+	 * </p>
+	 * 
+	 * @param xRadius horizontal radius of the ellipse
+	 * @param yRadius vertical radius of the ellipse
+	 * @param fill whether to emit the spans of the fill
+	 * @param fromRow first row to emit spans for
+	 * @param toRow one more than the last row to emit spans for
+	 * @param consumer code to invoke for each span
+	 */
+	static void spans(int xRadius , int yRadius , boolean fill , int fromRow , int toRow , SpanConsumer consumer) {
 		
-		ByteBuffer image = graphic.data();
+		if(xRadius <= 0 || yRadius <= 0) return;
 		
-		int midpoint = (yDiameter * imageWidth * channelsPerPixel) + (xDiameter * channelsPerPixel);
-
-		/*
-		 * Write the ellipse to the image
-		 * 
-		 * We use formula for getting position of a point on the elipse given angle and radii. We draw the outine of the shape and then fill in the 
-		 * inside rows. We only iterate over one quadrant and reflect our drawing horizontally and vertically.
-		 * 
-		 */
-		
-		//iterate and fill in ellipse
-		//increase and decrease the addend to get more pixels
-		float addend = DEFAULT_ITERATIONS / iterations;
-		for(float i = 0f ; i < 90.0f ; i += addend) {
-			
-			double radians = Math.toRadians(i);
-			int xCoord = (int) (xRadius * Math.cos(radians));
-			int yCoord = (int) (yRadius * Math.sin(radians));
-
-			int yOffset = yCoord * imageWidth * channelsPerPixel;
-			int xOffset = xCoord * channelsPerPixel;
-			
-			int rightOffset = midpoint + yOffset + xOffset;
-			int leftOffset = midpoint + yOffset - xOffset;
+		int midX = xRadius << 1 , midY = yRadius << 1;
+		int firstRow = Math.max(fromRow , midY - yRadius) , lastRow = Math.min(toRow - 1 , midY + yRadius);
+		
+		for(int row = firstRow ; row <= lastRow ; row++) {
 			
-			putColor(image , rightOffset , borderColor); 
-			putColor(image , leftOffset , borderColor);
+			int dy = Math.abs(row - midY);
+			int halfWidth = halfWidth(xRadius , yRadius , dy);
+			int borderStart = Math.min(halfWidth(xRadius , yRadius , dy + 1) + 1 , halfWidth);
 			
-			if(fill) {
+			if(borderStart == 0) consumer.accept(row , midX - halfWidth , 2 * halfWidth + 1 , true);
+			else {
 				
-				//fill in row
-				leftOffset += channelsPerPixel;
-				while(leftOffset < rightOffset) {
-					
-					putColor(image , leftOffset , fillColor);
-					leftOffset += channelsPerPixel;
-					
-				}
-			
-			}
-			
-			rightOffset = midpoint - yOffset + xOffset;
-			leftOffset = midpoint - yOffset - xOffset;
-
-			putColor(image , rightOffset , borderColor); 
-			putColor(image , leftOffset , borderColor);
-			
-			if(fill) {
+				int borderLength = halfWidth - borderStart + 1;
+				consumer.accept(row , midX - halfWidth , borderLength , true);
+				if(fill) consumer.accept(row , midX - borderStart + 1 , 2 * borderStart - 1 , false);
+				consumer.accept(row , midX + borderStart , borderLength , true);
 				
-				//fill in lower row
-				leftOffset += channelsPerPixel;
-				while(leftOffset < rightOffset) {
-
-					putColor(image , leftOffset , fillColor);
-					leftOffset += channelsPerPixel;
-					
-				}
-			
 			}
-						
+			
 		}
 		
-		defaultReset(graphic, imageWidth, imageHeight);
-				
+	}
+	
+	/**
+	 * Returns the greatest {@code x} for which {@code yRadius^2 * x^2 <= xRadius^2 * (yRadius^2 - dy^2)}, or -1 if {@code dy > yRadius}. 
+	 */
+	private static int halfWidth(int xRadius , int yRadius , int dy) {
+		
+		if(dy > yRadius) return -1;
+		
+		long a2 = (long)xRadius * xRadius , b2 = (long)yRadius * yRadius;
+		long bound = a2 * (b2 - (long)dy * dy);
+		long x = (long)Math.sqrt((double)bound / b2);
+		while(x > 0 && b2 * x * x > bound) x--;
+		while(b2 * (x + 1) * (x + 1) <= bound) x++;
+		return (int)x;
+		
 	}
 
- 	@Override public void rasterize(Artboard target) {
-
- 		defaultRasterize(target, textureWidth, textureHeight);
- 		 		
- 	}
+	@Override public void rasterize(Artboard target) {
+		
+		spanRasterize(target , target.layerOwningShape(this).palette());
+		
+	}
 
 	@SuppressWarnings("unchecked") @Override public Ellipse copy() {
 
@@ -240,7 +234,8 @@ public class Ellipse extends Shape {
 	}
 	
 	/**
-	 * Sets the number of iterations. This value can be used to fill holes in large ellipses.
+	 * Sets the number of iterations. Ellipses are rasterized exactly, so this value no longer affects how they look. It is kept so it can be 
+	 * saved with projects and loaded from older ones.
 	 * 
 	 * @param iterations new number of iterations; defaults to 90.
 	 */
@@ -262,12 +257,6 @@ public class Ellipse extends Shape {
 		
 	}
 		
-	private void putColor(ByteBuffer destination , int offset , ColorPixel color) { 
-	
-		for(int i = 0 ; i < channelsPerPixel ; i++) destination.put(offset + i , color.i(i));
-		
-	}
-
 	@Override public void dimensions(int width, int height) {
 
 		shapeWidth(width);
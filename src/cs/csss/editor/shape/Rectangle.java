@@ -1,16 +1,9 @@
 package cs.csss.editor.shape;
 
-import java.nio.ByteBuffer;
-
 import cs.csss.annotation.RenderThreadOnly;
 import cs.csss.engine.ChannelBuffer;
 import cs.csss.engine.ColorPixel;
-import cs.csss.engine.LookupPixel;
-import cs.csss.misc.utils.FlexableGraphic;
 import cs.csss.project.Artboard;
-import cs.csss.project.ArtboardPalette;
-import cs.csss.project.utils.Artboards;
-import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 
 /**
  * Class for creating rectangular shapes.
@@ -74,52 +67,44 @@ public class Rectangle extends Shape {
 	
 	@RenderThreadOnly @Override public void reset() {
 		
-		byte z = (byte)0;
-		FlexableGraphic graphic = new FlexableGraphic(textureWidth, textureHeight , channels() , new ChannelBuffer(z , z , z , z));
+		spanReset(textureWidth , textureHeight);
 		
-		ByteBuffer image = graphic.data();
+	}
+	
+	@Override protected void forEachSpan(int fromRow , int toRow , SpanConsumer consumer) {
 		
-		//vertical lines
-		for(int row = 0 ; row < textureHeight ; row++) {
-			
-			int offset = row * textureWidth * channelsPerPixel;
-			putColor(image , offset , borderColor);
+		spans(textureWidth , textureHeight , fill , fromRow , toRow , consumer);
+		
+	}
+	
+	/**
+	 * Invokes {@code consumer} on each span of a rectangle of the given size whose row is in the range {@code [fromRow , toRow)}, as 
+	 * {@link Shape#forEachSpan(int, int, SpanConsumer)} does.
+	 * 
+	 * @param width width of the rectangle
+	 * @param height height of the rectangle
+	 * @param fill whether to emit the spans of the fill
+	 * @param fromRow first row to emit spans for
+	 * @param toRow one more than the last row to emit spans for
+	 * @param consumer code to invoke for each span
+	 */
+	static void spans(int width , int height , boolean fill , int fromRow , int toRow , SpanConsumer consumer) {
+		
+		int lastRow = height - 1 , lastColumn = width - 1;
+		for(int row = Math.max(fromRow , 0) ; row < Math.min(toRow , height) ; row++) {
 			
-			int rightOffsetAddend = ((textureWidth - 1) * channelsPerPixel);
-			if(fill) {
-				
-				int iter = offset + channelsPerPixel;
-				int end = offset + rightOffsetAddend;
-				
-				while(iter < end) {
+			//bottom and top rows and rectangles too narrow to have a fill are all border
+			if(row == 0 || row == lastRow || width <= 2) consumer.accept(row , 0 , width , true);
+			else {
 				
-					putColor(image , iter , fillColor);					
-					iter += channelsPerPixel;
-					
-				}				
+				consumer.accept(row , 0 , 1 , true);
+				if(fill) consumer.accept(row , 1 , width - 2 , false);
+				consumer.accept(row , lastColumn , 1 , true);
 				
 			}
 			
-			offset += rightOffsetAddend;
-			putColor(image , offset , borderColor);
-			
 		}
 		
-		//horizontal lines                                  
-		for(int col = 0 ; col < textureWidth ; col++) {            
-			                                                
-			//put the bottom point                          
-			int off = col * channelsPerPixel;               
-			putColor(image , off , borderColor);            
-			                                                
-			//put the top point                             
-			off += (textureHeight - 1) * textureWidth * channelsPerPixel; 
-			putColor(image , off , borderColor);            
-			                                                
-		}                                                   
-		
-		defaultReset(graphic , textureWidth , textureHeight);
-		
 	}
 
 	@SuppressWarnings("unchecked") @Override public Rectangle copy() {
@@ -144,73 +129,7 @@ public class Rectangle extends Shape {
 
 	@Override public void rasterize(Artboard target) {
 
-//		defaultRasterize(target, width , height);
-
-		CorrectedResult correct = Artboards.worldCoordinatesToCorrectArtboardCoordinates(
-			target, 
-			(int)leftX(), 
-			(int)bottomY(), 
-			textureWidth, 
-			textureHeight
-		);
-		
-		//image is completely out of bounds
-		if(correct == null) {
-			
-			hide(true);
-			return;
-			
-		}
-		
-		LookupPixel[][] region = new LookupPixel[textureHeight][textureWidth];
-
-		ArtboardPalette owningPalette = target.layerOwningShape(this).palette(); 
-		LookupPixel borderColorLookup;
-		LookupPixel fillColorLookup;
-		
-		if(channelsPerPixel == 2) {
-
-			if(fillColor.g() == 0 || !fill) fillColorLookup = null;
-			else fillColorLookup = owningPalette.putOrGetColors(fillColor);
-
-			if(borderColor.g() == 0) borderColorLookup = null;
-			else borderColorLookup = owningPalette.putOrGetColors(borderColor);
-		
-		} else {
-
-			if(fillColor.a() == 0 || !fill) fillColorLookup = null;
-			else fillColorLookup = owningPalette.putOrGetColors(fillColor);
-
-			if(borderColor.a() == 0) borderColorLookup = null;
-			else borderColorLookup = owningPalette.putOrGetColors(borderColor);
-		
-		}
-		
-		//assume width and height >= 2.
-		
-		//bottom and top row
-		int lastRow = textureHeight - 1;
-		for(int col = 0 ; col < textureWidth ; col++) { 
-		
-			region[0][col] = borderColorLookup;
-			region[lastRow][col] = borderColorLookup;
-			
-		}
-				
-		//iterates over every row except the first and last		
-		for(int row = 1 ; row < lastRow ; row++) {
-			
-			region[row][0] = borderColorLookup;
-			
-			for(int col = 1 ; col < textureWidth - 1 ; col++) region[row][col] = fillColorLookup;
-			
-			region[row][textureWidth - 1] = borderColorLookup;
-			
-		}
-		
-		hide(true);
-		
-		target.putColorsInImage(correct, region);
+		spanRasterize(target , target.layerOwningShape(this).palette());
 	
 	}
 	
@@ -257,12 +176,6 @@ public class Rectangle extends Shape {
 		
 	}
 	
-	private void putColor(ByteBuffer destination , int offset , ColorPixel color) { 
-	
-		for(int i = 0 ; i < channelsPerPixel ; i++) destination.put(offset + i , color.i(i));
-		
-	}
-	
 	@Override public String toString() {
 		
 		return String.format("Rectangle at (%f , %f)", midX() , midY());
@@ -12,8 +12,11 @@ import static org.lwjgl.opengl.GL30C.GL_RGB;
 import static org.lwjgl.opengl.GL30C.GL_UNSIGNED_BYTE;
 import static org.lwjgl.opengl.GL30C.glGetTexImage;
 
-import static org.lwjgl.system.MemoryUtil.memAlloc;
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static org.lwjgl.system.MemoryUtil.memAddress;
+import static cs.csss.engine.MemoryAccounting.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memCopy;
+import static cs.csss.engine.MemoryAccounting.memFree;
+import static org.lwjgl.system.MemoryUtil.memPutByte;
 
 import java.nio.ByteBuffer;
 import java.util.Objects;
@@ -26,11 +29,13 @@ import cs.csss.editor.Rasterizable;
 import cs.csss.engine.ChannelBuffer;
 import cs.csss.engine.ColorPixel;
 import cs.csss.engine.LookupPixel;
+import cs.csss.misc.utils.FlexableGraphic;
 import cs.csss.project.Artboard;
 import cs.csss.project.ArtboardPalette;
 import cs.csss.project.CSSSProject;
 import cs.csss.project.TextureShader;
 import cs.csss.project.utils.Artboards;
+import cs.csss.project.utils.PixelRegions;
 import cs.csss.utils.ByteBufferUtils.CorrectedResult;
 import sc.core.binary.SCGraphic;
 import sc.core.graphics.SCOrthographicCamera;
@@ -43,6 +48,11 @@ import sc.core.graphics.utils.SCVertexBufferBuilder;
  */
 public abstract class Shape extends Rasterizable {
 
+	/**
+	 * Number of pixels of a shape's image above which {@link #spanReset(int, int)} writes the image from multiple threads.
+	 */
+	public static final int PARALLEL_RESET_PIXELS = 512 * 512;
+
 	/**
 	 * Converts a channels per pixel value into a value for shapes. Shapes must have a transparency, so if the given channels does not 
 	 * indicate a transparency, it is converted so the result is the same color format, but with transparency. 
@@ -171,7 +181,7 @@ public abstract class Shape extends Rasterizable {
 	 */
 	@RenderThreadOnly protected @FreeAfterUse ByteBuffer textureToBuffer(int width , int height) {
 		
-		ByteBuffer destination = memAlloc(width * height * channelsPerPixel);
+		ByteBuffer destination = memAlloc("shape/rasterize" , width * height * channelsPerPixel);
 		
 		int glFormat = switch(channelsPerPixel) {
 			case 1 -> GL_RED;
@@ -277,6 +287,110 @@ public abstract class Shape extends Rasterizable {
 			
 	}
 	
+	/**
+	 * Invokes {@code consumer} on each horizontal span of this shape whose row is in the range {@code [fromRow , toRow)}. Rows and columns 
+	 * are pixel coordinates from the bottom left of this shape's image. Spans of a row do not overlap. Implementations must be safe to invoke
+	 * from multiple threads at once for disjoint ranges of rows.
+	 * 
+	 * @param fromRow first row to emit spans for
+	 * @param toRow one more than the last row to emit spans for
+	 * @param consumer code to invoke for each span
+	 */
+	protected abstract void forEachSpan(int fromRow , int toRow , SpanConsumer consumer);
+	
+	/**
+	 * Creates an image of this shape of the given size from its spans and makes it the image this shape renders. This is done on multiple 
+	 * threads if the image has more than {@link #PARALLEL_RESET_PIXELS} pixels.
+	 * 
+	 * @param width width of the image
+	 * @param height height of the image
+	 */
+	@RenderThreadOnly protected final void spanReset(int width , int height) {
+		
+		byte z = (byte)0;
+		FlexableGraphic graphic = new FlexableGraphic(width , height , channelsPerPixel , new ChannelBuffer(z , z , z , z));
+		long address = memAddress(graphic.data());
+		
+		SpanConsumer writer = (row , leftX , length , border) -> fillSpan(
+			address + ((long)row * width + leftX) * channelsPerPixel , 
+			length , 
+			border ? borderColor : fillColor
+		);
+		
+		if((long)width * height <= PARALLEL_RESET_PIXELS) forEachSpan(0 , height , writer);
+		else try {
+			
+			PixelRegions.forEachBandParallel(0 , height , (band , fromRow , toRow) -> forEachSpan(fromRow , toRow , writer));
+			
+		} catch (IllegalStateException e) {
+			
+			graphic.shutDown();
+			throw e;
+			
+		}
+		
+		defaultReset(graphic , width , height);
+		
+	}
+	
+	/**
+	 * Writes this shape into the active layer of {@code artboard} and its image, one horizontal span at a time. Spans are clipped to the 
+	 * artboard, and spans whose color is transparent are skipped. This shape is hidden afterward.
+	 * 
+	 * @param artboard the artboard to rasterize into
+	 * @param palette the palette to put the colors of this shape in
+	 */
+	@RenderThreadOnly protected final void spanRasterize(Artboard artboard , ArtboardPalette palette) {
+		
+		LookupPixel borderColorLookup = colorLookup(palette , borderColor , true);
+		LookupPixel fillColorLookup = colorLookup(palette , fillColor , fill);
+		
+		int[] origin = artboard.worldToPixelIndices((int)leftX() , (int)bottomY());
+		int artboardWidth = artboard.width() , artboardHeight = artboard.height();
+		
+		forEachSpan(0 , textureHeight , (row , leftX , length , border) -> {
+			
+			LookupPixel lookup = border ? borderColorLookup : fillColorLookup;
+			int y = origin[1] + row;
+			if(lookup == null || y < 0 || y >= artboardHeight) return;
+			
+			int left = Math.max(0 , origin[0] + leftX) , right = Math.min(artboardWidth , origin[0] + leftX + length);
+			if(left < right) artboard.putColorInImage(left , y , right - left , 1 , lookup);
+			
+		});
+		
+		hide(true);
+		
+	}
+	
+	/**
+	 * Returns the lookup of {@code color} in {@code palette}, adding it if needed, or <code>null</code> if the color is transparent or 
+	 * {@code use} is <code>false</code>.
+	 */
+	private LookupPixel colorLookup(ArtboardPalette palette , ChannelBuffer color , boolean use) {
+		
+		byte alpha = channelsPerPixel == 2 ? color.g() : color.a();
+		return alpha == 0 || !use ? null : palette.putOrGetColors(color);
+		
+	}
+	
+	/**
+	 * Writes {@code color} into {@code length} consecutive pixels starting at {@code address}. The first pixel is written channel by 
+	 * channel, and the rest are filled by repeatedly doubling the written region.
+	 */
+	private void fillSpan(long address , int length , ColorPixel color) {
+		
+		for(int i = 0 ; i < channelsPerPixel ; i++) memPutByte(address + i , color.i(i));
+		
+		long total = (long)length * channelsPerPixel;
+		for(long written = channelsPerPixel ; written < total ; written <<= 1) {
+			
+			memCopy(address , address + written , Math.min(written , total - written));
+			
+		}
+		
+	}
+	
 	/**
 	 * Rasterizes this shape, storing the result in the given artboard.
 	 * 
@@ -628,4 +742,21 @@ public abstract class Shape extends Rasterizable {
 		
 	}
 	
-}
+	/**
+	 * Receiver of horizontal spans of a shape.
+	 */
+	@FunctionalInterface protected interface SpanConsumer {
+		
+		/**
+		 * Accepts a horizontal span of a shape.
+		 * 
+		 * @param row row of the span, from the bottom of the shape's image
+		 * @param leftX leftmost column of the span, from the left of the shape's image
+		 * @param length number of pixels in the span
+		 * @param border whether the span is part of the border of the shape, otherwise it is part of the fill
+		 */
+		void accept(int row , int leftX , int length , boolean border);
+		
+	}
+	
+}
\ No newline at end of file
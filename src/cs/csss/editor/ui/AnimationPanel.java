@@ -100,7 +100,7 @@ public class AnimationPanel implements SCShutDown {
 		//hack to set current project every frame 
 		ui.attachedLayout((context) -> project = editor.project());
 		
-		Engine.THE_TEMPORAL.onTrue(() -> animation() != null , () -> {
+		Engine.THE_MAIN_THREAD.whenComplete(editor.whenAnimationSelected() , () -> {
 
 			String timeSliderText = "Average Frame Speed (Millis)";
 			String updateSliderText = "Average Frame Speed (Frames)";
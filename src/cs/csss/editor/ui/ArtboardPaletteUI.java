@@ -108,6 +108,7 @@ public class ArtboardPaletteUI implements SCShutDown {
 		});
 
 		buttonsRow.new SCCheckBox("Modifying Palette Directly" , editor::modifyingPaletteDirectly , editor::toggleDirectPaletteModification);
+		buttonsRow.new SCButton("Compact" , editor::compactCurrentPalette);
 		
 		SCDynamicRow slidersRow = ui.new SCDynamicRow();
 		slidersRow.new SCFloatProperty("Horizontal" , 1.0f , 1.0f , -333f , 333f , sliderValue -> xTransform = sliderValue , () -> xTransform);
@@ -295,7 +296,7 @@ public class ArtboardPaletteUI implements SCShutDown {
 
 		if(isFreed()) return;
 		
-		Engine.THE_TEMPORAL.onTrue(() -> true, ui::shutDown);
+		Engine.THE_MAIN_THREAD.execute(ui::shutDown);
 		
 		if(nuklear.hasUserInterface(ui)) nuklear.removeUserInterface(ui);
 		ui = null;
@@ -13,15 +13,20 @@ import org.lwjgl.system.MemoryStack;
 
 import static sc.core.ui.SCUIConstants.*;
 
+import cs.csss.editor.Benchmark;
 import cs.csss.editor.DebugDisabledException;
 import cs.csss.editor.Editor;
 import cs.csss.editor.event.RasterizeAllShapesEvent;
 import cs.csss.editor.palette.ColorPalette;
 import cs.csss.engine.CSSSException;
 import cs.csss.engine.Engine;
+import cs.csss.engine.MemoryAccounting;
+import cs.csss.engine.Profiler;
 import cs.csss.misc.graphics.memory.GPUMemoryViewer;
 import cs.csss.project.ArtboardPalette;
 import cs.csss.project.CSSSProject;
+import cs.csss.project.IndexTexture;
+import cs.csss.project.LayerTileUsage;
 import cs.csss.ui.utils.UIUtils;
 import sc.core.ui.SCElements.SCUI.SCDynamicRow;
 import sc.core.ui.SCElements.SCUI.SCLayout.SCCheckBox;
@@ -140,6 +145,36 @@ public class FilePanel {
 		SCTextEditor sizeInput = undoRedoSizeConfig.new SCTextEditor(4 , SCNuklear.DECIMAL_FILTER);
 		undoRedoSizeConfig.new SCButton("Set" , () -> editor.setUndoAndRedoCapacity(Integer.parseInt(sizeInput.toString())));
 		
+		SCRow memoryBudgetConfig = optionsMenu.new SCRow(30);
+		memoryBudgetConfig.pushWidth(190).pushWidth(100).pushWidth(40);
+		
+		memoryBudgetConfig.new SCText(() -> "Memory Budget MB (" + (MemoryAccounting.budgetBytes() >> 20) + ")");
+		SCTextEditor budgetInput = memoryBudgetConfig.new SCTextEditor(6 , SCNuklear.DECIMAL_FILTER);
+		memoryBudgetConfig.new SCButton("Set" , () -> MemoryAccounting.setBudgetMegabytes(Integer.parseInt(budgetInput.toString())));
+		
+		SCRow evictionConfig = optionsMenu.new SCRow(30);
+		evictionConfig.pushWidth(190).pushWidth(100).pushWidth(40);
+		
+		evictionConfig.new SCText(() -> "Unload Artboards After s (" + IndexTexture.residency().evictAfterMillis() / 1000 + ")");
+		SCTextEditor evictionInput = evictionConfig.new SCTextEditor(6 , SCNuklear.DECIMAL_FILTER);
+		evictionConfig.new SCButton("Set" , () -> IndexTexture.residency().evictAfterMillis(Long.parseLong(evictionInput.toString()) * 1000));
+		
+		SCRow residencyBudgetConfig = optionsMenu.new SCRow(30);
+		residencyBudgetConfig.pushWidth(190).pushWidth(100).pushWidth(40);
+		
+		residencyBudgetConfig.new SCText(() -> "Artboard VRAM MB (" + (IndexTexture.residency().budgetBytes() >> 20) + ")");
+		SCTextEditor residencyBudgetInput = residencyBudgetConfig.new SCTextEditor(6 , SCNuklear.DECIMAL_FILTER);
+		residencyBudgetConfig.new SCButton(
+			"Set" , 
+			() -> IndexTexture.residency().budgetBytes(Long.parseLong(residencyBudgetInput.toString()) << 20)
+		);
+		
+		optionsMenu.new SCDynamicRow().new SCCheckBox(
+			"Compress Unloaded Artboards" , 
+			() -> IndexTexture.compressEvicted , 
+			() -> IndexTexture.compressEvicted = !IndexTexture.compressEvicted
+		);
+		
 		optionsMenu.new SCDynamicRow().new SCIntProperty(
 			"Camera Move Rate" , 
 			1 , 
@@ -174,19 +209,7 @@ public class FilePanel {
 			
 			SCMenu debugMenu = menuBar.new SCMenu(nuklear , "Debug" , 349 , 400);
 			
-			debugMenu.new SCDynamicRow().new SCButton("Toggle Realtime Mode" , () -> {
-				
-				try {
-					
-					editor.toggleRealtime();
-					
-				} catch (DebugDisabledException e) {
-					
-					e.printStackTrace();
-					
-				}
-				
-			});
+			debugButton(debugMenu , "Toggle Realtime Mode" , editor::toggleRealtime);
 			
 			SCDynamicRow paletteRow1 = debugMenu.new SCDynamicRow(20);
 			SCDynamicRow paletteRow2 = debugMenu.new SCDynamicRow(20);
@@ -222,6 +245,20 @@ public class FilePanel {
 			SCDynamicRow memoryRow2 = debugMenu.new SCDynamicRow(20);
 			memoryRow2.new SCText(() -> getGPUResourceString(editor));
 			
+			SCDynamicRow memoryRow3 = debugMenu.new SCDynamicRow(20);
+			memoryRow3.new SCText(() -> {
+				
+				if(editor.project() == null) return "Layer Tiles: no project";
+				LayerTileUsage tiles = editor.project().layerTileUsage();
+				return String.format(
+					"Layer Tiles: %d, Shared: %d, Pixels Saved: %d" , 
+					tiles.tilesAllocated() , 
+					tiles.tilesReferenced() - tiles.tilesAllocated() , 
+					tiles.pixelsSaved()
+				);
+				
+			});
+			
 			debugMenu.new SCDynamicRow().new SCButton("Toggle Transparent Background" , () -> {
 				
 				showingCheckeredBackground = !showingCheckeredBackground;
@@ -259,10 +296,47 @@ public class FilePanel {
 		
 			debugMenu.new SCDynamicRow().new SCButton("Hide lines" , () -> editor.rendererPost(() -> editor.project().currentArtboard().undoAllLines()));
 			
+			for(Benchmark x : Benchmark.values()) debugButton(debugMenu , "Benchmark " + x.displayName , () -> editor.benchmark(x));
+			
+			ProfilerPanel profilerPanel = new ProfilerPanel(nuklear);
+			debugMenu.new SCDynamicRow().new SCCheckBox("Profiler" , Profiler::enabled , () -> {
+				
+				Profiler.toggle();
+				if(Profiler.enabled() != profilerPanel.showing()) profilerPanel.toggleVisible();
+				
+			});
+			
+			debugMenu.new SCDynamicRow().new SCCheckBox("Memory" , editor::memoryPanelShowing , editor::toggleMemoryPanel);
+			
 		}
 		
 	}
 	
+	/**
+	 * Adds a row to {@code debugMenu} containing a button which invokes {@code action}.
+	 * 
+	 * @param debugMenu the debug menu
+	 * @param text text of the button
+	 * @param action code to invoke when the button is pressed
+	 */
+	private void debugButton(SCMenu debugMenu , String text , DebugAction action) {
+		
+		debugMenu.new SCDynamicRow().new SCButton(text , () -> {
+			
+			try {
+				
+				action.run();
+				
+			} catch (DebugDisabledException e) {
+				
+				e.printStackTrace();
+				
+			}
+			
+		});
+		
+	}
+	
 	private String getGPUResourceString(Editor editor) {
 		
 		try {
@@ -282,4 +356,13 @@ public class FilePanel {
 		
 	}
 	
+	/**
+	 * Code run by a button of the debug menu.
+	 */
+	@FunctionalInterface private interface DebugAction {
+		
+		void run() throws DebugDisabledException;
+		
+	}
+	
 }
\ No newline at end of file
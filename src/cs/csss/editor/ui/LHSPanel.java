@@ -25,6 +25,7 @@ import cs.csss.editor.Editor;
 import cs.csss.editor.brush.CSSSBrush;
 import cs.csss.editor.brush.CSSSModifyingBrush;
 import cs.csss.editor.brush.CSSSObjectBrush;
+import cs.csss.editor.brush.RotateBrush;
 import cs.csss.editor.palette.ColorPalette;
 import cs.csss.engine.ChannelBuffer;
 import cs.csss.engine.ColorPixel;
@@ -33,6 +34,7 @@ import cs.csss.engine.Logging;
 import cs.csss.project.Artboard;
 import cs.csss.project.CSSSProject;
 import cs.csss.ui.menus.DialogueInputBox;
+import cs.csss.utils.PixelTransforms.RotationMode;
 import sc.core.ui.SCElements.SCUserInterface;
 import sc.core.ui.SCElements.SCUI.SCDynamicRow;
 import sc.core.ui.SCElements.SCUI.SCLayout;
@@ -78,7 +80,7 @@ public class LHSPanel {
 		
 		addProjectRow.doLayout = () -> editor.project() == null;
 		
-		Engine.THE_TEMPORAL.onTrue(() -> editor.project() != null , () -> {
+		Engine.THE_MAIN_THREAD.whenComplete(editor.whenProjectOpened() , () -> {
 
 			SCDynamicRow rgbaColorRow = ui.new SCDynamicRow(200);
 			SCDynamicRow rgbColorRow = ui.new SCDynamicRow(200);
@@ -278,6 +280,15 @@ public class LHSPanel {
 					
 					SCRadio.groupAll(brushOptionsList.toArray(SCRadio[]::new));
 					
+				} else if(finalIter instanceof RotateBrush asRotateBrush) {
+					
+					SCDynamicRow rotSpriteRow = ui.new SCDynamicRow(25) ; rotSpriteRow.doLayout = () -> editor.currentBrush() == finalIter;
+					rotSpriteRow.new SCCheckBox(
+						"RotSprite" , 
+						() -> asRotateBrush.rotationMode() == RotationMode.ROTSPRITE , 
+						asRotateBrush::toggleRotSprite
+					);
+					
 				}
 				
 			}
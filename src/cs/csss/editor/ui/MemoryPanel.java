@@ -0,0 +1,198 @@
+package cs.csss.editor.ui;
+
+import static org.lwjgl.nuklear.Nuklear.nk_button_label;
+import static org.lwjgl.nuklear.Nuklear.nk_layout_row_begin;
+import static org.lwjgl.nuklear.Nuklear.nk_layout_row_dynamic;
+import static org.lwjgl.nuklear.Nuklear.nk_layout_row_end;
+import static org.lwjgl.nuklear.Nuklear.nk_layout_row_push;
+import static org.lwjgl.nuklear.Nuklear.nk_text;
+import static org.lwjgl.nuklear.Nuklear.NK_DYNAMIC;
+import static sc.core.ui.SCUIConstants.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.lwjgl.nuklear.NkContext;
+
+import cs.csss.editor.Editor;
+import cs.csss.engine.Engine;
+import cs.csss.engine.MemoryAccounting;
+import cs.csss.engine.MemoryReport;
+import cs.csss.project.MemoryUsage;
+import sc.core.SCShutDown;
+import sc.core.ui.SCElements.SCUserInterface;
+import sc.core.ui.SCNuklear;
+
+/**
+ * Panel displaying the most recent {@link MemoryReport} against the memory budget, with the largest artboards, layers, palettes, and undo 
+ * events, and the off-heap memory of each allocation tag. It is hidden initially, and shown when memory usage nears the budget.
+ */
+public class MemoryPanel implements SCShutDown {
+	
+	private static final int LARGEST_SHOWN = 8;
+	
+	private static final float[] columnWidths = {.4f , .2f , .2f , .2f};
+	
+	private final SCNuklear nuklear;
+	private SCUserInterface ui;
+	private boolean hiding = true;
+	private boolean warned = false;
+	
+	/**
+	 * Creates a new memory panel. It is hidden initially.
+	 *
+	 * @param editor the editor
+	 * @param nuklear the nuklear factory
+	 */
+	public MemoryPanel(Editor editor , SCNuklear nuklear) {
+		
+		ui = new SCUserInterface(this.nuklear = nuklear , "Memory" , 0.5f , 0.1f , 0.35f , 0.6f);
+		nuklear.removeUserInterface(ui);
+		ui.flags = UI_TITLED|UI_BORDERED|UI_MOVABLE|UI_SCALABLE;
+		
+		ui.attachedLayout(context -> {
+			
+			MemoryReport report = MemoryAccounting.latest();
+			long used = report.heapBytes() + report.offHeapBytes();
+			
+			nk_layout_row_dynamic(context , 20 , 1);
+			nk_text(context , String.format(
+				"%s%s of %s budget (%.0f%%)" , 
+				MemoryAccounting.warning() ? "Near budget: " : "" ,
+				megabytes(used) , 
+				megabytes(MemoryAccounting.budgetBytes()) ,
+				100d * used / MemoryAccounting.budgetBytes()
+			) , TEXT_LEFT|TEXT_CENTERED);
+			
+			nk_layout_row_dynamic(context , 25 , 2);
+			if(nk_button_label(context , "Refresh")) MemoryAccounting.refresh(editor::memoryReport);
+			if(nk_button_label(context , "Hide")) setVisible(false);
+			
+			row(context , "Total" , "Heap" , "Off-Heap" , "VRAM");
+			row(
+				context , 
+				megabytes(report.totalBytes()) , 
+				megabytes(report.heapBytes()) , 
+				megabytes(report.offHeapBytes()) , 
+				megabytes(report.vramBytes())
+			);
+			
+			largest(context , "Artboards" , report.artboards());
+			largest(context , "Layers" , report.layers());
+			largest(context , "Palettes" , report.palettes());
+			largest(context , "Undo/Redo (" + megabytes(report.undoBytes()) + ")" , report.undoEvents());
+			
+			row(context , "Off-Heap Tag" , "Bytes" , "" , "");
+			report.offHeapByTag().forEach((tag , bytes) -> row(context , tag , megabytes(bytes) , "" , ""));
+			
+		});
+		
+	}
+	
+	private void largest(NkContext context , String title , List<MemoryUsage> usages) {
+		
+		row(context , title , "Heap" , "Off-Heap" , "VRAM");
+		
+		List<MemoryUsage> sorted = new ArrayList<>(usages);
+		sorted.sort(Comparator.comparingLong(MemoryUsage::totalBytes).reversed());
+		for(int i = 0 ; i < sorted.size() && i < LARGEST_SHOWN ; i++) {
+			
+			MemoryUsage usage = sorted.get(i);
+			row(
+				context , 
+				usage.name() , 
+				megabytes(usage.heapBytes()) , 
+				megabytes(usage.offHeapBytes()) , 
+				megabytes(usage.vramBytes())
+			);
+			
+		}
+		
+		if(sorted.size() > LARGEST_SHOWN) row(context , (sorted.size() - LARGEST_SHOWN) + " more" , "" , "" , "");
+		
+	}
+	
+	private void row(NkContext context , String... columns) {
+		
+		nk_layout_row_begin(context , NK_DYNAMIC , 20 , columns.length);
+		for(int i = 0 ; i < columns.length ; i++) {
+			
+			nk_layout_row_push(context , columnWidths[i]);
+			nk_text(context , columns[i] , TEXT_LEFT|TEXT_CENTERED);
+			
+		}
+		
+		nk_layout_row_end(context);
+		
+	}
+	
+	private String megabytes(long bytes) {
+		
+		return String.format("%.2f MB" , bytes / (1024d * 1024d));
+		
+	}
+	
+	/**
+	 * Shows this panel when memory usage newly nears the budget. Called once per frame.
+	 */
+	public void update() {
+		
+		boolean warning = MemoryAccounting.warning();
+		if(warning && !warned) setVisible(true);
+		warned = warning;
+		
+	}
+	
+	/**
+	 * Toggles the visibility of this panel.
+	 */
+	public void toggleVisible() {
+		
+		setVisible(hiding);
+		
+	}
+	
+	/**
+	 * Shows or hides this panel. Private because the layout attached by the constructor calls it, so subclasses cannot override it.
+	 */
+	private void setVisible(boolean visible) {
+		
+		if(visible != hiding) return;
+		
+		hiding = !visible;
+		if(hiding) nuklear.removeUserInterface(ui);
+		else nuklear.addUserInterface(ui);
+		
+	}
+	
+	/**
+	 * Returns whether this panel is currently visible.
+	 *
+	 * @return Whether this panel is currently visible.
+	 */
+	public boolean showing() {
+		
+		return !hiding;
+		
+	}
+	
+	@Override public void shutDown() {
+		
+		if(isFreed()) return;
+		
+		SCUserInterface shutDownThis = ui;
+		Engine.THE_MAIN_THREAD.execute(shutDownThis::shutDown);
+		
+		if(nuklear.hasUserInterface(ui)) nuklear.removeUserInterface(ui);
+		ui = null;
+		
+	}
+	
+	@Override public boolean isFreed() {
+		
+		return ui == null;
+		
+	}
+	
+}
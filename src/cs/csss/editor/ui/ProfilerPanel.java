@@ -0,0 +1,146 @@
+package cs.csss.editor.ui;
+
+import static org.lwjgl.nuklear.Nuklear.nk_layout_row_begin;
+import static org.lwjgl.nuklear.Nuklear.nk_layout_row_end;
+import static org.lwjgl.nuklear.Nuklear.nk_layout_row_push;
+import static org.lwjgl.nuklear.Nuklear.nk_text;
+import static org.lwjgl.nuklear.Nuklear.NK_DYNAMIC;
+import static sc.core.ui.SCUIConstants.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+import org.lwjgl.nuklear.NkContext;
+
+import cs.csss.engine.Engine;
+import cs.csss.engine.Lane;
+import cs.csss.engine.Profiler;
+import sc.core.SCShutDown;
+import sc.core.ui.SCElements.SCUserInterface;
+import sc.core.ui.SCNuklear;
+
+/**
+ * Debug overlay displaying the CPU usage of the process, the queued, active, and completed tasks of each {@link Lane}, and the p50, p99, 
+ * and max durations of everything the {@link Profiler} recorded in its most recent window. The count of {@code phase/idle} is the number of
+ * main loop iterations which did not render, and {@code frame/interval} and {@code frame/lateness} measure the pacing of realtime mode.
+ */
+public class ProfilerPanel implements SCShutDown {
+	
+	private static final float[] columnWidths = {.4f , .15f , .15f , .15f , .15f};
+	
+	private static final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+	
+	private final SCNuklear nuklear;
+	private SCUserInterface ui;
+	private boolean hiding = true;
+	
+	/**
+	 * Creates a new profiler panel. It is hidden initially.
+	 *
+	 * @param nuklear the nuklear factory
+	 */
+	public ProfilerPanel(SCNuklear nuklear) {
+		
+		ui = new SCUserInterface(this.nuklear = nuklear , "Profiler" , 0.5f , 0.1f , 0.35f , 0.5f);
+		nuklear.removeUserInterface(ui);
+		ui.flags = UI_TITLED|UI_BORDERED|UI_MOVABLE|UI_SCALABLE;
+		
+		ui.attachedLayout(context -> {
+			
+			row(context , 20 , "Process CPU" , processCPU() , "" , "" , "");
+			
+			row(context , 20 , "Lane" , "Queued" , "Active" , "Completed" , "");
+			for(Lane lane : Lane.values()) row(
+				context ,
+				20 ,
+				lane.laneName ,
+				String.valueOf(lane.queueDepth()) ,
+				String.valueOf(lane.activeCount()) ,
+				String.valueOf(lane.completedCount()) ,
+				""
+			);
+			
+			row(context , 20 , "Name" , "Count" , "p50 (ms)" , "p99 (ms)" , "Max (ms)");
+			Profiler.forEachInWindow((name , histogram) -> row(
+				context ,
+				20 ,
+				name ,
+				String.valueOf(histogram.count()) ,
+				toMillis(histogram.percentile(50)) ,
+				toMillis(histogram.percentile(99)) ,
+				toMillis(histogram.max())
+			));
+			
+		});
+		
+	}
+	
+	private void row(NkContext context , int height , String... columns) {
+		
+		nk_layout_row_begin(context , NK_DYNAMIC , height , columns.length);
+		for(int i = 0 ; i < columns.length ; i++) {
+			
+			nk_layout_row_push(context , columnWidths[i]);
+			nk_text(context , columns[i] , TEXT_LEFT|TEXT_CENTERED);
+			
+		}
+		
+		nk_layout_row_end(context);
+		
+	}
+	
+	private String processCPU() {
+		
+		if(!(operatingSystem instanceof com.sun.management.OperatingSystemMXBean measurable)) return "N/A";
+		double load = measurable.getProcessCpuLoad();
+		return load < 0 ? "N/A" : String.format("%.1f%%" , load * 100);
+		
+	}
+	
+	private String toMillis(long nanos) {
+		
+		return String.format("%.3f" , nanos / 1_000_000d);
+		
+	}
+	
+	/**
+	 * Toggles the visibility of this panel.
+	 */
+	public void toggleVisible() {
+		
+		hiding = !hiding;
+		if(hiding) nuklear.removeUserInterface(ui);
+		else nuklear.addUserInterface(ui);
+		
+	}
+	
+	/**
+	 * Returns whether this panel is currently visible.
+	 *
+	 * @return Whether this panel is currently visible.
+	 */
+	public boolean showing() {
+		
+		return !hiding;
+		
+	}
+	
+	@Override public void shutDown() {
+		
+		if(isFreed()) return;
+		
+		SCUserInterface shutDownThis = ui;
+		Engine.THE_MAIN_THREAD.execute(shutDownThis::shutDown);
+		
+		if(nuklear.hasUserInterface(ui)) nuklear.removeUserInterface(ui);
+		ui = null;
+		
+	}
+	
+	@Override public boolean isFreed() {
+		
+		return ui == null;
+		
+	}
+	
+}
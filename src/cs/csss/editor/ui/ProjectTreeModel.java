@@ -0,0 +1,208 @@
+package cs.csss.editor.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+import cs.csss.project.CSSSProject;
+
+/**
+ * Flattened rows of the lists of the project tree of the {@link RHSPanel}, which are the animations, visual and nonvisual layer
+ * prototypes, and artboards of a project. The rows are cached between frames and rebuilt only when the project changes or its
+ * {@link CSSSProject#structureVersion() structure version} does, so building the panel does not walk the project every frame.
+ *
+ * <p>
+ * 	Rows of a list have a fixed height, so the rows of a list inside the visible part of a panel are found in constant time by
+ * 	{@link #visibleRange(float, float, int, float, float)}, which needs no window.
+ * </p>
+ * <p>
+ * 	The types of the rows are parameters so the model can be built from something other than a project, which needs a graphics context.
+ * </p>
+ *
+ * @param <A> type of animation rows
+ * @param <V> type of visual layer prototype rows
+ * @param <N> type of nonvisual layer prototype rows
+ * @param <B> type of artboard rows
+ */
+final class ProjectTreeModel<A , V , N , B> {
+	
+	private Object source;
+	private int structureVersion;
+	
+	private final List<A> animations = new ArrayList<>();
+	private final List<V> visualLayers = new ArrayList<>();
+	private final List<N> nonVisualLayers = new ArrayList<>();
+	private final List<B> artboards = new ArrayList<>();
+	
+	/**
+	 * Index of every row within its list.
+	 */
+	private final IdentityHashMap<Object , Integer> indices = new IdentityHashMap<>();
+	
+	/**
+	 * Rebuilds the rows from {@code source} if it is not the source they were built from, or if its structure changed since. A project is
+	 * refreshed from with {@code refresh(project , project.structureVersion() , project::forEachAnimation , 
+	 * project::forEachVisualLayerPrototype , project::forEachNonVisualLayerPrototype , project::forEachArtboard)}.
+	 *
+	 * @param source the current project
+	 * @param version the {@link CSSSProject#structureVersion() structure version} of {@code source}
+	 * @param forEachAnimation invokes its argument on each animation of {@code source}
+	 * @param forEachVisualLayer invokes its argument on each visual layer prototype of {@code source}
+	 * @param forEachNonVisualLayer invokes its argument on each nonvisual layer prototype of {@code source}
+	 * @param forEachArtboard invokes its argument on each artboard of {@code source}
+	 * @return Whether the rows were rebuilt.
+	 */
+	boolean refresh(
+		Object source , 
+		int version , 
+		Consumer<Consumer<A>> forEachAnimation , 
+		Consumer<Consumer<V>> forEachVisualLayer , 
+		Consumer<Consumer<N>> forEachNonVisualLayer , 
+		Consumer<Consumer<B>> forEachArtboard
+	) {
+		
+		if(source == this.source && version == structureVersion) return false;
+		
+		this.source = source;
+		structureVersion = version;
+		
+		animations.clear();
+		visualLayers.clear();
+		nonVisualLayers.clear();
+		artboards.clear();
+		indices.clear();
+		
+		forEachAnimation.accept(animations::add);
+		forEachVisualLayer.accept(visualLayers::add);
+		forEachNonVisualLayer.accept(nonVisualLayers::add);
+		forEachArtboard.accept(artboards::add);
+		
+		index(animations);
+		index(visualLayers);
+		index(nonVisualLayers);
+		index(artboards);
+		return true;
+		
+	}
+	
+	private void index(List<?> rows) {
+		
+		for(int i = 0 ; i < rows.size() ; i++) indices.put(rows.get(i) , i);
+		
+	}
+	
+	/**
+	 * Returns the index of {@code row} within its list.
+	 *
+	 * @param row an animation, layer prototype, or artboard, or <code>null</code>
+	 * @return Index of {@code row} within its list, or -1 if it is not a row of this model.
+	 */
+	int indexOf(Object row) {
+		
+		if(row == null) return -1;
+		Integer index = indices.get(row);
+		return index == null ? -1 : index;
+		
+	}
+	
+	/**
+	 * Returns the animations of the project.
+	 *
+	 * @return Unmodifiable list of animations.
+	 */
+	List<A> animations() {
+		
+		return Collections.unmodifiableList(animations);
+		
+	}
+	
+	/**
+	 * Returns the visual layer prototypes of the project.
+	 *
+	 * @return Unmodifiable list of visual layer prototypes.
+	 */
+	List<V> visualLayers() {
+		
+		return Collections.unmodifiableList(visualLayers);
+		
+	}
+	
+	/**
+	 * Returns the nonvisual layer prototypes of the project.
+	 *
+	 * @return Unmodifiable list of nonvisual layer prototypes.
+	 */
+	List<N> nonVisualLayers() {
+		
+		return Collections.unmodifiableList(nonVisualLayers);
+		
+	}
+	
+	/**
+	 * Returns the artboards of the project, including shallow copies.
+	 *
+	 * @return Unmodifiable list of artboards.
+	 */
+	List<B> artboards() {
+		
+		return Collections.unmodifiableList(artboards);
+		
+	}
+	
+	/**
+	 * Forgets the rows, so the next {@link #refresh refresh} rebuilds them.
+	 */
+	void invalidate() {
+		
+		source = null;
+		
+	}
+	
+	/**
+	 * Returns the rows of a list which intersect the visible part of a panel. Coordinates grow downward.
+	 *
+	 * @param top y coordinate of the top of the first row of the list
+	 * @param rowHeight height of each row, including the spacing after it
+	 * @param numberRows number of rows of the list
+	 * @param visibleTop y coordinate of the top of the visible part of the panel
+	 * @param visibleBottom y coordinate of the bottom of the visible part of the panel
+	 * @return Range of the visible rows, which is empty if none are visible.
+	 * @throws IllegalArgumentException if {@code rowHeight} is not positive or {@code numberRows} is negative.
+	 */
+	static RowRange visibleRange(float top , float rowHeight , int numberRows , float visibleTop , float visibleBottom) {
+		
+		if(rowHeight <= 0) throw new IllegalArgumentException("Row height is not positive: " + rowHeight);
+		if(numberRows < 0) throw new IllegalArgumentException("Number of rows is negative: " + numberRows);
+		
+		int first = (int)Math.floor((visibleTop - top) / rowHeight);
+		int end = (int)Math.ceil((visibleBottom - top) / rowHeight);
+		first = Math.max(0 , Math.min(numberRows , first));
+		end = Math.max(first , Math.min(numberRows , end));
+		return new RowRange(first , end);
+		
+	}
+	
+	/**
+	 * Range of rows of a list.
+	 *
+	 * @param first index of the first row in the range
+	 * @param end index one past the last row in the range
+	 */
+	record RowRange(int first , int end) {
+		
+		/**
+		 * Returns the number of rows in this range.
+		 *
+		 * @return Number of rows in this range.
+		 */
+		int size() {
+			
+			return end - first;
+			
+		}
+		
+	}
+	
+}
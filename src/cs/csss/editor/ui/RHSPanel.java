@@ -24,12 +24,15 @@ import static org.lwjgl.nuklear.Nuklear.nk_color_pick;
 import static org.lwjgl.nuklear.Nuklear.nk_text_colored;
 import static org.lwjgl.nuklear.Nuklear.nk_property_int;
 import static org.lwjgl.nuklear.Nuklear.nk_propertyf;
+import static org.lwjgl.nuklear.Nuklear.nk_window_get_panel;
 
 import static org.lwjgl.system.MemoryUtil.memUTF8;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import org.joml.Matrix4f;
 import org.joml.Vector2f;
@@ -37,6 +40,8 @@ import org.joml.Vector3f;
 import org.lwjgl.nuklear.NkColor;
 import org.lwjgl.nuklear.NkColorf;
 import org.lwjgl.nuklear.NkContext;
+import org.lwjgl.nuklear.NkPanel;
+import org.lwjgl.nuklear.NkRect;
 import org.lwjgl.system.MemoryStack;
 
 import cs.csss.editor.Editor;
@@ -57,9 +62,12 @@ import cs.csss.engine.ChannelBuffer;
 import cs.csss.engine.ColorPixel;
 import cs.csss.engine.Engine;
 import cs.csss.engine.NamedNanoVGTypeface;
+import cs.csss.project.Animation;
 import cs.csss.project.Artboard;
 import cs.csss.project.CSSSProject;
 import cs.csss.project.Layer;
+import cs.csss.project.NonVisualLayerPrototype;
+import cs.csss.project.VisualLayerPrototype;
 import cs.csss.ui.menus.ChooseColorDialogue;
 import cs.csss.ui.menus.ConfirmationBox;
 import cs.csss.ui.menus.NotificationBox;
@@ -69,6 +77,12 @@ import sc.core.ui.SCNuklear;
 
 /**
  * Class for the right hand side panel. This class contains a drop down tree of project components.
+ * 
+ * <p>
+ * 	The lists of animations, layer prototypes, and artboards are read from a {@link ProjectTreeModel}, and only their rows inside the 
+ * 	visible part of the panel are emitted. The rows above and below are replaced by spacers of the same height, so the cost of building the
+ * 	panel does not grow with the size of the project. 
+ * </p>
  */
 @SuppressWarnings("unused") public class RHSPanel {
 	
@@ -84,7 +98,11 @@ import sc.core.ui.SCNuklear;
 		TIER_SIX_PADDING = 180 ,
 		TIER_SEVEN_PADDING = 210 ,
 		TIER_EIGHT_PADDING = 240 ,
-		OPTION_TEXT = TEXT_RIGHT|TEXT_MIDDLE;
+		OPTION_TEXT = TEXT_RIGHT|TEXT_MIDDLE ,
+		/**
+		 * Height of the rows of the lists of the project tree.
+		 */
+		LIST_ROW_HEIGHT = 30;
 	
 	/**
 	 * Denotes whether the user has expanded the specific part of the project heirarchy.
@@ -111,6 +129,7 @@ import sc.core.ui.SCNuklear;
 	
 	private CSSSProject project;
 	private final SCUserInterface ui;
+	private final ProjectTreeModel<Animation , VisualLayerPrototype , NonVisualLayerPrototype , Artboard> model = new ProjectTreeModel<>();
 
 	private boolean changedColor = false;
 	
@@ -133,6 +152,7 @@ import sc.core.ui.SCNuklear;
 			
 			if((project = editor.project()) == null) {
 				
+				model.invalidate();
 				nk_layout_row_dynamic(context , 20 , 1);
 				nk_text_wrap_colored(context , "No project is active." , NkColor.malloc(stack).set(
 					(byte)0xee , 
@@ -164,6 +184,15 @@ import sc.core.ui.SCNuklear;
 			
 			if(!expandProject) return;
 			
+			model.refresh(
+				project , 
+				project.structureVersion() , 
+				project::forEachAnimation , 
+				project::forEachVisualLayerPrototype , 
+				project::forEachNonVisualLayerPrototype , 
+				project::forEachArtboard
+			);
+			
 			/*
 			 * Animation Section
 			 */
@@ -190,9 +219,9 @@ import sc.core.ui.SCNuklear;
 					
 				}
 				
-				project.forEachAnimation(animation -> {
+				visibleList(context , model.animations() , model.indexOf(project.currentAnimation()) , 1 , animation -> {
 					
-					nk_layout_row_begin(context , NK_STATIC , 30 , 2);
+					nk_layout_row_begin(context , NK_STATIC , LIST_ROW_HEIGHT , 2);
 
 					pad(context , TIER_TWO_PADDING);
 					
@@ -211,7 +240,7 @@ import sc.core.ui.SCNuklear;
 						pad(context , TIER_THREE_PADDING);
 						
 						nk_layout_row_push(context , ui.positioner.width() - TIER_THREE_PADDING - 40);
-						if(nk_button_text(context , "Delete")) Engine.THE_TEMPORAL.onTrue(() -> true, editor.project()::deleteAnimation);
+						if(nk_button_text(context , "Delete")) Engine.THE_MAIN_THREAD.execute(editor.project()::deleteAnimation);
 											
 					}
 					
@@ -234,9 +263,9 @@ import sc.core.ui.SCNuklear;
 				
 			}
 			
-			if(expandVisual) project.forEachVisualLayerPrototype(layer -> {
+			if(expandVisual) visibleList(context , model.visualLayers() , -1 , 1 , layer -> {
 					
-				nk_layout_row_begin(context , NK_STATIC , 30 , 3);
+				nk_layout_row_begin(context , NK_STATIC , LIST_ROW_HEIGHT , 3);
 
 				pad(context , TIER_TWO_PADDING);
 					
@@ -292,9 +321,9 @@ import sc.core.ui.SCNuklear;
 					
 				}
 				
-				project.forEachNonVisualLayerPrototype(layer -> {
+				visibleList(context , model.nonVisualLayers() , -1 , 2 , layer -> {
 					
-					nk_layout_row_begin(context , NK_STATIC , 30 , 2);
+					nk_layout_row_begin(context , NK_STATIC , LIST_ROW_HEIGHT , 2);
 
 					pad(context , TIER_TWO_PADDING);
 					
@@ -303,7 +332,7 @@ import sc.core.ui.SCNuklear;
 					
 					nk_layout_row_end(context);
 					
-					button(context , TIER_THREE_PADDING , 30 , "Delete" , () -> {
+					button(context , TIER_THREE_PADDING , LIST_ROW_HEIGHT , "Delete" , () -> {
 						 new ConfirmationBox(
 							nuklear , 
 							"Sure?" ,
@@ -345,9 +374,9 @@ import sc.core.ui.SCNuklear;
 					
 				}
 				
-				project.forEachArtboard(artboard -> {
+				visibleList(context , model.artboards() , model.indexOf(editor.currentArtboard()) , 1 , artboard -> {
 					
-					nk_layout_row_begin(context , NK_STATIC , 30 , 2);
+					nk_layout_row_begin(context , NK_STATIC , LIST_ROW_HEIGHT , 2);
 
 					pad(context , TIER_TWO_PADDING);
 						
@@ -983,6 +1012,61 @@ import sc.core.ui.SCNuklear;
 		
 	}
 	
+	/**
+	 * Emits the rows of {@code items} which are inside the visible part of the panel, and spacers in place of the others. Every item takes 
+	 * {@code rowsPerItem} rows of {@link #LIST_ROW_HEIGHT} except the item at {@code expandedIndex}, which is always emitted because its 
+	 * height varies. 
+	 */
+	private <T> void visibleList(NkContext context , List<T> items , int expandedIndex , int rowsPerItem , Consumer<T> emit) {
+		
+		if(expandedIndex < 0) {
+			
+			visibleRows(context , items , 0 , items.size() , rowsPerItem , emit);
+			return;
+			
+		}
+		
+		visibleRows(context , items , 0 , expandedIndex , rowsPerItem , emit);
+		emit.accept(items.get(expandedIndex));
+		visibleRows(context , items , expandedIndex + 1 , items.size() , rowsPerItem , emit);
+		
+	}
+	
+	private <T> void visibleRows(NkContext context , List<T> items , int from , int to , int rowsPerItem , Consumer<T> emit) {
+		
+		if(from >= to) return;
+		
+		//rows begin where the previous row ends, and each row is followed by the window's spacing
+		NkPanel panel = nk_window_get_panel(context);
+		float spacing = context.style().window().spacing().y();
+		float itemHeight = rowsPerItem * (LIST_ROW_HEIGHT + spacing);
+		NkRect clip = panel.clip();
+		
+		ProjectTreeModel.RowRange visible = ProjectTreeModel.visibleRange(
+			panel.at_y() + panel.row().height() , 
+			itemHeight , 
+			to - from , 
+			clip.y() , 
+			clip.y() + clip.h()
+		);
+		
+		space(context , visible.first() * itemHeight , spacing);
+		for(int i = from + visible.first() ; i < from + visible.end() ; i++) emit.accept(items.get(i));
+		space(context , (to - from - visible.end()) * itemHeight , spacing);
+		
+	}
+	
+	/**
+	 * Emits an empty row taking {@code height} pixels, including the spacing after it.
+	 */
+	private void space(NkContext context , float height , float spacing) {
+		
+		if(height <= spacing) return;
+		nk_layout_row_dynamic(context , height - spacing , 1);
+		nk_spacer(context);
+		
+	}
+	
 	private void pad(NkContext context , int pixels) {
 		
 		nk_layout_row_push(context , pixels);
@@ -1133,7 +1217,7 @@ import sc.core.ui.SCNuklear;
 	
 	private void onTrue(Runnable onTrue) {
 		
-		Engine.THE_TEMPORAL.onTrue(() -> true , onTrue);
+		Engine.THE_MAIN_THREAD.execute(onTrue);
 		
 	}
 	
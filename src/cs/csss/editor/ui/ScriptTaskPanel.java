@@ -0,0 +1,93 @@
+package cs.csss.editor.ui;
+
+import static org.lwjgl.nuklear.Nuklear.nk_button_label;
+import static org.lwjgl.nuklear.Nuklear.nk_layout_row_dynamic;
+import static org.lwjgl.nuklear.Nuklear.nk_prog;
+import static org.lwjgl.nuklear.Nuklear.nk_propertyi;
+import static org.lwjgl.nuklear.Nuklear.nk_text;
+import static sc.core.ui.SCUIConstants.*;
+
+import cs.csss.editor.Editor;
+import cs.csss.editor.ScriptTask;
+import cs.csss.engine.Engine;
+import sc.core.SCShutDown;
+import sc.core.ui.SCElements.SCUserInterface;
+import sc.core.ui.SCNuklear;
+
+/**
+ * Panel showing the progress of the script running in the background, with a button to cancel it and a property to set the time budget of
+ * scripts. The panel is only shown while a script is running.
+ */
+public class ScriptTaskPanel implements SCShutDown {
+	
+	private static final int PROGRESS_STEPS = 1000;
+	
+	private final SCNuklear nuklear;
+	private final Editor editor;
+	private SCUserInterface ui;
+	private boolean hiding = true;
+	
+	/**
+	 * Creates a new script task panel. It is hidden initially.
+	 *
+	 * @param editor the editor
+	 * @param nuklear the nuklear factory
+	 */
+	public ScriptTaskPanel(Editor editor , SCNuklear nuklear) {
+		
+		this.editor = editor;
+		ui = new SCUserInterface(this.nuklear = nuklear , "Running Script" , 0.4f , 0.4f , 0.2f , 0.16f);
+		nuklear.removeUserInterface(ui);
+		ui.flags = UI_TITLED|UI_BORDERED|UI_MOVABLE;
+		
+		ui.attachedLayout(context -> {
+			
+			ScriptTask task = editor.runningScript();
+			if(task == null) return;
+			
+			nk_layout_row_dynamic(context , 20 , 1);
+			nk_text(context , String.format("%s, %.1f s" , task.name , task.elapsedMillis() / 1000f) , TEXT_LEFT|TEXT_CENTERED);
+			nk_layout_row_dynamic(context , 20 , 1);
+			nk_prog(context , (long)(task.progress() * PROGRESS_STEPS) , PROGRESS_STEPS , false);
+			
+			nk_layout_row_dynamic(context , 25 , 2);
+			editor.scriptTimeBudget(nk_propertyi(context , "Budget (s)" , 1 , editor.scriptTimeBudget() , 3600 , 5 , 1));
+			if(nk_button_label(context , task.cancelled() ? "Cancelling" : "Cancel")) task.cancel();
+			
+		});
+		
+	}
+	
+	/**
+	 * Shows this panel while a script is running in the background and hides it otherwise. Called once per frame.
+	 */
+	public void update() {
+		
+		boolean running = editor.runningScript() != null;
+		if(running != hiding) return;
+		
+		hiding = !running;
+		if(hiding) nuklear.removeUserInterface(ui);
+		else nuklear.addUserInterface(ui);
+		
+	}
+	
+	@Override public void shutDown() {
+		
+		if(isFreed()) return;
+		
+		SCUserInterface shutDownThis = ui;
+		Engine.THE_MAIN_THREAD.execute(shutDownThis::shutDown);
+		
+		if(nuklear.hasUserInterface(ui)) nuklear.removeUserInterface(ui);
+		ui = null;
+		
+	}
+	
+	@Override public boolean isFreed() {
+		
+		return ui == null;
+		
+	}
+	
+}
@@ -5,6 +5,7 @@ import static cs.csss.engine.Logging.*;
 import static org.lwjgl.glfw.GLFW.GLFW_MOUSE_BUTTON_LEFT;
 import static org.lwjgl.glfw.GLFW.GLFW_PRESS;
 import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
+import static org.lwjgl.glfw.GLFW.glfwPostEmptyEvent;
 import static org.lwjgl.nuklear.Nuklear.nk_window_is_any_hovered;
 import static org.lwjgl.opengl.GL11C.GL_BLEND;
 import static org.lwjgl.opengl.GL11C.GL_COLOR_BUFFER_BIT;
@@ -29,9 +30,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
@@ -123,7 +124,6 @@ import sc.core.ui.SCNuklear;
 import sc.core.ui.prefabs.SCBasicInputBox;
 import sc.core.utils.SCConcurrentTemporal;
 import sc.core.utils.SCIntReferencer;
-import sc.core.utils.SCTimer;
 
 /**
  * Engine is the driver of the application. It contains initialization, the main loop, and handles some program level behavior such as 
@@ -160,16 +160,17 @@ import sc.core.utils.SCTimer;
  *
  */
 public final class Engine implements SCShutDown {
-
+	
 	/**
-	 * Thread pool for the application.
+	 * Scheduler object that can receive code and execute it based on some predicate. Its predicates are tested every frame, so code waiting
+	 * on an operation should instead be chained to a future of that operation with {@link #THE_MAIN_THREAD}.
 	 */
-	public static final ExecutorService THE_THREADS = Executors.newCachedThreadPool();
+	public static final SCConcurrentTemporal THE_TEMPORAL = new SCConcurrentTemporal();
 	
 	/**
-	 * Scheduler object that can receive code and execute it based on some predicate.
+	 * Executor of the main thread, whose tasks run once per frame in the order they were submitted.
 	 */
-	public static final SCConcurrentTemporal THE_TEMPORAL = new SCConcurrentTemporal();
+	public static final MainThreadExecutor THE_MAIN_THREAD = new MainThreadExecutor();
 	
 	/**
 	 * Version of the current application distribution.
@@ -332,8 +333,9 @@ public final class Engine implements SCShutDown {
 	static void finalShutDown() {
 		
 		//any deferred shutdown events.
+		THE_MAIN_THREAD.runAll();
 		THE_TEMPORAL.updateAllEvents();
-		THE_THREADS.shutdown();
+		Lane.shutDownAll();
 		SCDisplay.finish();
 		
 	}
@@ -342,6 +344,13 @@ public final class Engine implements SCShutDown {
 	private final Editor editor;
 	private Future<?> renderScene;
 	
+	/**
+	 * Tasks to run on the main thread once no frame is being rendered.
+	 */
+	private final MainThreadExecutor betweenRenders = new MainThreadExecutor();
+	
+	private final CompletableFuture<Void> projectOpened = new CompletableFuture<>() , animationSelected = new CompletableFuture<>();
+	
 	private CSSSProject currentProject;
 
 	private int cameraMoveSpeed = 1;
@@ -358,9 +367,13 @@ public final class Engine implements SCShutDown {
 		realtimeMode = false;
 
 	private int realtimeTargetFPS = 60;
-	private double realtimeFrameTime = 1000 / realtimeTargetFPS;
+	private final FramePacer framePacer = new FramePacer(realtimeTargetFPS);
 
- 	private SCTimer frameTimer = new SCTimer();
+	/**
+	 * Whether anything may have changed since the scene was last rendered. Set by input, by completed tasks, and by 
+	 * {@link #requestFrame()}, and cleared when a render is enqueued.
+	 */
+	private volatile boolean damaged = true;
  	
 	private final UserSettings2 settings2 = new UserSettings2();
 	
@@ -435,6 +448,9 @@ public final class Engine implements SCShutDown {
 		setOnMouseInput();		
 		setOnFileDrop();
 		setOnIconify();
+		setOnInputDamage();
+		
+		THE_MAIN_THREAD.onExecute(this::requestFrame);
 
 		cursorDragManager = new CursorDragManager();
 
@@ -451,6 +467,11 @@ public final class Engine implements SCShutDown {
 	 * 	Typically, Sprite Studio runs on a largely event driven architecture and will 'wait' for inputs to be sent from peripherals before running a 
 	 * 	main loop iteration. It is also possible however to run in a more realtime mode, in which a fixed number of loop iterations occur every second.
 	 * </p>
+	 * <p>
+	 * 	In either mode, the scene and UI are only rendered again if they may have changed, which is when input arrived, a task completed, 
+	 * 	{@link #requestFrame()} was called, or an animation is playing in the animation panel. Realtime mode is only entered while an 
+	 * 	animation plays, and its iterations render nothing unless the animation panel shows the animation or something else changed.
+	 * </p>
 	 */
 	void run() {
 
@@ -460,23 +481,37 @@ public final class Engine implements SCShutDown {
 		SCGLFWWindow<Integer> window = display.window();
 		while(!overrideShutDown && window.persist()) {
 			
+			//each phase is timed by the profiler, which does nothing when disabled
+			long time = Profiler.begin();
+			
 			getInputs();
+			time = Profiler.end("phase/getInputs" , time);
 			
 			controlEvents();
+			time = Profiler.end("phase/controlEvents" , time);
 			
 			editor.update();
+			time = Profiler.end("phase/editorUpdate" , time);
 			
 			runProjectFreemove();
+			time = Profiler.end("phase/runProjectFreemove" , time);
 			
+			THE_MAIN_THREAD.runAll();
 			THE_TEMPORAL.updateAllEvents();
+			time = Profiler.end("phase/temporalUpdate" , time);
 			
-			renderScene();
+			if(renderScene()) time = Profiler.end("phase/renderScene" , time);
+			else time = Profiler.end("phase/idle" , time);
 			
 			cursorDragManager.update(getCursorWorldCoords());
 			
 			if(isSteamInitialized()) SteamAPI.runCallbacks();
+			time = Profiler.end("phase/cursorAndSteam" , time);
 
 			realtimeFrameLockup();
+			Profiler.end("phase/realtimeFrameLockup" , time);
+			
+			Profiler.update();
 			
 		}
 		
@@ -484,13 +519,42 @@ public final class Engine implements SCShutDown {
 		
 	}
 
-	private void renderScene() {
+	/**
+	 * Enqueues a render if the previous one finished and the scene may have changed.
+	 * 
+	 * @return Whether a render was enqueued.
+	 */
+	private boolean renderScene() {
 		
-		if(renderScene.isDone()) { 
-			
-			enqueueRender();
-			
-		}
+		if(!renderScene.isDone()) return false;
+		
+		betweenRenders.runAll();
+		if(!damaged && !animationShowing()) return false;
+		
+		damaged = false;
+		enqueueRender();
+		return true;
+		
+	}
+	
+	/**
+	 * Returns whether an animation is playing in the animation panel, whose frame and playback bar may change on every iteration.
+	 */
+	private boolean animationShowing() {
+		
+		Animation current = currentAnimation();
+		return current != null && current.playing() && editor.isAnimationPanelShowing();
+		
+	}
+	
+	/**
+	 * Marks the scene as changed so the main loop renders it again, and wakes the main loop if it is waiting for input. Safe to call from 
+	 * any thread.
+	 */
+	public void requestFrame() {
+		
+		damaged = true;
+		glfwPostEmptyEvent();
 
 	}
 	
@@ -501,6 +565,8 @@ public final class Engine implements SCShutDown {
 		
 		renderScene = display.renderer().post(() -> {
 
+			long renderStart = Profiler.begin();
+			
 			glClear(GL_COLOR_BUFFER_BIT);
 			//NanoVG modifies blending
 			glBlendFunc(GL_SRC_ALPHA , GL_ONE_MINUS_SRC_ALPHA);
@@ -569,6 +635,11 @@ public final class Engine implements SCShutDown {
 				
 			}
 			
+			Profiler.end("render/scene" , renderStart);
+			
+			//input which arrived during this render was not drawn, and the main loop may be waiting for more
+			if(damaged) glfwPostEmptyEvent();
+			
 		});
 		
 	}
@@ -578,12 +649,13 @@ public final class Engine implements SCShutDown {
 	 */
 	private void getInputs() {
 
-		if(realtimeMode) { 
+		if(realtimeMode) SCGLFWWindow.pollEvents();
+		else { 
 			
-			SCGLFWWindow.pollEvents();
-			frameTimer.start();
+			framePacer.stop();
+			SCGLFWWindow.waitEvents();
 			
-		} else SCGLFWWindow.waitEvents();
+		}
 		
 		SCControls.updateAllControls();
 		display.nuklear().updateInput();
@@ -591,30 +663,30 @@ public final class Engine implements SCShutDown {
 	}
 	
 	/**
-	 * Locks the application at the framerate given by {@link Engine#realtimeTargetFPS} by making the main thread wait an appropriate
-	 * amount of time.
+	 * Locks the application at the framerate given by {@link Engine#realtimeTargetFPS} by making the main thread wait until the deadline of
+	 * the next frame.
 	 */
 	private void realtimeFrameLockup() {
 
-		if(realtimeMode) {
-			
-			long waitFor = (long) (realtimeFrameTime - frameTimer.elapsedMillis());
-			//this will be true if the frame took longer than the ideal frame time, REALTIME_FRAME_TIME, in which case do not use waitFor to stop
-			//the frame
-			if(waitFor <= 0) return;
-			
-			Thread current = Thread.currentThread();
-			synchronized(current) {
-				
-				try {
-					
-					current.wait(waitFor);
-					
-				} catch (InterruptedException e) {}
-				
-			}
-			
-		}
+		if(realtimeMode) framePacer.awaitNextFrame();
+		
+	}
+	
+	private void setOnInputDamage() {
+		
+		SCGLFWWindow<Integer> window = display.window();
+		window.onKeyboardInput((key , scancode , action , mods) -> damaged = true , 110);
+		window.onTextInput(codepoint -> damaged = true , 110);
+		window.onCursorMove((x , y) -> damaged = true , 110);
+		window.onCursorEnterOrLeave(entered -> damaged = true , 110);
+		window.onMouseButtonInput((button , action , mods) -> damaged = true , 110);
+		window.onScroll((xOffset , yOffset) -> damaged = true , 110);
+		window.onFileDrop(files -> damaged = true , 110);
+		window.onWindowResize((width , height) -> damaged = true , 110);
+		window.onFramebufferResize((width , height) -> damaged = true , 110);
+		window.onIconify(iconified -> damaged = true , 110);
+		window.onFocus(focused -> damaged = true , 110);
+		window.onMaximize(maximized -> damaged = true , 110);
 		
 	}
 
@@ -736,6 +808,26 @@ public final class Engine implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Returns the world space bounds of the region the camera currently shows, as {@code leftX , bottomY , rightX , topY}.
+	 * 
+	 * @return World space bounds of the visible region.
+	 */
+	public float[] visibleWorldBounds() {
+		
+		int[] windowSize = windowSize();
+		float[] corner1 = getCursorWorldCoords(new float[] {0 , 0});
+		float[] corner2 = getCursorWorldCoords(new float[] {windowSize[0] , windowSize[1]});
+		
+		return new float[] {
+			Math.min(corner1[0] , corner2[0]) ,
+			Math.min(corner1[1] , corner2[1]) ,
+			Math.max(corner1[0] , corner2[0]) ,
+			Math.max(corner1[1] , corner2[1])
+		};
+		
+	}
+	
 	/**
 	 * Gets the screen coordinates of the cursor.
 	 * 
@@ -835,6 +927,49 @@ public final class Engine implements SCShutDown {
 		
 	 	if(currentProject != null) editor.eventPush(new ShutDownProjectEvent(editor , currentProject));		
 		currentProject = project;
+		if(project != null) projectOpened.complete(null);
+		
+	}
+	
+	/**
+	 * Returns a future completed the first time a project becomes the current project.
+	 * 
+	 * @return Future completed when the first project is opened.
+	 */
+	public CompletableFuture<Void> whenProjectOpened() {
+		
+		return projectOpened;
+		
+	}
+	
+	/**
+	 * Returns a future completed the first time an animation becomes the current animation of a project.
+	 * 
+	 * @return Future completed when the first animation is selected.
+	 */
+	public CompletableFuture<Void> whenAnimationSelected() {
+		
+		return animationSelected;
+		
+	}
+	
+	/**
+	 * Notifies this engine that a project made an animation its current animation.
+	 */
+	public void animationSelected() {
+		
+		animationSelected.complete(null);
+		
+	}
+	
+	/**
+	 * Returns an executor running its tasks on the render thread, for continuations of futures which need the OpenGL context.
+	 * 
+	 * @return Executor of the render thread.
+	 */
+	public Executor renderThread() {
+		
+		return task -> display.renderer().post(task);
 		
 	}
 	
@@ -880,7 +1015,7 @@ public final class Engine implements SCShutDown {
 		
 		NewProjectMenu newProjectMenu = new NewProjectMenu(display.nuklear());
 		
-		Engine.THE_TEMPORAL.onTrue(newProjectMenu::canFinish , () -> {
+		THE_MAIN_THREAD.whenComplete(newProjectMenu.whenFinished() , () -> {
 			
 			if(newProjectMenu.get() == null) return;
 			
@@ -907,6 +1042,8 @@ public final class Engine implements SCShutDown {
 					return project;
 					
 				}).get();
+				
+				projectOpened.complete(null);
 			} catch (InterruptedException | ExecutionException e) {
 				
 				e.printStackTrace();
@@ -925,7 +1062,7 @@ public final class Engine implements SCShutDown {
 		
 		if(currentProject == null) return;
 		NewAnimationMenu newAnimationMenu = new NewAnimationMenu(currentProject , display.nuklear());		
-		Engine.THE_TEMPORAL.onTrue(newAnimationMenu::isFinished, () -> currentProject.createAnimation(newAnimationMenu.get()));
+		THE_MAIN_THREAD.whenComplete(newAnimationMenu.whenFinished() , () -> currentProject.createAnimation(newAnimationMenu.get()));
 		
 	}
 
@@ -938,7 +1075,7 @@ public final class Engine implements SCShutDown {
 		
 		NewVisualLayerMenu newLayerMenu = new NewVisualLayerMenu(currentProject , display.nuklear());
 		
-		THE_TEMPORAL.onTrue(newLayerMenu::isFinished , () -> {
+		THE_MAIN_THREAD.whenComplete(newLayerMenu.whenFinished() , () -> {
 			
 			if(newLayerMenu.canCreate()) currentProject.createVisualLayer(newLayerMenu.name()); 
 			
@@ -954,7 +1091,7 @@ public final class Engine implements SCShutDown {
 		if(currentProject == null) return;
 		NewNonVisualLayerMenu newLayerMenu = new NewNonVisualLayerMenu(currentProject , display.nuklear());
 		
-		THE_TEMPORAL.onTrue(newLayerMenu::isFinished , () -> {
+		THE_MAIN_THREAD.whenComplete(newLayerMenu.whenFinished() , () -> {
 			
 			if(newLayerMenu.canCreate()) currentProject.createNonVisualLayer(newLayerMenu.name(), newLayerMenu.channels());
 			
@@ -970,7 +1107,7 @@ public final class Engine implements SCShutDown {
 		if(currentProject == null) return;
 		
 		ArtboardMenu artboardMenu = new ArtboardMenu(display.nuklear() , "New Artboard");
-		THE_TEMPORAL.onTrue(artboardMenu::finished , () -> {
+		THE_MAIN_THREAD.whenComplete(artboardMenu.whenFinished() , () -> {
 			
 			if(!artboardMenu.finishedValidly()) return;			
 			editor.eventPush(new CreateArtboardEvent(currentProject , artboardMenu.width() , artboardMenu.height()));
@@ -1006,7 +1143,7 @@ public final class Engine implements SCShutDown {
 		if(currentProject == null) return;		
 		SelectScriptMenu script = new SelectScriptMenu(display.nuklear() , scriptSubdirectory);
 
-		THE_TEMPORAL.onTrue(script::readyToFinish , () -> {
+		THE_MAIN_THREAD.whenComplete(script.whenFinished() , () -> {
 			
 			File selected;			
 			if((selected = script.selectedScript()) == null) return;			
@@ -1123,7 +1260,7 @@ public final class Engine implements SCShutDown {
 					Integer asInt = Integer.parseInt(result);
 					setRealtimeTargetFPS(asInt);
 
-				} catch(NumberFormatException e) {
+				} catch(IllegalArgumentException e) {
 					
 					sysDebugln(e);
 					
@@ -1162,19 +1299,20 @@ public final class Engine implements SCShutDown {
 		
 		SteamWorkshopItemUploadMenu upload = new SteamWorkshopItemUploadMenu(display.nuklear() , steam.friendsAPI());
 		
-		THE_TEMPORAL.onTrue(upload::finished , () -> {
+		THE_MAIN_THREAD.whenComplete(upload.whenFinished() , () -> {
 			
 			if(!upload.finishedValidly()) return;
 			UGC ugc = UGC();
 			
 			//create item will create a workshop item ID and invoke our bound callback.
 			//we need to wait for the callback to be invoked and cache the ID it produces.
-			//this call will trigger the WorkshopHelper::newItemUpdateInProgress to be true
+			//the callback completes WorkshopUploadHelper::whenNewItemCreated
+			CompletableFuture<Void> created = WorkshopUploadHelper.whenNewItemCreated();
 			ugc.createItem(SteamApplicationData.steamAppID(), WorkshopFileType.Community);
 			
 			//pass the data from the UI element to the WorkshopItemData created for this item once it is ready.
 			
-			THE_TEMPORAL.onTrue(WorkshopUploadHelper::newItemUpdateInProgress , () -> WorkshopUploadHelper.updateNewItem(
+			THE_MAIN_THREAD.whenComplete(created , () -> WorkshopUploadHelper.updateNewItem(
 				this ,
 				ugc ,
 				upload.name(),
@@ -1204,7 +1342,7 @@ public final class Engine implements SCShutDown {
 		
 		SteamWorkshopItemUpdateMenu updateMenu = new SteamWorkshopItemUpdateMenu(display.nuklear(), steam.friendsAPI() , this);
 		
-		THE_TEMPORAL.onTrue(updateMenu::readyToClose , () -> {
+		THE_MAIN_THREAD.whenComplete(updateMenu.whenFinished() , () -> {
 			
 			if(!updateMenu.finishedValidly()) return;
 			
@@ -1268,7 +1406,7 @@ public final class Engine implements SCShutDown {
 		
 		SetAnimationFrameSwapTypeMenu animationFrameSwapTypeMenu = new SetAnimationFrameSwapTypeMenu(display.nuklear() , frameIndex);
 		
-		THE_TEMPORAL.onTrue(animationFrameSwapTypeMenu::finished , () -> {
+		THE_MAIN_THREAD.whenComplete(animationFrameSwapTypeMenu.whenFinished() , () -> {
 			
 			if(animationFrameSwapTypeMenu.swapType() == null) return;
 			currentAnimation().setFrameSwapType(frameIndex, animationFrameSwapTypeMenu.swapType());
@@ -1312,7 +1450,7 @@ public final class Engine implements SCShutDown {
 		
 		LoadProjectMenu menu = new LoadProjectMenu(display.nuklear());
 		
-		THE_TEMPORAL.onTrue(menu::readyToFinish, () -> {
+		THE_MAIN_THREAD.whenComplete(menu.whenFinished() , () -> {
 			
 			if(menu.get() == null || menu.get().equals("")) return;
 			loadProject(menu.get() , menu.extension());
@@ -1382,7 +1520,7 @@ public final class Engine implements SCShutDown {
 		if(currentProject == null) return;
 		VectorTextMenu menu = new VectorTextMenu(display.nuklear() , this , currentProject);
 		
-		THE_TEMPORAL.onTrue(menu::finished, () -> {
+		THE_MAIN_THREAD.whenComplete(menu.whenFinished() , () -> {
 			
 			NamedNanoVGTypeface selected = menu.selectedTypeface();
 			if(selected == null) return;
@@ -1423,7 +1561,7 @@ public final class Engine implements SCShutDown {
 		);		
 		else customizer = new UICustomizer(display.nuklear() , editor , null , null);
 		
-		THE_TEMPORAL.onTrue(customizer::finished, () -> {
+		THE_MAIN_THREAD.whenComplete(customizer.whenFinished() , () -> {
 			
 			UITheme theme = customizer.resultingTheme();
 			if(theme == null) return;
@@ -1465,7 +1603,7 @@ public final class Engine implements SCShutDown {
 	public void startSelectUITheme() {
 		
 		ThemeSelector selector = new ThemeSelector(this , display.nuklear());
-		THE_TEMPORAL.onTrue(selector::finished, () -> {
+		THE_MAIN_THREAD.whenComplete(selector.whenFinished() , () -> {
 			
 			CSFile selected = selector.selected();
 			if(selected == null) return;
@@ -1667,7 +1805,7 @@ public final class Engine implements SCShutDown {
 	public void startCreateNewScript() {
 		
 		NewScriptMenu newMenu = new NewScriptMenu(display.nuklear());
-		THE_TEMPORAL.onTrue(newMenu::finished, () -> {
+		THE_MAIN_THREAD.whenComplete(newMenu.whenFinished() , () -> {
 			
 			ScriptType x = newMenu.type();
 			if(x == null) return;
@@ -1746,10 +1884,16 @@ public final class Engine implements SCShutDown {
 		
 	}
 
+	/**
+	 * Sets the number of frames per second of the realtime mode.
+	 * 
+	 * @param newTarget new frames per second
+	 * @throws IllegalArgumentException if {@code newTarget} is not positive.
+	 */
 	void setRealtimeTargetFPS(int newTarget) {
 		
+		framePacer.targetFPS(newTarget);
 		realtimeTargetFPS = newTarget;
-		realtimeFrameTime = 1000 / realtimeTargetFPS;
 		
 	}
 	
@@ -1760,7 +1904,7 @@ public final class Engine implements SCShutDown {
 	 */
 	public double realtimeFrameTime() {
 		
-		return realtimeFrameTime;
+		return framePacer.frameNanos() / 1_000_000d;
 		
 	}
 	
@@ -1864,7 +2008,7 @@ public final class Engine implements SCShutDown {
 					
 					if(asFile.isDirectory()) {
 						
-						THE_TEMPORAL.onTrue(() -> !currentlyRendering() , () -> ProjectExporterUI.registerExportLocation(x));
+						betweenRenders.execute(() -> ProjectExporterUI.registerExportLocation(x));
 						
 					} else {
 						
@@ -1968,7 +2112,7 @@ public final class Engine implements SCShutDown {
 	 */
 	@InDevelopment public void getCreatedWorkshopItems() {
 	
-		THE_THREADS.submit(() -> {
+		Lane.IO.submit(() -> {
 			
 		 	int accountID = steam.userAPI().getSteamID().getAccountID();
 		 	int appID = SteamApplicationData.steamAppID(); 
@@ -2166,7 +2310,7 @@ public final class Engine implements SCShutDown {
 		
 			sysDebugln("Number Subscribed Items" , steam.UGCAPI().getNumSubscribedItems());
 			
-			THE_THREADS.submit(() -> WorkshopDownloadHelper.initializeDownloads(steam.UGCAPI()));
+			Lane.IO.submit(() -> WorkshopDownloadHelper.initializeDownloads(steam.UGCAPI()));
 				
 		}
 		
@@ -2182,12 +2326,13 @@ public final class Engine implements SCShutDown {
 			
 			CSFile file = files.next();
 			String filepath = file.getRealPath();
-			THE_THREADS.submit(() -> {
+			Lane.IO.submit(() -> {
 				
 				SCTTF font = new SCTTF(filepath);		
 				SCNanoVGTypeface nanoFont = nanoVG.createFont(font , 14);
 				loadedFonts.add(new NamedNanoVGTypeface(file.name() , nanoFont));
 				font.shutDown();
+				requestFrame();
 				
 			});
 			
@@ -2201,7 +2346,7 @@ public final class Engine implements SCShutDown {
 		
 		if(display == null) return;
 		
-		if(isSteamInitialized()) THE_THREADS.submit(SteamAPI::shutdown);
+		if(isSteamInitialized()) Lane.IO.submit(SteamAPI::shutdown);
 		settings2.write(this, editor);
 		
 		UICustomizer.finalShutDown();
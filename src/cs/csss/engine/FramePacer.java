@@ -0,0 +1,105 @@
+package cs.csss.engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces the main loop at a target frame rate in realtime mode. Frames are scheduled against deadlines measured by
+ * {@link System#nanoTime()}, each one frame time after the last, so rounding and oversleeping do not accumulate. The main thread sleeps
+ * until {@link #SPIN_NANOS} before a deadline and spins for the rest, because sleeps wake late by up to a scheduler tick while spinning
+ * wakes on time.
+ *
+ * <p>
+ * 	If a frame runs later than one frame time past its deadline, the deadlines are moved forward rather than caught up, so a slow frame
+ * 	does not cause a burst of fast ones. While the {@link Profiler} is enabled, the time between frames is recorded under
+ * 	{@code frame/interval} and the time frames began after their deadlines under {@code frame/lateness}.
+ * </p>
+ */
+public final class FramePacer {
+	
+	/**
+	 * Number of nanoseconds before a deadline at which the main thread stops sleeping and starts spinning.
+	 */
+	public static final long SPIN_NANOS = 1_500_000;
+	
+	private long frameNanos;
+	private long deadline;
+	private long previousFrame;
+	private boolean running = false;
+	
+	/**
+	 * Creates a frame pacer.
+	 *
+	 * @param targetFPS number of frames per second to pace at
+	 * @throws IllegalArgumentException if {@code targetFPS} is not positive.
+	 */
+	FramePacer(int targetFPS) {
+		
+		targetFPS(targetFPS);
+		
+	}
+	
+	/**
+	 * Sets the number of frames per second to pace at.
+	 *
+	 * @param targetFPS number of frames per second to pace at
+	 * @throws IllegalArgumentException if {@code targetFPS} is not positive.
+	 */
+	void targetFPS(int targetFPS) {
+		
+		if(targetFPS <= 0) throw new IllegalArgumentException("Target FPS is not positive: " + targetFPS);
+		frameNanos = 1_000_000_000L / targetFPS;
+		
+	}
+	
+	/**
+	 * Returns the time a frame should take.
+	 *
+	 * @return Nanoseconds per frame.
+	 */
+	public long frameNanos() {
+		
+		return frameNanos;
+		
+	}
+	
+	/**
+	 * Stops pacing, so the next call to {@link #awaitNextFrame()} starts a new schedule instead of waiting on a deadline from before the
+	 * main loop last waited for input.
+	 */
+	void stop() {
+		
+		running = false;
+		
+	}
+	
+	/**
+	 * Waits until the next frame should begin.
+	 */
+	void awaitNextFrame() {
+		
+		long now = System.nanoTime();
+		if(!running) {
+			
+			running = true;
+			deadline = previousFrame = now;
+			
+		}
+		
+		deadline += frameNanos;
+		if(now - deadline > frameNanos) deadline = now;
+		else {
+			
+			long remaining;
+			while((remaining = deadline - System.nanoTime()) > SPIN_NANOS) LockSupport.parkNanos(remaining - SPIN_NANOS);
+			while(deadline - System.nanoTime() > 0) Thread.onSpinWait();
+			
+		}
+		
+		now = System.nanoTime();
+		Profiler.record("frame/interval" , now - previousFrame);
+		Profiler.record("frame/lateness" , now - deadline);
+		previousFrame = now;
+		
+	}
+	
+}
@@ -0,0 +1,313 @@
+package cs.csss.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executors of the application, one per kind of work. The lane a task is submitted to is its priority: interactive computation runs on
+ * {@link #COMPUTE}, long computation the user is not waiting on frame by frame runs on {@link #BATCH} at a lower thread priority, blocking
+ * I/O runs on {@link #IO}, and housekeeping runs one task at a time on {@link #BACKGROUND} at the lowest thread priority. Keeping them
+ * apart means an export cannot take the threads a flood fill needs, and a slow download cannot hold a compute thread.
+ *
+ * <p>
+ * 	Tasks are cancelled through the {@link Future} returned when they are submitted. Cancelling a task which has not started keeps it from
+ * 	running. {@code cancel(true)} interrupts a running task of {@link #IO} and {@link #BACKGROUND}, but not of the work-stealing lanes, 
+ * 	whose tasks check for cancellation themselves. Tasks on the compute lanes may wait on other tasks of their lane, because waiting 
+ * 	workers of a work-stealing pool run queued tasks or are compensated for.
+ * </p>
+ * <p>
+ * 	Each lane counts its queued, active, and completed tasks at all times. While the {@link Profiler} is enabled, each lane also records 
+ * 	how long tasks waited to start and how long they ran, under {@code lane/<name>/wait} and {@code lane/<name>/run}.
+ * </p>
+ * <p>
+ * 	Lanes are {@link Executor}s, so continuations of a {@link java.util.concurrent.CompletableFuture CompletableFuture} can be run on 
+ * 	them with {@code thenRunAsync(action , Lane.COMPUTE)}.
+ * </p>
+ */
+public enum Lane implements Executor {
+	
+	/**
+	 * Work-stealing pool with a thread per core, for computation the user is waiting on, such as flood fills, compositing, and scripts. 
+	 */
+	COMPUTE("compute") {
+		
+		@Override ExecutorService createExecutor() {
+			
+			return workStealing(laneName , Runtime.getRuntime().availableProcessors() , Thread.NORM_PRIORITY);
+			
+		}
+		
+	} ,
+	
+	/**
+	 * Work-stealing pool with a thread per two cores, for long computation such as encoding exported images.
+	 */
+	BATCH("batch") {
+		
+		@Override ExecutorService createExecutor() {
+			
+			return workStealing(laneName , Math.max(1 , Runtime.getRuntime().availableProcessors() / 2) , Thread.NORM_PRIORITY - 2);
+			
+		}
+		
+	} ,
+	
+	/**
+	 * Unbounded pool of daemon threads which are kept for a minute after their last task, for work which spends most of its time blocked, 
+	 * such as reading files and talking to Steam.
+	 */
+	IO("io") {
+		
+		@Override ExecutorService createExecutor() {
+			
+			AtomicInteger threads = new AtomicInteger();
+			return new ThreadPoolExecutor(0 , Integer.MAX_VALUE , 60L , TimeUnit.SECONDS , new SynchronousQueue<>() , task -> {
+				
+				Thread thread = new Thread(task , "csss-" + laneName + "-" + threads.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+				
+			});
+			
+		}
+		
+	} ,
+	
+	/**
+	 * One thread of the lowest priority, for housekeeping such as writing profiler dumps and compressing data which is not needed soon.
+	 */
+	BACKGROUND("background") {
+		
+		@Override ExecutorService createExecutor() {
+			
+			return new ThreadPoolExecutor(1 , 1 , 0L , TimeUnit.MILLISECONDS , new LinkedBlockingQueue<>() , task -> {
+				
+				Thread thread = new Thread(task , "csss-" + laneName);
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+				
+			});
+			
+		}
+		
+	};
+	
+	/**
+	 * Number of milliseconds {@link #shutDownAll()} waits for submitted tasks to finish.
+	 */
+	public static final long SHUT_DOWN_WAIT_MILLIS = 30_000;
+	
+	/**
+	 * Name of this lane, used in the names of its threads and of its profiler entries.
+	 */
+	public final String laneName;
+	
+	private final String waitName , runName;
+	
+	private final ExecutorService executor;
+	
+	private final LongAdder started = new LongAdder() , finished = new LongAdder();
+	
+	private Lane(String laneName) {
+		
+		this.laneName = laneName;
+		waitName = "lane/" + laneName + "/wait";
+		runName = "lane/" + laneName + "/run";
+		executor = createExecutor();
+		
+	}
+	
+	abstract ExecutorService createExecutor();
+	
+	/**
+	 * Submits {@code task} to this lane.
+	 *
+	 * @param <T> type of the result of {@code task}
+	 * @param task code to run
+	 * @return Future of the result of {@code task}, which may also cancel it.
+	 */
+	public <T> Future<T> submit(Callable<T> task) {
+		
+		return executor.submit(measured(task));
+		
+	}
+	
+	/**
+	 * Submits {@code task} to this lane.
+	 *
+	 * @param task code to run
+	 * @return Future of the completion of {@code task}, which may also cancel it.
+	 */
+	public Future<?> submit(Runnable task) {
+		
+		return submit(Executors.callable(task));
+		
+	}
+	
+	/**
+	 * Submits {@code task} to this lane without a future.
+	 *
+	 * @param task code to run
+	 */
+	@Override public void execute(Runnable task) {
+		
+		executor.execute(measured(task));
+		
+	}
+	
+	/**
+	 * Submits all of {@code tasks} to this lane and waits for them to complete.
+	 *
+	 * @param <T> type of the results of {@code tasks}
+	 * @param tasks code to run
+	 * @return Futures of the results of {@code tasks}, in the order {@code tasks} iterates them, all of which are done.
+	 * @throws InterruptedException if the calling thread is interrupted while waiting.
+	 */
+	public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+		
+		List<Callable<T>> measured = new ArrayList<>(tasks.size());
+		for(Callable<T> task : tasks) measured.add(measured(task));
+		return executor.invokeAll(measured);
+		
+	}
+	
+	/**
+	 * Returns the number of tasks submitted to this lane which have not started.
+	 *
+	 * @return Number of queued tasks.
+	 */
+	public long queueDepth() {
+		
+		if(executor instanceof ForkJoinPool pool) return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+		else return ((ThreadPoolExecutor)executor).getQueue().size();
+		
+	}
+	
+	/**
+	 * Returns the number of tasks of this lane which are running.
+	 *
+	 * @return Number of active tasks.
+	 */
+	public long activeCount() {
+		
+		return started.sum() - finished.sum();
+		
+	}
+	
+	/**
+	 * Returns the number of tasks of this lane which have finished, normally or not.
+	 *
+	 * @return Number of completed tasks.
+	 */
+	public long completedCount() {
+		
+		return finished.sum();
+		
+	}
+	
+	/**
+	 * Stops every lane from accepting tasks and waits up to {@link #SHUT_DOWN_WAIT_MILLIS} milliseconds for submitted tasks to finish. The
+	 * threads of lanes do not keep the application alive, so this is what lets work such as exports and shutting Steam down finish on exit.
+	 */
+	static void shutDownAll() {
+		
+		for(Lane lane : values()) lane.executor.shutdown();
+		
+		long deadline = System.currentTimeMillis() + SHUT_DOWN_WAIT_MILLIS;
+		try {
+			
+			for(Lane lane : values()) lane.executor.awaitTermination(Math.max(0 , deadline - System.currentTimeMillis()) , TimeUnit.MILLISECONDS);
+			
+		} catch (InterruptedException e) {
+			
+			Thread.currentThread().interrupt();
+			
+		}
+		
+	}
+	
+	private <T> Callable<T> measured(Callable<T> task) {
+		
+		long submittedAt = System.nanoTime();
+		return () -> {
+			
+			long startedAt = begin(submittedAt);
+			try {
+				
+				return task.call();
+				
+			} finally {
+				
+				end(startedAt);
+				
+			}
+			
+		};
+		
+	}
+	
+	private Runnable measured(Runnable task) {
+		
+		long submittedAt = System.nanoTime();
+		return () -> {
+			
+			long startedAt = begin(submittedAt);
+			try {
+				
+				task.run();
+				
+			} finally {
+				
+				end(startedAt);
+				
+			}
+			
+		};
+		
+	}
+	
+	private long begin(long submittedAt) {
+		
+		long startedAt = System.nanoTime();
+		started.increment();
+		Profiler.record(waitName , startedAt - submittedAt);
+		return startedAt;
+		
+	}
+	
+	private void end(long startedAt) {
+		
+		finished.increment();
+		Profiler.record(runName , System.nanoTime() - startedAt);
+		
+	}
+	
+	private static ForkJoinPool workStealing(String laneName , int parallelism , int priority) {
+		
+		return new ForkJoinPool(parallelism , pool -> {
+			
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("csss-" + laneName + "-" + thread.getPoolIndex());
+			thread.setPriority(priority);
+			return thread;
+			
+		} , null , false);
+		
+	}
+	
+}
@@ -0,0 +1,143 @@
+package cs.csss.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size, log-linear histogram of durations in nanoseconds. Values are bucketed by their power of two and then linearly within that power
+ * of two, so every recorded value is known to within about six percent without the histogram ever allocating. Recording is lock free and may
+ * be done from any thread.
+ *
+ * @author Chris Brown
+ */
+public class LatencyHistogram {
+	
+	/**
+	 * Number of linear sub buckets per power of two. Must be a power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 4 , SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	/**
+	 * Total number of buckets, enough to hold any positive {@code long}.
+	 */
+	private static final int NUMBER_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_BUCKETS);
+	private final AtomicLong count = new AtomicLong() , max = new AtomicLong();
+	
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {}
+	
+	/**
+	 * Records a duration. Negative durations are recorded as 0.
+	 *
+	 * @param nanos a duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		
+		if(nanos < 0) nanos = 0;
+		buckets.incrementAndGet(bucketOf(nanos));
+		count.incrementAndGet();
+		max.accumulateAndGet(nanos , Math::max);
+		
+	}
+	
+	/**
+	 * Returns the number of recorded durations.
+	 *
+	 * @return Number of recorded durations.
+	 */
+	public long count() {
+		
+		return count.get();
+		
+	}
+	
+	/**
+	 * Returns the largest recorded duration, exactly.
+	 *
+	 * @return Largest recorded duration in nanoseconds.
+	 */
+	public long max() {
+		
+		return max.get();
+		
+	}
+	
+	/**
+	 * Returns an approximation of the duration which {@code percentile} percent of recorded durations are less than or equal to.
+	 *
+	 * @param percentile a percentile in the range {@code [0 , 100]}
+	 * @return Approximate duration in nanoseconds at the given percentile, or 0 if nothing has been recorded.
+	 * @throws IllegalArgumentException if {@code percentile} is not in the range {@code [0 , 100]}.
+	 */
+	public long percentile(double percentile) {
+		
+		if(percentile < 0 || percentile > 100) throw new IllegalArgumentException(percentile + " is not a valid percentile.");
+		
+		long total = count.get();
+		if(total == 0) return 0;
+		
+		long rank = Math.max(1 , (long)Math.ceil(total * (percentile / 100d)));
+		long seen = 0;
+		for(int i = 0 ; i < NUMBER_BUCKETS ; i++) {
+			
+			seen += buckets.get(i);
+			if(seen >= rank) return Math.min(max.get() , bucketMidpoint(i));
+			
+		}
+		
+		return max.get();
+		
+	}
+	
+	/**
+	 * Copies the contents of this histogram into a new one and clears this one. Durations recorded concurrently with this method are counted
+	 * in exactly one of the two histograms.
+	 *
+	 * @return Histogram containing the contents of this histogram before it was cleared.
+	 */
+	public LatencyHistogram snapshotAndReset() {
+		
+		LatencyHistogram snapshot = new LatencyHistogram();
+		long snapshotCount = 0;
+		for(int i = 0 ; i < NUMBER_BUCKETS ; i++) {
+			
+			long bucket = buckets.getAndSet(i , 0);
+			snapshot.buckets.set(i , bucket);
+			snapshotCount += bucket;
+			
+		}
+		
+		count.addAndGet(-snapshotCount);
+		snapshot.count.set(snapshotCount);
+		snapshot.max.set(max.getAndSet(0));
+		return snapshot;
+		
+	}
+	
+	private static int bucketOf(long nanos) {
+		
+		if(nanos < SUB_BUCKETS) return (int)nanos;
+		
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+		
+	}
+	
+	private static long bucketMidpoint(int bucket) {
+		
+		if(bucket < SUB_BUCKETS) return bucket;
+		
+		int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+		int subBucket = bucket & (SUB_BUCKETS - 1);
+		int shift = exponent - SUB_BUCKET_BITS;
+		long lowerBound = (long)(SUB_BUCKETS + subBucket) << shift;
+		return lowerBound + ((1L << shift) >>> 1);
+		
+	}
+	
+}
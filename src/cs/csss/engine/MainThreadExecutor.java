@@ -0,0 +1,108 @@
+package cs.csss.engine;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor of the main thread, which runs its tasks in the order they were submitted the next time the main loop reaches them. Code that
+ * must run on the main thread once some operation completes, such as the closing of a menu, is chained to a 
+ * {@link java.util.concurrent.CompletableFuture CompletableFuture} of that operation with this executor, so it runs exactly once when the 
+ * operation completes and costs nothing on frames where nothing completed.
+ *
+ * <p>
+ * 	Any thread may submit tasks. Tasks submitted while the queue is being run, including by the tasks themselves, run on the next frame.
+ * </p>
+ */
+public final class MainThreadExecutor implements Executor {
+	
+	private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	
+	private volatile Runnable onExecute = () -> {};
+	
+	MainThreadExecutor() {}
+	
+	/**
+	 * Queues {@code task} to run on the main thread.
+	 * 
+	 * @param task code to run
+	 * @throws NullPointerException if {@code task} is <code>null</code>.
+	 */
+	@Override public void execute(Runnable task) {
+		
+		tasks.add(task);
+		onExecute.run();
+		
+	}
+	
+	/**
+	 * Sets code to run on the submitting thread after each task is queued, such as waking the main loop if it is waiting for input.
+	 * 
+	 * @param listener code to run after each task is queued
+	 */
+	void onExecute(Runnable listener) {
+		
+		onExecute = listener;
+		
+	}
+	
+	/**
+	 * Queues {@code action} to run on the main thread once {@code stage} completes normally. If {@code stage} completes exceptionally, its
+	 * exception is printed and {@code action} does not run. Exceptions thrown by {@code action} are printed rather than hidden in a future 
+	 * no one reads.
+	 * 
+	 * @param stage an operation to wait for
+	 * @param action code to run once {@code stage} completes
+	 */
+	public void whenComplete(CompletionStage<?> stage , Runnable action) {
+		
+		stage.whenCompleteAsync((result , exception) -> {
+			
+			if(exception != null) {
+				
+				exception.printStackTrace();
+				return;
+				
+			}
+			
+			try {
+				
+				action.run();
+				
+			} catch(Throwable e) {
+				
+				e.printStackTrace();
+				
+			}
+			
+		} , this);
+		
+	}
+	
+	/**
+	 * Returns the number of tasks waiting to run.
+	 * 
+	 * @return Number of queued tasks.
+	 */
+	public int queueDepth() {
+		
+		return tasks.size();
+		
+	}
+	
+	/**
+	 * Runs the tasks queued before this call. Called once per frame by the main loop, and once more when the program shuts down.
+	 */
+	void runAll() {
+		
+		for(int remaining = tasks.size() ; remaining > 0 ; remaining--) {
+			
+			Runnable task = tasks.poll();
+			if(task == null) return;
+			task.run();
+			
+		}
+		
+	}
+	
+}
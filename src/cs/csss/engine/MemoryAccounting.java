@@ -0,0 +1,252 @@
+package cs.csss.engine;
+
+import static cs.csss.engine.Logging.*;
+import static org.lwjgl.system.MemoryUtil.memAddress0;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * Accounts for the memory a session uses, so users learn they are near the limits of their machine before they reach them.
+ *
+ * <p>
+ * 	Off-heap allocations are made through {@link #memAlloc(String, int)} with a tag naming their call site, and freed through
+ * 	{@link #memFree(Buffer)}, which looks the allocation up by address so buffers may be freed far from where they were made. Buffers not
+ * 	allocated here may also be freed here. Counting costs one map insertion per allocation and one removal per free.
+ * </p>
+ * <p>
+ * 	The memory retained by the project and the undo and redo stacks is estimated in a {@link MemoryReport} every
+ * 	{@link #REPORT_INTERVAL_MILLIS} milliseconds by {@link #update(Supplier)}. When the heap and off-heap memory of the report reach
+ * 	{@link #WARN_FRACTION} of the budget, a warning is raised once, and it is cleared when usage falls back below {@link #CLEAR_FRACTION}
+ * 	of the budget. Accounting is always on.
+ * </p>
+ */
+public final class MemoryAccounting {
+
+	/**
+	 * Number of milliseconds between memory reports.
+	 */
+	public static final long REPORT_INTERVAL_MILLIS = 5000;
+
+	/**
+	 * Fraction of the budget at which the budget warning is raised.
+	 */
+	public static final float WARN_FRACTION = 0.9f;
+
+	/**
+	 * Fraction of the budget below which the budget warning is cleared.
+	 */
+	public static final float CLEAR_FRACTION = 0.8f;
+
+	private static final ConcurrentHashMap<Long , Allocation> allocations = new ConcurrentHashMap<>();
+
+	private static final ConcurrentHashMap<String , LongAdder> offHeapByTag = new ConcurrentHashMap<>();
+
+	private static volatile long budgetBytes = defaultBudgetBytes();
+
+	private static volatile int budgetMegabytes = 0;
+
+	private static volatile MemoryReport latest = MemoryReport.EMPTY;
+
+	private static volatile boolean warning = false;
+
+	private static long lastReportTime = 0;
+
+	private MemoryAccounting() {}
+
+	/**
+	 * Allocates {@code size} bytes off-heap as {@link MemoryUtil#memAlloc(int)} does, counting them under {@code tag} until they are freed
+	 * by {@link #memFree(Buffer)}.
+	 *
+	 * @param tag name of the call site making the allocation, such as {@code layer/lz4}
+	 * @param size number of bytes to allocate
+	 * @return The allocated buffer.
+	 */
+	public static ByteBuffer memAlloc(String tag , int size) {
+
+		ByteBuffer buffer = MemoryUtil.memAlloc(size);
+		long address = memAddress0(buffer);
+		if(address == 0L) return buffer;
+
+		allocations.put(address , new Allocation(tag , size));
+		offHeapByTag.computeIfAbsent(tag , unused -> new LongAdder()).add(size);
+		return buffer;
+
+	}
+
+	/**
+	 * Frees {@code buffer} as {@link MemoryUtil#memFree(Buffer)} does, and stops counting it if it was allocated by
+	 * {@link #memAlloc(String, int)}. Views of a buffer, such as read-only buffers, free the buffer they view.
+	 *
+	 * @param buffer a buffer to free, or <code>null</code>
+	 */
+	public static void memFree(Buffer buffer) {
+
+		if(buffer == null) return;
+
+		Allocation allocation = allocations.remove(memAddress0(buffer));
+		if(allocation != null) offHeapByTag.get(allocation.tag).add(-allocation.size);
+		MemoryUtil.memFree(buffer);
+
+	}
+
+	/**
+	 * Returns the number of bytes allocated by {@link #memAlloc(String, int)} and not yet freed.
+	 *
+	 * @return Number of tagged off-heap bytes currently allocated.
+	 */
+	public static long offHeapBytes() {
+
+		long total = 0;
+		for(LongAdder bytes : offHeapByTag.values()) total += bytes.sum();
+		return total;
+
+	}
+
+	/**
+	 * Returns the number of bytes allocated by {@link #memAlloc(String, int)} and not yet freed for each tag, in order of tag.
+	 *
+	 * @return Map from tag to number of off-heap bytes.
+	 */
+	public static Map<String , Long> offHeapBytesByTag() {
+
+		TreeMap<String , Long> byTag = new TreeMap<>();
+		offHeapByTag.forEach((tag , bytes) -> byTag.put(tag , bytes.sum()));
+		return byTag;
+
+	}
+
+	/**
+	 * Invokes {@code callback} with each tag and its number of off-heap bytes, in order of tag.
+	 *
+	 * @param callback code to invoke for each tag
+	 */
+	public static void forEachOffHeapTag(BiConsumer<String , Long> callback) {
+
+		offHeapBytesByTag().forEach(callback);
+
+	}
+
+	/**
+	 * Returns the number of bytes of heap and off-heap memory the session should stay below.
+	 *
+	 * @return The memory budget in bytes.
+	 */
+	public static long budgetBytes() {
+
+		return budgetBytes;
+
+	}
+
+	/**
+	 * Returns the memory budget in megabytes as it was last set, which is 0 if the default budget is used.
+	 *
+	 * @return The memory budget in megabytes, or 0 for the default budget.
+	 */
+	public static int budgetMegabytes() {
+
+		return budgetMegabytes;
+
+	}
+
+	/**
+	 * Sets the memory budget. A budget of 0 restores the default, which is the largest size of the heap.
+	 *
+	 * @param megabytes new budget in megabytes
+	 * @throws IllegalArgumentException if {@code megabytes} is negative.
+	 */
+	public static void setBudgetMegabytes(int megabytes) {
+
+		if(megabytes < 0) throw new IllegalArgumentException("Memory budget is negative: " + megabytes);
+		budgetMegabytes = megabytes;
+		budgetBytes = megabytes == 0 ? defaultBudgetBytes() : (long)megabytes << 20;
+		checkBudget(latest);
+
+	}
+
+	/**
+	 * Returns the most recent memory report.
+	 *
+	 * @return The most recent memory report.
+	 */
+	public static MemoryReport latest() {
+
+		return latest;
+
+	}
+
+	/**
+	 * Returns whether the most recent report reached {@link #WARN_FRACTION} of the budget and usage has not since fallen below
+	 * {@link #CLEAR_FRACTION} of it.
+	 *
+	 * @return Whether memory usage is near or over the budget.
+	 */
+	public static boolean warning() {
+
+		return warning;
+
+	}
+
+	/**
+	 * Replaces the most recent report with one made by {@code reporter} and checks it against the budget if
+	 * {@link #REPORT_INTERVAL_MILLIS} milliseconds have passed since the last report. Called once per update on the main thread.
+	 *
+	 * @param reporter code producing a memory report
+	 */
+	public static void update(Supplier<MemoryReport> reporter) {
+
+		long now = System.currentTimeMillis();
+		if(now - lastReportTime < REPORT_INTERVAL_MILLIS) return;
+		lastReportTime = now;
+		refresh(reporter);
+
+	}
+
+	/**
+	 * Replaces the most recent report with one made by {@code reporter} and checks it against the budget.
+	 *
+	 * @param reporter code producing a memory report
+	 * @return The new report.
+	 */
+	public static MemoryReport refresh(Supplier<MemoryReport> reporter) {
+
+		MemoryReport report = reporter.get();
+		latest = report;
+		checkBudget(report);
+		return report;
+
+	}
+
+	private static void checkBudget(MemoryReport report) {
+
+		long used = report.heapBytes() + report.offHeapBytes();
+		if(!warning && used >= budgetBytes * WARN_FRACTION) {
+
+			warning = true;
+			syserrln(String.format(
+				"Memory usage of %d MB is near the budget of %d MB. Save, then close artboards or clear the undo stack." ,
+				used >> 20 ,
+				budgetBytes >> 20
+			));
+
+		} else if(warning && used < budgetBytes * CLEAR_FRACTION) warning = false;
+
+	}
+
+	private static long defaultBudgetBytes() {
+
+		return Runtime.getRuntime().maxMemory();
+
+	}
+
+	private record Allocation(String tag , int size) {}
+
+}
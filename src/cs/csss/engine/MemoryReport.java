@@ -0,0 +1,112 @@
+package cs.csss.engine;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import cs.csss.project.MemoryUsage;
+
+/**
+ * Estimate of the memory a session retains, made by {@link cs.csss.editor.Editor#memoryReport() Editor.memoryReport} and kept by
+ * {@link MemoryAccounting}.
+ * <p>
+ * 	Layers are parts of artboards, so their estimates are a breakdown of the artboards' and are not added to the totals.
+ * </p>
+ *
+ * @param artboards estimate of each artboard of the project which is not a shallow copy
+ * @param layers estimate of each layer of those artboards
+ * @param palettes estimate of each palette of the project
+ * @param undoEvents estimate of each event of the undo and redo stacks
+ * @param offHeapByTag bytes of tagged off-heap allocations for each tag
+ */
+public record MemoryReport(
+	List<MemoryUsage> artboards ,
+	List<MemoryUsage> layers ,
+	List<MemoryUsage> palettes ,
+	List<MemoryUsage> undoEvents ,
+	Map<String , Long> offHeapByTag
+) {
+	
+	/**
+	 * Report of a session with no project, no events, and no off-heap allocations.
+	 */
+	public static final MemoryReport EMPTY = new MemoryReport(
+		Collections.emptyList() ,
+		Collections.emptyList() ,
+		Collections.emptyList() ,
+		Collections.emptyList() ,
+		Collections.emptyMap()
+	);
+	
+	/**
+	 * Returns the estimated bytes of heap retained by artboards, palettes, and undoable events.
+	 *
+	 * @return Estimated heap bytes.
+	 */
+	public long heapBytes() {
+		
+		return sum(artboards , MemoryUsage::heapBytes) + sum(palettes , MemoryUsage::heapBytes) + sum(undoEvents , MemoryUsage::heapBytes);
+		
+	}
+	
+	/**
+	 * Returns the bytes of off-heap memory retained by palettes and tagged allocations.
+	 *
+	 * @return Off-heap bytes.
+	 */
+	public long offHeapBytes() {
+		
+		long bytes = sum(artboards , MemoryUsage::offHeapBytes) + sum(palettes , MemoryUsage::offHeapBytes);
+		for(long tagged : offHeapByTag.values()) bytes += tagged;
+		return bytes;
+		
+	}
+	
+	/**
+	 * Returns the bytes of video memory retained by artboards and palettes.
+	 *
+	 * @return Video memory bytes.
+	 */
+	public long vramBytes() {
+		
+		return sum(artboards , MemoryUsage::vramBytes) + sum(palettes , MemoryUsage::vramBytes);
+		
+	}
+	
+	/**
+	 * Returns the estimated bytes of heap retained by undoable events.
+	 *
+	 * @return Estimated heap bytes of the undo and redo stacks.
+	 */
+	public long undoBytes() {
+		
+		return sum(undoEvents , MemoryUsage::heapBytes);
+		
+	}
+	
+	/**
+	 * Returns the sum of the heap, off-heap, and video memory of this report.
+	 *
+	 * @return Total bytes of this report.
+	 */
+	public long totalBytes() {
+		
+		return heapBytes() + offHeapBytes() + vramBytes();
+		
+	}
+	
+	private static long sum(List<MemoryUsage> usages , ToLong getter) {
+		
+		long bytes = 0;
+		for(MemoryUsage usage : usages) bytes += getter.of(usage);
+		return bytes;
+		
+	}
+	
+	@FunctionalInterface private interface ToLong {
+		
+		long of(MemoryUsage usage);
+		
+	}
+	
+}
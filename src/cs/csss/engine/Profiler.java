@@ -0,0 +1,192 @@
+package cs.csss.engine;
+
+import static cs.csss.engine.Logging.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Low overhead instrumentation for the main loop, the render thread, events, brushes, and scripts.
+ *
+ * <p>
+ * 	Code is timed by surrounding it with {@link #begin()} and {@link #end(String, long)}. Durations are recorded into a
+ * 	{@link LatencyHistogram} per name. Names are grouped by a prefix, such as {@code phase/}, {@code render/}, {@code event/},
+ * 	{@code brush/}, and {@code script/}. Every {@link #DUMP_INTERVAL_MILLIS} milliseconds the histograms are moved into a window which the
+ * 	profiler panel displays, and the window is appended to a CSV file in the debug folder.
+ * </p>
+ * <p>
+ * 	When the profiler is disabled, {@code begin} and {@code end} only read a boolean, so instrumentation can be left in place.
+ * </p>
+ *
+ * @author Chris Brown
+ */
+public final class Profiler {
+	
+	/**
+	 * Number of milliseconds between moving the current histograms into the window and dumping them.
+	 */
+	public static final long DUMP_INTERVAL_MILLIS = 5000;
+	
+	private static final String DUMP_HEADER = "time,name,count,p50_ns,p99_ns,max_ns\n";
+	
+	private static volatile boolean enabled = false;
+	
+	private static final ConcurrentHashMap<String , LatencyHistogram> histograms = new ConcurrentHashMap<>();
+	
+	private static volatile Map<String , LatencyHistogram> window = Collections.emptyMap();
+	
+	private static long lastDumpTime = 0;
+	
+	private static File dumpFile = null;
+	
+	private Profiler() {}
+	
+	/**
+	 * Returns whether the profiler is recording.
+	 *
+	 * @return Whether the profiler is recording.
+	 */
+	public static boolean enabled() {
+		
+		return enabled;
+		
+	}
+	
+	/**
+	 * Toggles whether the profiler is recording. Enabling the profiler clears any previously recorded durations.
+	 */
+	public static synchronized void toggle() {
+		
+		if(!enabled) {
+			
+			histograms.clear();
+			window = Collections.emptyMap();
+			lastDumpTime = System.currentTimeMillis();
+			dumpFile = null;
+			
+		}
+		
+		enabled = !enabled;
+		sysDebugln("Profiler " + (enabled ? "enabled" : "disabled"));
+		
+	}
+	
+	/**
+	 * Starts a span. The result of this method should be passed to {@link #end(String, long)}.
+	 *
+	 * @return The current value of {@link System#nanoTime()} if the profiler is enabled, otherwise 0.
+	 */
+	public static long begin() {
+		
+		return enabled ? System.nanoTime() : 0L;
+		
+	}
+	
+	/**
+	 * Ends a span started by {@link #begin()}, recording its duration under {@code name}. The result of this method can be passed to
+	 * another invocation of this method to time consecutive spans with only one call to {@link System#nanoTime()} per span.
+	 *
+	 * @param name name to record the span under
+	 * @param begin result of {@link #begin()} or a previous invocation of this method
+	 * @return The current value of {@link System#nanoTime()} if the profiler is enabled, otherwise 0.
+	 */
+	public static long end(String name , long begin) {
+		
+		if(!enabled || begin == 0L) return 0L;
+		
+		long now = System.nanoTime();
+		record(name , now - begin);
+		return now;
+		
+	}
+	
+	/**
+	 * Records a duration under the given name, if the profiler is enabled.
+	 *
+	 * @param name name to record {@code nanos} under
+	 * @param nanos a duration in nanoseconds
+	 */
+	public static void record(String name , long nanos) {
+		
+		if(!enabled) return;
+		histograms.computeIfAbsent(name , unused -> new LatencyHistogram()).record(nanos);
+		
+	}
+	
+	/**
+	 * Invokes {@code callback} on each name and histogram of the most recently completed window, in order of name.
+	 *
+	 * @param callback code to invoke for each histogram
+	 * @throws NullPointerException if {@code callback} is <code>null</code>.
+	 */
+	public static void forEachInWindow(BiConsumer<String , LatencyHistogram> callback) {
+		
+		window.forEach(callback);
+		
+	}
+	
+	/**
+	 * Moves the current histograms into the window and appends them to the dump file if {@link #DUMP_INTERVAL_MILLIS} milliseconds have
+	 * passed since the last time this happened. Writing the dump file happens on {@link Lane#BACKGROUND}.
+	 */
+	public static synchronized void update() {
+		
+		if(!enabled) return;
+		
+		long now = System.currentTimeMillis();
+		if(now - lastDumpTime < DUMP_INTERVAL_MILLIS) return;
+		lastDumpTime = now;
+		
+		TreeMap<String , LatencyHistogram> newWindow = new TreeMap<>();
+		histograms.forEach((name , histogram) -> newWindow.put(name , histogram.snapshotAndReset()));
+		window = Collections.unmodifiableMap(newWindow);
+		
+		if(dumpFile == null) dumpFile = Engine.debugRoot.createFile(
+			"Profile at " + LocalTime.now().toString().replaceAll(":", "_") + ".csv" ,
+			null
+		).asFile();
+		
+		File destination = dumpFile;
+		Lane.BACKGROUND.submit(() -> dump(destination , now , newWindow));
+		
+	}
+	
+	private static void dump(File destination , long time , Map<String , LatencyHistogram> dumpThis) {
+		
+		boolean writeHeader = destination.length() == 0;
+		try(FileWriter writer = new FileWriter(destination , true)) {
+			
+			if(writeHeader) writer.write(DUMP_HEADER);
+			
+			for(Map.Entry<String , LatencyHistogram> x : dumpThis.entrySet()) {
+				
+				LatencyHistogram histogram = x.getValue();
+				writer.write(String.format(
+					"%d,%s,%d,%d,%d,%d\n" ,
+					time ,
+					x.getKey() ,
+					histogram.count() ,
+					histogram.percentile(50) ,
+					histogram.percentile(99) ,
+					histogram.max()
+				));
+				
+			}
+			
+		} catch (IOException e) {
+			
+			syserrln("Failed to write profiler dump.");
+			e.printStackTrace();
+			
+		}
+		
+	}
+	
+}
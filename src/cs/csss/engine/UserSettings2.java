@@ -41,7 +41,11 @@ class UserSettings2 {
 		cameraX 		= "CameraX",
 		cameraY 		= "CameraY" ,
 		cameraZoom		= "CameraZoom" ,
-		currentTheme	= "Theme";
+		currentTheme	= "Theme" ,
+		memoryBudget	= "MemoryBudget" ,
+		unloadAfter		= "UnloadArtboardsAfter" ,
+		artboardVRAM	= "ArtboardVRAMBudget" ,
+		compressUnloaded = "CompressUnloadedArtboards";
 	
 	
 	UserSettings2() {}
@@ -79,7 +83,11 @@ class UserSettings2 {
 				Map.entry(cameraX, cameraTranslation[0]) ,
 				Map.entry(cameraY, cameraTranslation[1]) ,
 				Map.entry(cameraZoom , engine.camera().zoom()) ,
-				Map.entry(currentTheme, themeName)
+				Map.entry(currentTheme, themeName) ,
+				Map.entry(memoryBudget, MemoryAccounting.budgetMegabytes()) ,
+				Map.entry(unloadAfter, IndexTexture.residency().evictAfterMillis()) ,
+				Map.entry(artboardVRAM, IndexTexture.residency().budgetBytes()) ,
+				Map.entry(compressUnloaded, IndexTexture.compressEvicted)
 			);
 				
 			writer.putMap("Stats", values, String::toString, String::valueOf);
@@ -120,6 +128,10 @@ class UserSettings2 {
 			if(stats.containsKey(BGWidth)) IndexTexture.backgroundWidth = Integer.parseInt(stats.get(BGWidth));
 			if(stats.containsKey(BGHeight)) IndexTexture.backgroundHeight = Integer.parseInt(stats.get(BGHeight));
 			if(stats.containsKey(stackSize)) editor.setUndoAndRedoCapacity(Integer.parseInt(stats.get(stackSize)));
+			if(stats.containsKey(memoryBudget)) MemoryAccounting.setBudgetMegabytes(Integer.parseInt(stats.get(memoryBudget)));
+			if(stats.containsKey(unloadAfter)) IndexTexture.residency().evictAfterMillis(Long.parseLong(stats.get(unloadAfter)));
+			if(stats.containsKey(artboardVRAM)) IndexTexture.residency().budgetBytes(Long.parseLong(stats.get(artboardVRAM)));
+			if(stats.containsKey(compressUnloaded)) IndexTexture.compressEvicted = Boolean.parseBoolean(stats.get(compressUnloaded));
 			if(stats.containsKey(wasFullScreen)) {
 
 				if(Boolean.parseBoolean(stats.get(wasFullScreen))) engine.toggleFullScreen();
@@ -1,7 +1,7 @@
 package cs.csss.misc.utils;
 
-import static org.lwjgl.system.MemoryUtil.memAlloc;
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static cs.csss.engine.MemoryAccounting.memAlloc;
+import static cs.csss.engine.MemoryAccounting.memFree;
 
 import java.nio.ByteBuffer;
 
@@ -28,7 +28,7 @@ public class DefaultArtboardGraphic extends SCGraphic implements SCShutDown {
 		this.channelsPerPixel = channelsPerPixel;
 		this.bytesPerChannel = bytesPerChannel;
 		
-		imageData = memAlloc(width * height * channelsPerPixel * bytesPerChannel);
+		imageData = memAlloc("image/graphic" , width * height * channelsPerPixel * bytesPerChannel);
 		
 		
 		
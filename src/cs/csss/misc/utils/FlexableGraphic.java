@@ -1,7 +1,7 @@
 package cs.csss.misc.utils;
 
-import static org.lwjgl.system.MemoryUtil.memAlloc;
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static cs.csss.engine.MemoryAccounting.memAlloc;
+import static cs.csss.engine.MemoryAccounting.memFree;
 
 import java.nio.ByteBuffer;
 
@@ -53,7 +53,7 @@ public class FlexableGraphic extends SCGraphic implements SCShutDown {
 		this.bytesPerChannel = bytesPerChannel;
 		this.channelsPerPixel = channelsPerPixel;
 		
-		imageData = memAlloc(width * height * (channelsPerPixel * bytesPerChannel));
+		imageData = memAlloc("image/graphic" , width * height * (channelsPerPixel * bytesPerChannel));
 		
 		initializeImagePointer(defaultChannelValues);
 		
@@ -70,7 +70,7 @@ public class FlexableGraphic extends SCGraphic implements SCShutDown {
 		this.bytesPerChannel = 1;
 		this.channelsPerPixel = channelsPerPixel;
 
-		imageData = memAlloc(width * height * (channelsPerPixel * bytesPerChannel));
+		imageData = memAlloc("image/graphic" , width * height * (channelsPerPixel * bytesPerChannel));
 		Number[] defaultValues = new Number[channelsPerPixel];
 		for(int i = 0 ; i < channelsPerPixel ; i++) defaultValues[i] = values.i(i);
 		initializeImagePointer(defaultValues);
@@ -5,6 +5,8 @@ import static org.lwjgl.opengl.GL11C.glEnable;
 import static org.lwjgl.opengl.GL30C.glScissor;
 import static org.lwjgl.opengl.GL11C.glDisable;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Vector;
 import java.util.function.Consumer;
@@ -49,6 +51,12 @@ public class Animation {
 	private String name;
 	final Vector<AnimationFrame> frames = new Vector<>();
 	
+	/**
+	 * Number of frames of this animation each artboard is in, kept up to date by every method adding or removing frames so membership queries
+	 * don't scan the frames. Accessed while synchronized on {@link #frames}.
+	 */
+	private final Map<Artboard , Integer> frameCounts = new HashMap<>();
+	
 	//used when the animation runs based on time
 	private FloatReference swapTime = new FloatReference(0);
 	private SCTimer swapTimer = new SCTimer();
@@ -94,7 +102,7 @@ public class Animation {
 
 	int appendArtboard(final Artboard artboard) {
 		
-		frames.add(newFrame(artboard));		
+		addFrame(frames.size() , newFrame(artboard));		
 		//compute the x position the artboard should move to		
 		return (frames.size() - 1) * frameWidth();
 		
@@ -109,8 +117,8 @@ public class Animation {
 	void replaceFrame(int index , Artboard artboard) {
 	
 		validateIndex(index);
-		frames.remove(index);
-		frames.add(newFrame(artboard));
+		removeFrameAt(index);
+		addFrame(frames.size() , newFrame(artboard));
 		
 	}			
 	
@@ -124,7 +132,7 @@ public class Animation {
 	public void putArtboard(final Artboard artboard, final int index) {
 		
 		validateIndex(index);		
-		frames.add(index, newFrame(artboard));
+		addFrame(index , newFrame(artboard));
 		
 	}
 	
@@ -140,7 +148,7 @@ public class Animation {
 		
 		Objects.requireNonNull(frame);
 		validateIndex(index);
-		frames.add(index , frame);
+		addFrame(index , frame);
 		
 	}
 	
@@ -177,6 +185,7 @@ public class Animation {
 	 */
 	public AnimationFrame getFrameOf(Artboard artboard) {
 		
+		if(!hasArtboard(artboard)) return null;
 		for(AnimationFrame f : frames) if(f.board == artboard) return f;
 		return null;
 	}
@@ -185,7 +194,7 @@ public class Animation {
 		
 		validateIndex(index);
 		currentFrame = 0;
-		return frames.remove(index);
+		return removeFrameAt(index);
 		
 	}
 	
@@ -528,7 +537,11 @@ public class Animation {
 	 */
 	public boolean hasArtboard(Artboard artboard) {
 		
-		return frames.stream().anyMatch(frameTime -> frameTime.board == artboard);
+		synchronized(frames) {
+			
+			return frameCounts.containsKey(artboard);
+			
+		}
 		
 	}
 
@@ -705,11 +718,35 @@ public class Animation {
 	 */
 	public int indexOf(Artboard artboard) {
 
+		if(!hasArtboard(artboard)) return -1;
 		for(int i = 0 ; i < frames.size() ; i++) if(frames.get(i).board == artboard) return i;
 		return -1;
 		
 	}
 	
+	private void addFrame(int index , AnimationFrame frame) {
+		
+		synchronized(frames) {
+			
+			frames.add(index , frame);
+			frameCounts.merge(frame.board , 1 , Integer::sum);
+			
+		}
+		
+	}
+	
+	private AnimationFrame removeFrameAt(int index) {
+		
+		synchronized(frames) {
+			
+			AnimationFrame removed = frames.remove(index);
+			frameCounts.computeIfPresent(removed.board , (artboard , count) -> count == 1 ? null : count - 1);
+			return removed;
+			
+		}
+		
+	}
+	
 	private AnimationFrame newFrame(Artboard frame) {
 		
 		return new AnimationFrame(frame , swapOnUpdates , swapTime , this::defaultSwapType);
@@ -4,15 +4,19 @@ import static sc.core.utils.SCChecks.alive;
 
 import static sc.core.graphics.SCRendererConstants.*;
 
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static cs.csss.engine.MemoryAccounting.memAlloc;
+import static cs.csss.engine.MemoryAccounting.memFree;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 import org.joml.Random;
@@ -27,12 +31,14 @@ import cs.csss.editor.shape.Rectangle;
 import cs.csss.editor.shape.Shape;
 import cs.csss.engine.ChannelBuffer;
 import cs.csss.engine.ColorPixel;
+import cs.csss.engine.Lane;
 import cs.csss.engine.Logging;
 import cs.csss.engine.LookupPixel;
 import cs.csss.engine.Pixel;
 import cs.csss.engine.VAOPosition;
 import cs.csss.project.ArtboardPalette.PalettePixel;
 import cs.csss.project.utils.Artboards;
+import cs.csss.project.utils.PixelRegions;
 import cs.csss.project.utils.RegionIterator;
 import cs.csss.project.utils.RegionPosition;
 import cs.csss.project.utils.StackOrHeapAllocation;
@@ -243,6 +249,11 @@ public class Artboard implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Width and height of the tiles this artboard recomposites when the visibility or ranks of layers change. 
+	 */
+	public static final int RECOMPOSITE_TILE_SIZE = 64;
+	
 	private SCVAO vao = new SCVAO();
 	
 	private IndexTexture indexTexture;	
@@ -261,6 +272,11 @@ public class Artboard implements SCShutDown {
 	
 	private Layer activeLayer;
 	
+	/**
+	 * Grid this artboard is indexed in, if any, kept up to date by {@link #translate(int, int)}.
+	 */
+	ArtboardGrid grid;
+	
 	/**
 	 * Name of this artboard.
 	 */
@@ -363,6 +379,7 @@ public class Artboard implements SCShutDown {
 	@RenderThreadOnly public void translate(int x , int y) {
 		
 		positions.translate(x, y);		
+		if(grid != null) grid.update(this);
 		if(!isShallowCopy) forAllLayers(layer -> layer.shapesStream().forEach(shape -> shape.translate(x, y)));
 				
 	} 
@@ -609,7 +626,7 @@ public class Artboard implements SCShutDown {
 		}	
 		
 		LookupPixel blendedLookup = putInPalette(result);
-		indexTexture.putSubImage(x, y, 1, 1, blendedLookup);
+		indexTexture().putSubImage(x, y, 1, 1, blendedLookup);
 		
 	}
 
@@ -643,7 +660,7 @@ public class Artboard implements SCShutDown {
 			//canBulkWrite will be true if there is no layer above the current one modifying any of the pixels of the region.
 			boolean canBulkWrite = !bulkIsUpperRankLayerModifying(activeLayerIndex , leftX , bottomY , width , height);
 			
-			if(canBulkWrite) indexTexture.putSubImage(leftX , bottomY , width , height , paletteLookup);
+			if(canBulkWrite) indexTexture().putSubImage(leftX , bottomY , width , height , paletteLookup);
 			else Artboards.region(leftX, bottomY, width, height).forEachRemaining(i -> putColorInImage3Internal(i.col(), i.row(), asColor));
 			
 		}
@@ -783,7 +800,7 @@ public class Artboard implements SCShutDown {
 			//canBulkWrite will be true if there is no layer above the current one modifying any of the pixels of the region.
 			boolean canBulkWrite = !bulkIsUpperRankLayerModifying(activeLayerIndex , xIndex , yIndex , width , height);
 			
-			if(canBulkWrite) indexTexture.putSubImage(xIndex , yIndex , width , height , values);
+			if(canBulkWrite) indexTexture().putSubImage(xIndex , yIndex , width , height , values);
 			else for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) {
 				
 				boolean isUpperLayerModifying = isUpperRankLayerModifying(activeLayerIndex , xIndex + col , yIndex + row);
@@ -791,13 +808,13 @@ public class Artboard implements SCShutDown {
 					
 					//determine if upper layers 
 					
-					indexTexture.putSubImage(xIndex + col , yIndex + row , 1 , 1 , values);
+					indexTexture().putSubImage(xIndex + col , yIndex + row , 1 , 1 , values);
 					
 				}
 				
 			}
 			
-		} else indexTexture.putSubImage(xIndex , yIndex , width , height , values);
+		} else indexTexture().putSubImage(xIndex , yIndex , width , height , values);
 				
 	}
 	
@@ -836,9 +853,9 @@ public class Artboard implements SCShutDown {
 								
 			}
 			
-			indexTexture.putSubImage(leftX, bottomY, width, height, copy);
+			indexTexture().putSubImage(leftX, bottomY, width, height, copy);
 			
-		} else indexTexture.putSubImage(leftX, bottomY, width, height, values);
+		} else indexTexture().putSubImage(leftX, bottomY, width, height, values);
 
 	}
 	
@@ -947,7 +964,7 @@ public class Artboard implements SCShutDown {
 		
 		try(MemoryStack stack = MemoryStack.stackPush()) {
 
-			StackOrHeapAllocation allocation = Artboards.stackOrHeapBuffer(stack, width * IndexTexture.pixelSizeBytes);
+			StackOrHeapAllocation allocation = Artboards.stackOrHeapBuffer(stack, width * height * IndexTexture.pixelSizeBytes);
 			ByteBuffer buffer = allocation.buffer();
 		
 			for(int row = 0 ; row < height ; row++) {
@@ -981,10 +998,10 @@ public class Artboard implements SCShutDown {
 										
 				}
 				
-				indexTexture.putSubImage(leftX, artboardY , width, 1 , buffer.flip());
-
 			}
 		
+			//one upload for the whole region rather than one per row
+			indexTexture().putRegion(leftX , bottomY , width , height , buffer.flip());
 			allocation.free();
 			
 		}
@@ -1026,7 +1043,7 @@ public class Artboard implements SCShutDown {
 		ColorPixel pixel
 	) {
 		
-		indexTexture.putSubImage(xIndex, yIndex, width, height, palette.putOrGetColors(pixel));
+		indexTexture().putSubImage(xIndex, yIndex, width, height, palette.putOrGetColors(pixel));
 		
 	}
 	
@@ -1100,7 +1117,7 @@ public class Artboard implements SCShutDown {
 			ByteBuffer buffer = allocation.buffer();
 			
 //			storePixelRegionInBuffer(pixels, buffer, xIndex, yIndex, width, height);			
-			indexTexture.putSubImage(xIndex, yIndex, width, height, pixels);
+			indexTexture().putSubImage(xIndex, yIndex, width, height, pixels);
 			
 			if(!allocation.stackAllocated()) memFree(buffer);
 						
@@ -1167,7 +1184,7 @@ public class Artboard implements SCShutDown {
 				
 			} else asLookup.buffer(buffer);
 			
-			indexTexture.putSubImage(leftX, bottomY, width, height, buffer.flip());
+			indexTexture().putSubImage(leftX, bottomY, width, height, buffer.flip());
 			
 			allocation.free();
 			
@@ -1250,7 +1267,7 @@ public class Artboard implements SCShutDown {
 	 */
 	@RenderThreadOnly public IndexPixel[][] getRegionOfIndexPixels(int xIndex , int yIndex , int width , int height) {
 		
-		ByteBuffer texelBuffer = indexTexture.texelBufferWithReformat(width , height , xIndex , yIndex);		
+		ByteBuffer texelBuffer = indexTexture().texelBufferWithReformat(width , height , xIndex , yIndex);		
 		return getRegionOfIndexPixelsInternal(texelBuffer, xIndex, yIndex, width, height);
 		
 	}
@@ -1335,7 +1352,7 @@ public class Artboard implements SCShutDown {
 	 */
 	@RenderThreadOnly public IndexPixel[][] getRegionOfIndexPixelsAlternate(int xIndex , int yIndex , int width , int height){
 		
-		ByteBuffer texelBuffer = indexTexture.texelBuffer(xIndex, yIndex, width, height);
+		ByteBuffer texelBuffer = indexTexture().texelBuffer(xIndex, yIndex, width, height);
 		if(texelBuffer == null) return null;
 		return getRegionOfIndexPixelsInternal(texelBuffer, xIndex, yIndex, width, height);
 		
@@ -1484,11 +1501,12 @@ public class Artboard implements SCShutDown {
 	 * Returns a read-only {@link cs.csss.annotation.FreeAfterUse @FreeAfterUse} {@code ByteBuffer} containing the texel data of the index
 	 * texture.
 	 *  
-	 * @return Read-only {@code @FreeAfterUse ByteBuffer} containing the texel data of the index texture.
+	 * @return Read-only {@code @FreeAfterUse ByteBuffer} containing the texel data of the index texture, to be freed by 
+	 * 		   {@link cs.csss.engine.MemoryAccounting#memFree(java.nio.Buffer) MemoryAccounting.memFree}.
 	 */
 	@RenderThreadOnly public ByteBuffer indexTextureTexelBuffer() {
 		
-		return indexTexture.allTexelData().asReadOnlyBuffer();
+		return indexTexture().allTexelData().asReadOnlyBuffer();
 		
 	}
 	
@@ -1500,11 +1518,12 @@ public class Artboard implements SCShutDown {
 	 * @param y bottom y index of the region in texel coordinates 
 	 * @param width width of the region in texel coordinates
 	 * @param height height of the region in texel coordinates
-	 * @return Read-only {@code @FreeAfterUse ByteBuffer} containing the texel data of the index texture.
+	 * @return Read-only {@code @FreeAfterUse ByteBuffer} containing the texel data of the index texture, to be freed by 
+	 * 		   {@link cs.csss.engine.MemoryAccounting#memFree(java.nio.Buffer) MemoryAccounting.memFree}.
 	 */
 	@RenderThreadOnly public ByteBuffer indexTextureTexelBufferFormatted(int x , int y , int width , int height) {
 		
-		return indexTexture.texelBufferWithReformat(width , height , x , y).asReadOnlyBuffer();
+		return indexTexture().texelBufferWithReformat(width , height , x , y).asReadOnlyBuffer();
 		
 	}
 	
@@ -1517,11 +1536,12 @@ public class Artboard implements SCShutDown {
 	 * @param y bottom y index of the region in texel coordinates 
 	 * @param width width of the region in texel coordinates
 	 * @param height height of the region in texel coordinates
-	 * @return Read-only {@code @FreeAfterUse ByteBuffer} containing the texel data of the index texture.
+	 * @return Read-only {@code @FreeAfterUse ByteBuffer} containing the texel data of the index texture, to be freed by 
+	 * 		   {@link cs.csss.engine.MemoryAccounting#memFree(java.nio.Buffer) MemoryAccounting.memFree}.
 	 */
 	@RenderThreadOnly public ByteBuffer indexTextureTexelBufferUnformatted(int x , int y , int width , int height) {
 		
-		ByteBuffer texels = indexTexture.texelBuffer(x, y, width, height);
+		ByteBuffer texels = indexTexture().texelBuffer(x, y, width, height);
 		return texels != null ? texels.asReadOnlyBuffer() : null;
 		
 	}
@@ -2140,19 +2160,231 @@ public class Artboard implements SCShutDown {
 	 */
 	@RenderThreadOnly public void showAllVisualLayers() {
 		
-		for(int i = visualLayers.size() - 1 ; i  >= 0 ; i--) visualLayers.get(i).show(this);
+		forEachVisualLayer(layer -> layer.hiding(false));
+		recompositeTiles(allTiles());
+		for(int i = visualLayers.size() - 1 ; i  >= 0 ; i--) { 
+			
+			VisualLayer x = visualLayers.get(i);
+			x.forEachLine(line -> line.reset(this , x));
+			
+		}
 		
 	}
 	
 	/**
-	 * Invokes {@link cs.csss.project.VisualLayer#show(Artboard) show} on all layers of this artboard that are not marked as hidden.
+	 * Shows all layers of this artboard that are not marked as hidden. This has the same effect as invoking 
+	 * {@link cs.csss.project.VisualLayer#show(Artboard) show} on each of them from the lowest rank to the highest, but the tiles the layers 
+	 * modify are recomposited once.
 	 */
 	@RenderThreadOnly public void showAllNonHiddenVisualLayers() {
 		
+		BitSet tiles = new BitSet();
+		for(VisualLayer x : visualLayers) if(!x.hiding) tiles.or(tilesModifiedBy(x));
+		recompositeTiles(tiles);
+		
 		for(int i = visualLayers.size() - 1 ; i  >= 0 ; i--) { 
 			
 			VisualLayer x = visualLayers.get(i);
-			if(!x.hiding) x.show(this);
+			if(!x.hiding) x.forEachLine(line -> line.reset(this , x));
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of tiles along the x axis of this artboard. 
+	 * 
+	 * @return Number of tiles along the x axis.
+	 * @see #RECOMPOSITE_TILE_SIZE
+	 */
+	public int horizontalTiles() {
+		
+		return (width() + RECOMPOSITE_TILE_SIZE - 1) / RECOMPOSITE_TILE_SIZE;
+		
+	}
+
+	/**
+	 * Returns the number of tiles along the y axis of this artboard. 
+	 * 
+	 * @return Number of tiles along the y axis.
+	 * @see #RECOMPOSITE_TILE_SIZE
+	 */
+	public int verticalTiles() {
+		
+		return (height() + RECOMPOSITE_TILE_SIZE - 1) / RECOMPOSITE_TILE_SIZE;
+		
+	}
+	
+	/**
+	 * Returns a set of every tile of this artboard. Tiles are indexed by {@code row * horizontalTiles() + column}.
+	 * 
+	 * @return Set of all tiles of this artboard.
+	 */
+	public BitSet allTiles() {
+		
+		BitSet tiles = new BitSet();
+		tiles.set(0 , horizontalTiles() * verticalTiles());
+		return tiles;
+		
+	}
+	
+	/**
+	 * Returns the set of tiles {@code layer} has at least one modification in. Tiles are indexed by 
+	 * {@code row * horizontalTiles() + column}.
+	 * 
+	 * @param layer a layer of this artboard
+	 * @return Set of tiles {@code layer} modifies.
+	 * @throws NullPointerException if {@code layer} is <code>null</code>.
+	 */
+	public BitSet tilesModifiedBy(Layer layer) {
+		
+		BitSet tiles = new BitSet();
+		int horizontalTiles = horizontalTiles();
+		layer.forEachModification(pixel -> tiles.set(
+			(pixel.textureY / RECOMPOSITE_TILE_SIZE) * horizontalTiles + (pixel.textureX / RECOMPOSITE_TILE_SIZE)
+		));
+		
+		return tiles;
+		
+	}
+	
+	/**
+	 * Recomposites the given tiles of the index texture from the visual layers of this artboard. Each position of a tile receives the 
+	 * modification of the highest ranking layer that is not hidden and modifies that position, or the background if no such layer exists. 
+	 * Tiles are composited in parallel, and each tile is written to the index texture in one upload.
+	 * 
+	 * @param tiles set of tiles, indexed by {@code row * horizontalTiles() + column}
+	 * @throws NullPointerException if {@code tiles} is <code>null</code>.
+	 */
+	@RenderThreadOnly public void recompositeTiles(BitSet tiles) {
+		
+		int[] tileIndices = tiles.stream().toArray();
+		if(tileIndices.length == 0) return;
+		
+		int horizontalTiles = horizontalTiles();
+		ByteBuffer[] composited = new ByteBuffer[tileIndices.length];
+		int tasks = Math.min(tileIndices.length , Runtime.getRuntime().availableProcessors());
+		Future<?>[] futures = new Future<?>[tasks];
+		
+		for(int i = 0 ; i < tasks ; i++) {
+			
+			int task = i;
+			futures[i] = Lane.COMPUTE.submit(() -> {
+				
+				for(int j = task ; j < tileIndices.length ; j += tasks) {
+					
+					int leftX = (tileIndices[j] % horizontalTiles) * RECOMPOSITE_TILE_SIZE;
+					int bottomY = (tileIndices[j] / horizontalTiles) * RECOMPOSITE_TILE_SIZE;
+					int width = Math.min(RECOMPOSITE_TILE_SIZE , width() - leftX);
+					int height = Math.min(RECOMPOSITE_TILE_SIZE , height() - bottomY);
+					composited[j] = memAlloc("artboard/composite" , width * height * IndexTexture.pixelSizeBytes);
+					compositeInto(visualLayers , composited[j] , leftX , bottomY , width , height);
+					composited[j].flip();
+					
+				}
+				
+			});
+			
+		}
+		
+		try {
+			
+			for(Future<?> x : futures) x.get();
+			
+			for(int j = 0 ; j < tileIndices.length ; j++) {
+				
+				int leftX = (tileIndices[j] % horizontalTiles) * RECOMPOSITE_TILE_SIZE;
+				int bottomY = (tileIndices[j] / horizontalTiles) * RECOMPOSITE_TILE_SIZE;
+				int width = Math.min(RECOMPOSITE_TILE_SIZE , width() - leftX);
+				int height = Math.min(RECOMPOSITE_TILE_SIZE , height() - bottomY);
+				indexTexture().putRegion(leftX , bottomY , width , height , composited[j]);
+				
+			}
+			
+		} catch (InterruptedException | ExecutionException e) {
+			
+			throw new IllegalStateException(e);
+			
+		} finally {
+			
+			for(ByteBuffer x : composited) if(x != null) memFree(x);
+			
+		}
+		
+	}
+	
+	/**
+	 * Recomposites the whole index texture and writes it in one upload. If the active layer is visual, the image is composited from the 
+	 * visual layers as in {@link #recompositeTiles(BitSet)}, otherwise it is composited from the active nonvisual layer alone. Bands of rows
+	 * are composited in parallel.
+	 */
+	@RenderThreadOnly public void recompositeAll() {
+		
+		int width = width() , height = height();
+		List<? extends Layer> layers = isActiveLayerVisual ? visualLayers : List.of(activeLayer());
+		ByteBuffer composited = memAlloc("artboard/composite" , width * height * IndexTexture.pixelSizeBytes);
+		
+		try {
+			
+			PixelRegions.forEachBandParallel(0 , height , (band , firstRow , endRow) -> {
+				
+				int rows = endRow - firstRow;
+				ByteBuffer destination = composited.slice(
+					firstRow * width * IndexTexture.pixelSizeBytes , 
+					rows * width * IndexTexture.pixelSizeBytes
+				);
+				
+				compositeInto(layers , destination , 0 , firstRow , width , rows);
+				
+			});
+			
+			indexTexture().putRegion(0 , 0 , width , height , composited);
+			
+		} finally {
+			
+			memFree(composited);
+			
+		}
+		
+	}
+	
+	/**
+	 * Writes the lookups of the composited image of the given region into {@code destination}, row by row from the bottom left. 
+	 * 
+	 * @param layers layers to composite, from highest to lowest ranking
+	 * @param destination buffer to write lookups to
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 */
+	static void compositeInto(List<? extends Layer> layers , ByteBuffer destination , int leftX , int bottomY , int width , int height) {
+		
+		int numberLayers = layers.size();
+		for(int row = bottomY ; row < bottomY + height ; row++) for(int col = leftX ; col < leftX + width ; col++) {
+			
+			LayerPixel pixel = null;
+			for(int i = 0 ; i < numberLayers ; i++) {
+				
+				Layer x = layers.get(i);
+				if(x.isModifying(col , row)) {
+					
+					pixel = x.get(col , row);
+					break;
+					
+				}
+				
+			}
+			
+			if(pixel != null) destination.put(pixel.lookupX()).put(pixel.lookupY());
+			else {
+				
+				//same as backgroundColorIndexForPixelIndex without allocating
+				boolean darker = ((col / IndexTexture.backgroundWidth) & 1) == 1;
+				if(((row / IndexTexture.backgroundHeight) & 1) == 0) darker = !darker;
+				destination.put(darker ? (byte)0 : (byte)1).put((byte)0);
+				
+			}
 			
 		}
 		
@@ -2320,7 +2552,7 @@ public class Artboard implements SCShutDown {
 	 */
 	@RenderThreadOnly public void setToCheckeredBackground() {
 		
-		indexTexture.setCheckerBackground();
+		indexTexture().setCheckerBackground();
 		
 	}
 	
@@ -2915,12 +3147,30 @@ public class Artboard implements SCShutDown {
     	
     }
     
-	IndexTexture indexTexture() {
+	/**
+	 * Returns the index texture of this artboard, first uploading it to the GPU if it was evicted. Every use of the index texture which 
+	 * touches the GPU goes through this method, which also keeps the texture from being evicted while it is in use.
+	 * 
+	 * @return The resident index texture of this artboard.
+	 */
+	@RenderThreadOnly IndexTexture indexTexture() {
 		
+		indexTexture.makeResident();
 		return indexTexture;
 		
 	}
 	
+	/**
+	 * Returns whether the index texture of this artboard is on the GPU. 
+	 * 
+	 * @return Whether the index texture of this artboard is resident.
+	 */
+	boolean isIndexTextureResident() {
+		
+		return indexTexture.isResident();
+		
+	}
+	
 	ArtboardPalette activeLayersPalette() {
 		
 		return activeLayer().palette;
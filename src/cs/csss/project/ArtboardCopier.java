@@ -1,9 +1,11 @@
 package cs.csss.project;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
@@ -23,6 +25,10 @@ import java.util.function.Consumer;
  * 	is removed from the program. When a source artboard is removed from an animation and there exists shallow copies of it in other 
  * 	animations, the first shallow copy found is removed from the program and the source is put in its place.
  * </p>
+ * <p>
+ * 	Copy entries are indexed both by their source and by each of their copies, so whether an artboard is a source or a copy, and the source of
+ * 	a copy, are found in constant time.
+ * </p>
  * 
  * @author Chris Brown
  *
@@ -30,10 +36,11 @@ import java.util.function.Consumer;
 class ArtboardCopier {
 
 	/**
-	 * This data structure is responsible for tracking artboards that have been used to make shallow copies and from which artboard they 
-	 * originate.
+	 * These data structures are responsible for tracking artboards that have been used to make shallow copies and from which artboard they 
+	 * originate. Artboards do not override {@code equals}, so these maps compare artboards by identity.
 	 */
-	private ArrayList<CopyEntry> copyEntries = new ArrayList<>();
+	private final Map<Artboard , CopyEntry> entriesBySource = new LinkedHashMap<>();
+	private final Map<Artboard , CopyEntry> entriesByCopy = new HashMap<>();
 	
 	ArtboardCopier() {}
 	
@@ -45,8 +52,7 @@ class ArtboardCopier {
 	 */
 	private Optional<CopyEntry> hasSource(Artboard possibleSource) {
 		
-		for(CopyEntry x : copyEntries) if(x.source == possibleSource) return Optional.of(x);
-		return Optional.empty();
+		return Optional.ofNullable(entriesBySource.get(possibleSource));
 		
 	}
 	
@@ -68,10 +74,9 @@ class ArtboardCopier {
 		if(isCopy(source)) source = getSourceOf(source);
 		
 		Artboard newArtboard = Artboard.shallowCopy(source.name , source);
-		Optional<CopyEntry> hasSourceResult = hasSource(source); 
-		
-		if(hasSourceResult.isPresent()) hasSourceResult.get().add(newArtboard);
-		else copyEntries.add(new CopyEntry(source , newArtboard));
+		CopyEntry entry = entriesBySource.computeIfAbsent(source , CopyEntry::new);
+		entry.add(newArtboard);
+		entriesByCopy.put(newArtboard , entry);
 		
 		return newArtboard;
 		
@@ -85,8 +90,7 @@ class ArtboardCopier {
 	 */
 	boolean isCopy(Artboard isCopy) {
 		
-		for(CopyEntry x : copyEntries) if(x.contains(isCopy)) return true;			
-		return false;
+		return entriesByCopy.containsKey(isCopy);
 		
 	}
 		
@@ -98,10 +102,10 @@ class ArtboardCopier {
 	 */	
 	void removeCopy(Artboard copy) {
 		
-		Optional<CopyEntry> contained = copyEntries.stream().filter(copyEntry -> copyEntry.contains(copy)).findFirst();
-		CopyEntry containing = contained.orElseThrow();
+		CopyEntry containing = entriesByCopy.remove(copy);
+		if(containing == null) throw new NoSuchElementException(copy.name + " is not a shallow copy.");
 		containing.remove(copy);
-		if(containing.copies().size() == 0) copyEntries.remove(containing);
+		if(containing.copies().size() == 0) entriesBySource.remove(containing.source);
 		
 	}
 	
@@ -113,7 +117,8 @@ class ArtboardCopier {
 	 */
 	Artboard getSourceOf(Artboard shallowCopy) {
 		
-		for(CopyEntry x : copyEntries) if(x.contains(shallowCopy)) return x.source;		
+		CopyEntry entry = entriesByCopy.get(shallowCopy);
+		if(entry != null) return entry.source;		
 		throw new IllegalArgumentException(shallowCopy.name + " is not a valid shallow copy");
 		
 	}
@@ -130,6 +135,17 @@ class ArtboardCopier {
 		
 	}
 	
+	/**
+	 * Returns the number of shallow copies of all sources.
+	 * 
+	 * @return Number of shallow copies.
+	 */
+	int numberCopies() {
+		
+		return entriesByCopy.size();
+		
+	}
+	
 	/**
 	 * Given some source, {@code callback} is invoked on each copy of that source.
 	 * 
@@ -145,7 +161,7 @@ class ArtboardCopier {
 	
 	void forEachCopy(Consumer<Artboard> callback) {
 		
-		copyEntries.forEach(entry -> {
+		entriesBySource.values().forEach(entry -> {
 			
 			entry.copies.forEach(callback);
 			
@@ -155,7 +171,8 @@ class ArtboardCopier {
 	
 	Iterator<Artboard> copiesOf(Artboard source) {
 		
-		for(CopyEntry x : copyEntries) if(x.source == source) return x.copies.iterator();
+		CopyEntry entry = entriesBySource.get(source);
+		if(entry != null) return entry.copies.iterator();
 		throw new IllegalArgumentException(source + " is not a source artboard.");
 		
 	}
@@ -177,22 +194,14 @@ class ArtboardCopier {
 		if(copies.size() == 0) throw new IllegalArgumentException("Copies list is empty.");
 		assert !copies.stream().anyMatch(artboard -> !artboard.isShallowCopy()) : "Contains nonshallow copied artboards.";
 		
-		//try to find source as a source artboard
-		for(CopyEntry x : copyEntries) {
+		//find source as a source artboard or make a new copy entry
+		CopyEntry copyEntry = entriesBySource.computeIfAbsent(source , CopyEntry::new);
+		for(Artboard a : copies) if(!copyEntry.contains(a)) {
 			
-			if(x.source == source) {
-				
-				for(Artboard a : copies) if(!x.copies.contains(a)) x.add(a);
-				return;
+			copyEntry.add(a);
+			entriesByCopy.put(a , copyEntry);
 				
 			}
-			
-		}
-		
-		//make a new copy entry
-		CopyEntry copyEntry = new CopyEntry(source);
-		copyEntry.copies.addAll(copies);
-		copyEntries.add(copyEntry);
 		
 	}
 	
@@ -201,18 +210,11 @@ class ArtboardCopier {
 	 * Record representing instances of sources and the copies they spawned.
 	 *
 	 */
-	private record CopyEntry(Artboard source , LinkedList<Artboard> copies) {
+	private record CopyEntry(Artboard source , LinkedHashSet<Artboard> copies) {
 		
 		CopyEntry(Artboard source) {
 			
-			this(source , new LinkedList<>());
-			
-		}
-		
-		CopyEntry(Artboard source , Artboard firstCopy) {
-			
-			this(source);
-			add(firstCopy);
+			this(source , new LinkedHashSet<>());
 			
 		}
 		
@@ -234,7 +236,9 @@ class ArtboardCopier {
 		 */
 		void remove(Artboard artboard) {
 			
-			assert copies.remove(artboard) : "Artboard not found in this list of copies.";
+			//removing inside the assert would skip the removal when assertions are disabled
+			boolean removed = copies.remove(artboard);
+			assert removed : "Artboard not found in this list of copies.";
 			
 		}
 		
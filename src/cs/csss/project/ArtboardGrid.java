@@ -0,0 +1,106 @@
+package cs.csss.project;
+
+import java.util.List;
+
+/**
+ * Uniform grid over the world space positions of artboards. Each artboard is listed in every cell of {@link #CELL_SIZE} world units its
+ * bounds overlap, so finding the artboards under a point or within a region only visits the artboards near it rather than every artboard
+ * of the project.
+ * <p>
+ * 	Artboards update their cells themselves when they are moved. An artboard can be in at most one grid. All methods synchronize on the
+ * 	grid, so queries may be made from any thread.
+ * </p>
+ */
+public final class ArtboardGrid {
+	
+	/**
+	 * Width and height in world units of the cells of the grid.
+	 */
+	public static final int CELL_SIZE = 128;
+	
+	private final CellGrid<Artboard> cells = new CellGrid<>(CELL_SIZE);
+	
+	/**
+	 * Creates an empty grid.
+	 */
+	public ArtboardGrid() {}
+	
+	/**
+	 * Adds {@code artboard} to this grid. Does nothing if it is already in this grid.
+	 *
+	 * @param artboard an artboard
+	 * @throws IllegalStateException if {@code artboard} is in another grid.
+	 */
+	public synchronized void add(Artboard artboard) {
+		
+		if(artboard.grid == this) return;
+		if(artboard.grid != null) throw new IllegalStateException(artboard.name + " is already in a grid.");
+		
+		cells.put(artboard , artboard.leftX() , artboard.bottomY() , artboard.rightX() , artboard.topY());
+		artboard.grid = this;
+		
+	}
+	
+	/**
+	 * Removes {@code artboard} from this grid. Does nothing if it is not in this grid.
+	 *
+	 * @param artboard an artboard
+	 */
+	public synchronized void remove(Artboard artboard) {
+		
+		if(cells.remove(artboard)) artboard.grid = null;
+		
+	}
+	
+	/**
+	 * Moves {@code artboard} to the cells its current bounds overlap. Called by artboards when they move.
+	 */
+	synchronized void update(Artboard artboard) {
+		
+		if(cells.contains(artboard)) cells.put(artboard , artboard.leftX() , artboard.bottomY() , artboard.rightX() , artboard.topY());
+		
+	}
+	
+	/**
+	 * Returns an artboard whose bounds contain the given world coordinates, or <code>null</code> if none do.
+	 *
+	 * @param worldX x world coordinate
+	 * @param worldY y world coordinate
+	 * @return Artboard containing the given point, or <code>null</code>.
+	 */
+	public synchronized Artboard pick(float worldX , float worldY) {
+		
+		for(Artboard x : cells.cellAt(worldX , worldY)) if(x.isCursorInBounds(worldX , worldY)) return x;
+		return null;
+		
+	}
+	
+	/**
+	 * Clears {@code results} and fills it with every artboard of this grid whose bounds overlap the given region. Each artboard is added once.
+	 * Artboards whose cells overlap the region but whose bounds do not may be included, so callers testing for collisions must still test
+	 * the bounds of the results.
+	 *
+	 * @param leftX left world coordinate of the region
+	 * @param bottomY bottom world coordinate of the region
+	 * @param rightX right world coordinate of the region
+	 * @param topY top world coordinate of the region
+	 * @param results list to fill with the artboards near the region
+	 */
+	public synchronized void query(float leftX , float bottomY , float rightX , float topY , List<Artboard> results) {
+		
+		cells.query(leftX , bottomY , rightX , topY , results);
+		
+	}
+	
+	/**
+	 * Returns the number of artboards in this grid.
+	 *
+	 * @return Number of artboards in this grid.
+	 */
+	public synchronized int size() {
+		
+		return cells.size();
+		
+	}
+	
+}
@@ -41,6 +41,7 @@ import cs.csss.engine.Pixel;
 import cs.csss.engine.TransformPosition;
 import cs.csss.misc.files.CSFolder;
 import cs.csss.misc.utils.FlexableGraphic;
+import cs.csss.utils.IntIntHashMap;
 import sc.core.graphics.SCTexture;
 import sc.core.graphics.SCVAO;
 import sc.core.graphics.utils.SCVertexBufferBuilder;
@@ -75,6 +76,8 @@ import sc.core.graphics.utils.SCVertexBufferBuilder;
 	private SCVAO vao;
 	private TransformPosition transform;
 	
+	private final PaletteUsage usage = new PaletteUsage();
+	
 	/**
 	 * Creates an artboard palette.
 	 * 
@@ -151,13 +154,7 @@ import sc.core.graphics.utils.SCVertexBufferBuilder;
 			
 		}
 		
-		if(currentRow == paletteHeight) {
-			
-			syserrln("Too many colors have been added to this palette, resetting palette.");
-			currentRow = 0;
-			currentCol = 3;
-			
-		}
+		resetIfFull();
 		
 //		if(currentRow == paletteHeight) {
 //
@@ -170,6 +167,18 @@ import sc.core.graphics.utils.SCVertexBufferBuilder;
 		
 	}
 	
+	private void resetIfFull() {
+		
+		if(currentRow == paletteHeight) {
+			
+			syserrln("Too many colors have been added to this palette, resetting palette.");
+			currentRow = 0;
+			currentCol = 3;
+			
+		}
+		
+	}
+	
 	void setPaletteMemory(ByteBuffer texels , int width , int height) {
 		
 		activate();
@@ -178,6 +187,30 @@ import sc.core.graphics.utils.SCVertexBufferBuilder;
 		
 	}
 	
+	/**
+	 * Returns a copy of the contents of this palette.
+	 */
+	ByteBuffer copyPaletteMemory() {
+		
+		ByteBuffer copy = BufferUtils.createByteBuffer(paletteMemory.capacity());
+		memCopy(paletteMemory.duplicate().clear() , copy);
+		return copy;
+		
+	}
+	
+	/**
+	 * Replaces the contents of this palette with {@code memory}, which must be the same size as this palette, and uploads it in one call. 
+	 * The next color added to this palette will be put at {@code (col , row)}.
+	 */
+	void replacePaletteMemory(ByteBuffer memory , int row , int col) {
+		
+		memCopy(memory.duplicate().clear() , paletteMemory.duplicate().clear());
+		currentRow = (short)row;
+		currentCol = (short)col;
+		setPaletteMemory(paletteMemory.duplicate().clear() , paletteWidth , paletteHeight);
+		
+	}
+	
 	void resizeAndCopy(int newWidth , int newHeight) {
 		
 		syserrln("Resizing, new palette is " + paletteWidth + " x " + paletteHeight);
@@ -260,6 +293,130 @@ import sc.core.graphics.utils.SCVertexBufferBuilder;
 		return indices;
 		
 	}
+	
+	/**
+	 * Bulk version of {@link #putOrGetColors(ColorPixel)}, which finds or adds many colors while scanning the palette once. Colors not in 
+	 * this palette are put at the next open spaces, and the rows they are put in are uploaded in one call.
+	 * <p>
+	 * 	Colors are packed into an {@code int} with the first channel in the highest byte, and lookups are packed as 
+	 * 	{@code lookupY * MAX_WIDTH + lookupX}. The colors of the checkered background are never returned.
+	 * </p>
+	 * 
+	 * @param colors packed colors to put or get from this palette
+	 * @return Array of the packed lookup of each color of {@code colors}.
+	 * @throws IllegalArgumentException if the colors of {@code colors} not in this palette do not fit in the 
+	 * 									{@link #remainingLookups() remaining} space.
+	 */
+	@RenderThreadOnly public int[] putOrGetColors(int[] colors) {
+		
+		int filled = currentRow * paletteWidth + currentCol , firstNew = filled;
+		IntIntHashMap indices = filledIndices(colors.length);
+		
+		int[] lookups = new int[colors.length];
+		for(int i = 0 ; i < colors.length ; i++) {
+			
+			int index = indices.get(colors[i] , -1);
+			if(index == -1) {
+				
+				if(filled == paletteWidth * paletteHeight) throw new IllegalArgumentException(String.format(
+					"%d colors do not fit in the %d remaining spaces of this palette." , 
+					colors.length - i , 
+					paletteWidth * paletteHeight - firstNew
+				));
+				
+				index = filled++;
+				for(int j = 0 ; j < pixelSizeBytes ; j++) {
+					
+					paletteMemory.put(index * pixelSizeBytes + j , (byte)(colors[i] >>> ((pixelSizeBytes - 1 - j) * 8)));
+					
+				}
+				
+				indices.put(colors[i] , index);
+				
+			}
+			
+			lookups[i] = (index / paletteWidth) * MAX_WIDTH + index % paletteWidth;
+			
+		}
+		
+		if(filled == firstNew) return lookups;
+		
+		int firstRow = firstNew / paletteWidth , rows = (filled - 1) / paletteWidth - firstRow + 1;
+		activate();
+		glTexSubImage2D(
+			GL_TEXTURE_2D , 
+			0 , 
+			0 , 
+			firstRow , 
+			paletteWidth , 
+			rows , 
+			glDataFormat , 
+			glChannelType , 
+			paletteMemory.slice(firstRow * paletteWidth * pixelSizeBytes , rows * paletteWidth * pixelSizeBytes)
+		);
+		
+		deactivate();
+		
+		currentRow = (short)(filled / paletteWidth);
+		currentCol = (short)(filled % paletteWidth);
+		resetIfFull();
+		return lookups;
+		
+	}
+	
+	/**
+	 * Returns the number of distinct colors of {@code colors} which are not in this palette, which is the number of spaces 
+	 * {@link #putOrGetColors(int[])} would fill if given {@code colors}.
+	 * 
+	 * @param colors packed colors, as given to {@link #putOrGetColors(int[])}
+	 * @return Number of distinct colors of {@code colors} not in this palette.
+	 */
+	public int numberNewColors(int[] colors) {
+		
+		IntIntHashMap indices = filledIndices(colors.length);
+		int number = 0;
+		for(int color : colors) if(!indices.containsKey(color)) {
+			
+			indices.put(color , -1);
+			number++;
+			
+		}
+		
+		return number;
+		
+	}
+	
+	/**
+	 * Returns the number of colors that can be added to this palette before it is full.
+	 * 
+	 * @return Number of open spaces in this palette.
+	 */
+	public int remainingLookups() {
+		
+		return paletteWidth * paletteHeight - (currentRow * paletteWidth + currentCol);
+		
+	}
+	
+	/**
+	 * Maps the packed color of each filled space of this palette to its index, leaving room for {@code extra} more colors.
+	 */
+	private IntIntHashMap filledIndices(int extra) {
+		
+		int filled = currentRow * paletteWidth + currentCol;
+		IntIntHashMap indices = new IntIntHashMap(filled + extra);
+		//backward so the first occurrence of a repeated color wins
+		for(int i = filled - 1 ; i >= PaletteUsage.RESERVED_LOOKUPS ; i--) indices.put(packedColorAt(i) , i);
+		return indices;
+		
+	}
+	
+	private int packedColorAt(int index) {
+		
+		int color = 0;
+		for(int j = 0 ; j < pixelSizeBytes ; j++) color = color << 8 | Byte.toUnsignedInt(paletteMemory.get(index * pixelSizeBytes + j));
+		return color;
+		
+	}
 			
 	/**
 	 * Returns the indices of the given color in this palette, or <code>null</code> if it is not found. 
@@ -294,6 +451,17 @@ import sc.core.graphics.utils.SCVertexBufferBuilder;
 				
 	}
 		
+	/**
+	 * Returns the reverse index from the lookups of this palette to the layers using them.
+	 * 
+	 * @return Usage index of this palette.
+	 */
+	public PaletteUsage usage() {
+		
+		return usage;
+				
+	}
+		
 	/**
 	 * Returns a read-only texel buffer for this palette.
 	 * 
@@ -305,6 +473,18 @@ import sc.core.graphics.utils.SCVertexBufferBuilder;
 		
 	}
 	
+	/**
+	 * Returns the memory this palette retains: its direct buffer of colors off the heap, and its texture in video memory.
+	 * 
+	 * @param name name to give the result
+	 * @return Memory retained by this palette.
+	 */
+	public MemoryUsage memoryUsage(String name) {
+		
+		return new MemoryUsage(name , 0 , paletteMemory.capacity() , (long)paletteWidth * paletteHeight * channelsPerPixel);
+		
+	}
+	
 	/**
 	 * Returns the channels per pixel of pixels of this palette.
 	 * 
@@ -39,13 +39,18 @@ public class AtomicLayerDataStore implements LayerDataStore {
 
 	@Override public void put(LayerPixel putThis) {
 		
+		getAndPut(putThis);
+		
+	}
+	
+	@Override public LayerPixel getAndPut(LayerPixel putThis) {
+		
 		Objects.requireNonNull(putThis);
 		
-		AtomicReferenceArray<LayerPixel> col = image.get(putThis.textureY);
-		int x = putThis.textureX;
-		if(col.get(x) == null) mods.incrementAndGet();
-		col.set(x , putThis);
-				
+		LayerPixel previous = image.get(putThis.textureY).getAndSet(putThis.textureX , putThis);
+		if(previous == null) mods.incrementAndGet();
+		return previous;
+		
 	}
 
 	@Override public LayerPixel remove(int xIndex, int yIndex) {
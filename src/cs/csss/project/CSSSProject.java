@@ -1,17 +1,24 @@
 package cs.csss.project;
 
-import static org.lwjgl.system.MemoryUtil.memAlloc;
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static cs.csss.engine.MemoryAccounting.memAlloc;
+import static cs.csss.engine.MemoryAccounting.memFree;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.joml.Matrix4f;
@@ -147,6 +154,11 @@ public class CSSSProject implements SCShutDown {
 	private ArtboardCopier copier = new ArtboardCopier();
 	
 	private final List<Artboard> allArtboards = new ArrayList<>() , looseArtboards = new ArrayList<>();
+	//indices over allArtboards and looseArtboards, maintained by indexArtboard, unindexArtboard, addLoose and removeLoose
+	private final Map<String , List<Artboard>> artboardsByName = new HashMap<>();
+	private final Set<Artboard> looseArtboardSet = new HashSet<>();
+	private final ArtboardGrid artboardGrid = new ArtboardGrid();
+	private final List<Artboard> nearbyArtboards = new ArrayList<>();
 	private final List<Animation> animations = new ArrayList<>();
 	private final List<VisualLayerPrototype> visualLayerPrototypes = new ArrayList<>();
 	private final List<NonVisualLayerPrototype> nonVisualLayerPrototypes = new ArrayList<>();
@@ -156,6 +168,9 @@ public class CSSSProject implements SCShutDown {
 	private Animation currentAnimation;
 	private VectorText currentText;	
 	
+	//incremented whenever animations, layer prototypes, or artboards are added, removed, or reordered
+	private final AtomicInteger structureVersion = new AtomicInteger();
+	
 	/**
 	 * Creates a project.
 	 * 
@@ -310,7 +325,12 @@ public class CSSSProject implements SCShutDown {
 			});
 			
 			//makes the remove take place at a safe point
-			Engine.THE_TEMPORAL.onTrue(() -> true, () -> visualLayerPrototypes.remove(layer));
+			Engine.THE_MAIN_THREAD.execute(() -> {
+				
+				visualLayerPrototypes.remove(layer);
+				structureChanged();
+				
+			});
 			
 		}
 		
@@ -336,7 +356,12 @@ public class CSSSProject implements SCShutDown {
 				
 			});
 			
-			Engine.THE_TEMPORAL.onTrue(() -> true, () -> nonVisualLayerPrototypes.remove(layer));
+			Engine.THE_MAIN_THREAD.execute(() -> {
+				
+				nonVisualLayerPrototypes.remove(layer);
+				structureChanged();
+				
+			});
 			
 		}
 		
@@ -383,7 +408,7 @@ public class CSSSProject implements SCShutDown {
 	 */
 	private int appendArtboardToCurrentAnimationDontArrange(Artboard artboard) {
 
-		boolean wasLoose = looseArtboards.remove(artboard);
+		boolean wasLoose = removeLoose(artboard);
 
 		int index = currentAnimation.numberFrames();
 		
@@ -410,7 +435,11 @@ public class CSSSProject implements SCShutDown {
 			assert shallowCopy != null;
 			
 			currentAnimation.appendArtboard(shallowCopy);
-			allArtboards.add(shallowCopy);
+			synchronized(allArtboards) {
+				
+				indexArtboard(allArtboards.size() , shallowCopy);
+				
+			}
 			
 		}		
 
@@ -420,7 +449,7 @@ public class CSSSProject implements SCShutDown {
 	
 	private int appendArtboardToAnimationDontArrange(Animation animation , Artboard artboard) {
 
-		boolean wasLoose = looseArtboards.remove(artboard);
+		boolean wasLoose = removeLoose(artboard);
 		
 		int index = animation.numberFrames();
 		
@@ -447,7 +476,11 @@ public class CSSSProject implements SCShutDown {
 			assert shallowCopy != null;
 			
 			animation.appendArtboard(shallowCopy);
-			allArtboards.add(shallowCopy);
+			synchronized(allArtboards) {
+				
+				indexArtboard(allArtboards.size() , shallowCopy);
+				
+			}
 			
 		}		
 		
@@ -508,7 +541,7 @@ public class CSSSProject implements SCShutDown {
 	@RenderThreadOnly public void removeArtboardFromCurrentAnimation(int frameIndex) {
 
 		Optional<Artboard> removed = removeArtboardFromAnimation(currentAnimation , frameIndex);		
-		if(removed.isPresent()) looseArtboards.add(removed.get());		
+		if(removed.isPresent()) addLoose(removed.get());		
 		arrangeArtboards();
 		
 	}
@@ -523,12 +556,13 @@ public class CSSSProject implements SCShutDown {
 		while(currentAnimation.numberFrames() > 0) { 
 			
 			results = removeArtboardFromAnimation(currentAnimation , 0);
-			if(results.isPresent()) looseArtboards.add(results.get());
+			if(results.isPresent()) addLoose(results.get());
 			
 		}
 		
 		animations.remove(currentAnimation);
 		currentAnimation = null;
+		structureChanged();
 		
 		arrangeArtboards();
 		
@@ -547,13 +581,17 @@ public class CSSSProject implements SCShutDown {
 	
 	
 	/**
-	 * Renders all artboards with the given shader.
+	 * Renders all artboards with the given shader. Afterward, the index textures of artboards which have not been drawn or edited for a 
+	 * while are evicted from the GPU. The current artboard is kept on the GPU even when the camera cannot see it.
 	 * 
 	 * @param shader a shader to use for rendering
 	 */
 	@RenderThreadOnly public void renderAllArtboards(CSSSShader shader) {
 		
-		forEachArtboard(artboard -> {
+		//only artboards the camera can see are drawn
+		float[] visible = engine.visibleWorldBounds();
+		artboardGrid.query(visible[0] , visible[1] , visible[2] , visible[3] , nearbyArtboards);
+		for(Artboard artboard : nearbyArtboards) {
 
 			if(artboard.isActiveLayerVisual()) visualPalette.activate();
 			else nonVisualPalettes.get(artboard.activeLayerChannelsPerPixel() - 1).activate();
@@ -562,7 +600,10 @@ public class CSSSProject implements SCShutDown {
 			shader.activate();			
 			artboard.draw(engine.camera());
 			
-		});
+		}
+		
+		if(currentArtboard != null) currentArtboard.indexTexture();
+		IndexTexture.residency().update(System.currentTimeMillis());
 		
 	}
 	
@@ -633,6 +674,7 @@ public class CSSSProject implements SCShutDown {
 
 	 		SCIntReferencer rowHeightAccum = new SCIntReferencer(arrangeLooseArtboardsNew() + 25);	 		
 	 		animations.sort((animation1 , animation2) -> animation1.getTotalWidth() - animation2.getTotalWidth()); 
+	 		structureChanged();
 	 		animations.stream().filter(animation -> !animation.isEmpty()).forEach(x -> {
 
 		 		Iterator<Artboard> iter = x.frames.stream().map(frame -> frame.board).iterator();
@@ -679,6 +721,17 @@ public class CSSSProject implements SCShutDown {
 		
 	}
 
+	/**
+	 * Returns the spatial index of the artboards of this project, which serves cursor picking, collision checks and culling.
+	 * 
+	 * @return Spatial index of the artboards of this project.
+	 */
+	public ArtboardGrid artboardGrid() {
+		
+		return artboardGrid;
+		
+	}
+
 	/**
 	 * Returns an iterator over all artboards of this project.
 	 * 
@@ -879,6 +932,24 @@ public class CSSSProject implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Returns a number which changes whenever an animation, layer prototype, or artboard is added to, removed from, or reordered in this
+	 * project. Views of the structure of the project can compare it to the number they were built at to know when to rebuild.
+	 * 
+	 * @return Current structure version of this project.
+	 */
+	public int structureVersion() {
+		
+		return structureVersion.get();
+		
+	}
+	
+	private void structureChanged() {
+		
+		structureVersion.incrementAndGet();
+		
+	}
+	
 	/**
 	 * Gets the index of the given artboard in the list of all artboards for this project.
 	 * 
@@ -910,16 +981,8 @@ public class CSSSProject implements SCShutDown {
 	 */
 	public void setCurrentArtboardByMouse(float cursorWorldX , float cursorWorldY) {
 		
-		synchronized(allArtboards) {
-			
-			for(Artboard x : allArtboards) if(x.isCursorInBounds(cursorWorldX , cursorWorldY)) { 
-				
-				currentArtboard = x;
-				return;
-				
-			}
-		
-		}
+		Artboard picked = artboardGrid.pick(cursorWorldX , cursorWorldY);
+		if(picked != null) currentArtboard = picked;
 		
 	}
 	
@@ -964,6 +1027,7 @@ public class CSSSProject implements SCShutDown {
 	public void currentAnimation(Animation newCurrent) {
 		
 		this.currentAnimation = newCurrent;
+		if(newCurrent != null) engine.animationSelected();
 		
 	}
 	
@@ -1045,6 +1109,67 @@ public class CSSSProject implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Estimates the memory retained by the artboards, layers, and palettes of this project, adding an estimate for each to the matching
+	 * list. The heap memory of an artboard is the sum of the heap memory of its layers, and its video memory is its index texture. Contents
+	 * shared between layers are counted once, for the first layer found sharing them, and shallow copies are not counted because they
+	 * share everything with their sources.
+	 * 
+	 * @param artboards list to add an estimate for each artboard to
+	 * @param layers list to add an estimate for each layer to, named by its artboard and its own name
+	 * @param palettes list to add an estimate for each palette to
+	 */
+	public void measureMemory(List<MemoryUsage> artboards , List<MemoryUsage> layers , List<MemoryUsage> palettes) {
+		
+		Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+		forEachNonShallowCopiedArtboard(artboard -> {
+			
+			long[] heapBytes = {0};
+			artboard.forAllLayers(layer -> {
+				
+				long bytes = layer.retainedBytes(counted);
+				heapBytes[0] += bytes;
+				layers.add(new MemoryUsage(artboard.name() + "/" + layer.name , bytes , 0 , 0));
+				
+			});
+			
+			long textureBytes = artboard.isIndexTextureResident() ? (long)artboard.width() * artboard.height() * IndexTexture.pixelSizeBytes : 0;
+			artboards.add(new MemoryUsage(artboard.name() , heapBytes[0] , 0 , textureBytes));
+			
+		});
+		
+		palettes.add(visualPalette.memoryUsage("Visual Palette"));
+		nonVisualPalettes.forEach(palette -> palettes.add(palette.memoryUsage("Nonvisual Palette " + palette.channelsPerPixel())));
+		
+	}
+	
+	/**
+	 * Counts the tiles of the layers of this project, and how many of them are shared between layers.
+	 * 
+	 * @return Tile counts of the layers of this project.
+	 */
+	public LayerTileUsage layerTileUsage() {
+		
+		Set<Object> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+		int[] tilesReferenced = {0};
+		long[] pixels = {0 , 0};
+		forEachNonShallowCopiedArtboard(artboard -> artboard.forAllLayers(layer -> {
+			
+			if(!(layer.layerDataStore instanceof TiledLayerDataStore tiled)) return;
+			tiled.forEachTile((tile , area , shared) -> {
+				
+				tilesReferenced[0]++;
+				pixels[0] += area;
+				if(distinct.add(tile)) pixels[1] += area;
+				
+			});
+			
+		}));
+		
+		return new LayerTileUsage(tilesReferenced[0] , distinct.size() , pixels[0] , pixels[1]);
+		
+	}
+	
 	/**
 	 * Invokes {@code callback} for each artboard in this project that is not a shallow copy of another artboard. This includes loose artboards 
 	 * (artboards that are not in any animation), and nonloose artboards.
@@ -1088,9 +1213,9 @@ public class CSSSProject implements SCShutDown {
 			if(animation.frameWidth() == 0 || (!animation.hasArtboard(artboard) && animation.matchesDimensions(artboard))) { 
 				
 				//this part stops the callback from being called on an artboard whose alias is in this animation.
-				for(AnimationFrame frame : animation.frames) {
+				if(copier.isSource(artboard)) for(Iterator<Artboard> copies = copier.copiesOf(artboard) ; copies.hasNext() ; ) {
 					
-					if(copier.isCopy(frame.board) && copier.getSourceOf(frame.board) == artboard) return;
+					if(animation.hasArtboard(copies.next())) return;
 					
 				}
 				
@@ -1165,16 +1290,11 @@ public class CSSSProject implements SCShutDown {
 
 		synchronized(allArtboards) {
 			
-			allArtboards.remove(artboard);
+			unindexArtboard(artboard);
 
 		}
 
-		boolean wasLoose;
-		synchronized(looseArtboards) { 
-	
-			wasLoose = looseArtboards.remove(artboard);
-		
-		}
+		boolean wasLoose = removeLoose(artboard);
 		
 		if(!wasLoose) {
 
@@ -1188,7 +1308,12 @@ public class CSSSProject implements SCShutDown {
 					Artboard copy = copies.remove(0);					
 					removeArtboardFromAnimation(copy);
 					copier.removeCopy(copy);
-					allArtboards.remove(copy);
+					synchronized(allArtboards) {
+						
+						unindexArtboard(copy);
+						
+					}
+					
 					copy.shutDown();
 				
 				}
@@ -1246,7 +1371,8 @@ public class CSSSProject implements SCShutDown {
 	 */
 	public boolean containsArtboard(Artboard searchFor) {
 		
-		return allArtboards.contains(Objects.requireNonNull(searchFor));
+		List<Artboard> named = artboardsByName.get(Objects.requireNonNull(searchFor).name);
+		return named != null && named.contains(searchFor);
 		
 	}
 	
@@ -1274,7 +1400,7 @@ public class CSSSProject implements SCShutDown {
 	}
 	
 	/**
-	 * Gets an artboard by the given name. 
+	 * Gets an artboard by the given name. Shallow copies have the same name as their source, in which case the source is returned.
 	 *  
 	 * @param name name of an artboard
 	 * @return An artboard of the given name.
@@ -1282,8 +1408,10 @@ public class CSSSProject implements SCShutDown {
 	 */
 	public synchronized Artboard getArtboard(final String name) throws IllegalArgumentException {
 		
-		for(Artboard x : allArtboards) if(x.name.equals(name)) return x;
-		throw new IllegalArgumentException(name + " does not name an artboard");
+		List<Artboard> named = artboardsByName.get(name);
+		if(named == null) throw new IllegalArgumentException(name + " does not name an artboard");
+		for(Artboard x : named) if(!copier.isCopy(x)) return x;
+		return named.get(0);
 		
 	}
 	
@@ -1296,9 +1424,7 @@ public class CSSSProject implements SCShutDown {
 	 */
 	public int getNumberNonCopiedArtboards() {
 		
-		SCIntReferencer counter = new SCIntReferencer(0);
-		allArtboards.stream().filter(artboard -> !copier.isCopy(artboard)).forEach(artboard -> counter.mutate(x -> x + 1));
-		return counter.get();
+		return allArtboards.size() - copier.numberCopies();
 		
 	}
 	
@@ -1333,6 +1459,25 @@ public class CSSSProject implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Creates {@code number} artboards of the given size, named by their index among the artboards of this project, and arranges artboards
+	 * once after all of them are created.
+	 * 
+	 * @param number number of artboards to create
+	 * @param width width of each artboard
+	 * @param height height of each artboard
+	 * @return The new artboards.
+	 */
+	@RenderThreadOnly public List<Artboard> createArtboards(int number , int width , int height) {
+		
+		List<Artboard> artboards = new ArrayList<>(number);
+		int first = getNumberNonCopiedArtboards();
+		for(int i = 0 ; i < number ; i++) artboards.add(createArtboardDontArrange(String.valueOf(first + i) , width , height , true));
+		arrangeArtboards();
+		return artboards;
+		
+	}
+	
 	/**
 	 * Creates a new artboard but does not rearrange artboards.
 	 * 
@@ -1488,15 +1633,11 @@ public class CSSSProject implements SCShutDown {
 		
 		synchronized(allArtboards) {
 			
-			allArtboards.add(index , artboard);
+			indexArtboard(index , artboard);
 			
 		}
 		
-		synchronized(looseArtboards) {
-			
-			looseArtboards.add(artboard);
-			
-		}
+		addLoose(artboard);
 		
 		arrangeArtboards();
 		
@@ -1514,7 +1655,7 @@ public class CSSSProject implements SCShutDown {
 		
 		synchronized(allArtboards) {
 			
-			allArtboards.add(add);
+			indexArtboard(allArtboards.size() , add);
 			
 		}
 		
@@ -1535,7 +1676,7 @@ public class CSSSProject implements SCShutDown {
 		Objects.requireNonNull(add);
 		synchronized(allArtboards) {
 			
-			allArtboards.add(index , add);
+			indexArtboard(index , add);
 			
 		}
 		
@@ -1549,13 +1690,58 @@ public class CSSSProject implements SCShutDown {
 		
 		synchronized(allArtboards) {
 			
-			allArtboards.add(newArtboard);
+			indexArtboard(allArtboards.size() , newArtboard);
 			
 		}
 		
+		addLoose(newArtboard);
+
+	}
+	
+	/**
+	 * Adds {@code artboard} to the list of all artboards at {@code index} and to the indices over that list. The caller synchronizes on
+	 * {@code allArtboards}.
+	 */
+	private void indexArtboard(int index , Artboard artboard) {
+		
+		allArtboards.add(index , artboard);
+		artboardGrid.add(artboard);
+		artboardsByName.computeIfAbsent(artboard.name , name -> new ArrayList<>(1)).add(artboard);
+		structureChanged();
+		
+	}
+	
+	/**
+	 * Removes {@code artboard} from the list of all artboards and from the indices over that list. The caller synchronizes on 
+	 * {@code allArtboards}.
+	 */
+	private void unindexArtboard(Artboard artboard) {
+		
+		allArtboards.remove(artboard);
+		artboardGrid.remove(artboard);
+		List<Artboard> named = artboardsByName.get(artboard.name);
+		if(named != null && named.remove(artboard) && named.isEmpty()) artboardsByName.remove(artboard.name);
+		structureChanged();
+		
+	}
+	
+	private void addLoose(Artboard artboard) {
+		
+		synchronized(looseArtboards) {
+			
+			if(looseArtboardSet.add(artboard)) looseArtboards.add(artboard);
+			
+		}
+		
+	}
+	
+	private boolean removeLoose(Artboard artboard) {
+		
 		synchronized(looseArtboards) {
 			
-			looseArtboards.add(newArtboard);
+			if(!looseArtboardSet.remove(artboard)) return false;
+			looseArtboards.remove(artboard);
+			return true;
 		
 		}
 
@@ -1564,6 +1750,7 @@ public class CSSSProject implements SCShutDown {
 	private void addNonVisualLayerPrototype(NonVisualLayerPrototype newNonVisualLayerPrototype) {
 		
 		 nonVisualLayerPrototypes.add(newNonVisualLayerPrototype);
+		 structureChanged();
 				
 	}
 
@@ -1575,6 +1762,7 @@ public class CSSSProject implements SCShutDown {
 	public void addVisualLayerPrototype(VisualLayerPrototype newVisualLayerPrototype) {
 		
 		visualLayerPrototypes.add(newVisualLayerPrototype);
+		structureChanged();
 	
 	}
 	
@@ -1586,6 +1774,7 @@ public class CSSSProject implements SCShutDown {
 	private void addAnimation(Animation newAnimation) {
 		
 		animations.add(newAnimation);
+		structureChanged();
 		
 	}
 	
@@ -1610,12 +1799,12 @@ public class CSSSProject implements SCShutDown {
 				
 		if(isCompressed) {
 		
-			ByteBuffer compressed = memAlloc(pixelData.length).put(pixelData).flip();
+			ByteBuffer compressed = memAlloc("project/load" , pixelData.length).put(pixelData).flip();
 			uncompressed = layer.decode(compressed);
 			memFree(compressed);
 			
 			
-		} else uncompressed = memAlloc(pixelData.length).put(pixelData).flip();
+		} else uncompressed = memAlloc("project/load" , pixelData.length).put(pixelData).flip();
 		
 		//do stuff with uncompressed
 		//uncompressed is a buffer of ten byte regions containing x and y coordinates on the layer and lookup x and y to put there
@@ -1720,7 +1909,7 @@ public class CSSSProject implements SCShutDown {
 		if(isLoose(currentArtboard)) { 
 		
 			currentArtboard.moveTo((int)cursorWorldCoords[0], (int)cursorWorldCoords[1]);
-			if(freemoveCheckCollisions) for(Artboard x : allArtboards) {
+			if(freemoveCheckCollisions) for(Artboard x : nearbyArtboards(currentArtboard)) {
 				
 				if(x != currentArtboard && CollisionUtils.colliding(currentArtboard.positions, x.positions)) {
 					
@@ -1753,7 +1942,7 @@ public class CSSSProject implements SCShutDown {
 				
 				Artboard artboard = iter.next().board;
 
-				for(Artboard other : allArtboards) if(!animation.hasArtboard(other)) {
+				for(Artboard other : nearbyArtboards(artboard)) if(!animation.hasArtboard(other)) {
 					
 					if(CollisionUtils.colliding(artboard.positions, other.positions)) {
 
@@ -1784,6 +1973,16 @@ public class CSSSProject implements SCShutDown {
  		
  	}
  	
+ 	/**
+ 	 * Returns the artboards whose bounds may overlap {@code artboard}'s. The returned list is reused by the next call.
+ 	 */
+ 	private List<Artboard> nearbyArtboards(Artboard artboard) {
+ 		
+ 		artboardGrid.query(artboard.leftX() , artboard.bottomY() , artboard.rightX() , artboard.topY() , nearbyArtboards);
+ 		return nearbyArtboards;
+ 		
+ 	}
+ 	
  	private void resolveCollision(Artboard x , int deltaX , int deltaY) {
 
 		if(deltaX > deltaY) x.translate(deltaX , 0);
@@ -1799,7 +1998,11 @@ public class CSSSProject implements SCShutDown {
  	 */
  	public boolean isLoose(Artboard artboard) {
  		
- 		return looseArtboards.contains(artboard);
+ 		synchronized(looseArtboards) {
+ 			
+ 			return looseArtboardSet.contains(artboard);
+ 			
+ 		}
  		
  	}
  	
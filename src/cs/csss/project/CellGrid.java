@@ -0,0 +1,212 @@
+package cs.csss.project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid of square cells listing the items whose bounds overlap each cell. Backs {@link ArtboardGrid}, which synchronizes access
+ * to it, so this class is not thread safe.
+ *
+ * @param <T> type of the items of the grid, which are compared by {@link Object#equals(Object)}
+ */
+final class CellGrid<T> {
+	
+	private final int cellSize;
+	
+	private final HashMap<Long , ArrayList<T>> cells = new HashMap<>();
+	
+	/**
+	 * Inclusive range of cells of each item as {@code leftCell , bottomCell , rightCell , topCell}.
+	 */
+	private final HashMap<T , int[]> ranges = new HashMap<>();
+	
+	/**
+	 * Creates an empty grid.
+	 *
+	 * @param cellSize width and height in world units of the cells of the grid
+	 * @throws IllegalArgumentException if {@code cellSize} is not positive.
+	 */
+	CellGrid(int cellSize) {
+		
+		if(cellSize <= 0) throw new IllegalArgumentException("Cell size is not positive: " + cellSize);
+		this.cellSize = cellSize;
+		
+	}
+	
+	/**
+	 * Lists {@code item} in the cells the given bounds overlap, adding it to this grid or moving it if it is already in this grid.
+	 *
+	 * @param item an item
+	 * @param leftX left world coordinate of the item
+	 * @param bottomY bottom world coordinate of the item
+	 * @param rightX right world coordinate of the item
+	 * @param topY top world coordinate of the item
+	 */
+	void put(T item , float leftX , float bottomY , float rightX , float topY) {
+		
+		int[] range = {cellOf(leftX) , cellOf(bottomY) , cellOf(rightX) , cellOf(topY)};
+		int[] previous = ranges.put(item , range);
+		if(previous != null) {
+			
+			if(range[0] == previous[0] && range[1] == previous[1] && range[2] == previous[2] && range[3] == previous[3]) return;
+			removeFromCells(item , previous);
+			
+		}
+		
+		forEachCell(range , cell -> cells.computeIfAbsent(cell , key -> new ArrayList<>(2)).add(item));
+		
+	}
+	
+	/**
+	 * Removes {@code item} from this grid.
+	 *
+	 * @param item an item
+	 * @return {@code true} if {@code item} was in this grid.
+	 */
+	boolean remove(T item) {
+		
+		int[] range = ranges.remove(item);
+		if(range == null) return false;
+		
+		removeFromCells(item , range);
+		return true;
+		
+	}
+	
+	/**
+	 * Returns whether {@code item} is in this grid.
+	 *
+	 * @param item an item
+	 * @return Whether {@code item} is in this grid.
+	 */
+	boolean contains(T item) {
+		
+		return ranges.containsKey(item);
+		
+	}
+	
+	/**
+	 * Returns the items listed in the cell containing the given point. The returned list is a view which must not be modified, and which
+	 * is only valid until this grid is next modified.
+	 *
+	 * @param worldX x world coordinate
+	 * @param worldY y world coordinate
+	 * @return Items whose bounds overlap the cell containing the given point.
+	 */
+	List<T> cellAt(float worldX , float worldY) {
+		
+		List<T> cell = cells.get(key(cellOf(worldX) , cellOf(worldY)));
+		return cell == null ? Collections.emptyList() : Collections.unmodifiableList(cell);
+		
+	}
+	
+	/**
+	 * Clears {@code results} and fills it with every item of this grid listed in a cell the given region overlaps. Each item is added once.
+	 *
+	 * @param leftX left world coordinate of the region
+	 * @param bottomY bottom world coordinate of the region
+	 * @param rightX right world coordinate of the region
+	 * @param topY top world coordinate of the region
+	 * @param results list to fill with the items near the region
+	 */
+	void query(float leftX , float bottomY , float rightX , float topY , List<T> results) {
+		
+		results.clear();
+		
+		int leftCell = cellOf(leftX) , bottomCell = cellOf(bottomY) , rightCell = cellOf(rightX) , topCell = cellOf(topY);
+		long regionCells = (long)(rightCell - leftCell + 1) * (topCell - bottomCell + 1);
+		
+		//when zoomed far out, visiting the occupied cells is cheaper than visiting every cell of the region
+		if(regionCells > cells.size()) {
+			
+			for(Map.Entry<Long , ArrayList<T>> x : cells.entrySet()) {
+				
+				int cellX = (int)(x.getKey() >> 32) , cellY = (int)(long)x.getKey();
+				if(cellX < leftCell || cellX > rightCell || cellY < bottomCell || cellY > topCell) continue;
+				addFirstSeen(x.getValue() , cellX , cellY , leftCell , bottomCell , results);
+				
+			}
+			
+			return;
+			
+		}
+		
+		for(int cellY = bottomCell ; cellY <= topCell ; cellY++) for(int cellX = leftCell ; cellX <= rightCell ; cellX++) {
+			
+			List<T> cell = cells.get(key(cellX , cellY));
+			if(cell != null) addFirstSeen(cell , cellX , cellY , leftCell , bottomCell , results);
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of items in this grid.
+	 *
+	 * @return Number of items in this grid.
+	 */
+	int size() {
+		
+		return ranges.size();
+		
+	}
+	
+	/**
+	 * Adds the items of the cell at {@code (cellX , cellY)} for which that cell is the first cell of both their range and the queried range,
+	 * which adds each item once without tracking which were seen.
+	 */
+	private void addFirstSeen(List<T> cell , int cellX , int cellY , int leftCell , int bottomCell , List<T> results) {
+		
+		for(T x : cell) {
+			
+			int[] range = ranges.get(x);
+			if(Math.max(range[0] , leftCell) == cellX && Math.max(range[1] , bottomCell) == cellY) results.add(x);
+			
+		}
+		
+	}
+	
+	private void removeFromCells(T item , int[] range) {
+		
+		forEachCell(range , cell -> {
+			
+			List<T> items = cells.get(cell);
+			items.remove(item);
+			if(items.isEmpty()) cells.remove(cell);
+			
+		});
+		
+	}
+	
+	private static void forEachCell(int[] range , CellConsumer callback) {
+		
+		for(int cellY = range[1] ; cellY <= range[3] ; cellY++) for(int cellX = range[0] ; cellX <= range[2] ; cellX++) {
+			
+			callback.accept(key(cellX , cellY));
+			
+		}
+		
+	}
+	
+	private int cellOf(float world) {
+		
+		return Math.floorDiv((int)Math.floor(world) , cellSize);
+		
+	}
+	
+	private static long key(int cellX , int cellY) {
+		
+		return (long)cellX << 32 | (cellY & 0xffffffffL);
+		
+	}
+	
+	@FunctionalInterface private interface CellConsumer {
+		
+		void accept(long cell);
+		
+	}
+	
+}
@@ -0,0 +1,91 @@
+package cs.csss.project;
+
+import static cs.csss.engine.MemoryAccounting.memAlloc;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Supplier;
+
+import cs.csss.annotation.FreeAfterUse;
+
+/**
+ * Encodings of the layers written by one save, keyed by the tiles of the layers' contents. Layers sharing all of their tiles have the same
+ * contents, so {@link Layer#encode(EncodedLayerCache)} only encodes the first of them and copies its encoding for the rest. An encoding is
+ * only kept while other layers may still share its contents, so layers whose tiles are not shared are never copied into the cache.
+ */
+public final class EncodedLayerCache {
+	
+	private final HashMap<List<Object> , Encoding> encodings = new HashMap<>();
+	private int reused = 0;
+	
+	/**
+	 * Creates an empty cache.
+	 */
+	public EncodedLayerCache() {}
+	
+	/**
+	 * Returns a copy of the encoding of {@code contents}, invoking {@code encoder} to encode them if they have not been encoded yet. The 
+	 * encoding is kept for at most {@code sharers} more layers, the number of other layers which may share {@code contents}.
+	 */
+	@FreeAfterUse ByteBuffer encode(List<Object> contents , int sharers , Supplier<ByteBuffer> encoder) {
+		
+		Encoding encoding = encodings.get(contents);
+		if(encoding != null) {
+			
+			reused++;
+			if(--encoding.remainingUses == 0) encodings.remove(contents);
+			return memAlloc("layer/lz4" , encoding.bytes.length).put(encoding.bytes).flip();
+			
+		}
+		
+		ByteBuffer encoded = encoder.get();
+		if(sharers <= 0) return encoded;
+		
+		byte[] bytes = new byte[encoded.remaining()];
+		encoded.get(encoded.position() , bytes);
+		encodings.put(contents , new Encoding(bytes , sharers));
+		return encoded;
+		
+	}
+	
+	/**
+	 * Returns the number of layers whose encoding was copied from a layer sharing their contents rather than encoded.
+	 * 
+	 * @return Number of layers whose encoding was reused.
+	 */
+	public int reused() {
+		
+		return reused;
+		
+	}
+	
+	/**
+	 * Returns the number of encodings currently held by this cache.
+	 * 
+	 * @return Number of encodings held.
+	 */
+	int held() {
+		
+		return encodings.size();
+		
+	}
+	
+	/**
+	 * Encoded contents and the number of layers which may still reuse them.
+	 */
+	private static final class Encoding {
+		
+		final byte[] bytes;
+		int remainingUses;
+		
+		Encoding(byte[] bytes , int remainingUses) {
+			
+			this.bytes = bytes;
+			this.remainingUses = remainingUses;
+			
+		}
+		
+	}
+	
+}
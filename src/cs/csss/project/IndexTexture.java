@@ -6,10 +6,16 @@ import static org.lwjgl.opengl.GL30C.GL_RG;
 import static org.lwjgl.opengl.GL30C.GL_UNSIGNED_BYTE;
 import static org.lwjgl.opengl.GL30C.GL_TEXTURE_2D;
 import static org.lwjgl.opengl.GL30C.glTexSubImage2D;
+import static org.lwjgl.opengl.GL30C.glPixelStorei;
+import static org.lwjgl.opengl.GL30C.GL_UNPACK_ALIGNMENT;
+import static org.lwjgl.opengl.GL30C.GL_PACK_ALIGNMENT;
 import static org.lwjgl.opengl.GL30C.glGetTexImage;
 import static org.lwjgl.opengl.GL45C.glGetTextureSubImage;
-import static org.lwjgl.system.MemoryUtil.memAlloc;
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static cs.csss.engine.MemoryAccounting.memAlloc;
+import static cs.csss.engine.MemoryAccounting.memFree;
+import static org.lwjgl.util.lz4.LZ4.LZ4_compressBound;
+import static org.lwjgl.util.lz4.LZ4.LZ4_compress_default;
+import static org.lwjgl.util.lz4.LZ4.LZ4_decompress_safe;
 
 import java.nio.ByteBuffer;
 
@@ -25,6 +31,11 @@ import sc.core.graphics.SCTexture;
  * Extender of {@linkplain cs.core.graphics.CSTexture CSTexture} used to allow for modification of texel data. This texture object is used
  * only by the image texture of the artboard. The image texture's pixels are two-channel, one byte per channel pixels whose values are not
  * color values, but are instead lookup indices into a color palette.
+ * <p>
+ * 	Index textures are managed by a {@link TextureResidency}, which evicts them from the GPU when they have not been drawn or edited for a 
+ * 	while. An evicted texture keeps its texels in main memory, LZ4 compressed if {@link #compressEvicted} is set, and is uploaded again by 
+ * 	{@link Artboard#indexTexture()} just before it is next used.
+ * </p>
  * 
  * @author Chris Brown
  *
@@ -60,11 +71,34 @@ public class IndexTexture extends SCTexture {
 	 */
 	public static volatile int backgroundWidth = 8 , backgroundHeight = 8;
 	
+	/**
+	 * Whether the texels of evicted textures are LZ4 compressed while they are in main memory.
+	 */
+	public static volatile boolean compressEvicted = true;
+	
+	private static final TextureResidency<IndexTexture> residency = new TextureResidency<>(new GLBackend());
+	
 	IndexPixel darkerTransparentBackground = new IndexPixel(0 , 0);
 	IndexPixel lighterTransparentBackground = new IndexPixel(1 , 0);
 	
 	int width , height;
 	
+	//texels of this texture while it is evicted, and their size when uncompressed
+	private volatile ByteBuffer evictedTexels = null;
+	private int evictedTexelsSize;
+	private boolean evictedTexelsCompressed;
+	
+	/**
+	 * Returns the residency policy of index textures.
+	 * 
+	 * @return The residency policy of index textures.
+	 */
+	public static TextureResidency<IndexTexture> residency() {
+		
+		return residency;
+		
+	}
+	
 	/**
 	 * Tracks some additional variables but does not modify the behavior of {@linkplain IndexTexture#initialize(CSGraphic, int) initialize}.
 	 */
@@ -96,6 +130,28 @@ public class IndexTexture extends SCTexture {
 		
 		if(setCheckeredBackground) setCheckerBackground();
 		
+		residency.register(this , System.currentTimeMillis());
+		
+	}
+	
+	/**
+	 * Uploads this texture to the GPU if it was evicted, and marks it used.
+	 */
+	void makeResident() {
+		
+		residency.use(this , System.currentTimeMillis());
+		
+	}
+	
+	/**
+	 * Returns whether this texture is on the GPU.
+	 * 
+	 * @return Whether this texture is resident.
+	 */
+	boolean isResident() {
+		
+		return evictedTexels == null;
+		
 	}
 	
 	/**
@@ -117,6 +173,26 @@ public class IndexTexture extends SCTexture {
 		
 	}
 	
+	/**
+	 * Overwrites a region of this texture in one upload. Unlike {@link #putSubImage(int, int, int, int, ByteBuffer)}, rows of 
+	 * {@code imageData} are tightly packed even if the size in bytes of a row is not a multiple of four, which is what makes uploads of 
+	 * regions of odd widths incorrect otherwise.
+	 * 
+	 * @param xIndex bottom left pixel x coordinate of the region to modify
+	 * @param yIndex bottom left pixel y coordinate of the region to modify
+	 * @param widthPixels width in pixels of the region to modify
+	 * @param heightPixels height in pixels of the region to modify
+	 * @param imageData off-heap allocated, tightly packed lookups for the region, row by row from the bottom left
+	 */
+	void putRegion(int xIndex , int yIndex , int widthPixels , int heightPixels , ByteBuffer imageData) {
+		
+		boolean aligned = (widthPixels * pixelSizeBytes) % 4 == 0;
+		if(!aligned) glPixelStorei(GL_UNPACK_ALIGNMENT , pixelSizeBytes);
+		putSubImage(xIndex , yIndex , widthPixels , heightPixels , imageData);
+		if(!aligned) glPixelStorei(GL_UNPACK_ALIGNMENT , 4);
+		
+	}
+	
 	/**
 	 * Stores the given lookup pixel in each position of the specified region
 	 * 
@@ -223,15 +299,89 @@ public class IndexTexture extends SCTexture {
 	
 	ByteBuffer allTexelData() {
 		
-		ByteBuffer texels = memAlloc(width * height * pixelSizeBytes);
+		return allTexelData("texture/download");
+		
+	}
+	
+	private ByteBuffer allTexelData(String tag) {
+		
+		ByteBuffer texels = memAlloc(tag , width * height * pixelSizeBytes);
+		//rows of odd widths are not multiples of four bytes, so they must be packed tightly to fit in the buffer
+		glPixelStorei(GL_PACK_ALIGNMENT , pixelSizeBytes);
 		activate();
 		glGetTexImage(GL_TEXTURE_2D , 0 , glDataFormat , glChannelType , texels);
 		deactivate();
+		glPixelStorei(GL_PACK_ALIGNMENT , 4);
 		
 		return texels;
 		
 	}
 	
+	private void evict() {
+		
+		ByteBuffer texels = allTexelData("texture/evicted");
+		evictedTexelsSize = texels.limit();
+		evictedTexelsCompressed = compressEvicted;
+		if(evictedTexelsCompressed) {
+			
+			ByteBuffer bound = memAlloc("texture/evicted" , LZ4_compressBound(evictedTexelsSize));
+			int bytes = LZ4_compress_default(texels , bound);
+			memFree(texels);
+			
+			texels = memAlloc("texture/evicted" , bytes).put(bound.limit(bytes)).flip();
+			memFree(bound);
+			
+		}
+		
+		super.shutDown();
+		evictedTexels = texels;
+		
+	}
+	
+	private void restore() {
+		
+		ByteBuffer texels = evictedTexels;
+		if(evictedTexelsCompressed) {
+			
+			texels = memAlloc("texture/evicted" , evictedTexelsSize);
+			LZ4_decompress_safe(evictedTexels , texels);
+			memFree(evictedTexels);
+			
+		}
+		
+		super.initialize(texels , textureOptions , channelsPerPixel , bytesPerChannel , width , height);
+		memFree(texels);
+		evictedTexels = null;
+		
+	}
+	
+	private void discardEvicted() {
+		
+		memFree(evictedTexels);
+		evictedTexels = null;
+		
+	}
+	
+	/**
+	 * Frees this texture. If this texture is evicted, its GPU texture was already deleted by the eviction, so only its texels in main memory 
+	 * are freed, and {@code super.shutDown} finds the texture freed and does not delete it again.
+	 */
+	@Override public void shutDown() {
+		
+		residency.remove(this);
+		super.shutDown();
+		
+	}
+	
+	/**
+	 * Returns whether this texture was shut down. Evicted textures are not freed, because they are uploaded again when they are used.
+	 */
+	@Override public boolean isFreed() {
+		
+		return super.isFreed() && evictedTexels == null;
+		
+	}
+	
 	/**
 	 * Gets a {@code ByteBuffer} containing texels of this image. This method performs some reformatting of the buffer recieved from the 
 	 * GPU, but the caller will recieve a buffer containing the expected contents.
@@ -264,7 +414,7 @@ public class IndexTexture extends SCTexture {
 		 * of a row.
 		 * 
 		 */		
-		texels = memAlloc(numberPixels * (pixelSizeBytes + 2));
+		texels = memAlloc("texture/download" , numberPixels * (pixelSizeBytes + 2));
 		
 		//activates the texture we are sampling from (this class instance)
 		activate();		
@@ -286,7 +436,7 @@ public class IndexTexture extends SCTexture {
 		//deactivates this texture
 		deactivate();
 		
-		ByteBuffer fixedTexels = memAlloc(numberPixels * pixelSizeBytes);
+		ByteBuffer fixedTexels = memAlloc("texture/download" , numberPixels * pixelSizeBytes);
 		
 		for(int b = 1 ; b <= numberPixels ; b++) {
 			
@@ -330,7 +480,7 @@ public class IndexTexture extends SCTexture {
 		assert leftX + width <= this.width : (leftX + width) + " is out of bounds x wise.";
 		assert bottomY + height <= this.height : (bottomY + height) + " is out of bounds y wise.";
 		
-		ByteBuffer texels = memAlloc((width + 1) * (height + 1) * pixelSizeBytes);
+		ByteBuffer texels = memAlloc("texture/download" , (width + 1) * (height + 1) * pixelSizeBytes);
 		
 		activate();
 		glGetTextureSubImage(
@@ -411,5 +561,35 @@ public class IndexTexture extends SCTexture {
 //		
 //	}
 
+	/**
+	 * Moves index textures between the GPU and main memory. Its methods are called on the render thread.
+	 */
+	private static final class GLBackend implements TextureBackend<IndexTexture> {
+		
+		@Override public long sizeBytes(IndexTexture texture) {
+			
+			return (long)texture.width * texture.height * pixelSizeBytes;
+			
+		}
+		
+		@Override public void evict(IndexTexture texture) {
+			
+			texture.evict();
+			
+		}
+		
+		@Override public void restore(IndexTexture texture) {
+			
+			texture.restore();
+			
+		}
+		
+		@Override public void discard(IndexTexture texture) {
+			
+			texture.discardEvicted();
+			
+		}
+		
+	}
 
 }
\ No newline at end of file
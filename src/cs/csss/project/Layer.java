@@ -1,7 +1,7 @@
 package cs.csss.project;
 
-import static org.lwjgl.system.MemoryUtil.memFree;
-import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static cs.csss.engine.MemoryAccounting.memFree;
+import static cs.csss.engine.MemoryAccounting.memAlloc;
 
 import static org.lwjgl.util.lz4.LZ4.LZ4_compress_default;
 import static org.lwjgl.util.lz4.LZ4.LZ4_decompress_safe;
@@ -9,6 +9,7 @@ import static org.lwjgl.util.lz4.LZ4.LZ4_decompress_safe;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -69,7 +70,7 @@ public abstract class Layer implements SCShutDown {
 	 */
 	public static @FreeAfterUse ByteBuffer toByteBuffer(LayerPixel[][] source) {
 		
-		ByteBuffer contents = memAlloc(source[0].length * source.length * IndexTexture.pixelSizeBytes);
+		ByteBuffer contents = memAlloc("layer/region" , source[0].length * source.length * IndexTexture.pixelSizeBytes);
 		toByteBuffer(source , contents);
 		return contents;
 				
@@ -115,6 +116,11 @@ public abstract class Layer implements SCShutDown {
 	 */
 	protected volatile LineManager lines = new LineManager();
 	
+	/**
+	 * Artboard which created this layer. Shallow copies of that artboard share this layer.
+	 */
+	Artboard owner;
+	
 	/**
 	 * Constructs a layer with the given name, palette, width and height
 	 * 
@@ -130,7 +136,7 @@ public abstract class Layer implements SCShutDown {
 		this.name = name;
 		this.palette = palette;
 		
-		layerDataStore = new AtomicLayerDataStore(width , height);
+		layerDataStore = new TiledLayerDataStore(width , height);
 		
 	}
 	
@@ -142,10 +148,37 @@ public abstract class Layer implements SCShutDown {
 	public void put(LayerPixel pixel) {
 		
 		if(locked) return;		
-		layerDataStore.put(pixel);		
+		putAndIndex(pixel);
+
+	}
+	
+	/**
+	 * Puts {@code pixel} in this layer regardless of whether it is locked, keeping the palette's {@link PaletteUsage} up to date. 
+	 * 
+	 * @param pixel a pixel to add
+	 */
+	void putAndIndex(LayerPixel pixel) {
+		
+		//exchanging atomically means a replaced pixel is uncounted by exactly one of any concurrent puts to its position
+		LayerPixel previous = layerDataStore.getAndPut(pixel);
+		if(previous != null && previous.lookupX == pixel.lookupX && previous.lookupY == pixel.lookupY) return;
+		
+		if(previous != null) palette.usage().decrement(this , previous);
+		palette.usage().increment(this , pixel);
 
 	}
 	
+	/**
+	 * Puts {@code pixel} in this layer even if it is locked, for restoring contents the layer had before it was locked, such as when undoing.
+	 * 
+	 * @param pixel a pixel to restore
+	 */
+	public void restore(LayerPixel pixel) {
+		
+		putAndIndex(pixel);
+		
+	}
+	
 	/**
 	 * Removes the pixel at the given indices from this layer. The layer must contain a modification at the given indices. 
 	 * 
@@ -156,7 +189,8 @@ public abstract class Layer implements SCShutDown {
 		
 		assert containsModificationTo(xIndex, yIndex) : "This layer does not modify (" + xIndex + ", " + yIndex + ")";
 		
-		layerDataStore.remove(xIndex, yIndex);
+		LayerPixel removed = layerDataStore.remove(xIndex, yIndex);
+		if(removed != null) palette.usage().decrement(this , removed);
 		
 	}
 	
@@ -171,7 +205,8 @@ public abstract class Layer implements SCShutDown {
 	 */
 	public void remove(int xIndex , int yIndex , int width , int height) {
 		
-		layerDataStore.remove(xIndex, yIndex, width, height);
+		LayerPixel[][] removed = layerDataStore.remove(xIndex, yIndex, width, height);
+		for(LayerPixel[] row : removed) for(LayerPixel x : row) if(x != null) palette.usage().decrement(this , x);
 		
 	}
 	
@@ -664,6 +699,17 @@ public abstract class Layer implements SCShutDown {
 		
 	}
 
+	/**
+	 * Returns the artboard which created this layer. Shallow copies of that artboard share this layer.
+	 * 
+	 * @return Artboard owning this layer.
+	 */
+	public final Artboard owner() {
+		
+		return owner;
+		
+	}
+
 	/**
 	 * Returns whether this layer is locked.
 	 * 
@@ -686,6 +732,19 @@ public abstract class Layer implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Returns the estimated bytes of heap the contents of this layer retain, not counting contents shared with layers whose contents are
+	 * already in {@code counted}.
+	 * 
+	 * @param counted shared contents already counted, to which the shared contents of this layer are added
+	 * @return Estimated bytes retained by the contents of this layer.
+	 */
+	long retainedBytes(Set<Object> counted) {
+		
+		return layerDataStore.retainedBytes(width , height , counted);
+		
+	}
+	
 	/**
 	 * Copies this layer into {@code otherLayer}.
 	 *  
@@ -694,6 +753,34 @@ public abstract class Layer implements SCShutDown {
 	 */
 	public abstract  <T extends Layer> void copy(T otherLayer);
 	
+	/**
+	 * Puts every modification of this layer into {@code otherLayer}, regardless of whether {@code otherLayer} is locked. If 
+	 * {@code otherLayer} is empty, the same size as this layer and uses the same palette, it shares this layer's tiles copy on write instead,
+	 * which takes time proportional to the number of tiles rather than the number of modifications.
+	 * 
+	 * @param otherLayer a destination for copying
+	 */
+	protected final void copyModificationsInto(Layer otherLayer) {
+		
+		if(
+			layerDataStore instanceof TiledLayerDataStore tiled && 
+			otherLayer.mods() == 0 && 
+			otherLayer.width == width && 
+			otherLayer.height == height && 
+			otherLayer.palette == palette
+		) {
+			
+			if(otherLayer.layerDataStore instanceof TiledLayerDataStore replaced) replaced.release();
+			otherLayer.layerDataStore = tiled.copyOnWrite();
+			palette.usage().copy(this , otherLayer);
+			return;
+			
+		}
+		
+		forEachModification(otherLayer::putAndIndex);
+		
+	}
+	
 	/**
 	 * Converts the contents of this layer to a {@link cs.csss.annotation.FreeAfterUse @FreeAfterUse} {@code ByteBuffer}. Unlike 
 	 * {@link Layer#toByteBuffer(LayerPixel[][])}, this method copies both the positions in the layer of the layer pixels, and the lookup
@@ -703,7 +790,7 @@ public abstract class Layer implements SCShutDown {
 	 */
 	public final @FreeAfterUse ByteBuffer toByteBuffer() {
 		
-		ByteBuffer buffer = memAlloc(mods() * 10);
+		ByteBuffer buffer = memAlloc("layer/serialize" , mods() * 10);
 		forEachModification(px -> buffer.putInt(px.textureX).putInt(px.textureY).put((byte) px.lookupX).put((byte) px.lookupY));
 		buffer.flip();
 		return buffer;
@@ -728,7 +815,7 @@ public abstract class Layer implements SCShutDown {
 		Objects.checkFromIndexSize(startingX, width, this.width);
 		Objects.checkFromIndexSize(startingY, height, this.height);
 		
-		ByteBuffer buffer = memAlloc(width * height * IndexTexture.pixelSizeBytes);
+		ByteBuffer buffer = memAlloc("layer/region" , width * height * IndexTexture.pixelSizeBytes);
 		LayerPixel[][] contents = layerDataStore.get(startingX, startingY, width, height);
 		toByteBuffer(contents , buffer);
 		
@@ -747,7 +834,7 @@ public abstract class Layer implements SCShutDown {
 		//the buffer sizes are based on the fact that layer pixels are 10 bytes, 8 for position, and 2 for lookup
 		ByteBuffer 	
 			buffer = toByteBuffer() ,
-			compress = memAlloc(mods() * 10);
+			compress = memAlloc("layer/lz4" , mods() * 10);
 
 		int bytes = LZ4_compress_default(buffer , compress);
 		compress.limit(bytes);
@@ -758,6 +845,21 @@ public abstract class Layer implements SCShutDown {
 		
 	}
 	
+	/**
+	 * Encodes this layer as {@link #encode()} does, unless {@code cache} already holds the encoding of a layer whose contents are shared 
+	 * with this one, in which case a copy of that encoding is returned. Deep copies of an artboard share the contents of their layers until 
+	 * they are modified, so within one save each such layer is encoded once.
+	 * 
+	 * @param cache encodings of the layers encoded so far
+	 * @return Compressed contents of this layer.
+	 */
+	public final @FreeAfterUse ByteBuffer encode(EncodedLayerCache cache) {
+		
+		if(!(layerDataStore instanceof TiledLayerDataStore tiled)) return encode();
+		return cache.encode(tiled.tileList() , tiled.sharers() , this::encode);
+		
+	}
+	
 	/**
 	 * Given a byte buffer that was prevously encoded using {@link Layer#encode() encode()}, this method decodes it and returns the result.
 	 * The buffer passed to this method is {@link cs.csss.annotation.Invalidated @Invalidated}, do not use it again.
@@ -767,7 +869,7 @@ public abstract class Layer implements SCShutDown {
 	 */
 	public final @FreeAfterUse ByteBuffer decode(@Invalidated ByteBuffer compressed) {
 
-		ByteBuffer decompressed = memAlloc((width * height) * 10);
+		ByteBuffer decompressed = memAlloc("layer/lz4" , (width * height) * 10);
 		
 		int bytes = LZ4_decompress_safe(compressed , decompressed);
 				
@@ -800,6 +902,8 @@ public abstract class Layer implements SCShutDown {
 		
 		if(isFreed()) return;
 		
+		palette.usage().forget(this);
+		if(layerDataStore instanceof TiledLayerDataStore tiled) tiled.release();
 		shapes.shutDown();
 		
 	}
@@ -1,6 +1,9 @@
 package cs.csss.project;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 interface LayerDataStore  {
 
@@ -12,6 +15,21 @@ interface LayerDataStore  {
 
 	public void put(final LayerPixel putThis);
 	
+	/**
+	 * Puts {@code putThis} in this store and returns the pixel it replaced. Stores which may be modified concurrently make the exchange 
+	 * atomic, so each replaced pixel is returned to exactly one caller.
+	 * 
+	 * @param putThis a pixel to put
+	 * @return The pixel previously at the position of {@code putThis}, or <code>null</code> if there was none.
+	 */
+	public default LayerPixel getAndPut(final LayerPixel putThis) {
+		
+		LayerPixel previous = get(putThis.textureX , putThis.textureY);
+		put(putThis);
+		return previous;
+		
+	}
+	
 	public LayerPixel remove(final int xIndex , final int yIndex);
 	
 	/**
@@ -62,5 +80,40 @@ interface LayerDataStore  {
 	}
 	
 	void forEach(Consumer<LayerPixel> callback);
+	
+	/**
+	 * Replaces each pixel of this store with the pixel {@code remap} returns for it. {@code remap} returns its argument for pixels which do
+	 * not change. Stores sharing parts with other stores remap a shared part once, recording the result in {@code remapped}, and share the 
+	 * result with every store remapped afterward with the same {@code remapped}.
+	 * 
+	 * @param remap function from a pixel to its replacement
+	 * @param remapped parts of stores already remapped with {@code remap}, mapped to their results, which must be safe to use from every
+	 * 		  thread remapping with it
+	 */
+	default void remap(UnaryOperator<LayerPixel> remap , Map<Object , Object> remapped) {
+		
+		forEach(pixel -> {
+			
+			LayerPixel replacement = remap.apply(pixel);
+			if(replacement != pixel) put(replacement);
+			
+		});
+		
+	}
+
+	/**
+	 * Returns the estimated bytes of heap this store retains for a layer of the given size, not counting parts of it found in
+	 * {@code counted}. Stores sharing parts with other stores add those parts to {@code counted}, so a shared part is counted once.
+	 * 
+	 * @param width width of the layer
+	 * @param height height of the layer
+	 * @param counted parts of stores already counted
+	 * @return Estimated bytes retained by this store.
+	 */
+	default long retainedBytes(int width , int height , Set<Object> counted) {
+		
+		return MemoryUsage.arrayBytes(width * height , MemoryUsage.REFERENCE_BYTES) + (long)mods() * MemoryUsage.PIXEL_BYTES;
+		
+	}
 
 }
@@ -0,0 +1,25 @@
+package cs.csss.project;
+
+/**
+ * Counts of the tiles of the layers of a project, showing how much memory sharing tiles between deep copies saves. Layers reference tiles,
+ * and a tile shared by several layers is allocated once.
+ * 
+ * @param tilesReferenced number of tiles referenced by all layers, counting shared tiles once per layer
+ * @param tilesAllocated number of distinct tiles
+ * @param pixelsReferenced number of pixel slots of the tiles referenced by all layers, counting shared tiles once per layer
+ * @param pixelsAllocated number of pixel slots of the distinct tiles
+ */
+public record LayerTileUsage(int tilesReferenced , int tilesAllocated , long pixelsReferenced , long pixelsAllocated) {
+	
+	/**
+	 * Returns the number of pixel slots that would be allocated if no tiles were shared, minus the number that are.
+	 * 
+	 * @return Number of pixel slots saved by sharing tiles.
+	 */
+	public long pixelsSaved() {
+		
+		return pixelsReferenced - pixelsAllocated;
+		
+	}
+	
+}
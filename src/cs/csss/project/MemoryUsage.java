@@ -0,0 +1,74 @@
+package cs.csss.project;
+
+/**
+ * Estimate of the memory retained by one part of a project, such as an artboard, layer, palette, or undoable event. Heap sizes are
+ * estimated from the shapes of objects for a 64 bit JVM with compressed references, because measuring them exactly would cost more than
+ * accounting can afford.
+ *
+ * @param name name of the part
+ * @param heapBytes estimated bytes of Java heap retained
+ * @param offHeapBytes bytes of off-heap memory retained
+ * @param vramBytes bytes of video memory retained
+ */
+public record MemoryUsage(String name , long heapBytes , long offHeapBytes , long vramBytes) {
+
+	/**
+	 * Estimated sizes of parts of Java objects.
+	 */
+	public static final int
+		REFERENCE_BYTES = 4 ,
+		OBJECT_HEADER_BYTES = 12 ,
+		ARRAY_HEADER_BYTES = 16 ,
+		/**
+		 * Size of a {@link LayerPixel}, or another pixel object of two {@code int}s and two {@code short}s.
+		 */
+		PIXEL_BYTES = 24;
+
+	/**
+	 * Returns the sum of the heap, off-heap, and video memory of this estimate.
+	 *
+	 * @return Total bytes of this estimate.
+	 */
+	public long totalBytes() {
+
+		return heapBytes + offHeapBytes + vramBytes;
+
+	}
+
+	/**
+	 * Returns the estimated size of an array of {@code length} elements of {@code elementBytes} bytes each.
+	 *
+	 * @param length number of elements
+	 * @param elementBytes size of an element
+	 * @return Estimated bytes of the array.
+	 */
+	public static long arrayBytes(int length , int elementBytes) {
+
+		return ARRAY_HEADER_BYTES + (long)length * elementBytes;
+
+	}
+
+	/**
+	 * Returns the estimated size of a two dimensional array of pixels, such as a region of a layer saved by an event. Regions read from a
+	 * layer share their pixels with it, so their pixels are only counted if {@code ownsPixels} is {@code true}.
+	 *
+	 * @param region a two dimensional array, or <code>null</code>
+	 * @param ownsPixels whether the elements of {@code region} were made for it
+	 * @return Estimated bytes of {@code region}, or 0 if it is <code>null</code>.
+	 */
+	public static long regionBytes(Object[][] region , boolean ownsPixels) {
+
+		if(region == null) return 0;
+		long bytes = arrayBytes(region.length , REFERENCE_BYTES);
+		for(Object[] row : region) if(row != null) {
+
+			bytes += arrayBytes(row.length , REFERENCE_BYTES);
+			if(ownsPixels) bytes += (long)row.length * PIXEL_BYTES;
+
+		}
+
+		return bytes;
+
+	}
+
+}
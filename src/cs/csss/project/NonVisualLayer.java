@@ -14,6 +14,7 @@ public class NonVisualLayer extends Layer {
 
 		super(prototype.name() , palette , artboard.width() , artboard.height());
 		this.bytesPerPixel = prototype.sizeBytes();		
+		owner = artboard;
 		
 	}
 
@@ -90,7 +91,7 @@ public class NonVisualLayer extends Layer {
 
 	@Override public <T extends Layer> void copy(T otherLayer) {
 
-		layerDataStore.copy(otherLayer.layerDataStore);
+		copyModificationsInto(otherLayer);
 		
 	}
 	
@@ -0,0 +1,342 @@
+package cs.csss.project;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.lwjgl.BufferUtils;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.engine.Lane;
+import cs.csss.engine.LookupPixel;
+
+/**
+ * Compaction of an {@link ArtboardPalette}. Lookups no pixel uses are dropped, lookups holding identical colors are merged into the first
+ * of them, and the remaining colors are packed densely at the start of the palette. Every layer using the palette is remapped to the new
+ * lookups, the layers of each artboard on their own thread, and the palette and the index texture of each affected artboard are then
+ * written in one upload each.
+ * <p>
+ * 	A compaction is planned once, off the palette's current contents, and may then be applied and undone any number of times as long as the
+ * 	palette and its layers are in the state it was planned in or applied to, as is the case for events on the undo stack.
+ * </p>
+ */
+public final class PaletteCompaction {
+	
+	private static final int NO_LOOKUP = -1;
+	
+	private static final int LOOKUPS = ArtboardPalette.MAX_WIDTH * ArtboardPalette.MAX_HEIGHT;
+	
+	/**
+	 * Plans the compaction of {@code palette} from its current contents. Nothing is modified until {@link #apply()} is called.
+	 *
+	 * @param palette a palette to compact
+	 * @return Compaction of {@code palette}.
+	 * @throws NullPointerException if {@code palette} is <code>null</code>.
+	 */
+	public static PaletteCompaction plan(ArtboardPalette palette) {
+		
+		return new PaletteCompaction(palette);
+		
+	}
+	
+	private final ArtboardPalette palette;
+	private final ByteBuffer before , after;
+	private final int beforeRow , beforeCol , afterRow , afterCol;
+	
+	/**
+	 * Both are indexed by and hold lookups packed as {@code lookupY * 256 + lookupX}. {@code remap} maps each old lookup to its new lookup,
+	 * and {@code inverse} maps each new lookup to the first old lookup holding its color.
+	 */
+	private final int[] remap = new int[LOOKUPS] , inverse = new int[LOOKUPS];
+	private final List<Layer> layers;
+	
+	/**
+	 * Positions and old lookups of pixels which used a lookup merged into another, which {@link #inverse} cannot restore.
+	 */
+	private final Map<Layer , int[]> merged = new ConcurrentHashMap<>();
+	
+	private ByteBuffer redo;
+	private int redoRow , redoCol;
+	
+	private PaletteCompaction(ArtboardPalette palette) {
+		
+		this.palette = palette;
+		
+		int width = palette.width() , channels = palette.channelsPerPixel();
+		int end = palette.currentRow() * width + palette.currentCol();
+		beforeRow = palette.currentRow();
+		beforeCol = palette.currentCol();
+		before = palette.copyPaletteMemory();
+		after = BufferUtils.createByteBuffer(before.capacity());
+		
+		Arrays.fill(remap , NO_LOOKUP);
+		Arrays.fill(inverse , NO_LOOKUP);
+		
+		layers = usingLayers(palette , end);
+		boolean[] live = liveLookups(palette , end);
+		Map<Integer , Integer> slots = new HashMap<>();
+		int next = 0;
+		
+		for(int i = 0 ; i < end ; i++) {
+			
+			int lookup = pack(i % width , i / width);
+			if(i >= PaletteUsage.RESERVED_LOOKUPS && !live[lookup]) continue;
+			
+			//the checkered background colors always keep their lookups, even if a layer uses the same color
+			Integer slot = i < PaletteUsage.RESERVED_LOOKUPS ? null : slots.get(colorOf(before , i * channels , channels));
+			if(slot == null) {
+				
+				slot = next++;
+				if(i >= PaletteUsage.RESERVED_LOOKUPS) slots.put(colorOf(before , i * channels , channels) , slot);
+				inverse[pack(slot % width , slot / width)] = lookup;
+				after.put(slot * channels , before , i * channels , channels);
+				
+			}
+			
+			remap[lookup] = pack(slot % width , slot / width);
+			
+		}
+		
+		afterRow = next / width;
+		afterCol = next % width;
+		
+	}
+	
+	/**
+	 * Returns the number of lookups this compaction frees.
+	 *
+	 * @return Number of lookups this compaction frees.
+	 */
+	public int lookupsFreed() {
+		
+		return (beforeRow * palette.width() + beforeCol) - (afterRow * palette.width() + afterCol);
+		
+	}
+	
+	/**
+	 * Applies this compaction.
+	 */
+	@RenderThreadOnly public void apply() {
+		
+		if(redo != null) palette.replacePaletteMemory(redo , redoRow , redoCol);
+		else palette.replacePaletteMemory(after , afterRow , afterCol);
+		
+		merged.clear();
+		remapLayers(remap , true);
+		palette.usage().remap(remap);
+		recomposite();
+		
+	}
+	
+	/**
+	 * Undoes this compaction, restoring the palette and every lookup of every layer this compaction remapped.
+	 */
+	@RenderThreadOnly public void undo() {
+		
+		//colors added after this compaction was applied are kept for when it is redone
+		redo = palette.copyPaletteMemory();
+		redoRow = palette.currentRow();
+		redoCol = palette.currentCol();
+		palette.replacePaletteMemory(before , beforeRow , beforeCol);
+		
+		remapLayers(inverse , false);
+		palette.usage().remap(inverse);
+		merged.forEach((layer , pixels) -> {
+			
+			for(int i = 0 ; i < pixels.length ; i += 2) layer.putAndIndex(new LayerPixel(
+				pixels[i] % layer.width ,
+				pixels[i] / layer.width ,
+				(short)(pixels[i + 1] % ArtboardPalette.MAX_WIDTH) ,
+				(short)(pixels[i + 1] / ArtboardPalette.MAX_WIDTH)
+			));
+			
+		});
+		
+		recomposite();
+		
+	}
+	
+	/**
+	 * Returns the lookup {@code pixel} refers to once this compaction is applied, such as to keep the editor's selected lookup on the same
+	 * color. Lookups this compaction drops or leaves in place are returned unchanged.
+	 *
+	 * @param pixel a lookup of the palette before this compaction
+	 * @return Lookup of the same color after this compaction.
+	 */
+	public LookupPixel remap(LookupPixel pixel) {
+		
+		return through(remap , pixel);
+		
+	}
+	
+	/**
+	 * Returns the lookup {@code pixel} refers to once this compaction is undone. This is the inverse of {@link #remap(LookupPixel)}, except
+	 * that lookups this compaction merged are restored to the first lookup holding their color.
+	 *
+	 * @param pixel a lookup of the palette after this compaction
+	 * @return Lookup of the same color before this compaction.
+	 */
+	public LookupPixel unmap(LookupPixel pixel) {
+		
+		return through(inverse , pixel);
+		
+	}
+	
+	private static LookupPixel through(int[] table , LookupPixel pixel) {
+		
+		int mapped = table[pack(Byte.toUnsignedInt(pixel.lookupX()) , Byte.toUnsignedInt(pixel.lookupY()))];
+		return mapped == NO_LOOKUP ? pixel : new IndexPixel(mapped % ArtboardPalette.MAX_WIDTH , mapped / ArtboardPalette.MAX_WIDTH);
+		
+	}
+	
+	/**
+	 * Remaps the pixels and line records of every layer using the palette through {@code table}, in parallel over the artboards owning the
+	 * layers. Tiles shared between layers are remapped once and stay shared. The palette's usage index is not updated.
+	 */
+	private void remapLayers(int[] table , boolean recordMerged) {
+		
+		Map<Object , Object> remappedTiles = new ConcurrentHashMap<>();
+		Map<Artboard , List<Layer>> byArtboard = new HashMap<>();
+		for(Layer x : layers) byArtboard.computeIfAbsent(x.owner , artboard -> new ArrayList<>()).add(x);
+		
+		List<Future<?>> futures = new ArrayList<>(byArtboard.size());
+		for(List<Layer> artboardLayers : byArtboard.values()) futures.add(Lane.COMPUTE.submit(() -> {
+			
+			for(Layer x : artboardLayers) remapLayer(x , table , recordMerged , remappedTiles);
+			
+		}));
+		
+		try {
+			
+			for(Future<?> x : futures) x.get();
+			
+		} catch (InterruptedException | ExecutionException e) {
+			
+			throw new IllegalStateException(e);
+			
+		}
+		
+	}
+	
+	private void remapLayer(Layer layer , int[] table , boolean recordMerged , Map<Object , Object> remappedTiles) {
+		
+		LayerDataStore store = layer.layerDataStore;
+		
+		//merged pixels are found in a read only pass so tiles shared with layers remapped before this one are not written to
+		if(recordMerged) {
+			
+			int[][] mergedPixels = {new int[16]};
+			int[] numberMerged = {0};
+			store.forEach(pixel -> {
+				
+				int lookup = pack(pixel.lookupX , pixel.lookupY) , mapped = table[lookup];
+				if(mapped == NO_LOOKUP || mapped == lookup || inverse[mapped] == lookup) return;
+				
+				if(numberMerged[0] == mergedPixels[0].length) mergedPixels[0] = Arrays.copyOf(mergedPixels[0] , numberMerged[0] * 2);
+				mergedPixels[0][numberMerged[0]++] = pixel.textureY * layer.width + pixel.textureX;
+				mergedPixels[0][numberMerged[0]++] = lookup;
+				
+			});
+			
+			if(numberMerged[0] != 0) merged.put(layer , Arrays.copyOf(mergedPixels[0] , numberMerged[0]));
+			
+		}
+		
+		//locked layers are remapped too, the colors they show do not change
+		store.remap(pixel -> {
+			
+			int lookup = pack(pixel.lookupX , pixel.lookupY) , mapped = table[lookup];
+			if(mapped == NO_LOOKUP || mapped == lookup) return pixel;
+			
+			return new LayerPixel(
+				pixel.textureX ,
+				pixel.textureY ,
+				(short)(mapped % ArtboardPalette.MAX_WIDTH) ,
+				(short)(mapped / ArtboardPalette.MAX_WIDTH)
+			);
+			
+		} , remappedTiles);
+		
+		//line records store lookups as lookupX << 8 | lookupY
+		layer.forEachLine(line -> line.lineMods().remapPrevious(previous -> {
+			
+			int mapped = table[pack(previous >>> 8 , previous & 0xff)];
+			return mapped == NO_LOOKUP ? previous : (mapped % ArtboardPalette.MAX_WIDTH) << 8 | (mapped / ArtboardPalette.MAX_WIDTH);
+			
+		}));
+		
+	}
+	
+	/**
+	 * Rewrites the index texture of each artboard which owns a remapped layer and whose active layer uses the palette.
+	 */
+	private void recomposite() {
+		
+		Set<Artboard> artboards = new LinkedHashSet<>();
+		for(Layer x : layers) if(x.owner != null) artboards.add(x.owner);
+		for(Artboard x : artboards) if(x.activeLayer().palette() == palette) x.recompositeAll();
+		
+	}
+	
+	/**
+	 * Returns the layers using any lookup of {@code palette} before {@code end}.
+	 */
+	private static List<Layer> usingLayers(ArtboardPalette palette , int end) {
+		
+		Set<Layer> layers = new LinkedHashSet<>();
+		int width = palette.width();
+		for(int i = PaletteUsage.RESERVED_LOOKUPS ; i < end ; i++) {
+			
+			palette.usage().forEachUsingLayer(i % width , i / width , (layer , tiles) -> layers.add(layer));
+			
+		}
+		
+		return new ArrayList<>(layers);
+		
+	}
+	
+	/**
+	 * Marks the lookups used by pixels of layers, or by the pixels lines replaced, which must survive for those lines to be removed.
+	 */
+	private boolean[] liveLookups(ArtboardPalette palette , int end) {
+		
+		boolean[] live = new boolean[LOOKUPS];
+		int width = palette.width();
+		for(int i = PaletteUsage.RESERVED_LOOKUPS ; i < end ; i++) {
+			
+			int lookupX = i % width , lookupY = i / width;
+			if(palette.usage().count(lookupX , lookupY) != 0) live[pack(lookupX , lookupY)] = true;
+			
+		}
+		
+		for(Layer x : layers) x.forEachLine(line -> line.lineMods().forEachPrevious(
+			previous -> live[pack(previous >>> 8 , previous & 0xff)] = true
+		));
+		
+		return live;
+		
+	}
+	
+	private static int colorOf(ByteBuffer memory , int offset , int channels) {
+		
+		int color = 0;
+		for(int i = 0 ; i < channels ; i++) color = color << 8 | Byte.toUnsignedInt(memory.get(offset + i));
+		return color;
+		
+	}
+	
+	private static int pack(int lookupX , int lookupY) {
+		
+		return lookupY * ArtboardPalette.MAX_WIDTH + lookupX;
+		
+	}
+	
+}
@@ -0,0 +1,272 @@
+package cs.csss.project;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+/**
+ * Reverse index from the lookups of an {@link ArtboardPalette} to the layers whose pixels use them.
+ * <p>
+ * 	For each lookup, the index stores the number of pixels of each layer which use it, and the number of those pixels within each tile of
+ * 	the layer, where tiles are {@link Artboard#RECOMPOSITE_TILE_SIZE} pixels square. The index is maintained by {@link Layer#put(LayerPixel)}
+ * 	and {@link Layer#remove(int, int)}, so finding the usages of a color, counting them, and replacing them only visits the layers and tiles
+ * 	that actually contain the color rather than every pixel of the project.
+ * </p>
+ * <p>
+ * 	The count of each tile is its own atomic counter, so layers may be modified concurrently without locking. Writers to different tiles never
+ * 	contend, and totals are summed from the tile counts when they are read.
+ * </p>
+ */
+public final class PaletteUsage {
+	
+	/**
+	 * The first two entries of every palette are the colors of the checkered background, which are written to index textures but never to
+	 * layers.
+	 */
+	static final int RESERVED_LOOKUPS = 2;
+	
+	private static final int LOOKUPS = ArtboardPalette.MAX_WIDTH * ArtboardPalette.MAX_HEIGHT;
+	
+	private final AtomicReferenceArray<LookupUsage> usages = new AtomicReferenceArray<>(LOOKUPS);
+	
+	/**
+	 * Packed lookups which have an entry in {@link #usages}, so operations over every layer visit only the lookups pixels have used rather
+	 * than every lookup a palette can have.
+	 */
+	private final Set<Integer> usedLookups = ConcurrentHashMap.newKeySet();
+	
+	PaletteUsage() {}
+	
+	/**
+	 * Records that {@code pixel} was put in {@code layer}.
+	 */
+	void increment(Layer layer , LayerPixel pixel) {
+		
+		LookupUsage usage = usageOf(pack(pixel.lookupX , pixel.lookupY));
+		AtomicIntegerArray counts = usage.layers.computeIfAbsent(layer , x -> new AtomicIntegerArray(numberTiles(x)));
+		counts.incrementAndGet(tileOf(layer , pixel.textureX , pixel.textureY));
+		
+	}
+	
+	/**
+	 * Records that {@code pixel} was removed from {@code layer}.
+	 */
+	void decrement(Layer layer , LayerPixel pixel) {
+		
+		LookupUsage usage = usages.get(pack(pixel.lookupX , pixel.lookupY));
+		if(usage == null) return;
+		
+		//layers whose counts fall to zero are kept, since removing them could race with an increment; readers skip them instead
+		AtomicIntegerArray counts = usage.layers.get(layer);
+		if(counts != null) counts.decrementAndGet(tileOf(layer , pixel.textureX , pixel.textureY));
+		
+	}
+	
+	/**
+	 * Records every usage of {@code source} as a usage of {@code destination} too, for when {@code destination} is given the same contents
+	 * as {@code source}. {@code destination} must not have any usages.
+	 */
+	void copy(Layer source , Layer destination) {
+		
+		for(int lookup : usedLookups) {
+			
+			LookupUsage usage = usages.get(lookup);
+			AtomicIntegerArray counts = usage.layers.get(source);
+			if(counts == null) continue;
+			
+			AtomicIntegerArray copy = new AtomicIntegerArray(counts.length());
+			for(int j = 0 ; j < copy.length() ; j++) copy.set(j , counts.get(j));
+			usage.layers.put(destination , copy);
+			
+		}
+		
+	}
+	
+	/**
+	 * Removes every record of {@code layer} from this index.
+	 */
+	void forget(Layer layer) {
+		
+		for(int lookup : usedLookups) usages.get(lookup).layers.remove(layer);
+		
+	}
+	
+	/**
+	 * Moves the usages of each lookup to the lookup {@code table} maps it to. {@code table} is indexed by {@code lookupY * 256 + lookupX}
+	 * and holds mapped lookups packed the same way, or {@code -1} for lookups whose usages are dropped. Usages of lookups mapped to the same
+	 * lookup are merged. Must not be called while layers using the palette are being modified.
+	 */
+	void remap(int[] table) {
+		
+		Map<Integer , LookupUsage> previous = new HashMap<>();
+		for(int lookup : usedLookups) previous.put(lookup , usages.getAndSet(lookup , null));
+		usedLookups.clear();
+		
+		for(Map.Entry<Integer , LookupUsage> entry : previous.entrySet()) {
+			
+			int mapped = table[entry.getKey()];
+			if(mapped == -1) continue;
+			
+			LookupUsage usage = usageOf(mapped);
+			entry.getValue().layers.forEach((layer , counts) -> {
+				
+				AtomicIntegerArray merged = usage.layers.computeIfAbsent(layer , x -> new AtomicIntegerArray(counts.length()));
+				for(int j = 0 ; j < counts.length() ; j++) merged.addAndGet(j , counts.get(j));
+				
+			});
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of pixels of all layers which use the given lookup.
+	 *
+	 * @param lookupX x index of a lookup into the palette
+	 * @param lookupY y index of a lookup into the palette
+	 * @return Number of pixels using the given lookup.
+	 */
+	public int count(int lookupX , int lookupY) {
+		
+		LookupUsage usage = usages.get(pack(lookupX , lookupY));
+		if(usage == null) return 0;
+		
+		int total = 0;
+		for(AtomicIntegerArray counts : usage.layers.values()) total += sum(counts);
+		return total;
+		
+	}
+	
+	/**
+	 * Returns the number of pixels which use the given lookup in each artboard whose layers use it. Shallow copies of artboards share the
+	 * layers of the artboard they copy, so their usages are counted under that artboard.
+	 *
+	 * @param lookupX x index of a lookup into the palette
+	 * @param lookupY y index of a lookup into the palette
+	 * @return Map from artboard to number of pixels using the given lookup.
+	 */
+	public Map<Artboard , Integer> countsByArtboard(int lookupX , int lookupY) {
+		
+		Map<Artboard , Integer> counts = new HashMap<>();
+		forEachUsingLayer(lookupX , lookupY , (layer , tiles) -> counts.merge(layer.owner , count(layer , lookupX , lookupY) , Integer::sum));
+		return counts;
+		
+	}
+	
+	/**
+	 * Invokes {@code callback} with each layer using the given lookup and the set of tiles of the layer which contain pixels using it. Tiles
+	 * are indexed the same way as {@link Artboard#tilesModifiedBy(Layer)}. The layers and tiles are copied before {@code callback} is
+	 * invoked, so {@code callback} may modify the layers.
+	 *
+	 * @param lookupX x index of a lookup into the palette
+	 * @param lookupY y index of a lookup into the palette
+	 * @param callback code to invoke for each layer using the given lookup
+	 */
+	public void forEachUsingLayer(int lookupX , int lookupY , BiConsumer<Layer , BitSet> callback) {
+		
+		LookupUsage usage = usages.get(pack(lookupX , lookupY));
+		if(usage == null) return;
+		
+		List<Layer> layers = new ArrayList<>();
+		List<BitSet> tiles = new ArrayList<>();
+		usage.layers.forEach((layer , counts) -> {
+			
+			BitSet layerTiles = new BitSet(counts.length());
+			for(int i = 0 ; i < counts.length() ; i++) if(counts.get(i) > 0) layerTiles.set(i);
+			if(layerTiles.isEmpty()) return;
+			layers.add(layer);
+			tiles.add(layerTiles);
+			
+		});
+		
+		for(int i = 0 ; i < layers.size() ; i++) callback.accept(layers.get(i) , tiles.get(i));
+		
+	}
+	
+	/**
+	 * Returns the lookups of {@code palette} that have been filled in but that no pixel of any layer uses. The colors of the checkered
+	 * background are never included.
+	 *
+	 * @param palette the palette this index belongs to
+	 * @return List of unused lookups of {@code palette}.
+	 */
+	public List<IndexPixel> unusedLookups(ArtboardPalette palette) {
+		
+		List<IndexPixel> unused = new ArrayList<>();
+		int end = palette.currentRow() * palette.width() + palette.currentCol();
+		for(int i = RESERVED_LOOKUPS ; i < end ; i++) {
+			
+			int lookupX = i % palette.width() , lookupY = i / palette.width();
+			if(count(lookupX , lookupY) == 0) unused.add(new IndexPixel(lookupX , lookupY));
+			
+		}
+		
+		return unused;
+		
+	}
+	
+	private int count(Layer layer , int lookupX , int lookupY) {
+		
+		LookupUsage usage = usages.get(pack(lookupX , lookupY));
+		if(usage == null) return 0;
+		
+		AtomicIntegerArray counts = usage.layers.get(layer);
+		return counts == null ? 0 : sum(counts);
+		
+	}
+	
+	private static int sum(AtomicIntegerArray counts) {
+		
+		int sum = 0;
+		for(int i = 0 ; i < counts.length() ; i++) sum += counts.get(i);
+		return sum;
+		
+	}
+	
+	private LookupUsage usageOf(int lookup) {
+		
+		LookupUsage usage = usages.get(lookup);
+		if(usage != null) return usage;
+		
+		if(usages.compareAndSet(lookup , null , new LookupUsage())) usedLookups.add(lookup);
+		return usages.get(lookup);
+		
+	}
+	
+	private static int pack(int lookupX , int lookupY) {
+		
+		return lookupY * ArtboardPalette.MAX_WIDTH + lookupX;
+		
+	}
+	
+	private static int numberTiles(Layer layer) {
+		
+		int tile = Artboard.RECOMPOSITE_TILE_SIZE;
+		return ((layer.width + tile - 1) / tile) * ((layer.height + tile - 1) / tile);
+		
+	}
+	
+	private static int tileOf(Layer layer , int x , int y) {
+		
+		int tile = Artboard.RECOMPOSITE_TILE_SIZE;
+		return (y / tile) * ((layer.width + tile - 1) / tile) + (x / tile);
+		
+	}
+	
+	/**
+	 * Usage of one lookup, mapping each layer using it to the number of its pixels using it within each of its tiles.
+	 */
+	private static final class LookupUsage {
+		
+		private final ConcurrentHashMap<Layer , AtomicIntegerArray> layers = new ConcurrentHashMap<>(4);
+		
+	}
+	
+}
@@ -0,0 +1,41 @@
+package cs.csss.project;
+
+/**
+ * Moves textures between video memory and main memory for a {@link TextureResidency}. Keeping these operations behind an interface lets
+ * the residency policy be exercised without a graphics context, by a backend which only records what it was asked to do.
+ *
+ * @param <T> type of texture this backend moves
+ */
+public interface TextureBackend<T> {
+	
+	/**
+	 * Returns the number of bytes of video memory {@code texture} uses while it is resident.
+	 *
+	 * @param texture a texture
+	 * @return Size of {@code texture} in video memory.
+	 */
+	long sizeBytes(T texture);
+	
+	/**
+	 * Copies the contents of {@code texture} into main memory and frees its video memory.
+	 *
+	 * @param texture a resident texture
+	 */
+	void evict(T texture);
+	
+	/**
+	 * Uploads the contents of {@code texture} saved by {@link #evict(Object) evict} back to video memory and frees the saved copy.
+	 *
+	 * @param texture an evicted texture
+	 */
+	void restore(T texture);
+	
+	/**
+	 * Frees the copy of {@code texture} saved by {@link #evict(Object) evict} without uploading it, because {@code texture} is being shut
+	 * down.
+	 *
+	 * @param texture an evicted texture
+	 */
+	void discard(T texture);
+	
+}
@@ -0,0 +1,298 @@
+package cs.csss.project;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Least recently used residency policy for textures. Textures are {@linkplain #register(Object, long) registered} as resident and are
+ * {@linkplain #use(Object, long) used} before every draw or edit, which restores them first if they were evicted. Once per frame,
+ * {@link #update(long)} evicts textures which have not been used for {@link #evictAfterMillis()} milliseconds, and then evicts the least
+ * recently used textures until the resident textures fit in {@link #budgetBytes()}. Textures used since the previous update are never
+ * evicted, so a budget smaller than what is on screen is exceeded rather than causing textures to be restored and evicted every frame.
+ *
+ * <p>
+ * 	Time is passed in by callers and all movement of textures is done by a {@link TextureBackend}, so this class does not depend on a 
+ * 	graphics context or a clock. Textures are compared by identity, because the equality of textures may follow their handles in video
+ * 	memory, which change when they are restored. Only the eviction time and the budget may be set from any thread; everything else
+ * 	must be done on one thread, which for {@link IndexTexture}s is the render thread.
+ * </p>
+ *
+ * @param <T> type of texture managed
+ */
+public final class TextureResidency<T> {
+	
+	/**
+	 * Default number of milliseconds a texture may go unused before it is evicted.
+	 */
+	public static final long DEFAULT_EVICT_AFTER_MILLIS = 60_000;
+	
+	private final TextureBackend<T> backend;
+	
+	private final IdentityHashMap<T , Residence> resident = new IdentityHashMap<>();
+	private final IdentityHashMap<T , Residence> evicted = new IdentityHashMap<>();
+	
+	private volatile long evictAfterMillis = DEFAULT_EVICT_AFTER_MILLIS;
+	private volatile long budgetBytes = 0;
+	private long residentBytes = 0;
+	private long frame = 0;
+	private int evictions = 0 , restorations = 0;
+	
+	/**
+	 * Creates a residency policy moving textures with {@code backend}.
+	 *
+	 * @param backend moves textures between video memory and main memory
+	 * @throws NullPointerException if {@code backend} is <code>null</code>.
+	 */
+	public TextureResidency(TextureBackend<T> backend) {
+		
+		this.backend = Objects.requireNonNull(backend);
+		
+	}
+	
+	/**
+	 * Begins managing {@code texture}, which must be resident.
+	 *
+	 * @param texture a newly uploaded texture
+	 * @param nowMillis current time in milliseconds
+	 */
+	public void register(T texture , long nowMillis) {
+		
+		if(resident.containsKey(texture) || evicted.containsKey(texture)) return;
+		
+		Residence residence = new Residence(backend.sizeBytes(texture));
+		residence.used(nowMillis , frame);
+		resident.put(texture , residence);
+		residentBytes += residence.sizeBytes;
+		
+	}
+	
+	/**
+	 * Stops managing {@code texture}, discarding its saved copy if it is evicted. Called when {@code texture} is shut down.
+	 *
+	 * @param texture a texture
+	 */
+	public void remove(T texture) {
+		
+		Residence residence = resident.remove(texture);
+		if(residence != null) residentBytes -= residence.sizeBytes;
+		else if(evicted.remove(texture) != null) backend.discard(texture);
+		
+	}
+	
+	/**
+	 * Marks {@code texture} as used now, restoring it first if it was evicted. Textures which are not managed are ignored.
+	 *
+	 * @param texture a texture about to be drawn or edited
+	 * @param nowMillis current time in milliseconds
+	 */
+	public void use(T texture , long nowMillis) {
+		
+		Residence residence = resident.get(texture);
+		if(residence == null) {
+			
+			residence = evicted.remove(texture);
+			if(residence == null) return;
+			
+			backend.restore(texture);
+			restorations++;
+			resident.put(texture , residence);
+			residentBytes += residence.sizeBytes;
+			
+		}
+		
+		residence.used(nowMillis , frame);
+		
+	}
+	
+	/**
+	 * Evicts textures unused for longer than {@link #evictAfterMillis()}, then evicts the least recently used textures not used since the
+	 * previous update while the resident textures exceed the budget. Called once per frame.
+	 *
+	 * @param nowMillis current time in milliseconds
+	 */
+	public void update(long nowMillis) {
+		
+		List<T> evicting = new ArrayList<>();
+		List<Map.Entry<T , Residence>> candidates = new ArrayList<>();
+		long remainingBytes = residentBytes;
+		for(Map.Entry<T , Residence> entry : resident.entrySet()) {
+			
+			Residence residence = entry.getValue();
+			if(residence.lastUsedFrame == frame) continue;
+			
+			if(evictAfterMillis > 0 && nowMillis - residence.lastUsedMillis >= evictAfterMillis) {
+				
+				evicting.add(entry.getKey());
+				remainingBytes -= residence.sizeBytes;
+				
+			} else if(budgetBytes > 0) candidates.add(entry);
+			
+		}
+		
+		if(budgetBytes > 0 && remainingBytes > budgetBytes) {
+			
+			candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastUsedMillis));
+			for(int i = 0 ; i < candidates.size() && remainingBytes > budgetBytes ; i++) {
+				
+				evicting.add(candidates.get(i).getKey());
+				remainingBytes -= candidates.get(i).getValue().sizeBytes;
+				
+			}
+			
+		}
+		
+		for(T texture : evicting) {
+			
+			Residence residence = resident.remove(texture);
+			backend.evict(texture);
+			evictions++;
+			residentBytes -= residence.sizeBytes;
+			evicted.put(texture , residence);
+			
+		}
+		
+		frame++;
+		
+	}
+	
+	/**
+	 * Returns whether {@code texture} is in video memory. Textures which are not managed are considered resident.
+	 *
+	 * @param texture a texture
+	 * @return Whether {@code texture} is resident.
+	 */
+	public boolean isResident(T texture) {
+		
+		return !evicted.containsKey(texture);
+		
+	}
+	
+	/**
+	 * Returns the number of milliseconds a texture may go unused before it is evicted, or 0 if textures are not evicted for being unused.
+	 *
+	 * @return Idle time after which textures are evicted.
+	 */
+	public long evictAfterMillis() {
+		
+		return evictAfterMillis;
+		
+	}
+	
+	/**
+	 * Sets the number of milliseconds a texture may go unused before it is evicted. 0 disables evicting textures for being unused.
+	 *
+	 * @param evictAfterMillis idle time after which textures are evicted
+	 * @throws IllegalArgumentException if {@code evictAfterMillis} is negative.
+	 */
+	public void evictAfterMillis(long evictAfterMillis) {
+		
+		if(evictAfterMillis < 0) throw new IllegalArgumentException("Eviction time is negative: " + evictAfterMillis);
+		this.evictAfterMillis = evictAfterMillis;
+		
+	}
+	
+	/**
+	 * Returns the number of bytes resident textures should stay below, or 0 if they are not budgeted.
+	 *
+	 * @return Budget of resident textures in bytes.
+	 */
+	public long budgetBytes() {
+		
+		return budgetBytes;
+		
+	}
+	
+	/**
+	 * Sets the number of bytes resident textures should stay below. 0 disables the budget.
+	 *
+	 * @param budgetBytes budget of resident textures in bytes
+	 * @throws IllegalArgumentException if {@code budgetBytes} is negative.
+	 */
+	public void budgetBytes(long budgetBytes) {
+		
+		if(budgetBytes < 0) throw new IllegalArgumentException("Residency budget is negative: " + budgetBytes);
+		this.budgetBytes = budgetBytes;
+		
+	}
+	
+	/**
+	 * Returns the number of bytes of video memory used by resident textures.
+	 *
+	 * @return Size of resident textures.
+	 */
+	public long residentBytes() {
+		
+		return residentBytes;
+		
+	}
+	
+	/**
+	 * Returns the number of resident textures.
+	 *
+	 * @return Number of resident textures.
+	 */
+	public int numberResident() {
+		
+		return resident.size();
+		
+	}
+	
+	/**
+	 * Returns the number of evicted textures.
+	 *
+	 * @return Number of evicted textures.
+	 */
+	public int numberEvicted() {
+		
+		return evicted.size();
+		
+	}
+	
+	/**
+	 * Returns the number of times a texture was evicted.
+	 *
+	 * @return Number of evictions.
+	 */
+	public int evictions() {
+		
+		return evictions;
+		
+	}
+	
+	/**
+	 * Returns the number of times a texture was restored.
+	 *
+	 * @return Number of restorations.
+	 */
+	public int restorations() {
+		
+		return restorations;
+		
+	}
+	
+	private static final class Residence {
+		
+		final long sizeBytes;
+		long lastUsedMillis;
+		long lastUsedFrame;
+		
+		Residence(long sizeBytes) {
+			
+			this.sizeBytes = sizeBytes;
+			
+		}
+		
+		void used(long nowMillis , long frame) {
+			
+			lastUsedMillis = nowMillis;
+			lastUsedFrame = frame;
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,381 @@
+package cs.csss.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Layer data store which divides a layer into square tiles of {@link Artboard#RECOMPOSITE_TILE_SIZE} pixels that can be shared between
+ * stores. {@link #copyOnWrite()} creates a store sharing every tile of this one in time proportional to the number of tiles, and a shared
+ * tile is cloned by whichever store first writes to it. Tiles no pixel has been written to are not allocated.
+ * <p>
+ * 	Pixels are read and written atomically, so stores may be modified concurrently, but a store must not be copied while it is being
+ * 	modified.
+ * </p>
+ */
+class TiledLayerDataStore implements LayerDataStore {
+	
+	static final int TILE_SIZE = Artboard.RECOMPOSITE_TILE_SIZE;
+	
+	final int width , height;
+	private final int horizontalTiles;
+	private final AtomicReferenceArray<Tile> tiles;
+	private final AtomicInteger mods;
+	
+	TiledLayerDataStore(int width , int height) {
+		
+		this.width = width;
+		this.height = height;
+		horizontalTiles = (width + TILE_SIZE - 1) / TILE_SIZE;
+		tiles = new AtomicReferenceArray<>(horizontalTiles * ((height + TILE_SIZE - 1) / TILE_SIZE));
+		mods = new AtomicInteger(0);
+		
+	}
+	
+	private TiledLayerDataStore(TiledLayerDataStore source) {
+		
+		width = source.width;
+		height = source.height;
+		horizontalTiles = source.horizontalTiles;
+		tiles = new AtomicReferenceArray<>(source.tiles.length());
+		for(int i = 0 ; i < tiles.length() ; i++) {
+			
+			Tile tile = source.tiles.get(i);
+			if(tile == null) continue;
+			tile.owners.incrementAndGet();
+			tiles.set(i , tile);
+			
+		}
+		
+		mods = new AtomicInteger(source.mods.get());
+		
+	}
+	
+	/**
+	 * Returns a store with the same contents as this one which shares all of this store's tiles.
+	 *
+	 * @return Copy on write copy of this store.
+	 */
+	TiledLayerDataStore copyOnWrite() {
+		
+		return new TiledLayerDataStore(this);
+		
+	}
+	
+	/**
+	 * Gives up this store's share of its tiles. The store must not be used afterward.
+	 */
+	void release() {
+		
+		for(int i = 0 ; i < tiles.length() ; i++) {
+			
+			Tile tile = tiles.getAndSet(i , null);
+			if(tile != null) tile.owners.decrementAndGet();
+			
+		}
+		
+		mods.set(0);
+		
+	}
+	
+	/**
+	 * Returns the tiles of this store in order, <code>null</code> where a tile is not allocated. Two stores whose tile lists are equal have
+	 * the same contents.
+	 *
+	 * @return List of the tiles of this store.
+	 */
+	List<Object> tileList() {
+		
+		List<Object> list = new ArrayList<>(tiles.length());
+		for(int i = 0 ; i < tiles.length() ; i++) list.add(tiles.get(i));
+		return list;
+		
+	}
+	
+	/**
+	 * Returns the largest number of other stores which could have the same tiles as this store, which is the least number of other stores
+	 * sharing any allocated tile of this store. Returns 0 if this store has no allocated tiles.
+	 *
+	 * @return Number of other stores which may have the same contents as this store.
+	 */
+	int sharers() {
+		
+		int sharers = Integer.MAX_VALUE;
+		for(int i = 0 ; i < tiles.length() ; i++) {
+			
+			Tile tile = tiles.get(i);
+			if(tile != null) sharers = Math.min(sharers , tile.owners.get() - 1);
+			
+		}
+		
+		return sharers == Integer.MAX_VALUE ? 0 : sharers;
+		
+	}
+	
+	/**
+	 * Invokes {@code callback} with each allocated tile of this store and whether it is shared with another store. Tiles are passed as
+	 * opaque objects so callers can tell shared tiles apart by identity.
+	 *
+	 * @param callback code to invoke for each tile
+	 */
+	void forEachTile(TileConsumer callback) {
+		
+		for(int i = 0 ; i < tiles.length() ; i++) {
+			
+			Tile tile = tiles.get(i);
+			if(tile != null) callback.accept(tile , tile.pixels.length() , tile.owners.get() > 1);
+			
+		}
+		
+	}
+	
+	@Override public int mods() {
+		
+		return mods.get();
+		
+	}
+	
+	@Override public long retainedBytes(int width , int height , Set<Object> counted) {
+		
+		long bytes = MemoryUsage.arrayBytes(tiles.length() , MemoryUsage.REFERENCE_BYTES);
+		long slots = 0 , newSlots = 0;
+		for(int i = 0 ; i < tiles.length() ; i++) {
+			
+			Tile tile = tiles.get(i);
+			if(tile == null) continue;
+			slots += tile.pixels.length();
+			if(!counted.add(tile)) continue;
+			newSlots += tile.pixels.length();
+			bytes += Tile.OVERHEAD_BYTES + MemoryUsage.arrayBytes(tile.pixels.length() , MemoryUsage.REFERENCE_BYTES);
+			
+		}
+		
+		//pixels are not counted per tile, so the pixels of shared tiles are charged in proportion to the share of them first counted here
+		if(slots > 0) bytes += (long)mods() * MemoryUsage.PIXEL_BYTES * newSlots / slots;
+		return bytes;
+		
+	}
+	
+	@Override public boolean modifiesAtIndex(int xIndex , int yIndex) {
+		
+		return get(xIndex , yIndex) != null;
+		
+	}
+	
+	@Override public LayerPixel get(int xIndex , int yIndex) {
+		
+		Tile tile = tiles.get(tileIndex(xIndex , yIndex));
+		return tile == null ? null : tile.pixels.get(offset(xIndex , yIndex));
+		
+	}
+	
+	@Override public void put(LayerPixel putThis) {
+		
+		getAndPut(putThis);
+		
+	}
+	
+	@Override public LayerPixel getAndPut(LayerPixel putThis) {
+		
+		Objects.requireNonNull(putThis);
+		
+		int x = putThis.textureX , y = putThis.textureY;
+		Tile tile = writableTile(tileIndex(x , y));
+		LayerPixel previous = tile.pixels.getAndSet(offset(x , y) , putThis);
+		if(previous == null) mods.incrementAndGet();
+		return previous;
+		
+	}
+	
+	@Override public LayerPixel remove(int xIndex , int yIndex) {
+		
+		int index = tileIndex(xIndex , yIndex) , offset = offset(xIndex , yIndex);
+		Tile tile = tiles.get(index);
+		//removing nothing does not clone a shared tile
+		if(tile == null || tile.pixels.get(offset) == null) return null;
+		
+		LayerPixel removed = writableTile(index).pixels.getAndSet(offset , null);
+		if(removed != null) mods.decrementAndGet();
+		return removed;
+		
+	}
+	
+	@Override public void forEach(Consumer<LayerPixel> callback) {
+		
+		int found = 0;
+		int neededMods = mods.get();
+		
+		for(int i = 0 ; i < tiles.length() ; i++) {
+			
+			Tile tile = tiles.get(i);
+			if(tile == null) continue;
+			
+			for(int j = 0 ; j < tile.pixels.length() ; j++) {
+				
+				LayerPixel x = tile.pixels.get(j);
+				if(x == null) continue;
+				
+				callback.accept(x);
+				if(++found == neededMods) return;
+				
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * {@inheritDoc} Tiles none of whose pixels change are kept, so they stay shared, and a changed tile is remapped into a new tile once for
+	 * all stores sharing it.
+	 */
+	@Override public void remap(UnaryOperator<LayerPixel> remap , Map<Object , Object> remapped) {
+		
+		for(int i = 0 ; i < tiles.length() ; i++) {
+			
+			Tile tile = tiles.get(i);
+			if(tile == null) continue;
+			
+			Tile result = (Tile)remapped.computeIfAbsent(tile , source -> ((Tile)source).remapped(remap));
+			if(result == tile) continue;
+			
+			result.owners.incrementAndGet();
+			tiles.set(i , result);
+			tile.owners.decrementAndGet();
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the tile at {@code index}, allocating it if it does not exist and cloning it if it is shared.
+	 */
+	private Tile writableTile(int index) {
+		
+		Tile tile = tiles.get(index);
+		if(tile != null && tile.owners.get() == 1) return tile;
+		
+		synchronized(this) {
+			
+			tile = tiles.get(index);
+			if(tile == null) {
+				
+				tile = new Tile(tileWidth(index) * tileHeight(index));
+				tiles.set(index , tile);
+				
+			} else if(tile.owners.get() > 1) {
+				
+				Tile clone = new Tile(tile);
+				tiles.set(index , clone);
+				tile.owners.decrementAndGet();
+				tile = clone;
+				
+			}
+			
+			return tile;
+			
+		}
+		
+	}
+	
+	private int tileIndex(int xIndex , int yIndex) {
+		
+		return (yIndex / TILE_SIZE) * horizontalTiles + (xIndex / TILE_SIZE);
+		
+	}
+	
+	private int offset(int xIndex , int yIndex) {
+		
+		int tileLeftX = xIndex - xIndex % TILE_SIZE;
+		return (yIndex % TILE_SIZE) * Math.min(TILE_SIZE , width - tileLeftX) + (xIndex - tileLeftX);
+		
+	}
+	
+	private int tileWidth(int index) {
+		
+		return Math.min(TILE_SIZE , width - (index % horizontalTiles) * TILE_SIZE);
+		
+	}
+	
+	private int tileHeight(int index) {
+		
+		return Math.min(TILE_SIZE , height - (index / horizontalTiles) * TILE_SIZE);
+		
+	}
+	
+	/**
+	 * Receives tiles from {@link TiledLayerDataStore#forEachTile(TileConsumer)}.
+	 */
+	@FunctionalInterface interface TileConsumer {
+		
+		/**
+		 * Receives a tile.
+		 *
+		 * @param tile the tile, only useful for its identity
+		 * @param area number of pixels the tile covers
+		 * @param shared whether another store shares the tile
+		 */
+		void accept(Object tile , int area , boolean shared);
+		
+	}
+	
+	private static final class Tile {
+		
+		/**
+		 * Estimated size of a tile and the objects it owns, not counting its array of pixels.
+		 */
+		static final int OVERHEAD_BYTES = 56;
+		
+		final AtomicReferenceArray<LayerPixel> pixels;
+		final AtomicInteger owners = new AtomicInteger(1);
+		
+		Tile(int area) {
+			
+			pixels = new AtomicReferenceArray<>(area);
+			
+		}
+		
+		Tile(Tile source) {
+			
+			pixels = new AtomicReferenceArray<>(source.pixels.length());
+			for(int i = 0 ; i < pixels.length() ; i++) pixels.set(i , source.pixels.get(i));
+			
+		}
+		
+		/**
+		 * Returns a tile owned by no store holding the pixels {@code remap} returns for the pixels of this tile, or this tile if none change.
+		 */
+		Tile remapped(UnaryOperator<LayerPixel> remap) {
+			
+			Tile result = null;
+			for(int i = 0 ; i < pixels.length() ; i++) {
+				
+				LayerPixel pixel = pixels.get(i);
+				if(pixel == null) continue;
+				
+				LayerPixel replacement = remap.apply(pixel);
+				if(replacement == pixel) continue;
+				
+				if(result == null) {
+					
+					result = new Tile(this);
+					result.owners.set(0);
+					
+				}
+				
+				result.pixels.set(i , replacement);
+				
+			}
+			
+			return result == null ? this : result;
+			
+		}
+		
+	}
+	
+}
@@ -1,7 +1,8 @@
 package cs.csss.project;
 
+import java.util.BitSet;
+
 import cs.csss.annotation.RenderThreadOnly;
-import cs.csss.project.ArtboardPalette.PalettePixel;
 
 /**
  * Visual layers are layers that contain visual data (pixels). This class implements {@link cs.csss.project.Layer Layer}, which has more 
@@ -17,6 +18,7 @@ public class VisualLayer extends Layer {
 
 		super(prototype.name() , palette , artboard.width() , artboard.height());		
 		channels = palette.channelsPerPixel();		
+		owner = artboard;
 		
 	}
 	
@@ -50,62 +52,18 @@ public class VisualLayer extends Layer {
 	
 	@RenderThreadOnly @Override public void show(Artboard artboard) {
 
-		int thisRank = artboard.getLayerRank(this);
-		
-		forEachModification(pixel -> {
-			
-			//show this pixel if no layer of a greater rank is modifying that position			
-			if(!artboard.isUpperRankLayerModifying(thisRank, pixel.textureX, pixel.textureY)) {
-			
-				PalettePixel palettePixel = artboard.getColorFromIndicesOfPalette(pixel.lookupX, pixel.lookupY);
-				artboard.writeToIndexTexture(pixel.textureX, pixel.textureY, 1, 1, palettePixel);
-				
-			}
-		
-		});
-		
-		hiding = false;
-		
+		hiding = false;		
+		artboard.recompositeTiles(artboard.tilesModifiedBy(this));		
 		forEachLine(line -> line.reset(artboard , this));
 		
 	}
 	
 	@RenderThreadOnly @Override public void hide(Artboard artboard) {
 
-		int thisRank = artboard.getLayerRank(this);
-		
-		forEachModification(pixel -> {
-
-			if(artboard.isUpperRankLayerModifying(thisRank, pixel.textureX, pixel.textureY)) return;
-			
-			VisualLayer modding = artboard.getHighestLowerRankLayerModifying(thisRank , pixel.textureX , pixel.textureY);
-			
-			//only worry about modifying the artboard if this pixel is visible, which is the case if:
-			if(modding != null) {
-			
-				//pixel of the layer who is now modifying if we hide the layer we're trying to hide 
-				LayerPixel moddingPixel = modding.get(pixel.textureX, pixel.textureY);
-				
-				//palette pixel pointed to by that pixel
-				PalettePixel palettePixel = artboard.getColorFromIndicesOfPalette(moddingPixel.lookupX, moddingPixel.lookupY);
-				
-				artboard.writeToIndexTexture(pixel.textureX, pixel.textureY, 1, 1, palettePixel);
-				
-			}
-			//make the pixel the default color
-			else artboard.writeToIndexTexture(
-				pixel.textureX , 
-				pixel.textureY , 
-				1 , 
-				1 , 
-				artboard.getBackgroundColor(pixel.textureX, pixel.textureY)
-			);
-			
-		});
-	
+		BitSet tiles = artboard.tilesModifiedBy(this);
 		forEachLine(line -> line.putModsInArtboard(artboard));
-		
 		hiding = true;
+		artboard.recompositeTiles(tiles);
 		
 	}
 	
@@ -141,7 +99,7 @@ public class VisualLayer extends Layer {
 
 	@Override public <T extends Layer> void copy(T otherLayer) {
 
-		layerDataStore.copy(otherLayer.layerDataStore);
+		copyModificationsInto(otherLayer);
 		
 	}
 
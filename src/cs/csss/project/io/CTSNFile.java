@@ -0,0 +1,288 @@
+package cs.csss.project.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import cs.csss.misc.files.CSFolder;
+import cs.csss.project.Animation;
+import cs.csss.project.ArtboardPalette;
+import cs.csss.project.CSSSProject;
+import cs.csss.project.LayerPixel;
+import cs.csss.project.NonVisualLayer;
+import cs.csss.project.NonVisualLayerPrototype;
+
+/**
+ * Writer of the {@code .ctsn} file, which holds the nonvisual layers of every frame of one animation in forms a game can query directly,
+ * such as hitboxes and collision masks. It is written next to the animation's {@code .ctsa} file, and its frames have the same indices as
+ * the frames of the {@code .ctsa} file. The file is read by {@code cs.sprites.CTSNFile}.
+ *
+ * <p>
+ * 	All numbers are little endian and every section starts on a multiple of four bytes, so readers can map the file and read it in place.
+ * 	Pixel coordinates start at the bottom left of a frame. The value of a pixel is its color in its layer's palette, packed into an
+ * 	{@code int} with the first channel in the highest byte. The file is laid out as:
+ * 	<pre>
+ * 	int magic ("CTSN") , int version , int frame width , int frame height , int number frames , int number layers
+ * 	number layers * (int name offset , int bytes per pixel)
+ * 	number frames * number layers * (int mask offset , int row starts offset , int spans offset , int boxes offset , int number boxes)
+ * 	names: int length , UTF-8 bytes
+ * 	for each frame and layer:
+ * 		mask: one bit per pixel, rows padded to whole ints, bit (x & 31) of int (y * ints per row + x / 32) set if the pixel is present
+ * 		row starts: frame height + 1 ints, the index of the first span of each row, then the total number of spans
+ * 		spans: (short x , short end x , int value), runs of pixels of one value within a row, ordered by row and x
+ * 		boxes: (short x , short y , short width , short height , int value), rectangles of one value covering the present pixels
+ * 	</pre>
+ * 	Coordinates of spans and boxes are signed shorts, so frames wider or taller than {@link #MAX_FRAME_SIZE} pixels cannot be written.
+ * </p>
+ */
+class CTSNFile {
+	
+	public static final String FILE_EXTENSION = ".ctsn";
+	
+	/**
+	 * The bytes {@code CTSN} read as a little endian {@code int}.
+	 */
+	static final int MAGIC = 0x4E535443;
+	
+	static final int VERSION = 1;
+	
+	/**
+	 * Largest width and height of a frame, the largest coordinate spans and boxes can hold.
+	 */
+	static final int MAX_FRAME_SIZE = Short.MAX_VALUE;
+	
+	private static final int
+		HEADER_SIZE = 24 ,
+		LAYER_ENTRY_SIZE = 8 ,
+		FRAME_ENTRY_SIZE = 20 ,
+		SPAN_SIZE = 8 ,
+		BOX_SIZE = 12;
+		
+	private final Animation animation;
+	private final List<NonVisualLayerPrototype> prototypes = new ArrayList<>();
+	
+	/**
+	 * Write constructor for a {@code .ctsn} file.
+	 *
+	 * @param animation an animation to write
+	 * @param project a project owning {@code animation}
+	 */
+	public CTSNFile(Animation animation , CSSSProject project) {
+		
+		this.animation = animation;
+		project.forEachNonVisualLayerPrototype(prototypes::add);
+		
+	}
+	
+	/**
+	 * Writes this file into the folder {@code filepath}, naming it after the animation.
+	 *
+	 * @param filepath path to a folder
+	 * @throws IOException if the frames of the animation are larger than {@link #MAX_FRAME_SIZE}, or if writing fails.
+	 */
+	void write(String filepath) throws IOException {
+		
+		int width = animation.frameWidth() , height = animation.frameHeight() , numberFrames = animation.numberFrames();
+		if(width > MAX_FRAME_SIZE || height > MAX_FRAME_SIZE) throw new IOException(String.format(
+			"Frames of %s are %dx%d, but %s files hold frames of at most %dx%d pixels." , 
+			animation.name() , 
+			width , 
+			height , 
+			FILE_EXTENSION , 
+			MAX_FRAME_SIZE , 
+			MAX_FRAME_SIZE
+		));
+		
+		if(!filepath.endsWith(CSFolder.separator)) filepath += CSFolder.separator;
+		filepath += animation.name() + FILE_EXTENSION;
+		
+		List<Section> sections = new ArrayList<>(numberFrames * prototypes.size());
+		animation.forAllFrames(frame -> {
+			
+			for(NonVisualLayerPrototype prototype : prototypes) {
+				
+				sections.add(new Section(frame.board().getNonVisualLayer(prototype) , prototype.sizeBytes() , width , height));
+				
+			}
+			
+		});
+		
+		byte[][] names = new byte[prototypes.size()][];
+		for(int i = 0 ; i < names.length ; i++) names[i] = prototypes.get(i).name().getBytes(StandardCharsets.UTF_8);
+		
+		int size = HEADER_SIZE + LAYER_ENTRY_SIZE * names.length + FRAME_ENTRY_SIZE * sections.size();
+		for(byte[] name : names) size += Integer.BYTES + align(name.length);
+		for(Section section : sections) size += section.sizeBytes();
+		
+		ByteBuffer file = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		file.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(numberFrames).putInt(names.length);
+		
+		int offset = HEADER_SIZE + LAYER_ENTRY_SIZE * names.length + FRAME_ENTRY_SIZE * sections.size();
+		for(int i = 0 ; i < names.length ; i++) {
+			
+			file.putInt(offset).putInt(prototypes.get(i).sizeBytes());
+			offset += Integer.BYTES + align(names[i].length);
+			
+		}
+		
+		for(Section section : sections) {
+			
+			int maskOffset = offset;
+			int rowStartsOffset = maskOffset + section.mask.length * Integer.BYTES;
+			int spansOffset = rowStartsOffset + section.rowStarts.length * Integer.BYTES;
+			int boxesOffset = spansOffset + section.numberSpans() * SPAN_SIZE;
+			file.putInt(maskOffset).putInt(rowStartsOffset).putInt(spansOffset).putInt(boxesOffset).putInt(section.boxes.size());
+			offset += section.sizeBytes();
+			
+		}
+		
+		for(byte[] name : names) {
+			
+			file.putInt(name.length).put(name);
+			file.position(HEADER_SIZE + align(file.position() - HEADER_SIZE));
+			
+		}
+		
+		for(Section section : sections) section.put(file);
+		
+		assert !file.hasRemaining() : "Wrote " + file.position() + " of " + size + " bytes.";
+		file.flip();
+		
+		try(FileChannel channel = FileChannel.open(
+			Paths.get(filepath) ,
+			StandardOpenOption.CREATE ,
+			StandardOpenOption.WRITE ,
+			StandardOpenOption.TRUNCATE_EXISTING
+		)) {
+			
+			while(file.hasRemaining()) channel.write(file);
+			
+		}
+		
+	}
+	
+	private static int align(int bytes) {
+		
+		return (bytes + 3) & ~3;
+		
+	}
+	
+	/**
+	 * Packed color of {@code pixel} in {@code palette}, with the first channel in the highest byte.
+	 */
+	private static int valueOf(LayerPixel pixel , ByteBuffer palette , int paletteWidth , int channels) {
+		
+		int index = (pixel.lookupY * paletteWidth + pixel.lookupX) * channels;
+		int value = 0;
+		for(int i = 0 ; i < channels ; i++) value = value << 8 | (palette.get(index + i) & 0xff);
+		return value;
+		
+	}
+	
+	/**
+	 * The mask, spans and boxes of one nonvisual layer of one frame.
+	 */
+	private static final class Section {
+		
+		final int[] mask , rowStarts;
+		final List<int[]> spans = new ArrayList<>();
+		final List<int[]> boxes = new ArrayList<>();
+		
+		Section(NonVisualLayer layer , int channels , int width , int height) {
+			
+			int intsPerRow = (width + 31) >>> 5;
+			mask = new int[intsPerRow * height];
+			rowStarts = new int[height + 1];
+			
+			ArtboardPalette palette = layer.palette();
+			ByteBuffer paletteData = palette.texelData();
+			int paletteWidth = palette.width();
+			
+			//boxes which reach the previous row, keyed by the x, end x and value of their spans
+			HashMap<Span , int[]> open = new HashMap<>() , stillOpen = new HashMap<>();
+			
+			for(int y = 0 ; y < height ; y++) {
+				
+				rowStarts[y] = spans.size();
+				int runStart = -1 , runValue = 0;
+				for(int x = 0 ; x <= width ; x++) {
+					
+					LayerPixel pixel = x < width ? layer.get(x , y) : null;
+					int value = pixel == null ? 0 : valueOf(pixel , paletteData , paletteWidth , channels);
+					if(runStart != -1 && (pixel == null || value != runValue)) {
+						
+						spans.add(new int[] {runStart , x , runValue});
+						runStart = -1;
+						
+					}
+					
+					if(pixel != null) {
+						
+						mask[y * intsPerRow + (x >>> 5)] |= 1 << (x & 31);
+						if(runStart == -1) {
+							
+							runStart = x;
+							runValue = value;
+							
+						}
+						
+					}
+					
+				}
+				
+				//a span continues the box of an identical span on the previous row, or starts a new box
+				for(int i = rowStarts[y] ; i < spans.size() ; i++) {
+					
+					int[] span = spans.get(i);
+					Span key = new Span(span[0] , span[1] , span[2]);
+					int[] box = open.remove(key);
+					if(box == null) boxes.add(box = new int[] {span[0] , y , span[1] - span[0] , 0 , span[2]});
+					box[3]++;
+					stillOpen.put(key , box);
+					
+				}
+				
+				HashMap<Span , int[]> swap = open;
+				open = stillOpen;
+				stillOpen = swap;
+				stillOpen.clear();
+				
+			}
+			
+			rowStarts[height] = spans.size();
+			
+		}
+		
+		int numberSpans() {
+			
+			return spans.size();
+			
+		}
+		
+		int sizeBytes() {
+			
+			return (mask.length + rowStarts.length) * Integer.BYTES + spans.size() * SPAN_SIZE + boxes.size() * BOX_SIZE;
+			
+		}
+		
+		void put(ByteBuffer file) {
+			
+			for(int bits : mask) file.putInt(bits);
+			for(int start : rowStarts) file.putInt(start);
+			for(int[] span : spans) file.putShort((short)span[0]).putShort((short)span[1]).putInt(span[2]);
+			for(int[] box : boxes) file.putShort((short)box[0]).putShort((short)box[1]).putShort((short)box[2]).putShort((short)box[3]).putInt(box[4]);
+			
+		}
+		
+	}
+	
+	private record Span(int x , int endX , int value) {}
+	
+}
@@ -2,7 +2,7 @@ package cs.csss.project.io;
 
 import static cs.csss.engine.Logging.*;
 
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static cs.csss.engine.MemoryAccounting.memFree;
 
 import static cs.csss.misc.files.FileOperations.*;
 
@@ -19,6 +19,7 @@ import cs.csss.project.AnimationFrame;
 import cs.csss.project.Artboard;
 import cs.csss.project.ArtboardPalette;
 import cs.csss.project.CSSSProject;
+import cs.csss.project.EncodedLayerCache;
 import cs.csss.project.Layer;
 import cs.csss.project.NonVisualLayer;
 import cs.csss.project.VisualLayer;
@@ -96,6 +97,8 @@ public class CTSPFile {
 	private String[] visualLayerNames;
 	private NonVisualLayerChunk[] nonvisualLayers;
 	private ArtboardChunk[] artboards;
+	//encodings of the layers written by the current call to writeArtboardChunks
+	private EncodedLayerCache encodedLayers;
 	private AnimationChunk[] animations;	
 	
 	/**
@@ -380,6 +383,7 @@ public class CTSPFile {
 	 */
 	protected void writeArtboardChunks(FileOutputStream writer) {
 		
+		encodedLayers = new EncodedLayerCache();
 		project.forEachNonShallowCopiedArtboard(artboard -> {
 			
 			try {
@@ -401,6 +405,9 @@ public class CTSPFile {
 			
 		});
 		
+		sysDebugln("Reused the encodings of " + encodedLayers.reused() + " layers sharing contents.");
+		encodedLayers = null;
+		
 	}
 
 	/**
@@ -451,7 +458,7 @@ public class CTSPFile {
 	
 	private void writeLayerPixelData(Layer layer , FileOutputStream writer) throws IOException {
 
-		ByteBuffer layerPixelBuffer = layer.encode();
+		ByteBuffer layerPixelBuffer = encodedLayers != null ? layer.encode(encodedLayers) : layer.encode();
 		if(layerPixelBuffer.limit() == 0) { 
 			
 			memFree(layerPixelBuffer);
@@ -0,0 +1,178 @@
+package cs.csss.project.io;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import cs.csss.utils.IntIntHashMap;
+
+/**
+ * Reduces the number of colors of an image so it fits in a palette.
+ * <p>
+ * 	Colors are packed into an {@code int} with the first channel in the highest byte, as in {@link cs.csss.project.utils.PixelRegions
+ * 	PixelRegions}, and images are described by their color histograms, mapping each distinct color to the number of pixels using it.
+ * </p>
+ */
+public final class ColorQuantizer {
+	
+	/**
+	 * Reduces the colors of {@code histogram} to at most {@code target} colors by median cut. All colors start in one box, and the box whose
+	 * colors span the widest range of any one channel is repeatedly split in two at the median pixel along that channel, until there are
+	 * {@code target} boxes. Each color is then mapped to the average of the colors in its box, weighted by their number of pixels.
+	 * <p>
+	 * 	Boxes are sorted by counting when they are split, so the reduction takes time roughly proportional to the number of distinct
+	 * 	colors times the logarithm of {@code target}.
+	 * </p>
+	 *
+	 * @param histogram map from each color of an image to its number of pixels
+	 * @param channels number of channels per color, from 1 to 4
+	 * @param target largest number of colors of the result
+	 * @return Map from each color of {@code histogram} to the color replacing it.
+	 * @throws IllegalArgumentException if {@code target} is not positive.
+	 */
+	public static IntIntHashMap medianCut(IntIntHashMap histogram , int channels , int target) {
+		
+		if(target <= 0) throw new IllegalArgumentException("Target number of colors is not positive: " + target);
+		
+		int[] colors = histogram.keys();
+		int[] counts = new int[colors.length];
+		for(int i = 0 ; i < colors.length ; i++) counts[i] = histogram.get(colors[i] , 0);
+		
+		IntIntHashMap mapping = new IntIntHashMap(colors.length);
+		if(colors.length <= target) {
+			
+			for(int color : colors) mapping.put(color , color);
+			return mapping;
+			
+		}
+		
+		PriorityQueue<Box> splittable = new PriorityQueue<>(Comparator.comparingInt((Box box) -> box.range).reversed());
+		List<Box> boxes = new ArrayList<>(target);
+		splittable.add(new Box(colors , counts , 0 , colors.length , channels));
+		while(!splittable.isEmpty() && splittable.size() + boxes.size() < target) {
+			
+			Box box = splittable.poll();
+			//boxes of one color cannot be split, and no other box has a wider range
+			if(box.range == 0) {
+				
+				boxes.add(box);
+				break;
+				
+			}
+			
+			int split = box.split(colors , counts , channels);
+			splittable.add(new Box(colors , counts , box.start , split , channels));
+			splittable.add(new Box(colors , counts , split , box.end , channels));
+			
+		}
+		
+		boxes.addAll(splittable);
+		for(Box box : boxes) {
+			
+			int average = box.average(colors , counts , channels);
+			for(int i = box.start ; i < box.end ; i++) mapping.put(colors[i] , average);
+			
+		}
+		
+		return mapping;
+		
+	}
+	
+	private static int channel(int color , int channel , int channels) {
+		
+		return (color >>> ((channels - 1 - channel) * 8)) & 0xff;
+		
+	}
+	
+	/**
+	 * Range of the arrays of colors and counts belonging to one box.
+	 */
+	private static final class Box {
+		
+		final int start , end;
+		int range = -1 , widestChannel = 0;
+		long pixels = 0;
+		
+		Box(int[] colors , int[] counts , int start , int end , int channels) {
+			
+			this.start = start;
+			this.end = end;
+			
+			for(int channel = 0 ; channel < channels ; channel++) {
+				
+				int min = 255 , max = 0;
+				for(int i = start ; i < end ; i++) {
+					
+					int value = channel(colors[i] , channel , channels);
+					min = Math.min(min , value);
+					max = Math.max(max , value);
+					
+				}
+				
+				if(max - min > range) {
+					
+					range = max - min;
+					widestChannel = channel;
+					
+				}
+				
+			}
+			
+			for(int i = start ; i < end ; i++) pixels += counts[i];
+			
+		}
+		
+		/**
+		 * Sorts this box along its widest channel and returns the index at which the median pixel falls, which is always strictly between
+		 * the start and end of this box.
+		 */
+		int split(int[] colors , int[] counts , int channels) {
+			
+			int length = end - start;
+			int[] offsets = new int[257];
+			for(int i = start ; i < end ; i++) offsets[channel(colors[i] , widestChannel , channels) + 1]++;
+			for(int i = 1 ; i < offsets.length ; i++) offsets[i] += offsets[i - 1];
+			
+			int[] sortedColors = new int[length] , sortedCounts = new int[length];
+			for(int i = start ; i < end ; i++) {
+				
+				int destination = offsets[channel(colors[i] , widestChannel , channels)]++;
+				sortedColors[destination] = colors[i];
+				sortedCounts[destination] = counts[i];
+				
+			}
+			
+			System.arraycopy(sortedColors , 0 , colors , start , length);
+			System.arraycopy(sortedCounts , 0 , counts , start , length);
+			
+			long seen = 0;
+			int split = start;
+			while(split < end - 1 && (seen += counts[split]) * 2 < pixels) split++;
+			return Math.max(start + 1 , Math.min(split + 1 , end - 1));
+			
+		}
+		
+		int average(int[] colors , int[] counts , int channels) {
+			
+			int average = 0;
+			for(int channel = 0 ; channel < channels ; channel++) {
+				
+				long sum = 0;
+				for(int i = start ; i < end ; i++) sum += (long)channel(colors[i] , channel , channels) * counts[i];
+				average = average << 8 | (int)((sum + pixels / 2) / pixels);
+				
+			}
+			
+			return average;
+			
+		}
+		
+	}
+	
+	/**
+	 * Private constructor.
+	 */
+	private ColorQuantizer() {}
+	
+}
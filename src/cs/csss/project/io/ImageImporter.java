@@ -3,17 +3,22 @@
  */
 package cs.csss.project.io;
 
+import static cs.csss.engine.Logging.sysDebugln;
+
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
 
-import cs.csss.engine.LookupPixel;
+import cs.csss.annotation.RenderThreadOnly;
 import cs.csss.project.Artboard;
-import cs.csss.project.utils.Artboards;
-import cs.csss.project.utils.RegionIterator;
-import cs.csss.project.utils.RegionPosition;
+import cs.csss.project.ArtboardPalette;
+import cs.csss.project.Layer;
+import cs.csss.project.LayerPixel;
+import cs.csss.project.utils.PixelRegions;
+import cs.csss.utils.IntIntHashMap;
 import sc.core.SCShutDown;
 import sc.core.binary.SCGraphic;
 import sc.core.binary.SCPNG;
@@ -75,31 +80,167 @@ public class ImageImporter implements SCShutDown {
 	}
 	
 	/**
-	 * Copies the contents of the image which was loaded by this class to the given artboard.
+	 * Creates an importer for an image already in memory. The importer takes ownership of {@code source} and frees it when it is shut down.
+	 * 
+	 * @param source a loaded image
+	 */
+	public ImageImporter(SCGraphic source) {
+		
+		this.source = Objects.requireNonNull(source);
+		Objects.requireNonNull(source.data());
+		
+	}
+	
+	/**
+	 * Copies the contents of the image which was loaded by this class to the active layer of the given artboard. The image is quantized only
+	 * if it has more colors not already in the palette of the active layer than the palette has room for.
 	 * 
 	 * @param artboard an artboard to copy the image to.
 	 */
-	public void copyToArtboard(Artboard artboard) {
+	@RenderThreadOnly public void copyToArtboard(Artboard artboard) {
+		
+		copyToArtboard(artboard , 0);
+		
+	}
+	
+	/**
+	 * Copies the contents of the image which was loaded by this class to the active layer of the given artboard, reducing it to at most
+	 * {@code paletteSize} colors. Does nothing if the active layer is hidden or locked.
+	 * <p>
+	 * 	The image is imported in passes over bands of rows or tiles, each run in parallel on worker threads, without creating an object per
+	 * 	pixel until pixels are put in the layer. The first pass counts the colors of the image in a primitive histogram. If the image has more 
+	 * 	colors than {@code paletteSize}, or more colors not already in the palette than the palette has room for, the histogram is reduced by
+	 * 	{@link ColorQuantizer#medianCut(IntIntHashMap, int, int) median cut}. The distinct colors are then added to the palette in one upload, and the last pass writes 
+	 * 	lookups into the active layer one tile of {@link Artboard#RECOMPOSITE_TILE_SIZE} pixels at a time, after which the index texture is
+	 * 	recomposited for those tiles.
+	 * </p>
+	 * 
+	 * @param artboard an artboard to copy the image to
+	 * @param paletteSize largest number of colors of the imported image, or 0 to only limit colors to the room left in the palette
+	 */
+	@RenderThreadOnly public void copyToArtboard(Artboard artboard , int paletteSize) {
 		
 		assert artboard.width() >= source.width() && artboard.height() >= source.height() : "Artboard cannot be smaller than image.";
 		
+		Layer layer = artboard.activeLayer();
+		if(layer.hiding() || layer.locked()) return;
+		
 		ByteBuffer image = source.data();
-		LookupPixel[][] imageColors = new LookupPixel[artboard.height()][artboard.width()];
+		int width = source.width() , height = source.height() , channels = artboard.activeLayerChannelsPerPixel();
 				
-		RegionPosition position;					
-		for(RegionIterator iterator = Artboards.region(0, 0, artboard.width(), artboard.height()) ; image.hasRemaining() ; ) {
+		IntIntHashMap histogram = histogram(image , width , height , channels);
+		
+		ArtboardPalette palette = layer.palette();
+		int target = quantizationTarget(
+			histogram.size() , 
+			palette.numberNewColors(histogram.keys()) , 
+			palette.remainingLookups() , 
+			paletteSize
+		);
+		
+		IntIntHashMap quantized = ColorQuantizer.medianCut(histogram , channels , target);
+		if(histogram.size() > target) sysDebugln("Reduced " + histogram.size() + " colors of imported image to " + target + ".");
+		
+		//each distinct resulting color is put in the palette once
+		IntIntHashMap resultLookups = new IntIntHashMap(target);
+		quantized.forEach((color , result) -> resultLookups.put(result , 0));
+		int[] results = resultLookups.keys();
+		int[] lookups = palette.putOrGetColors(results);
+		for(int i = 0 ; i < results.length ; i++) resultLookups.put(results[i] , lookups[i]);
+		
+		IntIntHashMap lookupOfColor = new IntIntHashMap(quantized.size());
+		quantized.forEach((color , result) -> lookupOfColor.put(color , resultLookups.get(result , 0)));
+		
+		int tileSize = Artboard.RECOMPOSITE_TILE_SIZE;
+		int horizontalTiles = (width + tileSize - 1) / tileSize , verticalTiles = (height + tileSize - 1) / tileSize;
+		//bands of rows of tiles
+		PixelRegions.forEachBandParallel(0 , verticalTiles , (band , firstTileRow , endTileRow) -> {
+			
+			for(int tileRow = firstTileRow ; tileRow < endTileRow ; tileRow++) for(int tileCol = 0 ; tileCol < horizontalTiles ; tileCol++) {
+				
+				int endX = Math.min(width , (tileCol + 1) * tileSize) , endY = Math.min(height , (tileRow + 1) * tileSize);
+				for(int row = tileRow * tileSize ; row < endY ; row++) for(int col = tileCol * tileSize ; col < endX ; col++) {
+					
+					int lookup = lookupOfColor.get(colorAt(image , row * width + col , channels) , 0);
+					layer.put(new LayerPixel(
+						col , 
+						row , 
+						(short)(lookup % ArtboardPalette.MAX_WIDTH) , 
+						(short)(lookup / ArtboardPalette.MAX_WIDTH)
+					));
+					
+				}
+				
+			}
+			
+		});
+		
+		if(!artboard.isActiveLayerVisual()) {
+			
+			artboard.recompositeAll();
+			return;
 			
-			position = iterator.next();
-			imageColors[position.row()][position.col()] = artboard.putInPalette(artboard.createPalettePixel(image));
-						
 		}
 		
-		artboard.putColorsInImage(0, 0, artboard.width(), artboard.height(), imageColors);
-		//must reset position for shut down.
-		image.position(0);
+		BitSet tiles = new BitSet();
+		int artboardTiles = artboard.horizontalTiles();
+		for(int row = 0 ; row < verticalTiles ; row++) for(int col = 0 ; col < horizontalTiles ; col++) {
+			
+			tiles.set(row * artboardTiles + col);
+			
+		}
+		
+		artboard.recompositeTiles(tiles);
 		
 	}
-
+	
+	/**
+	 * Returns the number of colors to reduce an image to. Colors already in the palette take no room in it, so an image is left as it is if
+	 * it has at most {@code paletteSize} colors and its new colors fit in the palette. Otherwise it is reduced to at most as many colors as
+	 * the palette has room for, since the colors median cut makes are generally not in the palette.
+	 * 
+	 * @param numberColors number of distinct colors of the image
+	 * @param numberNewColors number of distinct colors of the image not in the palette
+	 * @param remainingLookups number of open spaces of the palette
+	 * @param paletteSize largest number of colors of the imported image, or 0 for no limit
+	 * @return Largest number of colors of the imported image.
+	 */
+	static int quantizationTarget(int numberColors , int numberNewColors , int remainingLookups , int paletteSize) {
+		
+		int limit = paletteSize > 0 ? paletteSize : Integer.MAX_VALUE;
+		if(numberColors <= limit && numberNewColors <= remainingLookups) return Math.max(numberColors , 1);
+		return Math.min(limit , remainingLookups);
+		
+	}
+	
+	/**
+	 * Counts the pixels of each color of {@code image}, one band of rows per worker thread, and merges the counts of the bands.
+	 */
+	static IntIntHashMap histogram(ByteBuffer image , int width , int height , int channels) {
+		
+		IntIntHashMap[] bandHistograms = new IntIntHashMap[PixelRegions.bands(height)];
+		PixelRegions.forEachBandParallel(0 , height , (band , firstRow , endRow) -> {
+			
+			IntIntHashMap histogram = new IntIntHashMap(1024);
+			for(int i = firstRow * width ; i < endRow * width ; i++) histogram.add(colorAt(image , i , channels) , 1);
+			bandHistograms[band] = histogram;
+			
+		});
+		
+		IntIntHashMap histogram = new IntIntHashMap(1024);
+		for(IntIntHashMap x : bandHistograms) histogram.addAll(x);
+		return histogram;
+		
+	}
+	
+	private static int colorAt(ByteBuffer image , int pixel , int channels) {
+		
+		int color = 0;
+		for(int i = 0 ; i < channels ; i++) color = color << 8 | Byte.toUnsignedInt(image.get(pixel * channels + i));
+		return color;
+		
+	}
+	
 	/**
 	 * Returns the width of the image loaded.
 	 * 
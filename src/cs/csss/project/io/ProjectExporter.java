@@ -5,7 +5,7 @@ import static org.lwjgl.opengl.GL11.GL_COLOR_CLEAR_VALUE;
 import static org.lwjgl.opengl.GL11C.glClearColor;
 import static org.lwjgl.opengl.GL11C.glViewport;
 import static org.lwjgl.opengl.GL11C.glGetFloatv;
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static cs.csss.engine.MemoryAccounting.memFree;
 import static cs.csss.utils.NumberUtils.nearestGreaterOrEqualPowerOfTwo;
 
 import java.io.IOException;
@@ -21,8 +21,9 @@ import org.joml.Vector4f;
 import org.lwjgl.system.MemoryStack;
 
 import cs.csss.annotation.RenderThreadOnly;
-import cs.csss.engine.Engine;
+import cs.csss.engine.Lane;
 import cs.csss.engine.Logging;
+import cs.csss.project.Artboard;
 import cs.csss.project.ArtboardPalette;
 import cs.csss.project.CSSSProject;
 import cs.csss.project.CSSSShader;
@@ -78,9 +79,9 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
  * 	<ul>
  * 		<li>
  * 			The main disadvantage of this appraoch is the fact that a render buffer must be allocated on VRAM. For large projects, this 
- * 			additional usage of VRAM could exceed the amount the user has remaining. One mitigation of this is to unload artboards from VRAM
- * 			during export until it is time to render them to the render buffer, at which point they could be loaded again, but this could
- * 			dramatically increase export times.
+ * 			additional usage of VRAM could exceed the amount the user has remaining. Artboards which have not been drawn or edited for a 
+ * 			while are unloaded from VRAM by {@link cs.csss.project.TextureResidency TextureResidency}, which leaves more room for the 
+ * 			render buffer, but every artboard being exported is loaded again when it is rendered to it.
  * 		</li>
  * 		<li>
  * 			An additional disadvantage is the requirement to rerender the entire project. This is not required in alternate approaches, but
@@ -158,7 +159,8 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
 	 * @param exportNonVisualLayers if {@code true}, nonvisual layers will be exported alongside other exported files
 	 * @param powerOfTwoSizes if {@code true}, the width and height of the exported project will be powers of two
 	 * @param exportAsColor if {@code true}, the resulting image is colors, not indices
-	 * @param exportAnimations if {@code true}, the animations of the project will be exported as {@code .ctsa} files
+	 * @param exportAnimations if {@code true}, the animations of the project will be exported as {@code .ctsa} files, along with {@code .ctsn}
+	 * 						   files of their nonvisual layers if {@code exportNonVisualLayers} is also {@code true}
 	 * @throws ExecutionException 
 	 * @throws InterruptedException 
 	 */
@@ -301,11 +303,7 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
 					
 				});
 				 
-				if(exportHiddenLayers) project.forEachNonShallowCopiedArtboard(artboard -> artboard.forEachVisualLayer(layer -> {
-					
-					if(layer.hiding()) layer.show(artboard);
-					
-				}));
+				if(exportHiddenLayers) project.forEachNonShallowCopiedArtboard(Artboard::showAllVisualLayers);
 				
 				//resulting data
 				return imager.renderImage();
@@ -386,7 +384,7 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
 		//pass tasks to the thread pool
 		try {
 
-			Engine.THE_THREADS.invokeAll(Set.of(constructExportTasks(name , download , channels , finishedExporters)));
+			Lane.BATCH.invokeAll(Set.of(constructExportTasks(name , download , channels , finishedExporters)));
 			
 		} catch (InterruptedException e) {
 
@@ -394,13 +392,9 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
 			
 		}		
 		
-		//once all tasks have completed, free the downloaded memory
-		Engine.THE_TEMPORAL.onTrue(() -> finishedExporters.get() == exporters.size() , () -> {
-		
-			Logging.sysDebugln("Finished exporting");
-			memFree(exportBuffer);
-		
-		});
+		//all tasks have completed, free the downloaded memory
+		Logging.sysDebugln("Finished exporting");
+		memFree(exportBuffer);
 		
 		return new ExportFinishedAwait<>(finishedExporters , exporters.size());
 		
@@ -411,7 +405,7 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
 	 */
 	private void exportPalettes() {
 		
-		Engine.THE_THREADS.submit(() -> {
+		Lane.IO.submit(() -> {
 			
 			for(ExportCallbackAndName x : exporters) {
 				
@@ -444,16 +438,19 @@ import sc.core.graphics.nanovg.SCNanoVGFrame;
 	
 	/**
 	 * Exports all animations of the project in the same directory as all other exported files. The resulting file format, {@code .ctsa},
-	 * is an uncompressed animation file format.
+	 * is an uncompressed animation file format. If nonvisual layers are also exported, the nonvisual layers of each animation's frames are
+	 * written beside it as a {@code .ctsn} file.
 	 */
 	private void exportAnimations() {
 		
+		boolean writeNonVisualData = exportNonVisualLayers && project.numberNonVisualLayers() > 0;
 		project.forEachAnimation(animation -> {
 			
 			CTSAFile ctsaFile = new CTSAFile(animation , project);
 			try {
 				
 				ctsaFile.write(exportFolderPath);
+				if(writeNonVisualData) new CTSNFile(animation , project).write(exportFolderPath);
 				
 			} catch (IOException e) {
 				
@@ -93,7 +93,7 @@ public class ProjectExporterUI extends DroppedFileAcceptingDialogue {
 		Runnable onFinish = () -> {
 			
 			nuklear.removeUserInterface(ui);
-			Engine.THE_TEMPORAL.onTrue(() -> true, ui::shutDown);
+			Engine.THE_MAIN_THREAD.execute(ui::shutDown);
 			super.onFinish();
 			
 		};
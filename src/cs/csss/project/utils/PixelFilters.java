@@ -0,0 +1,459 @@
+package cs.csss.project.utils;
+
+import static cs.csss.project.utils.PixelRegions.NO_LOOKUP;
+
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+import cs.csss.engine.ColorPixel;
+import cs.csss.project.ArtboardPalette;
+
+/**
+ * Pixel art filters over regions of packed lookups, such as those read by {@link PixelRegions#readLookups(cs.csss.project.Artboard, int, int, int,
+ * int) readLookups}, for outlines, shadows, growing and shrinking shapes, and recoloring.
+ *
+ * <p>
+ * 	Regions are laid out row by row from their bottom left corner, with {@link PixelRegions#NO_LOOKUP} where a pixel is empty, and every
+ * 	position outside of a region counts as empty. Filters never blend. Each pixel of a result is either its source lookup, a lookup given
+ * 	to the filter, or the lookup of a nearby pixel chosen in a fixed order, so results are exact and the same on every machine. Filters
+ * 	return a new region and leave their source alone, and large regions are filtered from multiple threads, one band of rows per thread.
+ * </p>
+ * <p>
+ * 	Filters taking {@code diagonals} look at the 8 pixels around a pixel if it is {@code true} and the 4 pixels sharing an edge with it
+ * 	otherwise. With diagonals, {@link #dilate(int[], int, int, int, boolean) dilate} and {@link #erode(int[], int, int, int, boolean) erode}
+ * 	use a square kernel, which is separated into a pass along rows and a pass along columns. Without, they grow or shrink by one pixel
+ * 	{@code radius} times.
+ * </p>
+ */
+public final class PixelFilters {
+	
+	/**
+	 * Number of pixels above which filters run on multiple threads.
+	 */
+	private static final int PARALLEL_PIXELS = 128 * 128;
+	
+	private PixelFilters() {}
+	
+	/**
+	 * Returns {@code lookups} with every empty pixel next to a filled pixel set to {@code outline}.
+	 *
+	 * @param lookups source region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param outline packed lookup of the outline
+	 * @param diagonals whether pixels touching only at a corner count as next to each other
+	 * @return Outlined region.
+	 */
+	public static int[] outline(int[] lookups , int width , int height , int outline , boolean diagonals) {
+		
+		checkRegion(lookups , width , height);
+		
+		int[] result = new int[lookups.length];
+		forEachRow(width , height , row -> {
+			
+			for(int col = 0 ; col < width ; col++) {
+				
+				int i = row * width + col;
+				result[i] = lookups[i] == NO_LOOKUP && touches(lookups , width , height , col , row , true , diagonals) ? outline : lookups[i];
+				
+			}
+			
+		});
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Returns {@code lookups} with every filled pixel next to an empty pixel, or at the edge of the region, set to {@code outline}.
+	 *
+	 * @param lookups source region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param outline packed lookup of the outline
+	 * @param diagonals whether pixels touching only at a corner count as next to each other
+	 * @return Region outlined on the inside.
+	 */
+	public static int[] innerOutline(int[] lookups , int width , int height , int outline , boolean diagonals) {
+		
+		checkRegion(lookups , width , height);
+		
+		int[] result = new int[lookups.length];
+		forEachRow(width , height , row -> {
+			
+			for(int col = 0 ; col < width ; col++) {
+				
+				int i = row * width + col;
+				result[i] = lookups[i] != NO_LOOKUP && touches(lookups , width , height , col , row , false , diagonals) ? outline : lookups[i];
+				
+			}
+			
+		});
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Returns {@code lookups} with every empty pixel whose pixel {@code offsetX} left and {@code offsetY} down is filled set to
+	 * {@code shadow}, which casts a shadow of the filled pixels offset by {@code (offsetX , offsetY)} behind them.
+	 *
+	 * @param lookups source region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param offsetX horizontal offset of the shadow, positive to the right
+	 * @param offsetY vertical offset of the shadow, positive upward
+	 * @param shadow packed lookup of the shadow
+	 * @return Region with a shadow.
+	 */
+	public static int[] dropShadow(int[] lookups , int width , int height , int offsetX , int offsetY , int shadow) {
+		
+		checkRegion(lookups , width , height);
+		
+		int[] result = new int[lookups.length];
+		forEachRow(width , height , row -> {
+			
+			int sourceRow = row - offsetY;
+			for(int col = 0 ; col < width ; col++) {
+				
+				int i = row * width + col , sourceCol = col - offsetX;
+				result[i] = lookups[i] == NO_LOOKUP && get(lookups , width , height , sourceCol , sourceRow) != NO_LOOKUP ? shadow : lookups[i];
+				
+			}
+			
+		});
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Returns {@code lookups} with every empty pixel within {@code radius} of a filled pixel filled. Each such pixel takes the lookup of a
+	 * nearby filled pixel chosen in a fixed order, nearer before farther, left before right, and down before up.
+	 *
+	 * @param lookups source region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param radius number of pixels to grow by
+	 * @param diagonals whether to grow over a square rather than a diamond
+	 * @return Dilated region.
+	 * @throws IllegalArgumentException if {@code radius} is negative.
+	 */
+	public static int[] dilate(int[] lookups , int width , int height , int radius , boolean diagonals) {
+		
+		checkRegion(lookups , width , height);
+		if(radius < 0) throw new IllegalArgumentException("Radius is negative: " + radius);
+		
+		if(diagonals) {
+			
+			int[] rows = dilatePass(lookups , width , height , radius , true);
+			return dilatePass(rows , width , height , radius , false);
+			
+		}
+		
+		int[] result = lookups.clone();
+		for(int i = 0 ; i < radius ; i++) {
+			
+			int[] source = result , step = new int[source.length];
+			forEachRow(width , height , row -> {
+				
+				for(int col = 0 ; col < width ; col++) {
+					
+					int j = row * width + col;
+					if((step[j] = source[j]) != NO_LOOKUP) continue;
+					if((step[j] = get(source , width , height , col - 1 , row)) != NO_LOOKUP) continue;
+					if((step[j] = get(source , width , height , col + 1 , row)) != NO_LOOKUP) continue;
+					if((step[j] = get(source , width , height , col , row - 1)) != NO_LOOKUP) continue;
+					step[j] = get(source , width , height , col , row + 1);
+					
+				}
+				
+			});
+			
+			result = step;
+			
+		}
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Fills every empty pixel with the closest filled pixel within {@code radius} along rows if {@code alongRows}, or along columns
+	 * otherwise.
+	 */
+	private static int[] dilatePass(int[] lookups , int width , int height , int radius , boolean alongRows) {
+		
+		int stride = alongRows ? 1 : width , length = alongRows ? width : height;
+		int[] result = new int[lookups.length];
+		forEachRow(width , height , row -> {
+			
+			for(int col = 0 ; col < width ; col++) {
+				
+				int i = row * width + col , position = alongRows ? col : row;
+				int found = lookups[i];
+				for(int distance = 1 ; found == NO_LOOKUP && distance <= radius ; distance++) {
+					
+					if(position - distance >= 0) found = lookups[i - distance * stride];
+					if(found == NO_LOOKUP && position + distance < length) found = lookups[i + distance * stride];
+					
+				}
+				
+				result[i] = found;
+				
+			}
+			
+		});
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Returns {@code lookups} with every filled pixel within {@code radius} of an empty pixel or of the edge of the region emptied.
+	 *
+	 * @param lookups source region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param radius number of pixels to shrink by
+	 * @param diagonals whether to shrink over a square rather than a diamond
+	 * @return Eroded region.
+	 * @throws IllegalArgumentException if {@code radius} is negative.
+	 */
+	public static int[] erode(int[] lookups , int width , int height , int radius , boolean diagonals) {
+		
+		checkRegion(lookups , width , height);
+		if(radius < 0) throw new IllegalArgumentException("Radius is negative: " + radius);
+		
+		if(diagonals) {
+			
+			boolean[] rows = filledPass(filled(lookups) , width , height , radius , true);
+			boolean[] kept = filledPass(rows , width , height , radius , false);
+			int[] result = new int[lookups.length];
+			for(int i = 0 ; i < result.length ; i++) result[i] = kept[i] ? lookups[i] : NO_LOOKUP;
+			return result;
+			
+		}
+		
+		int[] result = lookups.clone();
+		for(int i = 0 ; i < radius ; i++) {
+			
+			int[] source = result , step = new int[source.length];
+			forEachRow(width , height , row -> {
+				
+				for(int col = 0 ; col < width ; col++) {
+					
+					int j = row * width + col;
+					step[j] = touches(source , width , height , col , row , false , false) ? NO_LOOKUP : source[j];
+					
+				}
+				
+			});
+			
+			result = step;
+			
+		}
+		
+		return result;
+		
+	}
+	
+	private static boolean[] filled(int[] lookups) {
+		
+		boolean[] filled = new boolean[lookups.length];
+		for(int i = 0 ; i < filled.length ; i++) filled[i] = lookups[i] != NO_LOOKUP;
+		return filled;
+		
+	}
+	
+	/**
+	 * Keeps filled pixels whose every neighbor within {@code radius} along rows if {@code alongRows}, or along columns otherwise, is
+	 * filled.
+	 */
+	private static boolean[] filledPass(boolean[] filled , int width , int height , int radius , boolean alongRows) {
+		
+		int stride = alongRows ? 1 : width , length = alongRows ? width : height;
+		boolean[] result = new boolean[filled.length];
+		forEachRow(width , height , row -> {
+			
+			for(int col = 0 ; col < width ; col++) {
+				
+				int i = row * width + col , position = alongRows ? col : row;
+				boolean kept = filled[i] && position - radius >= 0 && position + radius < length;
+				for(int distance = 1 ; kept && distance <= radius ; distance++) {
+					
+					kept = filled[i - distance * stride] && filled[i + distance * stride];
+					
+				}
+				
+				result[i] = kept;
+				
+			}
+			
+		});
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Returns {@code lookups} with every pixel using a lookup of {@code ramp} moved {@code steps} lookups along the ramp, stopping at its
+	 * ends. Ramps are lists of lookups from darkest to lightest, or along any other order, so a positive {@code steps} lightens pixels of a
+	 * ramp from darkest to lightest.
+	 *
+	 * @param lookups source region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param ramp distinct packed lookups of the ramp
+	 * @param steps number of lookups to move pixels along the ramp
+	 * @return Shifted region.
+	 * @throws IllegalArgumentException if {@code ramp} contains a lookup twice or a lookup outside of a palette.
+	 */
+	public static int[] shiftRamp(int[] lookups , int width , int height , int[] ramp , int steps) {
+		
+		checkRegion(lookups , width , height);
+		Objects.requireNonNull(ramp);
+		
+		int[] table = new int[ArtboardPalette.MAX_WIDTH * ArtboardPalette.MAX_HEIGHT];
+		for(int i = 0 ; i < table.length ; i++) table[i] = i;
+		boolean[] inRamp = new boolean[table.length];
+		for(int i = 0 ; i < ramp.length ; i++) {
+			
+			if(ramp[i] < 0 || ramp[i] >= table.length) throw new IllegalArgumentException("Lookup " + ramp[i] + " is not in a palette.");
+			if(inRamp[ramp[i]]) throw new IllegalArgumentException("Lookup " + ramp[i] + " is in the ramp twice.");
+			inRamp[ramp[i]] = true;
+			table[ramp[i]] = ramp[(int)Math.max(0 , Math.min(ramp.length - 1 , (long)i + steps))];
+			
+		}
+		
+		return map(lookups , width , height , lookup -> lookup == NO_LOOKUP ? NO_LOOKUP : table[lookup]);
+		
+	}
+	
+	/**
+	 * Returns {@code lookups} with every filled pixel for whose lookup {@code matches} returns {@code true} set to {@code with}.
+	 * {@code matches} is invoked from multiple threads.
+	 *
+	 * @param lookups source region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param matches predicate over packed lookups selecting the pixels to replace
+	 * @param with packed lookup to replace matching pixels with, or {@link PixelRegions#NO_LOOKUP} to remove them
+	 * @return Region with matching pixels replaced.
+	 */
+	public static int[] replace(int[] lookups , int width , int height , IntPredicate matches , int with) {
+		
+		checkRegion(lookups , width , height);
+		Objects.requireNonNull(matches);
+		
+		return map(lookups , width , height , lookup -> lookup != NO_LOOKUP && matches.test(lookup) ? with : lookup);
+		
+	}
+	
+	/**
+	 * Returns a predicate over packed lookups of {@code palette} matching those whose colors have every channel within
+	 * {@code [minimum , maximum]}, for {@link #replace(int[], int, int, IntPredicate, int) replace}. The colors are read once, here, so the
+	 * predicate is safe to use from any thread and does not see later changes to the palette.
+	 *
+	 * @param palette palette the lookups index
+	 * @param minimum smallest unsigned value of each channel, with one element per channel of {@code palette}
+	 * @param maximum largest unsigned value of each channel, with one element per channel of {@code palette}
+	 * @return Predicate matching lookups of colors in the range.
+	 * @throws IllegalArgumentException if {@code minimum} or {@code maximum} does not have one element per channel of {@code palette}.
+	 */
+	public static IntPredicate colorRange(ArtboardPalette palette , int[] minimum , int[] maximum) {
+		
+		int channels = palette.channelsPerPixel();
+		if(minimum.length != channels || maximum.length != channels) {
+			
+			throw new IllegalArgumentException("Ranges must have " + channels + " channels.");
+			
+		}
+		
+		boolean[] inRange = new boolean[ArtboardPalette.MAX_WIDTH * ArtboardPalette.MAX_HEIGHT];
+		for(int y = 0 ; y < palette.height() ; y++) for(int x = 0 ; x < palette.width() ; x++) {
+			
+			ColorPixel color = palette.get(x , y);
+			boolean matches = true;
+			for(int i = 0 ; matches && i < channels ; i++) matches = color.ui(i) >= minimum[i] && color.ui(i) <= maximum[i];
+			inRange[y * ArtboardPalette.MAX_WIDTH + x] = matches;
+			
+		}
+		
+		return lookup -> lookup >= 0 && lookup < inRange.length && inRange[lookup];
+		
+	}
+	
+	private static int[] map(int[] lookups , int width , int height , IntUnaryOperator mapping) {
+		
+		int[] result = new int[lookups.length];
+		forEachRow(width , height , row -> {
+			
+			for(int i = row * width , end = i + width ; i < end ; i++) result[i] = mapping.applyAsInt(lookups[i]);
+			
+		});
+		
+		return result;
+		
+	}
+	
+	/**
+	 * Returns whether a pixel next to {@code (col , row)} is filled if {@code filled}, or empty otherwise. Positions outside of the region
+	 * are empty.
+	 */
+	private static boolean touches(int[] lookups , int width , int height , int col , int row , boolean filled , boolean diagonals) {
+		
+		for(int dy = -1 ; dy <= 1 ; dy++) for(int dx = -1 ; dx <= 1 ; dx++) {
+			
+			if((dx == 0 && dy == 0) || (!diagonals && dx != 0 && dy != 0)) continue;
+			if((get(lookups , width , height , col + dx , row + dy) != NO_LOOKUP) == filled) return true;
+			
+		}
+		
+		return false;
+		
+	}
+	
+	private static int get(int[] lookups , int width , int height , int col , int row) {
+		
+		return col < 0 || row < 0 || col >= width || row >= height ? NO_LOOKUP : lookups[row * width + col];
+		
+	}
+	
+	private static void forEachRow(int width , int height , PixelRegions.RowCallback callback) {
+		
+		if((long)width * height > PARALLEL_PIXELS) PixelRegions.forEachRowParallel(0 , height , callback);
+		else for(int row = 0 ; row < height ; row++) callback.row(row);
+		
+	}
+	
+	private static void checkRegion(int[] lookups , int width , int height) {
+		
+		Objects.requireNonNull(lookups);
+		if(width < 0 || height < 0 || lookups.length != width * height) {
+			
+			throw new IllegalArgumentException("Region of " + lookups.length + " lookups is not " + width + " by " + height + ".");
+			
+		}
+		
+	}
+	
+	/**
+	 * Filter over a region of packed lookups, such as one of the filters of {@link PixelFilters} with its parameters bound.
+	 */
+	@FunctionalInterface public interface Filter {
+		
+		/**
+		 * Returns the filtered region. Invoked from worker threads.
+		 *
+		 * @param lookups source region, which must not be modified
+		 * @param width width of the region
+		 * @param height height of the region
+		 * @return Filtered region of the same dimensions.
+		 */
+		int[] apply(int[] lookups , int width , int height);
+		
+	}
+	
+}
@@ -0,0 +1,489 @@
+package cs.csss.project.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.engine.ColorPixel;
+import cs.csss.engine.Lane;
+import cs.csss.engine.LookupPixel;
+import cs.csss.project.Artboard;
+import cs.csss.project.ArtboardPalette;
+import cs.csss.project.IndexPixel;
+import cs.csss.project.LayerPixel;
+
+/**
+ * Bulk access to regions of the active layer of an artboard, for scripts. Scripts calling into Java once per pixel spend most of their time
+ * crossing between Python and Java, so these methods move a whole region across in one call, as primitive arrays or NIO buffers, and do the
+ * looping in Java.
+ * <p>
+ * 	Regions are laid out row by row from their bottom left corner. Lookups are packed as {@code lookupY * 256 + lookupX}, with
+ * 	{@link #NO_LOOKUP} where the active layer does not modify a pixel. Colors are stored as {@link Artboard#activeLayerChannelsPerPixel()}
+ * 	bytes per pixel, and are all zeros where the active layer does not modify a pixel. {@link #mapColors(Artboard, int, int, int, int,
+ * 	ColorMapper) mapColors} passes colors packed into an {@code int} with the first channel in the highest byte.
+ * </p>
+ * <p>
+ * 	When colors are written, pixels whose color is fully transparent, that is, whose last channel is 0 in palettes of 2 or 4 channels, are 
+ * 	removed from the active layer rather than set, so the layers below still show through them. {@code mapColors} also leaves alone pixels
+ * 	the active layer did not modify and whose color the mapper returns unchanged.
+ * </p>
+ */
+public final class PixelRegions {
+	
+	/**
+	 * Lookup of pixels the active layer does not modify.
+	 */
+	public static final int NO_LOOKUP = -1;
+	
+	/**
+	 * Returns the packed lookups of the active layer within the given region.
+	 *
+	 * @param artboard an artboard
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @return Array of {@code width * height} packed lookups.
+	 */
+	public static int[] readLookups(Artboard artboard , int leftX , int bottomY , int width , int height) {
+		
+		int[] lookups = new int[width * height];
+		readLookups(artboard , leftX , bottomY , width , height , IntBuffer.wrap(lookups));
+		return lookups;
+		
+	}
+	
+	/**
+	 * Puts the packed lookups of the active layer within the given region into {@code destination}, advancing its position.
+	 *
+	 * @param artboard an artboard
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param destination buffer with at least {@code width * height} remaining
+	 */
+	public static void readLookups(Artboard artboard , int leftX , int bottomY , int width , int height , IntBuffer destination) {
+		
+		LayerPixel[][] region = artboard.getRegionOfLayerPixels(leftX , bottomY , width , height);
+		for(LayerPixel[] row : region) for(LayerPixel x : row) destination.put(x == null ? NO_LOOKUP : pack(x.lookupX() , x.lookupY()));
+		
+	}
+	
+	/**
+	 * Replaces the contents of the active layer within the given region with {@code lookups}, removing pixels whose lookup is
+	 * {@link #NO_LOOKUP}. Does nothing if the active layer is hidden or locked.
+	 *
+	 * @param artboard an artboard
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param lookups array of {@code width * height} packed lookups
+	 */
+	@RenderThreadOnly public static void writeLookups(Artboard artboard , int leftX , int bottomY , int width , int height , int[] lookups) {
+		
+		writeLookups(artboard , leftX , bottomY , width , height , IntBuffer.wrap(lookups));
+		
+	}
+	
+	/**
+	 * Replaces the contents of the active layer within the given region with the packed lookups of {@code source}, removing pixels whose
+	 * lookup is {@link #NO_LOOKUP}, and advances the position of {@code source}. Does nothing if the active layer is hidden or locked.
+	 *
+	 * @param artboard an artboard
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param source buffer with at least {@code width * height} remaining
+	 */
+	@RenderThreadOnly public static void writeLookups(
+		Artboard artboard ,
+		int leftX ,
+		int bottomY ,
+		int width ,
+		int height ,
+		IntBuffer source
+	) {
+		
+		if(artboard.activeLayer().hiding() || artboard.activeLayer().locked()) return;
+		
+		//lookups are shared between pixels using the same one
+		LookupPixel[] pixels = new LookupPixel[ArtboardPalette.MAX_WIDTH * ArtboardPalette.MAX_HEIGHT];
+		LookupPixel[][] region = new LookupPixel[height][width];
+		for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) {
+			
+			int lookup = source.get();
+			if(lookup == NO_LOOKUP) continue;
+			if(pixels[lookup] == null) pixels[lookup] = new IndexPixel(lookup % ArtboardPalette.MAX_WIDTH , lookup / ArtboardPalette.MAX_WIDTH);
+			region[row][col] = pixels[lookup];
+			
+		}
+		
+		artboard.replace(leftX , bottomY , width , height , region);
+		
+	}
+	
+	/**
+	 * Returns the colors of the active layer within the given region.
+	 *
+	 * @param artboard an artboard
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @return Array of {@code width * height * artboard.activeLayerChannelsPerPixel()} channel values.
+	 */
+	@RenderThreadOnly public static byte[] readColors(Artboard artboard , int leftX , int bottomY , int width , int height) {
+		
+		byte[] colors = new byte[width * height * artboard.activeLayerChannelsPerPixel()];
+		readColors(artboard , leftX , bottomY , width , height , ByteBuffer.wrap(colors));
+		return colors;
+		
+	}
+	
+	/**
+	 * Puts the colors of the active layer within the given region into {@code destination}, advancing its position.
+	 *
+	 * @param artboard an artboard
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param destination buffer with at least {@code width * height * artboard.activeLayerChannelsPerPixel()} remaining
+	 */
+	@RenderThreadOnly public static void readColors(
+		Artboard artboard ,
+		int leftX ,
+		int bottomY ,
+		int width ,
+		int height ,
+		ByteBuffer destination
+	) {
+		
+		int channels = artboard.activeLayerChannelsPerPixel();
+		int[] colors = colorsOf(artboard , readLookups(artboard , leftX , bottomY , width , height) , channels);
+		for(int color : colors) putColor(destination , color , channels);
+		
+	}
+	
+	/**
+	 * Returns the packed colors of packed {@code lookups} of the palette of the active layer, with 0 where a lookup is {@link #NO_LOOKUP}.
+	 */
+	@RenderThreadOnly private static int[] colorsOf(Artboard artboard , int[] lookups , int channels) {
+		
+		int[] colors = new int[lookups.length];
+		//colors are read from the palette once per lookup
+		long[] known = new long[ArtboardPalette.MAX_WIDTH * ArtboardPalette.MAX_HEIGHT];
+		for(int i = 0 ; i < lookups.length ; i++) {
+			
+			int lookup = lookups[i];
+			if(lookup == NO_LOOKUP) continue;
+			
+			if(known[lookup] == 0) known[lookup] = 1L << 32 | Integer.toUnsignedLong(packColor(
+				artboard.getColorFromIndicesOfPalette(lookup % ArtboardPalette.MAX_WIDTH , lookup / ArtboardPalette.MAX_WIDTH) ,
+				channels
+			));
+			
+			colors[i] = (int)known[lookup];
+			
+		}
+		
+		return colors;
+		
+	}
+	
+	/**
+	 * Replaces the contents of the active layer within the given region with {@code colors}, adding colors to the palette as needed and 
+	 * removing fully transparent pixels. Does nothing if the active layer is hidden or locked.
+	 *
+	 * @param artboard an artboard
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param colors array of {@code width * height * artboard.activeLayerChannelsPerPixel()} channel values
+	 */
+	@RenderThreadOnly public static void writeColors(Artboard artboard , int leftX , int bottomY , int width , int height , byte[] colors) {
+		
+		writeColors(artboard , leftX , bottomY , width , height , ByteBuffer.wrap(colors));
+		
+	}
+	
+	/**
+	 * Replaces the contents of the active layer within the given region with the colors of {@code source}, adding colors to the palette as
+	 * needed and removing fully transparent pixels, and advances the position of {@code source}. Does nothing if the active layer is hidden
+	 * or locked.
+	 *
+	 * @param artboard an artboard
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param source buffer with at least {@code width * height * artboard.activeLayerChannelsPerPixel()} remaining
+	 */
+	@RenderThreadOnly public static void writeColors(
+		Artboard artboard ,
+		int leftX ,
+		int bottomY ,
+		int width ,
+		int height ,
+		ByteBuffer source
+	) {
+		
+		int channels = artboard.activeLayerChannelsPerPixel();
+		int[] colors = new int[width * height];
+		for(int i = 0 ; i < colors.length ; i++) for(int j = 0 ; j < channels ; j++) colors[i] = colors[i] << 8 | Byte.toUnsignedInt(source.get());
+		
+		int[] lookups = toLookups(colors , null , channels , color -> lookup(artboard , unpackColor(color , channels)));
+		writeLookups(artboard , leftX , bottomY , width , height , lookups);
+		
+	}
+	
+	/**
+	 * Returns the packed lookup of {@code color} in the palette of the active layer, adding it to the palette if it is not present.
+	 *
+	 * @param artboard an artboard
+	 * @param color {@code artboard.activeLayerChannelsPerPixel()} channel values of a color
+	 * @return Packed lookup of {@code color}.
+	 */
+	@RenderThreadOnly public static int lookup(Artboard artboard , byte[] color) {
+		
+		LookupPixel lookup = artboard.putInPalette(artboard.createPalettePixel(color));
+		return pack(lookup.lookupX() , lookup.lookupY());
+		
+	}
+	
+	/**
+	 * Replaces each color of the active layer within the given region with the color {@code mapper} returns for it. Colors are read and
+	 * written in bulk, so the only call made per pixel is to {@code mapper}. Pixels the active layer does not modify are only added if 
+	 * {@code mapper} changes their color from 0 to a color which is not fully transparent. Does nothing if the active layer is hidden or 
+	 * locked.
+	 *
+	 * @param artboard an artboard
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param mapper function returning the new color of a pixel
+	 */
+	@RenderThreadOnly public static void mapColors(
+		Artboard artboard ,
+		int leftX ,
+		int bottomY ,
+		int width ,
+		int height ,
+		ColorMapper mapper
+	) {
+		
+		Objects.requireNonNull(mapper);
+		
+		int channels = artboard.activeLayerChannelsPerPixel();
+		int[] before = readLookups(artboard , leftX , bottomY , width , height);
+		int[] colors = colorsOf(artboard , before , channels);
+		for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) {
+			
+			int i = row * width + col;
+			colors[i] = mapper.map(leftX + col , bottomY + row , colors[i]);
+			
+		}
+		
+		int[] lookups = toLookups(colors , before , channels , color -> lookup(artboard , unpackColor(color , channels)));
+		writeLookups(artboard , leftX , bottomY , width , height , lookups);
+		
+	}
+	
+	/**
+	 * Invokes {@code callback} once for each row from {@code bottomY} to {@code bottomY + height - 1}, with bands of rows invoked in parallel
+	 * on worker threads, and returns once every row is done. {@code callback} must be safe to invoke concurrently, for example by only
+	 * writing to the part of an array belonging to its row, and must not modify artboards.
+	 *
+	 * @param bottomY first row
+	 * @param height number of rows
+	 * @param callback code to invoke for each row
+	 * @throws IllegalStateException if {@code callback} throws an exception or the calling thread is interrupted.
+	 */
+	public static void forEachRowParallel(int bottomY , int height , RowCallback callback) {
+		
+		Objects.requireNonNull(callback);
+		forEachBandParallel(bottomY , height , (band , firstRow , endRow) -> {
+			
+			for(int row = firstRow ; row < endRow ; row++) callback.row(row);
+			
+		});
+		
+	}
+	
+	/**
+	 * Splits the rows from {@code bottomY} to {@code bottomY + height - 1} into {@link #bands(int) bands(height)} bands of consecutive rows,
+	 * invokes {@code callback} once for each band in parallel on worker threads, and returns once every band is done. Bands are numbered 
+	 * from 0 upward from the bottom, so callbacks can accumulate results per band in an array and merge them afterward. {@code callback} 
+	 * must be safe to invoke concurrently.
+	 *
+	 * @param bottomY first row
+	 * @param height number of rows
+	 * @param callback code to invoke for each band
+	 * @throws IllegalStateException if {@code callback} throws an exception or the calling thread is interrupted.
+	 */
+	public static void forEachBandParallel(int bottomY , int height , BandCallback callback) {
+		
+		Objects.requireNonNull(callback);
+		if(height <= 0) return;
+		
+		int bands = bands(height);
+		Future<?>[] futures = new Future<?>[bands];
+		for(int i = 0 ; i < bands ; i++) {
+			
+			int band = i;
+			int firstRow = bottomY + (int)((long)height * i / bands) , endRow = bottomY + (int)((long)height * (i + 1) / bands);
+			futures[i] = Lane.COMPUTE.submit(() -> callback.band(band , firstRow , endRow));
+			
+		}
+		
+		try {
+			
+			for(Future<?> x : futures) x.get();
+			
+		} catch (InterruptedException | ExecutionException e) {
+			
+			throw new IllegalStateException(e);
+			
+		}
+		
+	}
+	
+	/**
+	 * Returns the number of bands {@link #forEachBandParallel(int, int, BandCallback) forEachBandParallel} splits {@code height} rows into, 
+	 * which is one per core but no more than the number of rows. Every band has at least one row.
+	 *
+	 * @param height number of rows
+	 * @return Number of bands, or 0 if {@code height} is not positive.
+	 */
+	public static int bands(int height) {
+		
+		return Math.max(0 , Math.min(height , Runtime.getRuntime().availableProcessors()));
+		
+	}
+	
+	/**
+	 * Converts packed colors to the packed lookups to write for them. Colors which are fully transparent, and colors which are still 0 at 
+	 * pixels whose lookup in {@code before} is {@link #NO_LOOKUP}, become {@code NO_LOOKUP}, so the pixels below them keep showing.
+	 *
+	 * @param colors packed colors
+	 * @param before packed lookups the colors were read from, or <code>null</code> if the colors were not read from the layer
+	 * @param channels number of channels per color
+	 * @param lookupOfColor function returning the packed lookup of a color, invoked once per distinct color written
+	 * @return Array of packed lookups.
+	 */
+	static int[] toLookups(int[] colors , int[] before , int channels , IntUnaryOperator lookupOfColor) {
+		
+		//the palette is searched once per distinct color
+		HashMap<Integer , Integer> known = new HashMap<>();
+		int[] lookups = new int[colors.length];
+		boolean hasAlpha = channels == 2 || channels == 4;
+		for(int i = 0 ; i < colors.length ; i++) {
+			
+			int color = colors[i];
+			if((hasAlpha && (color & 0xff) == 0) || (before != null && before[i] == NO_LOOKUP && color == 0)) lookups[i] = NO_LOOKUP;
+			else lookups[i] = known.computeIfAbsent(color , lookupOfColor::applyAsInt);
+			
+		}
+		
+		return lookups;
+		
+	}
+	
+	private static int pack(int lookupX , int lookupY) {
+		
+		return lookupY * ArtboardPalette.MAX_WIDTH + lookupX;
+		
+	}
+	
+	private static int packColor(ColorPixel color , int channels) {
+		
+		int packed = 0;
+		for(int i = 0 ; i < channels ; i++) packed = packed << 8 | color.ui(i);
+		return packed;
+		
+	}
+	
+	static byte[] unpackColor(int color , int channels) {
+		
+		byte[] unpacked = new byte[channels];
+		for(int i = channels - 1 ; i >= 0 ; i--) {
+			
+			unpacked[i] = (byte)color;
+			color >>>= 8;
+			
+		}
+		
+		return unpacked;
+		
+	}
+	
+	private static void putColor(ByteBuffer destination , int color , int channels) {
+		
+		for(int i = channels - 1 ; i >= 0 ; i--) destination.put((byte)(color >>> (i * 8)));
+		
+	}
+	
+	/**
+	 * Function computing the new color of a pixel for {@link PixelRegions#mapColors(Artboard, int, int, int, int, ColorMapper) mapColors}.
+	 */
+	@FunctionalInterface public interface ColorMapper {
+		
+		/**
+		 * Returns the new color of the pixel at {@code (x , y)}.
+		 *
+		 * @param x x index of the pixel
+		 * @param y y index of the pixel
+		 * @param color packed current color of the pixel, or 0 if the active layer does not modify it
+		 * @return Packed new color of the pixel, which removes the pixel if it is fully transparent, or if it is 0 and the pixel was not 
+		 * 		   modified.
+		 */
+		int map(int x , int y , int color);
+		
+	}
+	
+	/**
+	 * Code invoked for each band of rows by {@link PixelRegions#forEachBandParallel(int, int, BandCallback) forEachBandParallel}.
+	 */
+	@FunctionalInterface public interface BandCallback {
+		
+		/**
+		 * Processes the rows from {@code firstRow} to {@code endRow - 1}.
+		 *
+		 * @param band index of the band, from 0 at the bottom
+		 * @param firstRow first row of the band
+		 * @param endRow one more than the last row of the band
+		 */
+		void band(int band , int firstRow , int endRow);
+		
+	}
+	
+	/**
+	 * Code invoked for each row by {@link PixelRegions#forEachRowParallel(int, int, RowCallback) forEachRowParallel}.
+	 */
+	@FunctionalInterface public interface RowCallback {
+		
+		/**
+		 * Processes row {@code y}.
+		 *
+		 * @param y index of a row
+		 */
+		void row(int y);
+		
+	}
+	
+	/**
+	 * Private constructor.
+	 */
+	private PixelRegions() {}
+	
+}
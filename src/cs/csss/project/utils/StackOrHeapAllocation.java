@@ -1,6 +1,6 @@
 package cs.csss.project.utils;
 
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static cs.csss.engine.MemoryAccounting.memFree;
 
 import java.nio.ByteBuffer;
 
@@ -0,0 +1,120 @@
+package cs.csss.project.utils;
+
+import java.util.HashMap;
+import java.util.Objects;
+
+import cs.csss.annotation.RenderThreadOnly;
+import cs.csss.project.Artboard;
+
+/**
+ * Colors written off the render thread for a region of an artboard, to be applied to the artboard's active layer in one
+ * {@link #commit(Artboard) commit} on the render thread. Colors are packed as in {@link PixelRegions#mapColors(Artboard, int, int, int, int,
+ * PixelRegions.ColorMapper) PixelRegions.mapColors}, and pixels which are not written keep their contents when the region is committed.
+ * <p>
+ * 	Different threads may write different pixels concurrently. Every write first runs the region's checkpoint, which lets the owner of the
+ * 	region stop a writer by throwing from it.
+ * </p>
+ */
+public final class StagedRegion {
+	
+	/**
+	 * Position and size of this region within its artboard.
+	 */
+	public final int leftX , bottomY , width , height;
+	
+	private final int[] colors;
+	private final boolean[] written;
+	private final Runnable checkpoint;
+	
+	/**
+	 * Creates an empty staged region.
+	 *
+	 * @param leftX left x coordinate of the region
+	 * @param bottomY bottom y coordinate of the region
+	 * @param width width of the region
+	 * @param height height of the region
+	 * @param checkpoint code run before every write
+	 */
+	public StagedRegion(int leftX , int bottomY , int width , int height , Runnable checkpoint) {
+		
+		this.leftX = leftX;
+		this.bottomY = bottomY;
+		this.width = width;
+		this.height = height;
+		this.checkpoint = Objects.requireNonNull(checkpoint);
+		colors = new int[width * height];
+		written = new boolean[width * height];
+		
+	}
+	
+	/**
+	 * Stages {@code color} for the pixel at {@code (x , y)}, relative to the bottom left of this region.
+	 *
+	 * @param x x coordinate of a pixel in this region
+	 * @param y y coordinate of a pixel in this region
+	 * @param color packed color
+	 */
+	public void put(int x , int y , int color) {
+		
+		checkpoint.run();
+		int index = Objects.checkIndex(y , height) * width + Objects.checkIndex(x , width);
+		colors[index] = color;
+		written[index] = true;
+		
+	}
+	
+	/**
+	 * Stages {@code rowColors} for row {@code y} of this region.
+	 *
+	 * @param y y coordinate of a row of this region
+	 * @param rowColors {@code width} packed colors
+	 */
+	public void putRow(int y , int[] rowColors) {
+		
+		checkpoint.run();
+		int offset = Objects.checkIndex(y , height) * width;
+		System.arraycopy(rowColors , 0 , colors , offset , width);
+		for(int i = offset ; i < offset + width ; i++) written[i] = true;
+		
+	}
+	
+	/**
+	 * Stages every pixel of this region.
+	 *
+	 * @param allColors {@code width * height} packed colors, row by row from the bottom left
+	 */
+	public void putAll(int[] allColors) {
+		
+		checkpoint.run();
+		System.arraycopy(allColors , 0 , colors , 0 , colors.length);
+		for(int i = 0 ; i < written.length ; i++) written[i] = true;
+		
+	}
+	
+	/**
+	 * Applies the staged pixels to the active layer of {@code artboard}, adding their colors to its palette as needed, and returns the
+	 * lookups of the region before the commit. Passing the returned lookups to {@link PixelRegions#writeLookups(Artboard, int, int, int, int,
+	 * int[]) PixelRegions.writeLookups} undoes the commit.
+	 *
+	 * @param artboard the artboard this region belongs to
+	 * @return Packed lookups of this region before the commit.
+	 */
+	@RenderThreadOnly public int[] commit(Artboard artboard) {
+		
+		int channels = artboard.activeLayerChannelsPerPixel();
+		int[] previous = PixelRegions.readLookups(artboard , leftX , bottomY , width , height);
+		int[] lookups = previous.clone();
+		//the palette is searched once per distinct color
+		HashMap<Integer , Integer> known = new HashMap<>();
+		for(int i = 0 ; i < lookups.length ; i++) if(written[i]) {
+			
+			lookups[i] = known.computeIfAbsent(colors[i] , color -> PixelRegions.lookup(artboard , PixelRegions.unpackColor(color , channels)));
+			
+		}
+		
+		PixelRegions.writeLookups(artboard , leftX , bottomY , width , height , lookups);
+		return previous;
+		
+	}
+	
+}
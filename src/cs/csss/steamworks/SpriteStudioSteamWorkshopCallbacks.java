@@ -10,6 +10,7 @@ import com.codedisaster.steamworks.SteamUGCDetails;
 import com.codedisaster.steamworks.SteamUGCQuery;
 
 import cs.csss.engine.Engine;
+import cs.csss.engine.Lane;
 import cs.csss.engine.Logging;
 import cs.csss.ui.menus.SteamWorkshopItemUploadMenu;
 import cs.ext.steamworks.SteamAPIHelper;
@@ -106,7 +107,7 @@ public class SpriteStudioSteamWorkshopCallbacks implements SteamUGCCallback {
 			
 		}
 		
-		Engine.THE_THREADS.submit(() -> {
+		Lane.IO.submit(() -> {
 			
 			WorkshopDownloadHelper.downloadUnDownloadedOrOutOfDateItems(ugc, WorkshopDownloadHelper.getSubscribedItems(ugc));
 			
@@ -7,6 +7,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import com.codedisaster.steamworks.SteamPublishedFileID;
 import com.codedisaster.steamworks.SteamRemoteStorage.PublishedFileVisibility;
@@ -35,6 +36,8 @@ public class WorkshopUploadHelper {
 	
 	private static boolean newItemUpdateInProgress = false;
 	
+	private static CompletableFuture<Void> newItemCreated = new CompletableFuture<>();
+	
 	/**
 	 * Returns whether a new item was created and is ready to be updated.
 	 * 
@@ -46,6 +49,18 @@ public class WorkshopUploadHelper {
 		
 	}
 	
+	/**
+	 * Returns a future completed when the next new item is created and is ready to be updated. Get it before requesting the item be 
+	 * created.
+	 * 
+	 * @return Future completed when the next new item is created.
+	 */
+	public static CompletableFuture<Void> whenNewItemCreated() {
+		
+		return newItemCreated;
+		
+	}
+	
 	/**
 	 * Accepts and stores the results of the last query for items created by the current user.
 	 * 
@@ -110,6 +125,7 @@ public class WorkshopUploadHelper {
 		CSFolder workshopFolder = CSFolder.getRoot("program").getOrCreateSubdirectory("workshop");
 		
 		newItemUpdateInProgress = false;
+		newItemCreated = new CompletableFuture<>();
 		
 		WorkshopItemData item = new WorkshopItemData(
 			ID , 
@@ -277,6 +293,7 @@ public class WorkshopUploadHelper {
 		
 		newItemUpdateInProgress = true;
 		workshopItems.add(publishedFileID);
+		newItemCreated.complete(null);
 				
 	}
 	
@@ -37,7 +37,7 @@ public class ArtboardMenu extends Dialogue {
 		onFinish = () -> {
 			
 			nuklear.removeUserInterface(ui);
-			Engine.THE_TEMPORAL.onTrue(() -> true, ui::shutDown);
+			Engine.THE_MAIN_THREAD.execute(ui::shutDown);
 			isFinished = true;
 			super.onFinish();
 			
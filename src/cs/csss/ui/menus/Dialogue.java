@@ -3,6 +3,8 @@
  */
 package cs.csss.ui.menus;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Used to flag an object as a UI dialogue. Some behavior of the program must be different if a dialogue is open, which this class helps track.
  */
@@ -10,6 +12,8 @@ public abstract class Dialogue {
 
 	private static int openDialogues = 0;
 	
+	private final CompletableFuture<Void> finished = new CompletableFuture<>();
+	
 	/**
 	 * Returns the number of open dialogues.
 	 * 
@@ -36,6 +40,20 @@ public abstract class Dialogue {
 	public void onFinish() {
 		
 		openDialogues--;
+		finished.complete(null);
+		
+	}
+	
+	/**
+	 * Returns a future completed when this dialogue first finishes, whether it was completed or cancelled. Code that must run after the
+	 * dialogue closes should be chained to it on the thread it needs, such as 
+	 * {@code whenFinished().thenRunAsync(action , Engine.THE_MAIN_THREAD)}, rather than polling the dialogue every frame.
+	 * 
+	 * @return Future completed when this dialogue finishes.
+	 */
+	public CompletableFuture<Void> whenFinished() {
+		
+		return finished;
 		
 	}
 	
@@ -43,7 +43,7 @@ public class LoadProjectMenu extends Dialogue {
 	 		
 			nuklear.removeUserInterface(ui);
 	 		readyToFinish = true;
-			Engine.THE_TEMPORAL.onTrue(() -> true, ui::shutDown);
+			Engine.THE_MAIN_THREAD.execute(ui::shutDown);
 	 		super.onFinish();
 	 		
 	 	};
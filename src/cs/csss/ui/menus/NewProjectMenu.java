@@ -12,6 +12,7 @@ import org.lwjgl.nuklear.NkColor;
 import org.lwjgl.system.MemoryStack;
 
 import cs.csss.engine.Engine;
+import cs.csss.engine.Lane;
 import cs.csss.misc.files.CSFile;
 import cs.csss.misc.files.CSFolder;
 import cs.csss.project.ArtboardPalette;
@@ -110,12 +111,12 @@ public class NewProjectMenu extends Dialogue {
 	 	removeUIOnFinish = () -> {
 	 		
 	 		nuklear.removeUserInterface(ui);
-	 		Engine.THE_TEMPORAL.onTrue(() -> true, ui::shutDown);	 		
+	 		Engine.THE_MAIN_THREAD.execute(ui::shutDown);	 		
 	 		super.onFinish();
 	 		
 	 	};
 		
-		Engine.THE_THREADS.submit(() -> {
+		Lane.IO.submit(() -> {
 			
 			CSFolder projectsFolder = CSFolder.getRoot("data").getOrCreateSubdirectory("projects");
 			projectsFolder.seekExistingFiles();
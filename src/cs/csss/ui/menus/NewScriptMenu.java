@@ -28,12 +28,15 @@ public class NewScriptMenu extends Dialogue {
 
 	private static final float width = 0.30f , height = 0.35f;
 	
-	private SCTextEditor nameInput;
+	private final SCTextEditor nameInput;
+	private final Runnable finish;
 	private ScriptType type = null;
 	private boolean finished = false;
 	
 	/**
+	 * Creates and shows a new script menu.
 	 * 
+	 * @param nuklear the Nuklear factory
 	 */
 	public NewScriptMenu(SCNuklear nuklear) {
 		
@@ -48,6 +51,15 @@ public class NewScriptMenu extends Dialogue {
 		
 		ui.flags |= UI_TITLED|UI_BORDERED;
 		
+		finish = () -> {
+			
+			nuklear.removeUserInterface(ui);
+			ui.shutDown();
+			finished = true;
+			super.onFinish();
+			
+		};
+		
 		ui.new SCDynamicRow(20).new SCText("Input name for new script.");
 		nameInput = ui.new SCDynamicRow().new SCTextEditor(999 , SCNuklear.NO_FILTER);
 		
@@ -80,22 +92,15 @@ public class NewScriptMenu extends Dialogue {
 		
 		SCRadio.groupAll(radios.toArray(SCRadio[]::new));
 		
-		Runnable onFinish = () -> {
-			
-			nuklear.removeUserInterface(ui);
-			ui.shutDown();
-			finished = true;
-			
-		};
-		
 		SCDynamicRow finishRow = ui.new SCDynamicRow();
-		finishRow.new SCButton("Finish" , () -> {
+		finishRow.new SCButton("Finish" , this::attemptFinish);
+		finishRow.new SCButton("Cancel" , finish);
 		
-			if(types != null && !nameInput.toString().equals("")) onFinish.run();
-			
-		});
+	}
+	
+	private void attemptFinish() {
 		
-		finishRow.new SCButton("Cancel" , onFinish);
+		if(!nameInput.toString().equals("")) finish.run();
 		
 	}
 
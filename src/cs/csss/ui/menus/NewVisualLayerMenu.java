@@ -36,7 +36,7 @@ public class NewVisualLayerMenu extends Dialogue {
 		onFinish = () -> {
 			
 			nuklear.removeUserInterface(ui);
-			Engine.THE_TEMPORAL.onTrue(() -> true, ui::shutDown);
+			Engine.THE_MAIN_THREAD.execute(ui::shutDown);
 			isFinished = true;
 			super.onFinish();
 			
@@ -72,7 +72,7 @@ public class SelectScriptMenu extends Dialogue {
 		Runnable onFinish = () -> {
 			
 			nuklear.removeUserInterface(ui);
-			Engine.THE_TEMPORAL.onTrue(() -> true, ui::shutDown);
+			Engine.THE_MAIN_THREAD.execute(ui::shutDown);
 			super.onFinish();
 			
 		};
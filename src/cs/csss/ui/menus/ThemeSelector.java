@@ -91,7 +91,7 @@ public class ThemeSelector extends Dialogue {
 		finished = true;
 		super.onFinish();
 		nuklear.removeUserInterface(ui);
-		Engine.THE_TEMPORAL.onTrue(() -> true, ui::shutDown);
+		Engine.THE_MAIN_THREAD.execute(ui::shutDown);
 		
 	}
 	
@@ -1,16 +1,12 @@
 package cs.csss.utils;
 
-import static org.lwjgl.system.MemoryUtil.memAlloc;
-import static org.lwjgl.system.MemoryUtil.memFree;
+import static cs.csss.engine.MemoryAccounting.memAlloc;
+import static cs.csss.engine.MemoryAccounting.memFree;
 
 import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import cs.csss.project.Artboard;
-import cs.csss.project.IndexPixel;
-import cs.csss.project.utils.Artboards;
-import cs.csss.project.utils.RegionIterator;
-import cs.csss.project.utils.RegionPosition;
 
 /**
  * Contains method(s) for modifying {@code ByteBuffers}, which are used extensively throughout Sprite Studio.
@@ -49,37 +45,6 @@ public final class ByteBufferUtils {
 		
 	}
 
-	/**
-	 * Converts the given source buffer, interpreted as an RGBA, 1 byte per channel pixel buffer, into a buffer of the given number of 
-	 * channels, with each channel assumed to be one byte.
-	 * 
-	 * <p>
-	 * 	The "RedGreen" statement in the name of this method refers to what channel values are used when the {@code newDesiredChannels} 
-	 * 	parameter is 2.
-	 * </p>
-	 * 
-	 * @param source  source {@code ByteBuffer}, assumed to be formatted as RGBA  
-	 * @param newDesiredChannels  the number of channels the resulting buffer should contain
-	 * @return New buffer containing correctly formatted pixel data.
-	 */
-	public static ByteBuffer reformatBufferRedGreen(ByteBuffer source,  int newDesiredChannels) {
-
-		ByteBuffer reformat = verifyAndPrepareReformat(source , newDesiredChannels);
-
-		if(newDesiredChannels == 2) while(reformat.hasRemaining()) {
-			
-			reformat.put(source.get());
-			reformat.put(source.get());
-			source.position(source.position() + 2);
-			
-		} else reformat = reformatToOddChannels(source , reformat , newDesiredChannels);		
-		
-		memFree(source);
-		
-		return reformat.flip();
-		
-	}
-		
 	private static ByteBuffer reformatToOddChannels(ByteBuffer source, ByteBuffer reformat , int newDesiredChannels) {
 
 		int difference = 4 - newDesiredChannels;
@@ -102,54 +67,7 @@ public final class ByteBufferUtils {
 			
 		}
 		
-		return memAlloc((source.limit() / 4) * newDesiredChannels);
-		
-	}
-	
-	/**
-	 * Creates and returns a region of index pixels.
-	 * 
-	 * @param contents  source buffer
-	 * @param width  width of the region
-	 * @param height  height of the region
-	 * @return 2D array of index pixels
-	 */
-	public static IndexPixel[][] bufferToIndices(ByteBuffer contents , int width , int height) {
-		
-		IndexPixel[][] pixels = new IndexPixel[height][width];		
-		for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) pixels[row][col] = new IndexPixel(contents);
-		contents.rewind();
-		return pixels;
-		
-	}
-
-	/**
-	 * Creates and returns a region of index pixels from the given buffer. Bytes read from the buffer will be tested by the {@code dropif} 
-	 * predicate, and if the test returns true, the values are not written into the array, so {@code null} is left there instead.
-	 * 
-	 * @param contents  buffer to read from
-	 * @param width  width of the region to read
-	 * @param height  height of the region to read
-	 * @param dropIf  test for if a pixel in the buffer should be ignored and not put in the resulting container
-	 * @return 2D array of index pixels created from {@code source}.
-	 */
-	public static IndexPixel[][] bufferToIndices(ByteBuffer contents , int width , int height , BiBytePredicate dropIf) {
-		
-		IndexPixel[][] pixelRegion = new IndexPixel[height][width];
-		RegionIterator iter = Artboards.region(0 , 0 , width , height);
-		
-		while(iter.hasNext()) { 
-		
-			RegionPosition position = iter.next();
-			byte x = contents.get();
-			byte y = contents.get();
-			if(dropIf.test(x, y)) continue;
-			
-			pixelRegion[position.row()][position.col()] = new IndexPixel(x , y);
-			
-		}
-		
-		return pixelRegion;
+		return memAlloc("image/reformat" , (source.limit() / 4) * newDesiredChannels);
 		
 	}
 	
@@ -0,0 +1,213 @@
+package cs.csss.utils;
+
+/**
+ * Hash map from {@code int} keys to {@code int} values, stored in two parallel arrays with open addressing and linear probing so no keys or
+ * values are boxed. Every {@code int} is a valid key. Entries cannot be removed.
+ * <p>
+ * 	Not thread safe. Threads filling separate maps can combine them afterward with {@link #addAll(IntIntHashMap)}.
+ * </p>
+ */
+public final class IntIntHashMap {
+	
+	private static final float LOAD_FACTOR = 0.5f;
+	
+	private int[] keys , values;
+	private boolean[] used;
+	private int size = 0 , mask , resizeAt;
+	
+	/**
+	 * Creates a map which holds {@code expectedSize} entries without growing.
+	 *
+	 * @param expectedSize number of entries the map is expected to hold
+	 */
+	public IntIntHashMap(int expectedSize) {
+		
+		allocate(Integer.highestOneBit(Math.max(8 , (int)(expectedSize / LOAD_FACTOR)) - 1) << 1);
+		
+	}
+	
+	/**
+	 * Creates a small map.
+	 */
+	public IntIntHashMap() {
+		
+		this(16);
+		
+	}
+	
+	/**
+	 * Returns the value of {@code key}, or {@code absent} if this map does not contain {@code key}.
+	 *
+	 * @param key a key
+	 * @param absent value returned if {@code key} is not present
+	 * @return Value of {@code key}, or {@code absent}.
+	 */
+	public int get(int key , int absent) {
+		
+		for(int i = slot(key) ; used[i] ; i = (i + 1) & mask) if(keys[i] == key) return values[i];
+		return absent;
+		
+	}
+	
+	/**
+	 * Returns whether this map contains {@code key}.
+	 *
+	 * @param key a key
+	 * @return Whether this map contains {@code key}.
+	 */
+	public boolean containsKey(int key) {
+		
+		for(int i = slot(key) ; used[i] ; i = (i + 1) & mask) if(keys[i] == key) return true;
+		return false;
+		
+	}
+	
+	/**
+	 * Sets the value of {@code key} to {@code value}.
+	 *
+	 * @param key a key
+	 * @param value new value of {@code key}
+	 */
+	public void put(int key , int value) {
+		
+		//find may grow the table, so it must run before values is read
+		int index = find(key);
+		values[index] = value;
+		
+	}
+	
+	/**
+	 * Adds {@code amount} to the value of {@code key}, treating absent keys as having the value 0.
+	 *
+	 * @param key a key
+	 * @param amount amount to add
+	 */
+	public void add(int key , int amount) {
+		
+		int index = find(key);
+		values[index] += amount;
+		
+	}
+	
+	/**
+	 * Adds the value of each key of {@code other} to the value of that key in this map.
+	 *
+	 * @param other another map
+	 */
+	public void addAll(IntIntHashMap other) {
+		
+		other.forEach(this::add);
+		
+	}
+	
+	/**
+	 * Returns the number of keys in this map.
+	 *
+	 * @return Number of keys in this map.
+	 */
+	public int size() {
+		
+		return size;
+		
+	}
+	
+	/**
+	 * Invokes {@code callback} with each key and its value, in no particular order.
+	 *
+	 * @param callback code to invoke for each entry
+	 */
+	public void forEach(EntryConsumer callback) {
+		
+		for(int i = 0 ; i < keys.length ; i++) if(used[i]) callback.accept(keys[i] , values[i]);
+		
+	}
+	
+	/**
+	 * Returns the keys of this map, in the same order as {@link #forEach(EntryConsumer)} visits them.
+	 *
+	 * @return Array of the keys of this map.
+	 */
+	public int[] keys() {
+		
+		int[] array = new int[size];
+		int next = 0;
+		for(int i = 0 ; i < keys.length ; i++) if(used[i]) array[next++] = keys[i];
+		return array;
+		
+	}
+	
+	/**
+	 * Returns the index of {@code key}, inserting it with the value 0 if it is absent.
+	 */
+	private int find(int key) {
+		
+		int i = slot(key);
+		for(; used[i] ; i = (i + 1) & mask) if(keys[i] == key) return i;
+		
+		if(size + 1 > resizeAt) {
+			
+			grow();
+			return find(key);
+			
+		}
+		
+		used[i] = true;
+		keys[i] = key;
+		values[i] = 0;
+		size++;
+		return i;
+		
+	}
+	
+	private int slot(int key) {
+		
+		//spreads colors, whose low bytes are often equal, over the table
+		int hash = key * 0x9e3779b9;
+		return (hash ^ hash >>> 16) & mask;
+		
+	}
+	
+	private void grow() {
+		
+		int[] oldKeys = keys , oldValues = values;
+		boolean[] oldUsed = used;
+		allocate(keys.length << 1);
+		
+		for(int i = 0 ; i < oldKeys.length ; i++) if(oldUsed[i]) {
+			
+			int j = slot(oldKeys[i]);
+			while(used[j]) j = (j + 1) & mask;
+			used[j] = true;
+			keys[j] = oldKeys[i];
+			values[j] = oldValues[i];
+			
+		}
+		
+	}
+	
+	private void allocate(int capacity) {
+		
+		keys = new int[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+		resizeAt = (int)(capacity * LOAD_FACTOR);
+		
+	}
+	
+	/**
+	 * Receives the entries of an {@link IntIntHashMap}.
+	 */
+	@FunctionalInterface public interface EntryConsumer {
+		
+		/**
+		 * Receives an entry.
+		 *
+		 * @param key key of the entry
+		 * @param value value of the entry
+		 */
+		void accept(int key , int value);
+		
+	}
+	
+}
@@ -0,0 +1,387 @@
+package cs.csss.utils;
+
+import java.util.function.IntConsumer;
+
+import cs.csss.engine.LookupPixel;
+import cs.csss.project.IndexPixel;
+import cs.csss.project.utils.PixelRegions;
+
+/**
+ * Rotates and scales regions of lookup pixels on the CPU.
+ *
+ * <p>
+ * 	Regions are 2D arrays indexed by {@code [row][column]} from the bottom left, where <code>null</code> positions are empty. All math
+ * 	mapping destination pixels to source pixels is done in integer or 16.16 fixed point arithmetic from angles computed with
+ * 	{@link StrictMath}, so results are the same on every machine. Large regions are transformed from multiple threads, one band of rows
+ * 	per thread.
+ * </p>
+ * <p>
+ * 	Transforms can compute only a window of their destination, which is useful when the destination is partially outside of an artboard.
+ * 	The window is given by its bottom left corner within the destination and its dimensions, and the result has the dimensions of the
+ * 	window.
+ * </p>
+ *
+ * @author Chris Brown
+ */
+public final class PixelTransforms {
+	
+	/**
+	 * Ways of sampling the source of a rotation.
+	 */
+	public enum RotationMode {
+		
+		/**
+		 * Each destination pixel takes the source pixel its center rotates into. Fast, but thin lines can break apart.
+		 */
+		NEAREST ,
+		
+		/**
+		 * The source is first upscaled eight times with Scale2x, then sampled at the center of each destination pixel. Lines and edges keep
+		 * their shape better, at the cost of memory and time proportional to 64 times the source.
+		 */
+		ROTSPRITE
+		
+	}
+	
+	private static final int EMPTY = -1;
+	
+	private static final long FIXED_ONE = 1 << 16;
+	
+	/**
+	 * Number of destination pixels above which transforms run on multiple threads.
+	 */
+	private static final int PARALLEL_PIXELS = 128 * 128;
+	
+	/**
+	 * Largest number of pixels an upscaled source may have for {@link RotationMode#ROTSPRITE}. Beyond this, fewer upscaling passes are made.
+	 */
+	private static final long MAX_UPSCALED_PIXELS = 1 << 24;
+	
+	private PixelTransforms() {}
+	
+	/**
+	 * Rotates {@code source} counterclockwise around its center by {@code radians}, placing the result at the center of a destination of
+	 * the given size. Destination pixels whose centers rotate outside of the source are <code>null</code>.
+	 *
+	 * @param source region to rotate
+	 * @param sourceWidth width of {@code source}
+	 * @param sourceHeight height of {@code source}
+	 * @param radians counterclockwise angle to rotate by
+	 * @param destinationWidth width of the destination
+	 * @param destinationHeight height of the destination
+	 * @param windowX left x coordinate of the window of the destination to compute
+	 * @param windowY bottom y coordinate of the window of the destination to compute
+	 * @param windowWidth width of the window of the destination to compute
+	 * @param windowHeight height of the window of the destination to compute
+	 * @param mode how to sample {@code source}
+	 * @return Window of the rotated region.
+	 * @throws NullPointerException if {@code source} or {@code mode} is <code>null</code>.
+	 */
+	public static IndexPixel[][] rotate(
+		LookupPixel[][] source ,
+		int sourceWidth ,
+		int sourceHeight ,
+		double radians ,
+		int destinationWidth ,
+		int destinationHeight ,
+		int windowX ,
+		int windowY ,
+		int windowWidth ,
+		int windowHeight ,
+		RotationMode mode
+	) {
+		
+		int[] grid = pack(source , sourceWidth , sourceHeight);
+		int factor = 1;
+		
+		if(mode == RotationMode.ROTSPRITE) while(factor < 8 && (long)sourceWidth * sourceHeight * factor * factor * 4 <= MAX_UPSCALED_PIXELS) {
+			
+			grid = scale2x(grid , sourceWidth * factor , sourceHeight * factor);
+			factor *= 2;
+			
+		}
+		
+		long cos = Math.round(StrictMath.cos(radians) * FIXED_ONE) , sin = Math.round(StrictMath.sin(radians) * FIXED_ONE);
+		int[] sampled = grid;
+		int gridWidth = sourceWidth * factor , gridHeight = sourceHeight * factor , finalFactor = factor;
+		int[] result = new int[windowWidth * windowHeight];
+		
+		forEachRow(windowHeight , windowWidth , row -> {
+			
+			//positions are in half pixels relative to the center of the destination so they stay integral
+			long y2 = 2 * (windowY + row) + 1 - destinationHeight;
+			for(int col = 0 ; col < windowWidth ; col++) {
+				
+				long x2 = 2 * (windowX + col) + 1 - destinationWidth;
+				
+				//inverse rotation maps the destination pixel back into the source, then the center of the source is added back
+				long sourceX = (cos * x2 + sin * y2 + sourceWidth * FIXED_ONE) * finalFactor;
+				long sourceY = (-sin * x2 + cos * y2 + sourceHeight * FIXED_ONE) * finalFactor;
+				int gridX = (int)Math.floorDiv(sourceX , 2 * FIXED_ONE) , gridY = (int)Math.floorDiv(sourceY , 2 * FIXED_ONE);
+				
+				result[row * windowWidth + col] = gridX < 0 || gridX >= gridWidth || gridY < 0 || gridY >= gridHeight ?
+					EMPTY :
+					sampled[gridY * gridWidth + gridX];
+				
+			}
+			
+		});
+		
+		return unpack(result , windowWidth , windowHeight);
+		
+	}
+	
+	/**
+	 * Rotates {@code source} counterclockwise around its center by {@code radians}, placing the result at the center of a destination of
+	 * the given size.
+	 *
+	 * @param source region to rotate
+	 * @param sourceWidth width of {@code source}
+	 * @param sourceHeight height of {@code source}
+	 * @param radians counterclockwise angle to rotate by
+	 * @param destinationWidth width of the destination
+	 * @param destinationHeight height of the destination
+	 * @param mode how to sample {@code source}
+	 * @return Rotated region.
+	 * @throws NullPointerException if {@code source} or {@code mode} is <code>null</code>.
+	 */
+	public static IndexPixel[][] rotate(
+		LookupPixel[][] source ,
+		int sourceWidth ,
+		int sourceHeight ,
+		double radians ,
+		int destinationWidth ,
+		int destinationHeight ,
+		RotationMode mode
+	) {
+		
+		return rotate(
+			source ,
+			sourceWidth ,
+			sourceHeight ,
+			radians ,
+			destinationWidth ,
+			destinationHeight ,
+			0 ,
+			0 ,
+			destinationWidth ,
+			destinationHeight ,
+			mode
+		);
+		
+	}
+	
+	/**
+	 * Scales {@code source} to the given size. If the destination is exactly two or three times the size of the source, Scale2x or Scale3x is
+	 * used, which smooths diagonal edges without adding colors. Otherwise, each destination pixel takes the source pixel its center maps to.
+	 *
+	 * @param source region to scale
+	 * @param sourceWidth width of {@code source}
+	 * @param sourceHeight height of {@code source}
+	 * @param destinationWidth width of the destination
+	 * @param destinationHeight height of the destination
+	 * @param windowX left x coordinate of the window of the destination to compute
+	 * @param windowY bottom y coordinate of the window of the destination to compute
+	 * @param windowWidth width of the window of the destination to compute
+	 * @param windowHeight height of the window of the destination to compute
+	 * @return Window of the scaled region.
+	 * @throws NullPointerException if {@code source} is <code>null</code>.
+	 */
+	public static IndexPixel[][] scale(
+		LookupPixel[][] source ,
+		int sourceWidth ,
+		int sourceHeight ,
+		int destinationWidth ,
+		int destinationHeight ,
+		int windowX ,
+		int windowY ,
+		int windowWidth ,
+		int windowHeight
+	) {
+		
+		int[] grid = pack(source , sourceWidth , sourceHeight);
+		int[] scaled;
+		
+		boolean doubled = destinationWidth == sourceWidth * 2 && destinationHeight == sourceHeight * 2;
+		boolean tripled = destinationWidth == sourceWidth * 3 && destinationHeight == sourceHeight * 3;
+		
+		if(doubled) scaled = scale2x(grid , sourceWidth , sourceHeight);
+		else if(tripled) scaled = scale3x(grid , sourceWidth , sourceHeight);
+		else scaled = null;
+		
+		int[] result = new int[windowWidth * windowHeight];
+		
+		forEachRow(windowHeight , windowWidth , row -> {
+			
+			int y = windowY + row;
+			for(int col = 0 ; col < windowWidth ; col++) {
+				
+				int x = windowX + col;
+				
+				if(scaled != null) result[row * windowWidth + col] = scaled[y * destinationWidth + x];
+				else {
+					
+					int sourceX = (int)(((2L * x + 1) * sourceWidth) / (2L * destinationWidth));
+					int sourceY = (int)(((2L * y + 1) * sourceHeight) / (2L * destinationHeight));
+					result[row * windowWidth + col] = grid[sourceY * sourceWidth + sourceX];
+					
+				}
+				
+			}
+			
+		});
+		
+		return unpack(result , windowWidth , windowHeight);
+		
+	}
+	
+	/**
+	 * Scales {@code source} to the given size.
+	 *
+	 * @param source region to scale
+	 * @param sourceWidth width of {@code source}
+	 * @param sourceHeight height of {@code source}
+	 * @param destinationWidth width of the destination
+	 * @param destinationHeight height of the destination
+	 * @return Scaled region.
+	 * @throws NullPointerException if {@code source} is <code>null</code>.
+	 * @see #scale(LookupPixel[][], int, int, int, int, int, int, int, int)
+	 */
+	public static IndexPixel[][] scale(LookupPixel[][] source , int sourceWidth , int sourceHeight , int destinationWidth , int destinationHeight) {
+		
+		return scale(source , sourceWidth , sourceHeight , destinationWidth , destinationHeight , 0 , 0 , destinationWidth , destinationHeight);
+		
+	}
+	
+	/*
+	 * Scale2x. For each pixel P with neighbors A above, B right, C left, and D below, each quarter of the output takes the color of the two
+	 * neighbors adjacent to that quarter if they match each other and the other two neighbors do not match them.
+	 */
+	private static int[] scale2x(int[] grid , int width , int height) {
+		
+		int outWidth = width * 2;
+		int[] out = new int[outWidth * height * 2];
+		
+		forEachRow(height , width * 4 , row -> {
+			
+			int rowAbove = Math.min(row + 1 , height - 1) , rowBelow = Math.max(row - 1 , 0);
+			for(int col = 0 ; col < width ; col++) {
+				
+				int p = grid[row * width + col];
+				int a = grid[rowAbove * width + col];
+				int b = grid[row * width + Math.min(col + 1 , width - 1)];
+				int c = grid[row * width + Math.max(col - 1 , 0)];
+				int d = grid[rowBelow * width + col];
+				
+				int top = (2 * row + 1) * outWidth + 2 * col , bottom = 2 * row * outWidth + 2 * col;
+				out[top] = c == a && c != d && a != b ? a : p;
+				out[top + 1] = a == b && a != c && b != d ? b : p;
+				out[bottom] = d == c && d != b && c != a ? c : p;
+				out[bottom + 1] = b == d && b != a && d != c ? d : p;
+				
+			}
+			
+		});
+		
+		return out;
+		
+	}
+	
+	/*
+	 * Scale3x, the three times analogue of scale2x using all eight neighbors:
+	 *
+	 * 	A B C
+	 * 	D E F
+	 * 	G H I
+	 *
+	 * where A B C is the row above.
+	 */
+	private static int[] scale3x(int[] grid , int width , int height) {
+		
+		int outWidth = width * 3;
+		int[] out = new int[outWidth * height * 3];
+		
+		forEachRow(height , width * 9 , row -> {
+			
+			int above = Math.min(row + 1 , height - 1) * width , middle = row * width , below = Math.max(row - 1 , 0) * width;
+			for(int col = 0 ; col < width ; col++) {
+				
+				int left = Math.max(col - 1 , 0) , right = Math.min(col + 1 , width - 1);
+				int a = grid[above + left] , b = grid[above + col] , c = grid[above + right];
+				int d = grid[middle + left] , e = grid[middle + col] , f = grid[middle + right];
+				int g = grid[below + left] , h = grid[below + col] , i = grid[below + right];
+				
+				int top = (3 * row + 2) * outWidth + 3 * col , center = (3 * row + 1) * outWidth + 3 * col , bottom = 3 * row * outWidth + 3 * col;
+				
+				if(b != h && d != f) {
+					
+					out[top] = d == b ? d : e;
+					out[top + 1] = (d == b && e != c) || (b == f && e != a) ? b : e;
+					out[top + 2] = b == f ? f : e;
+					out[center] = (d == b && e != g) || (d == h && e != a) ? d : e;
+					out[center + 1] = e;
+					out[center + 2] = (b == f && e != i) || (h == f && e != c) ? f : e;
+					out[bottom] = d == h ? d : e;
+					out[bottom + 1] = (d == h && e != i) || (h == f && e != g) ? h : e;
+					out[bottom + 2] = h == f ? f : e;
+					
+				} else {
+					
+					out[top] = out[top + 1] = out[top + 2] = e;
+					out[center] = out[center + 1] = out[center + 2] = e;
+					out[bottom] = out[bottom + 1] = out[bottom + 2] = e;
+					
+				}
+				
+			}
+			
+		});
+		
+		return out;
+		
+	}
+	
+	private static int[] pack(LookupPixel[][] source , int width , int height) {
+		
+		int[] grid = new int[width * height];
+		for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) {
+			
+			LookupPixel pixel = source[row][col];
+			grid[row * width + col] = pixel == null ? EMPTY : (pixel.lookupX() & 0xff) << 8 | (pixel.lookupY() & 0xff);
+			
+		}
+		
+		return grid;
+		
+	}
+	
+	private static IndexPixel[][] unpack(int[] grid , int width , int height) {
+		
+		IndexPixel[][] region = new IndexPixel[height][width];
+		//lookups are two bytes, so every distinct pixel of the result can share one instance
+		IndexPixel[] instances = new IndexPixel[1 << 16];
+		for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) {
+			
+			int lookup = grid[row * width + col];
+			if(lookup == EMPTY) continue;
+			if(instances[lookup] == null) instances[lookup] = new IndexPixel(lookup >>> 8 , lookup & 0xff);
+			region[row][col] = instances[lookup];
+			
+		}
+		
+		return region;
+		
+	}
+	
+	/**
+	 * Invokes {@code code} on each row in {@code [0 , rows)}, splitting the rows into bands across worker threads with 
+	 * {@link PixelRegions#forEachRowParallel(int, int, PixelRegions.RowCallback) forEachRowParallel} if there are enough pixels to be worth it.
+	 */
+	private static void forEachRow(int rows , int pixelsPerRow , IntConsumer code) {
+		
+		if((long)rows * pixelsPerRow > PARALLEL_PIXELS && PixelRegions.bands(rows) > 1) PixelRegions.forEachRowParallel(0 , rows , code::accept);
+		else for(int row = 0 ; row < rows ; row++) code.accept(row);
+		
+	}
+	
+}
@@ -14,7 +14,7 @@ import cs.csss.engine.LookupPixel;
 import cs.csss.engine.Pixel;
 
 /**
- * Contains utilities for scripts.
+ * Contains utilities for scripts. Scripts reading or writing many pixels should use {@link cs.csss.project.utils.PixelRegions PixelRegions}.
  */
 public final class ScriptingUtils2 {
 
@@ -0,0 +1,102 @@
+package cs.csss.editor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests combining, translating, and clipping {@link SelectionMask}s. Masks are compared by their spans, written as {@code "x y length"}
+ * from the bottom row upward.
+ */
+class SelectionMaskTest {
+	
+	@Test void unionMergesOverlappingAndTouchingSpans() {
+		
+		SelectionMask a = new SelectionMask.Builder().add(0 , 0 , 3).add(10 , 0 , 2).build();
+		SelectionMask b = new SelectionMask.Builder().add(2 , 0 , 3).add(12 , 0 , 1).add(20 , 1 , 1).build();
+		
+		SelectionMask union = a.union(b);
+		assertEquals(List.of("0 0 5" , "10 0 3" , "20 1 1") , spans(union));
+		assertEquals(9 , union.numberPixels());
+		assertEquals(3 , union.numberSpans());
+		
+	}
+	
+	@Test void subtractSplitsSpans() {
+		
+		SelectionMask row = SelectionMask.rectangle(0 , 0 , 10 , 1);
+		SelectionMask holes = new SelectionMask.Builder().add(2 , 0 , 2).add(6 , 0 , 1).add(9 , 0 , 5).build();
+		
+		assertEquals(List.of("0 0 2" , "4 0 2" , "7 0 2") , spans(row.subtract(holes)));
+		assertTrue(row.subtract(SelectionMask.rectangle(-1 , -1 , 12 , 3)).isEmpty());
+		assertSame(row , row.subtract(SelectionMask.empty()));
+		
+	}
+	
+	@Test void intersectKeepsSharedPixels() {
+		
+		SelectionMask a = new SelectionMask.Builder().add(0 , 0 , 4).add(6 , 0 , 4).add(0 , 1 , 10).build();
+		SelectionMask b = new SelectionMask.Builder().add(3 , 0 , 4).add(4 , 2 , 2).build();
+		
+		SelectionMask intersection = a.intersect(b);
+		assertEquals(List.of("3 0 1" , "6 0 1") , spans(intersection));
+		assertEquals(1 , intersection.height());
+		assertTrue(a.intersect(SelectionMask.rectangle(4 , 0 , 2 , 1)).isEmpty());
+		
+	}
+	
+	@Test void combiningMasksOfDifferentRowsTrimsEmptyRows() {
+		
+		SelectionMask low = SelectionMask.rectangle(0 , 0 , 2 , 2) , high = SelectionMask.rectangle(0 , 5 , 2 , 2);
+		
+		SelectionMask union = low.union(high);
+		assertEquals(0 , union.bottomY());
+		assertEquals(7 , union.height());
+		assertFalse(union.contains(0 , 3));
+		
+		SelectionMask subtracted = union.subtract(low);
+		assertEquals(5 , subtracted.bottomY());
+		assertEquals(2 , subtracted.height());
+		
+	}
+	
+	@Test void translateMovesEverySpan() {
+		
+		SelectionMask mask = new SelectionMask.Builder().add(1 , 1 , 2).add(4 , 2 , 1).build();
+		
+		assertEquals(List.of("-2 4 2" , "1 5 1") , spans(mask.translate(-3 , 3)));
+		assertEquals(List.of("1 -1 2" , "4 0 1") , spans(mask.translate(0 , -2)));
+		assertSame(mask , mask.translate(0 , 0));
+		
+	}
+	
+	@Test void clipCutsSpansAtTheEdges() {
+		
+		SelectionMask mask = new SelectionMask.Builder().add(-2 , -1 , 4).add(-2 , 0 , 4).add(6 , 0 , 4).add(3 , 4 , 2).build();
+		
+		SelectionMask clipped = mask.clip(8 , 4);
+		assertEquals(List.of("0 0 2" , "6 0 2") , spans(clipped));
+		assertEquals(0 , clipped.leftX());
+		assertEquals(8 , clipped.width());
+		assertFalse(clipped.contains(-1 , 0));
+		assertFalse(clipped.contains(8 , 0));
+		assertTrue(clipped.contains(7 , 0));
+		
+		SelectionMask inside = SelectionMask.rectangle(0 , 0 , 8 , 4);
+		assertSame(inside , inside.clip(8 , 4));
+		assertTrue(SelectionMask.rectangle(8 , 0 , 2 , 2).clip(8 , 4).isEmpty());
+		
+	}
+	
+	private static List<String> spans(SelectionMask mask) {
+		
+		List<String> spans = new ArrayList<>();
+		mask.forEachSpan((x , y , length) -> spans.add(x + " " + y + " " + length));
+		return spans;
+		
+	}
+	
+}
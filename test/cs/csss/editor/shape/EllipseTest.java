@@ -0,0 +1,128 @@
+package cs.csss.editor.shape;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the spans of {@link Ellipse} against a pixel by pixel evaluation of the ellipse equation.
+ */
+class EllipseTest {
+	
+	private static final byte OUTSIDE = 0 , BORDER = 1 , FILL = 2;
+	
+	@Test void filledSpansCoverExactlyTheEllipse() {
+		
+		for(int xRadius = 1 ; xRadius <= 24 ; xRadius++) for(int yRadius = 1 ; yRadius <= 24 ; yRadius++) {
+			
+			byte[][] image = spans(xRadius , yRadius , true);
+			for(int row = 0 ; row < image.length ; row++) for(int col = 0 ; col < image[row].length ; col++) {
+				
+				String at = xRadius + "x" + yRadius + " (" + col + ", " + row + ")";
+				assertEquals(inside(xRadius , yRadius , col , row) , image[row][col] != OUTSIDE , at);
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test void borderIsThePixelsTouchingTheOutside() {
+		
+		int[][] radii = {{1 , 1} , {2 , 7} , {7 , 2} , {50 , 3} , {3 , 50} , {64 , 64} , {100 , 37}};
+		for(int[] x : radii) {
+			
+			byte[][] image = spans(x[0] , x[1] , true);
+			for(int row = 0 ; row < image.length ; row++) for(int col = 0 ; col < image[row].length ; col++) {
+				
+				if(!inside(x[0] , x[1] , col , row)) continue;
+				
+				boolean touchesOutside = 
+					!inside(x[0] , x[1] , col - 1 , row) || 
+					!inside(x[0] , x[1] , col + 1 , row) ||
+					!inside(x[0] , x[1] , col , row - 1) ||
+					!inside(x[0] , x[1] , col , row + 1);
+					
+				assertEquals(touchesOutside , image[row][col] == BORDER , x[0] + "x" + x[1] + " (" + col + ", " + row + ")");
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test void unfilledSpansAreOnlyTheBorder() {
+		
+		byte[][] filled = spans(30 , 11 , true) , unfilled = spans(30 , 11 , false);
+		for(int row = 0 ; row < filled.length ; row++) for(int col = 0 ; col < filled[row].length ; col++) {
+			
+			assertEquals(filled[row][col] == BORDER , unfilled[row][col] == BORDER);
+			assertTrue(unfilled[row][col] != FILL);
+			
+		}
+		
+	}
+	
+	@Test void bandsOfRowsMatchTheWholeImage() {
+		
+		int xRadius = 40 , yRadius = 25 , height = yRadius << 2;
+		byte[][] whole = spans(xRadius , yRadius , true);
+		byte[][] banded = new byte[height][xRadius << 2];
+		for(int from = 0 ; from < height ; from += 7) {
+			
+			Ellipse.spans(xRadius , yRadius , true , from , Math.min(from + 7 , height) , (row , leftX , length , border) -> {
+				
+				for(int i = leftX ; i < leftX + length ; i++) banded[row][i] = border ? BORDER : FILL;
+				
+			});
+			
+		}
+		
+		for(int row = 0 ; row < height ; row++) assertArrayEquals(whole[row] , banded[row]);
+		
+	}
+	
+	@Test void ellipsesWithoutAreaHaveNoSpans() {
+		
+		for(int[] x : new int[][] {{5 , 0} , {0 , 5} , {0 , 0} , {-3 , 4}}) {
+			
+			Ellipse.spans(x[0] , x[1] , true , -100 , 100 , (row , leftX , length , border) -> fail(x[0] + "x" + x[1] + " has a span"));
+			
+		}
+		
+	}
+	
+	/**
+	 * Paints the spans of an ellipse into an image the size the ellipse's image would be, failing if any span leaves the image or overlaps 
+	 * another span.
+	 */
+	private static byte[][] spans(int xRadius , int yRadius , boolean fill) {
+		
+		int width = xRadius << 2 , height = yRadius << 2;
+		byte[][] image = new byte[height][width];
+		Ellipse.spans(xRadius , yRadius , fill , 0 , height , (row , leftX , length , border) -> {
+			
+			assertTrue(row >= 0 && row < height , "row " + row);
+			assertTrue(length > 0 && leftX >= 0 && leftX + length <= width , "span " + leftX + " , " + length);
+			for(int i = leftX ; i < leftX + length ; i++) {
+				
+				assertEquals(OUTSIDE , image[row][i] , "overlapping spans at (" + i + ", " + row + ")");
+				image[row][i] = border ? BORDER : FILL;
+				
+			}
+			
+		});
+		
+		return image;
+		
+	}
+	
+	private static boolean inside(int xRadius , int yRadius , int col , int row) {
+		
+		long dx = col - 2 * xRadius , dy = row - 2 * yRadius;
+		long a2 = (long)xRadius * xRadius , b2 = (long)yRadius * yRadius;
+		return b2 * dx * dx + a2 * dy * dy <= a2 * b2;
+		
+	}
+	
+}
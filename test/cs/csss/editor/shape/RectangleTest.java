@@ -0,0 +1,62 @@
+package cs.csss.editor.shape;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the spans of {@link Rectangle}.
+ */
+class RectangleTest {
+	
+	@Test void spansAreThePerimeterAndTheInterior() {
+		
+		for(int width = 1 ; width <= 9 ; width++) for(int height = 1 ; height <= 9 ; height++) {
+			
+			int[][] image = new int[height][width];
+			int w = width , h = height;
+			Rectangle.spans(width , height , true , 0 , height , (row , leftX , length , border) -> {
+				
+				assertTrue(length > 0 && leftX >= 0 && leftX + length <= w);
+				for(int i = leftX ; i < leftX + length ; i++) {
+					
+					assertEquals(0 , image[row][i] , "overlapping spans");
+					image[row][i] = border ? 1 : 2;
+					
+				}
+				
+			});
+			
+			for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) {
+				
+				boolean perimeter = row == 0 || col == 0 || row == h - 1 || col == w - 1;
+				assertEquals(perimeter ? 1 : 2 , image[row][col] , width + "x" + height + " (" + col + ", " + row + ")");
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test void unfilledRectanglesHaveNoFillSpans() {
+		
+		int[] pixels = new int[1];
+		Rectangle.spans(20 , 10 , false , 0 , 10 , (row , leftX , length , border) -> {
+			
+			assertTrue(border);
+			pixels[0] += length;
+			
+		});
+		
+		assertEquals(2 * 20 + 2 * (10 - 2) , pixels[0]);
+		
+	}
+	
+	@Test void rowsOutsideTheRangeAreSkipped() {
+		
+		Rectangle.spans(5 , 5 , true , 2 , 4 , (row , leftX , length , border) -> assertTrue(row >= 2 && row < 4));
+		Rectangle.spans(5 , 5 , true , -3 , 100 , (row , leftX , length , border) -> assertTrue(row >= 0 && row < 5));
+		
+	}
+	
+}
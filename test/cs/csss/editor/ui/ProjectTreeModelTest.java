@@ -0,0 +1,170 @@
+package cs.csss.editor.ui;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link ProjectTreeModel} builds its rows from a project and rebuilds them only when the structure of the project changes,
+ * using a fake project whose rows are strings.
+ */
+class ProjectTreeModelTest {
+	
+	@Test void rowsAreBuiltInProjectOrderAndIndexed() {
+		
+		FakeProject project = new FakeProject();
+		project.animations.addAll(List.of("walk" , "run"));
+		project.visualLayers.addAll(List.of("Default Layer" , "Shading"));
+		project.nonVisualLayers.add("Hitbox");
+		project.artboards.addAll(List.of("0" , "1" , "2"));
+		
+		ProjectTreeModel<String , String , String , String> model = new ProjectTreeModel<>();
+		assertTrue(project.refresh(model));
+		
+		assertEquals(List.of("walk" , "run") , model.animations());
+		assertEquals(List.of("Default Layer" , "Shading") , model.visualLayers());
+		assertEquals(List.of("Hitbox") , model.nonVisualLayers());
+		assertEquals(List.of("0" , "1" , "2") , model.artboards());
+		assertEquals(1 , model.indexOf(project.animations.get(1)));
+		assertEquals(2 , model.indexOf(project.artboards.get(2)));
+		assertEquals(-1 , model.indexOf(new String("run")));
+		assertEquals(-1 , model.indexOf(null));
+		
+	}
+	
+	@Test void rowsAreKeptWhileTheStructureIsUnchanged() {
+		
+		FakeProject project = new FakeProject();
+		project.artboards.add("0");
+		ProjectTreeModel<String , String , String , String> model = new ProjectTreeModel<>();
+		project.refresh(model);
+		
+		//a change the project does not report is not seen
+		project.artboards.add("1");
+		assertFalse(project.refresh(model));
+		assertEquals(List.of("0") , model.artboards());
+		
+		model.invalidate();
+		assertTrue(project.refresh(model));
+		assertEquals(List.of("0" , "1") , model.artboards());
+		
+	}
+	
+	@Test void artboardChangesRebuildTheRows() {
+		
+		FakeProject project = new FakeProject();
+		project.artboards.addAll(List.of("0" , "1"));
+		ProjectTreeModel<String , String , String , String> model = new ProjectTreeModel<>();
+		project.refresh(model);
+		
+		project.change(() -> project.artboards.add(1 , "copy of 0"));
+		assertTrue(project.refresh(model));
+		assertEquals(List.of("0" , "copy of 0" , "1") , model.artboards());
+		assertEquals(2 , model.indexOf(project.artboards.get(2)));
+		
+		String removed = project.artboards.get(0);
+		project.change(() -> project.artboards.remove(0));
+		assertTrue(project.refresh(model));
+		assertEquals(List.of("copy of 0" , "1") , model.artboards());
+		assertEquals(-1 , model.indexOf(removed));
+		
+	}
+	
+	@Test void animationChangesRebuildTheRows() {
+		
+		FakeProject project = new FakeProject();
+		project.animations.addAll(List.of("walk" , "idle"));
+		ProjectTreeModel<String , String , String , String> model = new ProjectTreeModel<>();
+		project.refresh(model);
+		
+		//animations are sorted when artboards are arranged
+		project.change(() -> project.animations.sort(null));
+		assertTrue(project.refresh(model));
+		assertEquals(List.of("idle" , "walk") , model.animations());
+		assertEquals(0 , model.indexOf(project.animations.get(0)));
+		
+		project.change(() -> project.animations.remove("walk"));
+		assertTrue(project.refresh(model));
+		assertEquals(List.of("idle") , model.animations());
+		
+	}
+	
+	@Test void layerChangesRebuildTheRows() {
+		
+		FakeProject project = new FakeProject();
+		project.visualLayers.add("Default Layer");
+		ProjectTreeModel<String , String , String , String> model = new ProjectTreeModel<>();
+		project.refresh(model);
+		
+		project.change(() -> project.visualLayers.add("Outline"));
+		project.change(() -> project.nonVisualLayers.add("Hitbox"));
+		assertTrue(project.refresh(model));
+		assertEquals(List.of("Default Layer" , "Outline") , model.visualLayers());
+		assertEquals(List.of("Hitbox") , model.nonVisualLayers());
+		assertEquals(0 , model.indexOf(project.nonVisualLayers.get(0)));
+		
+	}
+	
+	@Test void anotherProjectRebuildsTheRows() {
+		
+		FakeProject first = new FakeProject() , second = new FakeProject();
+		first.artboards.add("0");
+		second.artboards.add("1");
+		ProjectTreeModel<String , String , String , String> model = new ProjectTreeModel<>();
+		first.refresh(model);
+		
+		//both projects are at the same structure version
+		assertTrue(second.refresh(model));
+		assertEquals(List.of("1") , model.artboards());
+		
+	}
+	
+	@Test void visibleRangeIsClampedToTheRows() {
+		
+		assertEquals(new ProjectTreeModel.RowRange(2 , 5) , ProjectTreeModel.visibleRange(0 , 10 , 20 , 25 , 45));
+		assertEquals(new ProjectTreeModel.RowRange(0 , 3) , ProjectTreeModel.visibleRange(100 , 10 , 3 , 0 , 1000));
+		assertEquals(0 , ProjectTreeModel.visibleRange(100 , 10 , 3 , 0 , 50).size());
+		assertEquals(0 , ProjectTreeModel.visibleRange(0 , 10 , 3 , 40 , 80).size());
+		assertThrows(IllegalArgumentException.class , () -> ProjectTreeModel.visibleRange(0 , 0 , 3 , 0 , 10));
+		
+	}
+	
+	/**
+	 * Project holding rows in lists, whose structure version changes only through {@link #change(Runnable)}.
+	 */
+	private static final class FakeProject {
+		
+		final List<String>
+			animations = new ArrayList<>() ,
+			visualLayers = new ArrayList<>() ,
+			nonVisualLayers = new ArrayList<>() ,
+			artboards = new ArrayList<>();
+		
+		int structureVersion = 0;
+		
+		void change(Runnable change) {
+			
+			change.run();
+			structureVersion++;
+			
+		}
+		
+		boolean refresh(ProjectTreeModel<String , String , String , String> model) {
+			
+			return model.refresh(
+				this ,
+				structureVersion ,
+				animations::forEach ,
+				visualLayers::forEach ,
+				nonVisualLayers::forEach ,
+				artboards::forEach
+			);
+			
+		}
+		
+	}
+	
+}
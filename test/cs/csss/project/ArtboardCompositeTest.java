@@ -0,0 +1,117 @@
+package cs.csss.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that compositing the visual layers of an artboard, as done when showing all layers or exporting hidden layers, takes each position
+ * from the highest ranking layer that is not hidden, using layers which need no graphics context.
+ */
+class ArtboardCompositeTest {
+	
+	private static final int SIZE = 16;
+	
+	@Test void hiddenLayersAreSkipped() {
+		
+		FakeLayer top = new FakeLayer() , bottom = new FakeLayer();
+		top.put(new LayerPixel(0 , 0 , (short)5 , (short)0));
+		bottom.put(new LayerPixel(0 , 0 , (short)7 , (short)0));
+		bottom.put(new LayerPixel(1 , 0 , (short)9 , (short)1));
+		
+		top.hiding(true);
+		assertArrayEquals(new byte[] {7 , 0 , 9 , 1} , composite(List.of(top , bottom) , 0 , 0 , 2 , 1));
+		
+		bottom.hiding(true);
+		assertArrayEquals(background(0 , 0 , 2 , 1) , composite(List.of(top , bottom) , 0 , 0 , 2 , 1));
+		
+	}
+	
+	@Test void shownLayersCoverLowerLayers() {
+		
+		FakeLayer top = new FakeLayer() , bottom = new FakeLayer();
+		top.put(new LayerPixel(0 , 0 , (short)5 , (short)0));
+		bottom.put(new LayerPixel(0 , 0 , (short)7 , (short)0));
+		top.hiding(true);
+		bottom.hiding(true);
+		
+		//showing every layer, as Artboard.showAllVisualLayers does before recompositing
+		for(FakeLayer x : List.of(top , bottom)) x.hiding(false);
+		assertArrayEquals(new byte[] {5 , 0} , composite(List.of(top , bottom) , 0 , 0 , 1 , 1));
+		
+	}
+	
+	@Test void unmodifiedPositionsShowTheCheckeredBackground() {
+		
+		FakeLayer layer = new FakeLayer();
+		layer.put(new LayerPixel(9 , 1 , (short)3 , (short)2));
+		
+		byte[] composited = composite(List.of(layer) , 6 , 1 , 4 , 1);
+		byte[] expected = background(6 , 1 , 4 , 1);
+		expected[6] = 3;
+		expected[7] = 2;
+		assertArrayEquals(expected , composited);
+		//the checkers alternate every eight pixels
+		assertNotEquals(expected[0] , expected[4]);
+		
+	}
+	
+	private static byte[] composite(List<? extends Layer> layers , int leftX , int bottomY , int width , int height) {
+		
+		ByteBuffer destination = ByteBuffer.allocate(width * height * IndexTexture.pixelSizeBytes);
+		Artboard.compositeInto(layers , destination , leftX , bottomY , width , height);
+		assertFalse(destination.hasRemaining());
+		return destination.array();
+		
+	}
+	
+	/**
+	 * Composites a region with no layers, which is the checkered background alone.
+	 */
+	private static byte[] background(int leftX , int bottomY , int width , int height) {
+		
+		return composite(List.of() , leftX , bottomY , width , height);
+		
+	}
+	
+	/**
+	 * Layer which is never shown on an artboard, so it needs no graphics context.
+	 */
+	private static final class FakeLayer extends Layer {
+		
+		FakeLayer() {
+			
+			super("fake" , new ArtboardPalette(4) , SIZE , SIZE);
+			
+		}
+		
+		@Override public void hide(Artboard artboard) {}
+		
+		@Override public void show(Artboard artboard) {}
+		
+		@Override public int pixelSizeBytes() {
+			
+			return 0;
+			
+		}
+		
+		@Override public boolean hiding() {
+			
+			return hiding;
+			
+		}
+		
+		@Override public boolean showing() {
+			
+			return !hiding;
+			
+		}
+		
+		@Override public <T extends Layer> void copy(T otherLayer) {}
+		
+	}
+	
+}
@@ -0,0 +1,133 @@
+package cs.csss.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the queries of {@link CellGrid}, which backs {@link ArtboardGrid}, against a linear scan of every item.
+ */
+class CellGridTest {
+	
+	private static final int CELL_SIZE = 128 , ITEMS = 400;
+	
+	@Test void queriesFindEveryOverlappingItemOnce() {
+		
+		Random random = new Random(35);
+		CellGrid<Integer> grid = new CellGrid<>(CELL_SIZE);
+		float[][] bounds = randomBounds(grid , random);
+		
+		List<Integer> results = new ArrayList<>();
+		for(int i = 0 ; i < 500 ; i++) {
+			
+			//mix regions smaller than a cell with regions covering far more cells than are occupied
+			float size = i % 5 == 0 ? 100_000 : random.nextInt(600);
+			float leftX = random.nextInt(8000) - 4000 , bottomY = random.nextInt(8000) - 4000;
+			float[] region = {leftX , bottomY , leftX + size , bottomY + random.nextFloat() * size};
+			
+			grid.query(region[0] , region[1] , region[2] , region[3] , results);
+			assertEquals(results.size() , new HashSet<>(results).size() , "duplicate results");
+			
+			Set<Integer> found = new HashSet<>(results);
+			for(int j = 0 ; j < ITEMS ; j++) {
+				
+				if(overlaps(bounds[j] , region)) assertTrue(found.contains(j) , "missed item " + j);
+				assertEquals(cellsOverlap(bounds[j] , region) , found.contains(j) , "item " + j);
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test void cellAtListsTheItemsOverThePoint() {
+		
+		Random random = new Random(36);
+		CellGrid<Integer> grid = new CellGrid<>(CELL_SIZE);
+		float[][] bounds = randomBounds(grid , random);
+		
+		for(int i = 0 ; i < 1000 ; i++) {
+			
+			float x = random.nextInt(8000) - 4000 + random.nextFloat() , y = random.nextInt(8000) - 4000 + random.nextFloat();
+			List<Integer> cell = grid.cellAt(x , y);
+			for(int j = 0 ; j < ITEMS ; j++) if(overlaps(bounds[j] , new float[] {x , y , x , y})) assertTrue(cell.contains(j));
+			
+		}
+		
+	}
+	
+	@Test void movedAndRemovedItemsAreOnlyFoundWhereTheyAre() {
+		
+		CellGrid<String> grid = new CellGrid<>(CELL_SIZE);
+		grid.put("a" , 0 , 0 , 100 , 100);
+		grid.put("b" , -300 , -300 , -200 , -200);
+		assertEquals(2 , grid.size());
+		
+		grid.put("a" , 1000 , 1000 , 1100 , 1100);
+		assertEquals(2 , grid.size());
+		assertTrue(grid.cellAt(50 , 50).isEmpty());
+		assertEquals(List.of("a") , grid.cellAt(1050 , 1050));
+		
+		List<String> results = new ArrayList<>();
+		grid.query(-1000 , -1000 , 2000 , 2000 , results);
+		assertEquals(Set.of("a" , "b") , new HashSet<>(results));
+		
+		assertTrue(grid.remove("b"));
+		assertFalse(grid.remove("b"));
+		assertFalse(grid.contains("b"));
+		grid.query(-1000 , -1000 , 2000 , 2000 , results);
+		assertEquals(List.of("a") , results);
+		
+	}
+	
+	@Test void cellSizeMustBePositive() {
+		
+		assertThrows(IllegalArgumentException.class , () -> new CellGrid<Integer>(0));
+		
+	}
+	
+	/**
+	 * Puts {@link #ITEMS} items of random bounds, some of which cross cell boundaries and negative coordinates, into {@code grid}, moving 
+	 * some of them once, and returns their final bounds as {@code leftX , bottomY , rightX , topY}.
+	 */
+	private static float[][] randomBounds(CellGrid<Integer> grid , Random random) {
+		
+		float[][] bounds = new float[ITEMS][];
+		for(int pass = 0 ; pass < 2 ; pass++) for(int i = 0 ; i < ITEMS ; i++) {
+			
+			if(pass == 1 && i % 3 != 0) continue;
+			float leftX = random.nextInt(8000) - 4000 + random.nextFloat() , bottomY = random.nextInt(8000) - 4000 + random.nextFloat();
+			bounds[i] = new float[] {leftX , bottomY , leftX + 1 + random.nextInt(400) , bottomY + 1 + random.nextInt(400)};
+			grid.put(i , bounds[i][0] , bounds[i][1] , bounds[i][2] , bounds[i][3]);
+			
+		}
+		
+		return bounds;
+		
+	}
+	
+	private static boolean overlaps(float[] a , float[] b) {
+		
+		return a[0] <= b[2] && b[0] <= a[2] && a[1] <= b[3] && b[1] <= a[3];
+		
+	}
+	
+	private static boolean cellsOverlap(float[] a , float[] b) {
+		
+		return cell(a[0]) <= cell(b[2]) && cell(b[0]) <= cell(a[2]) && cell(a[1]) <= cell(b[3]) && cell(b[1]) <= cell(a[3]);
+		
+	}
+	
+	private static int cell(float world) {
+		
+		return Math.floorDiv((int)Math.floor(world) , CELL_SIZE);
+		
+	}
+	
+}
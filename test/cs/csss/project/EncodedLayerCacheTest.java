@@ -0,0 +1,57 @@
+package cs.csss.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link EncodedLayerCache} keeps encodings only while layers sharing their contents may still be encoded.
+ */
+class EncodedLayerCacheTest {
+	
+	private final List<Object> contents = List.of(new Object() , new Object());
+	
+	@Test void unsharedContentsAreNotKept() {
+		
+		EncodedLayerCache cache = new EncodedLayerCache();
+		ByteBuffer encoded = cache.encode(contents , 0 , () -> encoding(1 , 2 , 3));
+		assertEquals(3 , encoded.remaining());
+		assertEquals(0 , cache.held());
+		
+		int[] encodes = {0};
+		cache.encode(contents , 0 , () -> {
+			
+			encodes[0]++;
+			return encoding(1 , 2 , 3);
+			
+		});
+		
+		assertEquals(1 , encodes[0]);
+		assertEquals(0 , cache.reused());
+		
+	}
+	
+	@Test void sharedContentsAreKept() {
+		
+		EncodedLayerCache cache = new EncodedLayerCache();
+		cache.encode(contents , 2 , () -> encoding(4 , 5));
+		assertEquals(1 , cache.held());
+		
+		//other contents are kept separately
+		cache.encode(List.of(new Object()) , 1 , () -> encoding(6));
+		assertEquals(2 , cache.held());
+		
+	}
+	
+	private static ByteBuffer encoding(int... bytes) {
+		
+		ByteBuffer buffer = ByteBuffer.allocate(bytes.length);
+		for(int x : bytes) buffer.put((byte)x);
+		return buffer.flip();
+		
+	}
+	
+}
@@ -0,0 +1,175 @@
+package cs.csss.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the eviction order, budget, and restoration of {@link TextureResidency} through a backend which records what it is asked to do.
+ */
+class TextureResidencyTest {
+	
+	private static final long SIZE = 100;
+	
+	@Test void idleTexturesAreEvictedAfterTheirTime() {
+		
+		RecordingBackend backend = new RecordingBackend();
+		TextureResidency<FakeTexture> residency = new TextureResidency<>(backend);
+		residency.evictAfterMillis(1000);
+		FakeTexture a = new FakeTexture("a") , b = new FakeTexture("b");
+		residency.register(a , 0);
+		residency.register(b , 0);
+		residency.update(0);
+		
+		residency.use(b , 600);
+		residency.update(999);
+		assertEquals(List.of() , backend.calls);
+		
+		residency.update(1000);
+		assertEquals(List.of("evict a") , backend.calls);
+		assertFalse(residency.isResident(a));
+		assertTrue(residency.isResident(b));
+		assertEquals(SIZE , residency.residentBytes());
+		
+	}
+	
+	@Test void leastRecentlyUsedTexturesAreEvictedFirstToFitTheBudget() {
+		
+		RecordingBackend backend = new RecordingBackend();
+		TextureResidency<FakeTexture> residency = new TextureResidency<>(backend);
+		residency.evictAfterMillis(0);
+		residency.budgetBytes(SIZE * 2);
+		FakeTexture a = new FakeTexture("a") , b = new FakeTexture("b") , c = new FakeTexture("c") , d = new FakeTexture("d");
+		residency.register(c , 10);
+		residency.register(a , 20);
+		residency.register(d , 30);
+		residency.register(b , 40);
+		//textures registered since the previous update count as used in this frame
+		residency.update(40);
+		assertEquals(List.of() , backend.calls);
+		
+		residency.update(50);
+		assertEquals(List.of("evict c" , "evict a") , backend.calls);
+		assertEquals(2 , residency.numberResident());
+		assertEquals(2 , residency.numberEvicted());
+		assertEquals(SIZE * 2 , residency.residentBytes());
+		
+	}
+	
+	@Test void texturesUsedSinceTheLastUpdateExceedTheBudget() {
+		
+		RecordingBackend backend = new RecordingBackend();
+		TextureResidency<FakeTexture> residency = new TextureResidency<>(backend);
+		residency.evictAfterMillis(0);
+		residency.budgetBytes(SIZE);
+		FakeTexture a = new FakeTexture("a") , b = new FakeTexture("b");
+		residency.register(a , 0);
+		residency.register(b , 0);
+		residency.update(0);
+		
+		assertEquals(List.of() , backend.calls);
+		assertEquals(SIZE * 2 , residency.residentBytes());
+		
+		residency.use(b , 10);
+		residency.update(10);
+		residency.update(20);
+		assertEquals(List.of("evict a") , backend.calls);
+		
+	}
+	
+	@Test void evictedTexturesAreRestoredWhenUsed() {
+		
+		RecordingBackend backend = new RecordingBackend();
+		TextureResidency<FakeTexture> residency = new TextureResidency<>(backend);
+		residency.evictAfterMillis(100);
+		FakeTexture a = new FakeTexture("a");
+		residency.register(a , 0);
+		residency.update(0);
+		residency.update(100);
+		
+		residency.use(a , 150);
+		residency.use(a , 160);
+		assertEquals(List.of("evict a" , "restore a") , backend.calls);
+		assertTrue(residency.isResident(a));
+		assertEquals(SIZE , residency.residentBytes());
+		assertEquals(1 , residency.evictions());
+		assertEquals(1 , residency.restorations());
+		
+		//used at 160, so not idle long enough at 200
+		residency.update(200);
+		assertEquals(2 , backend.calls.size());
+		
+	}
+	
+	@Test void removingAnEvictedTextureDiscardsItsCopyOnce() {
+		
+		RecordingBackend backend = new RecordingBackend();
+		TextureResidency<FakeTexture> residency = new TextureResidency<>(backend);
+		residency.evictAfterMillis(100);
+		FakeTexture a = new FakeTexture("a") , b = new FakeTexture("b");
+		residency.register(a , 0);
+		residency.register(b , 0);
+		residency.update(0);
+		residency.use(b , 100);
+		residency.update(100);
+		
+		residency.remove(a);
+		residency.remove(a);
+		residency.remove(b);
+		residency.use(a , 200);
+		assertEquals(List.of("evict a" , "discard a") , backend.calls);
+		assertEquals(0 , residency.numberResident());
+		assertEquals(0 , residency.numberEvicted());
+		assertEquals(0 , residency.residentBytes());
+		
+	}
+	
+	private static final class FakeTexture {
+		
+		final String name;
+		
+		FakeTexture(String name) {
+			
+			this.name = name;
+			
+		}
+		
+	}
+	
+	/**
+	 * Backend recording each operation as its name followed by the name of the texture it was given.
+	 */
+	private static final class RecordingBackend implements TextureBackend<FakeTexture> {
+		
+		final List<String> calls = new ArrayList<>();
+		
+		@Override public long sizeBytes(FakeTexture texture) {
+			
+			return SIZE;
+			
+		}
+		
+		@Override public void evict(FakeTexture texture) {
+			
+			calls.add("evict " + texture.name);
+			
+		}
+		
+		@Override public void restore(FakeTexture texture) {
+			
+			calls.add("restore " + texture.name);
+			
+		}
+		
+		@Override public void discard(FakeTexture texture) {
+			
+			calls.add("discard " + texture.name);
+			
+		}
+		
+	}
+	
+}
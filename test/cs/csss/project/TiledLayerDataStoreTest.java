@@ -0,0 +1,103 @@
+package cs.csss.project;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that remapping {@link TiledLayerDataStore}s keeps tiles shared by copy on write copies shared.
+ */
+class TiledLayerDataStoreTest {
+	
+	private static final int SIZE = TiledLayerDataStore.TILE_SIZE * 2;
+	
+	/**
+	 * Maps lookup (1 , 0) to (2 , 0) and leaves every other pixel alone.
+	 */
+	private static final UnaryOperator<LayerPixel> ONE_TO_TWO = pixel -> pixel.lookupX != 1 ? pixel : new LayerPixel(
+		pixel.textureX ,
+		pixel.textureY ,
+		(short)2 ,
+		(short)0
+	);
+	
+	@Test void sharedTilesAreRemappedOnceAndStayShared() {
+		
+		TiledLayerDataStore source = new TiledLayerDataStore(SIZE , SIZE);
+		source.put(new LayerPixel(0 , 0 , (short)1 , (short)0));
+		source.put(new LayerPixel(SIZE - 1 , SIZE - 1 , (short)3 , (short)0));
+		TiledLayerDataStore copy = source.copyOnWrite();
+		
+		Map<Object , Object> remapped = new ConcurrentHashMap<>();
+		source.remap(ONE_TO_TWO , remapped);
+		copy.remap(ONE_TO_TWO , remapped);
+		
+		List<Object> sourceTiles = source.tileList() , copyTiles = copy.tileList();
+		for(int i = 0 ; i < sourceTiles.size() ; i++) assertSame(sourceTiles.get(i) , copyTiles.get(i) , "tile " + i + " was unshared");
+		
+		for(TiledLayerDataStore x : List.of(source , copy)) {
+			
+			assertEquals(2 , x.get(0 , 0).lookupX);
+			assertEquals(3 , x.get(SIZE - 1 , SIZE - 1).lookupX);
+			assertEquals(2 , x.mods());
+			
+		}
+		
+	}
+	
+	@Test void unchangedTilesAreKept() {
+		
+		TiledLayerDataStore store = new TiledLayerDataStore(SIZE , SIZE);
+		store.put(new LayerPixel(0 , 0 , (short)1 , (short)0));
+		store.put(new LayerPixel(SIZE - 1 , SIZE - 1 , (short)3 , (short)0));
+		List<Object> before = store.tileList();
+		
+		store.remap(ONE_TO_TWO , new ConcurrentHashMap<>());
+		List<Object> after = store.tileList();
+		
+		assertNotSame(before.get(0) , after.get(0));
+		assertSame(before.get(before.size() - 1) , after.get(after.size() - 1));
+		
+	}
+	
+	@Test void sharersAreTheLeastSharedTile() {
+		
+		TiledLayerDataStore source = new TiledLayerDataStore(SIZE , SIZE);
+		assertEquals(0 , source.sharers());
+		source.put(new LayerPixel(0 , 0 , (short)1 , (short)0));
+		source.put(new LayerPixel(SIZE - 1 , SIZE - 1 , (short)3 , (short)0));
+		assertEquals(0 , source.sharers());
+		
+		TiledLayerDataStore first = source.copyOnWrite() , second = source.copyOnWrite();
+		assertEquals(2 , source.sharers());
+		
+		//writing to one tile of a copy unshares only that tile
+		second.put(new LayerPixel(1 , 0 , (short)5 , (short)0));
+		assertEquals(1 , source.sharers());
+		assertEquals(1 , first.sharers());
+		assertEquals(0 , second.sharers());
+		
+	}
+	
+	@Test void remappedSharedTileIsClonedOnLaterWrite() {
+		
+		TiledLayerDataStore source = new TiledLayerDataStore(SIZE , SIZE);
+		source.put(new LayerPixel(0 , 0 , (short)1 , (short)0));
+		TiledLayerDataStore copy = source.copyOnWrite();
+		
+		Map<Object , Object> remapped = new ConcurrentHashMap<>();
+		source.remap(ONE_TO_TWO , remapped);
+		copy.remap(ONE_TO_TWO , remapped);
+		
+		copy.put(new LayerPixel(1 , 0 , (short)5 , (short)0));
+		assertNull(source.get(1 , 0));
+		assertEquals(5 , copy.get(1 , 0).lookupX);
+		
+	}
+	
+}
@@ -0,0 +1,132 @@
+package cs.csss.project.io;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import cs.csss.utils.IntIntHashMap;
+
+/**
+ * Tests {@link ColorQuantizer#medianCut(IntIntHashMap, int, int) median cut} and the banded histogram of {@link ImageImporter}.
+ */
+class ColorQuantizerTest {
+	
+	@Test void fewColorsMapToThemselves() {
+		
+		IntIntHashMap histogram = new IntIntHashMap(16);
+		for(int i = 0 ; i < 10 ; i++) histogram.put(i * 0x010203 , i + 1);
+		
+		IntIntHashMap mapping = ColorQuantizer.medianCut(histogram , 3 , 10);
+		assertEquals(10 , mapping.size());
+		for(int color : histogram.keys()) assertEquals(color , mapping.get(color , -1));
+		
+	}
+	
+	@Test void manyColorsAreReducedToTheTarget() {
+		
+		Random random = new Random(40);
+		IntIntHashMap histogram = new IntIntHashMap(4096);
+		for(int i = 0 ; i < 3000 ; i++) histogram.add(random.nextInt() , 1 + random.nextInt(50));
+		
+		for(int target : new int[] {1 , 2 , 7 , 64 , 255}) {
+			
+			IntIntHashMap mapping = ColorQuantizer.medianCut(histogram , 4 , target);
+			Set<Integer> results = new HashSet<>();
+			for(int color : histogram.keys()) {
+				
+				assertTrue(mapping.containsKey(color) , "unmapped color");
+				results.add(mapping.get(color , 0));
+				
+			}
+			
+			assertTrue(results.size() <= target , results.size() + " colors for target " + target);
+			
+		}
+		
+	}
+	
+	@Test void clustersMapWithinThemselves() {
+		
+		//two clusters of grays far apart, reduced to two colors
+		IntIntHashMap histogram = new IntIntHashMap(64);
+		for(int i = 0 ; i < 10 ; i++) {
+			
+			histogram.put(gray(10 + i) , 5);
+			histogram.put(gray(240 - i) , 5);
+			
+		}
+		
+		IntIntHashMap mapping = ColorQuantizer.medianCut(histogram , 3 , 2);
+		for(int i = 0 ; i < 10 ; i++) {
+			
+			assertEquals(gray(15) , mapping.get(gray(10 + i) , 0));
+			assertEquals(gray(236) , mapping.get(gray(240 - i) , 0));
+			
+		}
+		
+	}
+	
+	@Test void singleColorIsKept() {
+		
+		IntIntHashMap histogram = new IntIntHashMap(4);
+		histogram.put(0x123456 , 100);
+		assertEquals(0x123456 , ColorQuantizer.medianCut(histogram , 3 , 1).get(0x123456 , 0));
+		assertThrows(IllegalArgumentException.class , () -> ColorQuantizer.medianCut(histogram , 3 , 0));
+		
+	}
+	
+	@Test void bandedHistogramCountsEveryPixel() {
+		
+		Random random = new Random(41);
+		for(int height : new int[] {0 , 1 , 3 , 97}) {
+			
+			int width = 53 , channels = 2;
+			ByteBuffer image = ByteBuffer.allocate(width * height * channels);
+			//few distinct colors so counts collide across bands
+			for(int i = 0 ; i < image.capacity() ; i++) image.put(i , (byte)random.nextInt(6));
+			
+			IntIntHashMap expected = new IntIntHashMap(64);
+			for(int i = 0 ; i < width * height ; i++) {
+				
+				expected.add(Byte.toUnsignedInt(image.get(i * 2)) << 8 | Byte.toUnsignedInt(image.get(i * 2 + 1)) , 1);
+				
+			}
+			
+			IntIntHashMap histogram = ImageImporter.histogram(image , width , height , channels);
+			assertEquals(expected.size() , histogram.size());
+			for(int color : expected.keys()) assertEquals(expected.get(color , 0) , histogram.get(color , -1));
+			
+		}
+		
+	}
+	
+	@Test void colorsAlreadyInThePaletteTakeNoRoom() {
+		
+		//300 colors, 10 of them new, in a palette with room for 20
+		assertEquals(300 , ImageImporter.quantizationTarget(300 , 10 , 20 , 0));
+		assertEquals(300 , ImageImporter.quantizationTarget(300 , 0 , 0 , 0));
+		assertEquals(20 , ImageImporter.quantizationTarget(300 , 21 , 20 , 0));
+		
+	}
+	
+	@Test void paletteSizeLimitsColorsAndRoom() {
+		
+		assertEquals(64 , ImageImporter.quantizationTarget(300 , 0 , 100 , 64));
+		assertEquals(20 , ImageImporter.quantizationTarget(300 , 0 , 20 , 64));
+		assertEquals(50 , ImageImporter.quantizationTarget(50 , 50 , 100 , 64));
+		assertEquals(1 , ImageImporter.quantizationTarget(0 , 0 , 0 , 0));
+		
+	}
+	
+	private static int gray(int value) {
+		
+		return value << 16 | value << 8 | value;
+		
+	}
+	
+}
@@ -0,0 +1,157 @@
+package cs.csss.project.utils;
+
+import static cs.csss.project.utils.PixelRegions.NO_LOOKUP;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link PixelFilters} against definitions checking every pixel of the neighborhood of every pixel, on regions small enough to be
+ * filtered on one thread and large enough to be filtered in bands.
+ */
+class PixelFiltersTest {
+	
+	private static final int[] SIZES = {1 , 7 , 20 , 150 , 300};
+	
+	@Test void outlinesAreTheEmptyPixelsNextToFilledOnes() {
+		
+		Random random = new Random(50);
+		for(int width : SIZES) for(int height : SIZES) for(boolean diagonals : new boolean[] {false , true}) {
+			
+			int[] lookups = randomRegion(random , width , height);
+			int[] outline = PixelFilters.outline(lookups , width , height , 99 , diagonals);
+			int[] inner = PixelFilters.innerOutline(lookups , width , height , 98 , diagonals);
+			for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) {
+				
+				int i = row * width + col;
+				boolean empty = lookups[i] == NO_LOOKUP;
+				int expectedOutline = empty && anyFilled(lookups , width , height , col , row , 1 , diagonals) ? 99 : lookups[i];
+				int expectedInner = !empty && anyEmpty(lookups , width , height , col , row , 1 , diagonals) ? 98 : lookups[i];
+				assertEquals(expectedOutline , outline[i] , "outline at " + col + ", " + row);
+				assertEquals(expectedInner , inner[i] , "inner outline at " + col + ", " + row);
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test void dilateAndErodeMatchTheirKernels() {
+		
+		Random random = new Random(51);
+		for(int width : SIZES) for(int height : SIZES) for(boolean diagonals : new boolean[] {false , true}) {
+			
+			int[] lookups = randomRegion(random , width , height);
+			for(int radius = 0 ; radius < 4 ; radius++) {
+				
+				int[] dilated = PixelFilters.dilate(lookups , width , height , radius , diagonals);
+				int[] eroded = PixelFilters.erode(lookups , width , height , radius , diagonals);
+				for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) {
+					
+					int i = row * width + col;
+					String at = " at " + col + ", " + row + " with radius " + radius;
+					boolean filled = anyFilled(lookups , width , height , col , row , radius , diagonals);
+					assertEquals(filled , dilated[i] != NO_LOOKUP , "dilate" + at);
+					if(lookups[i] != NO_LOOKUP) assertEquals(lookups[i] , dilated[i] , "dilate changed a filled pixel" + at);
+					
+					int expected = anyEmpty(lookups , width , height , col , row , radius , diagonals) ? NO_LOOKUP : lookups[i];
+					assertEquals(expected , eroded[i] , "erode" + at);
+					
+				}
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test void shadowsRampsAndReplacementsMatchEachPixel() {
+		
+		Random random = new Random(52);
+		for(int width : SIZES) for(int height : SIZES) {
+			
+			int[] lookups = randomRegion(random , width , height);
+			int[] shadow = PixelFilters.dropShadow(lookups , width , height , 2 , -1 , 7);
+			int[] shifted = PixelFilters.shiftRamp(lookups , width , height , new int[] {0 , 1 , 2} , 1);
+			int[] replaced = PixelFilters.replace(lookups , width , height , lookup -> lookup >= 3 , NO_LOOKUP);
+			for(int row = 0 ; row < height ; row++) for(int col = 0 ; col < width ; col++) {
+				
+				int i = row * width + col , lookup = lookups[i];
+				int shadowed = lookup == NO_LOOKUP && lookupAt(lookups , width , height , col - 2 , row + 1) != NO_LOOKUP ? 7 : lookup;
+				assertEquals(shadowed , shadow[i] , "shadow at " + col + ", " + row);
+				assertEquals(lookup == 0 ? 1 : lookup == 1 ? 2 : lookup , shifted[i] , "ramp at " + col + ", " + row);
+				assertEquals(lookup >= 3 ? NO_LOOKUP : lookup , replaced[i] , "replace at " + col + ", " + row);
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test void sourcesAreLeftAlone() {
+		
+		int[] lookups = randomRegion(new Random(53) , 200 , 200) , copy = lookups.clone();
+		PixelFilters.outline(lookups , 200 , 200 , 9 , true);
+		PixelFilters.erode(lookups , 200 , 200 , 2 , false);
+		assertArrayEquals(copy , lookups);
+		
+	}
+	
+	/**
+	 * Returns a region in which about one pixel in four is filled with one of a few lookups.
+	 */
+	private static int[] randomRegion(Random random , int width , int height) {
+		
+		int[] lookups = new int[width * height];
+		for(int i = 0 ; i < lookups.length ; i++) lookups[i] = random.nextInt(4) == 0 ? random.nextInt(5) : NO_LOOKUP;
+		return lookups;
+		
+	}
+	
+	private static int lookupAt(int[] lookups , int width , int height , int col , int row) {
+		
+		return col < 0 || row < 0 || col >= width || row >= height ? NO_LOOKUP : lookups[row * width + col];
+		
+	}
+	
+	/**
+	 * Returns whether any pixel within {@code radius} of a pixel is filled, within a square if {@code diagonals} and within a diamond 
+	 * otherwise.
+	 */
+	private static boolean anyFilled(int[] lookups , int width , int height , int col , int row , int radius , boolean diagonals) {
+		
+		return anyMatch(lookups , width , height , col , row , radius , diagonals , false);
+		
+	}
+	
+	private static boolean anyEmpty(int[] lookups , int width , int height , int col , int row , int radius , boolean diagonals) {
+		
+		return anyMatch(lookups , width , height , col , row , radius , diagonals , true);
+		
+	}
+	
+	private static boolean anyMatch(
+		int[] lookups , 
+		int width , 
+		int height , 
+		int col , 
+		int row , 
+		int radius , 
+		boolean diagonals , 
+		boolean empty
+	) {
+		
+		for(int dy = -radius ; dy <= radius ; dy++) for(int dx = -radius ; dx <= radius ; dx++) {
+			
+			if(!diagonals && Math.abs(dx) + Math.abs(dy) > radius) continue;
+			if((lookupAt(lookups , width , height , col + dx , row + dy) == NO_LOOKUP) == empty) return true;
+			
+		}
+		
+		return false;
+		
+	}
+	
+}
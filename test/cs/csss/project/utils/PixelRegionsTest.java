@@ -0,0 +1,105 @@
+package cs.csss.project.utils;
+
+import static cs.csss.project.utils.PixelRegions.NO_LOOKUP;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the banding of {@link PixelRegions#forEachBandParallel(int, int, PixelRegions.BandCallback) forEachBandParallel} and the 
+ * conversion of written colors to lookups.
+ */
+class PixelRegionsTest {
+	
+	@Test void bandsCoverEveryRowOnce() {
+		
+		for(int height : new int[] {1 , 2 , 5 , 17 , 1000}) for(int bottomY : new int[] {0 , -7 , 300}) {
+			
+			int bands = PixelRegions.bands(height);
+			assertTrue(bands >= 1 && bands <= height);
+			
+			AtomicIntegerArray rows = new AtomicIntegerArray(height) , bandRows = new AtomicIntegerArray(bands);
+			PixelRegions.forEachBandParallel(bottomY , height , (band , firstRow , endRow) -> {
+				
+				assertTrue(firstRow < endRow , "empty band");
+				bandRows.addAndGet(band , endRow - firstRow);
+				for(int row = firstRow ; row < endRow ; row++) rows.incrementAndGet(row - bottomY);
+				
+			});
+			
+			for(int i = 0 ; i < height ; i++) assertEquals(1 , rows.get(i) , "row " + (bottomY + i));
+			for(int i = 0 ; i < bands ; i++) assertTrue(bandRows.get(i) > 0 , "band " + i);
+			
+		}
+		
+	}
+	
+	@Test void noRowsRunNothing() {
+		
+		assertEquals(0 , PixelRegions.bands(0));
+		PixelRegions.forEachBandParallel(0 , 0 , (band , firstRow , endRow) -> fail("no rows"));
+		PixelRegions.forEachRowParallel(0 , -3 , row -> fail("no rows"));
+		
+	}
+	
+	@Test void failuresAreRethrown() {
+		
+		assertThrows(IllegalStateException.class , () -> PixelRegions.forEachRowParallel(0 , 10 , row -> {
+			
+			if(row == 6) throw new RuntimeException();
+			
+		}));
+		
+	}
+	
+	@Test void unmodifiedPixelsMappedToThemselvesStayEmpty() {
+		
+		//the lower layer modifies every pixel, the upper layer only the first
+		int[] lower = {5 , 5 , 5 , 5} , upper = {7 , NO_LOOKUP , NO_LOOKUP , NO_LOOKUP};
+		for(int channels = 1 ; channels <= 4 ; channels++) {
+			
+			//an identity mapping of the upper layer, whose first pixel has color 0x40 and the rest read as 0
+			int[] colors = {0x40 , 0 , 0 , 0};
+			int[] written = PixelRegions.toLookups(colors , upper , channels , color -> 9);
+			
+			assertNotEquals(NO_LOOKUP , written[0] , channels + " channels");
+			for(int i = 1 ; i < written.length ; i++) {
+				
+				assertEquals(NO_LOOKUP , written[i] , channels + " channels");
+				assertEquals(lower[i] , highest(written , lower , i) , "lower layer hidden with " + channels + " channels");
+				
+			}
+			
+		}
+		
+	}
+	
+	@Test void transparentColorsAreRemoved() {
+		
+		int[] before = {1 , 2 , NO_LOOKUP , 3};
+		int[] colors = {0x102000 , 0x1020ff , 0x0000ff , 0};
+		
+		int[] rgba = PixelRegions.toLookups(colors , before , 4 , color -> color >>> 8);
+		assertArrayEquals(new int[] {NO_LOOKUP , 0x1020 , 0 , NO_LOOKUP} , rgba);
+		
+		//without alpha, black is a color like any other unless the pixel was not modified
+		int[] rgb = PixelRegions.toLookups(colors , before , 3 , color -> color & 0xfff);
+		assertArrayEquals(new int[] {0 , 0xff , 0xff , 0} , rgb);
+		
+		//colors not read from the layer are written as given, except transparent ones
+		assertArrayEquals(new int[] {NO_LOOKUP , 0x1020 , 0 , NO_LOOKUP} , PixelRegions.toLookups(colors , null , 4 , color -> color >>> 8));
+		
+	}
+	
+	/**
+	 * Returns the lookup shown at {@code i} with {@code upper} above {@code lower}, as the highest ranking layer modifying a pixel is shown.
+	 */
+	private static int highest(int[] upper , int[] lower , int i) {
+		
+		return upper[i] != NO_LOOKUP ? upper[i] : lower[i];
+		
+	}
+	
+}
@@ -0,0 +1,144 @@
+package cs.csss.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import cs.csss.engine.LookupPixel;
+import cs.csss.project.IndexPixel;
+import cs.csss.utils.PixelTransforms.RotationMode;
+
+/**
+ * Tests {@link PixelTransforms} on small regions whose results are worked out by hand. Regions are written as rows of lookup x indices from
+ * the bottom row up, where 0 is an empty position.
+ */
+class PixelTransformsTest {
+	
+	private static final int A = 1 , B = 2 , C = 3 , D = 4;
+	
+	@Test void quarterTurnRotatesCounterclockwise() {
+		
+		int[][] source = {
+			{A , B} ,
+			{C , D}
+		};
+		
+		int[][] expected = {
+			{C , A} ,
+			{D , B}
+		};
+		
+		for(RotationMode mode : RotationMode.values()) {
+			
+			assertArrayEquals(expected , codes(PixelTransforms.rotate(region(source) , 2 , 2 , Math.PI / 2 , 2 , 2 , mode)) , mode.name());
+			
+		}
+		
+	}
+	
+	@Test void quarterTurnOfARowIsAColumn() {
+		
+		int[][] rotated = codes(PixelTransforms.rotate(region(new int[][] {{A , B , C}}) , 3 , 1 , Math.PI / 2 , 1 , 3 , RotationMode.NEAREST));
+		assertArrayEquals(new int[][] {{A} , {B} , {C}} , rotated);
+		
+	}
+	
+	@Test void positionsRotatedFromOutsideTheSourceAreEmpty() {
+		
+		int[][] rotated = codes(PixelTransforms.rotate(region(new int[][] {{A}}) , 1 , 1 , 0 , 3 , 3 , RotationMode.NEAREST));
+		assertArrayEquals(new int[][] {{0 , 0 , 0} , {0 , A , 0} , {0 , 0 , 0}} , rotated);
+		
+	}
+	
+	@Test void scale2xRoundsADiagonal() {
+		
+		int[][] source = {
+			{A , B} ,
+			{B , A}
+		};
+		
+		int[][] expected = {
+			{A , A , B , B} ,
+			{A , B , A , B} ,
+			{B , A , B , A} ,
+			{B , B , A , A}
+		};
+		
+		assertArrayEquals(expected , codes(PixelTransforms.scale(region(source) , 2 , 2 , 4 , 4)));
+		
+	}
+	
+	@Test void scale2xOfASolidRegionIsSolid() {
+		
+		int[][] scaled = codes(PixelTransforms.scale(region(new int[][] {{A , A} , {A , A}}) , 2 , 2 , 4 , 4));
+		for(int[] row : scaled) assertArrayEquals(new int[] {A , A , A , A} , row);
+		
+	}
+	
+	@Test void scale3xOfOnePixelFillsItsBlock() {
+		
+		int[][] scaled = codes(PixelTransforms.scale(region(new int[][] {{D}}) , 1 , 1 , 3 , 3));
+		assertArrayEquals(new int[][] {{D , D , D} , {D , D , D} , {D , D , D}} , scaled);
+		
+	}
+	
+	@Test void otherSizesSampleTheNearestPixel() {
+		
+		int[][] scaled = codes(PixelTransforms.scale(region(new int[][] {{A , B}}) , 2 , 1 , 3 , 1));
+		assertArrayEquals(new int[][] {{A , B , B}} , scaled);
+		
+	}
+	
+	@Test void windowsAreThePartOfTheWholeResultTheyCover() {
+		
+		LookupPixel[][] source = region(new int[][] {
+			{A , B , 0} ,
+			{C , D , A}
+		});
+		
+		int[][] whole = codes(PixelTransforms.scale(source , 3 , 2 , 6 , 4));
+		int[][] window = codes(PixelTransforms.scale(source , 3 , 2 , 6 , 4 , 1 , 2 , 4 , 2));
+		for(int row = 0 ; row < 2 ; row++) for(int col = 0 ; col < 4 ; col++) {
+			
+			assertEquals(whole[row + 2][col + 1] , window[row][col] , "row " + row + " column " + col);
+			
+		}
+		
+	}
+	
+	private static LookupPixel[][] region(int[][] codes) {
+		
+		LookupPixel[][] region = new LookupPixel[codes.length][codes[0].length];
+		for(int row = 0 ; row < codes.length ; row++) for(int col = 0 ; col < codes[row].length ; col++) {
+			
+			if(codes[row][col] != 0) region[row][col] = new IndexPixel(codes[row][col] , 0);
+			
+		}
+		
+		return region;
+		
+	}
+	
+	private static int[][] codes(IndexPixel[][] region) {
+		
+		int[][] codes = new int[region.length][];
+		for(int row = 0 ; row < region.length ; row++) {
+			
+			codes[row] = new int[region[row].length];
+			for(int col = 0 ; col < region[row].length ; col++) {
+				
+				IndexPixel pixel = region[row][col];
+				if(pixel == null) continue;
+				
+				assertEquals(0 , pixel.yIndex);
+				codes[row][col] = pixel.xIndex;
+				
+			}
+			
+		}
+		
+		return codes;
+		
+	}
+	
+}